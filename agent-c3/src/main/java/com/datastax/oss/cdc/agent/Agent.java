@@ -59,13 +59,18 @@ public class Agent {
     static void startCdcAgent(String agentArgs) throws Exception {
         log.info("Starting CDC agent, cdc_raw_directory={}", DatabaseDescriptor.getCDCLogLocation());
         AgentConfig config = AgentConfig.create(AgentConfig.Platform.PULSAR, agentArgs);
+        if (config.cdcTotalSpaceInMB < 0)
+            config.cdcTotalSpaceInMB = DatabaseDescriptor.getCDCSpaceInMB();
 
         // With C* 3.11, CL are immutable, we don't need to keep the last sent position.
         SegmentOffsetWriter segmentOffsetFileWriter = new SegmentOffsetDummyWriter(config.cdcWorkingDir);
 
         PulsarMutationSender pulsarMutationSender = new PulsarMutationSender(config);
         CommitLogTransfer commitLogTransfer = new BlackHoleCommitLogTransfer(config);
-        CommitLogReaderServiceImpl commitLogReaderService = new CommitLogReaderServiceImpl(config, pulsarMutationSender, segmentOffsetFileWriter, commitLogTransfer);
+        CommitLogReaderGroup commitLogReaderGroup = new CommitLogReaderGroup(config);
+        CdcMetrics.register(commitLogReaderGroup);
+        CdcMetrics.register(pulsarMutationSender.producers);
+        CommitLogReaderServiceImpl commitLogReaderService = new CommitLogReaderServiceImpl(config, pulsarMutationSender, segmentOffsetFileWriter, commitLogTransfer, commitLogReaderGroup);
         CommitLogProcessor commitLogProcessor = new CommitLogProcessor(DatabaseDescriptor.getCDCLogLocation(), config, commitLogTransfer, segmentOffsetFileWriter, commitLogReaderService, false);
 
         commitLogReaderService.initialize();
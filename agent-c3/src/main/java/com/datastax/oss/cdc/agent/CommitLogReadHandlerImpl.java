@@ -15,6 +15,8 @@
  */
 package com.datastax.oss.cdc.agent;
 
+import com.datastax.oss.cdc.DigestAlgorithm;
+import com.datastax.oss.cdc.MutationOperation;
 import com.datastax.oss.cdc.agent.exceptions.CassandraConnectorSchemaException;
 import com.datastax.oss.cdc.agent.exceptions.CassandraConnectorTaskException;
 import lombok.extern.slf4j.Slf4j;
@@ -26,14 +28,16 @@ import org.apache.cassandra.db.commitlog.CommitLogDescriptor;
 import org.apache.cassandra.db.commitlog.CommitLogReadHandler;
 import org.apache.cassandra.db.marshal.AbstractType;
 import org.apache.cassandra.db.partitions.PartitionUpdate;
+import org.apache.cassandra.db.rows.Cell;
+import org.apache.cassandra.db.rows.ColumnData;
 import org.apache.cassandra.db.rows.Row;
 import org.apache.cassandra.db.rows.Unfiltered;
 import org.apache.cassandra.db.rows.UnfilteredRowIterator;
-import org.apache.cassandra.io.util.DataOutputBuffer;
+import org.apache.cassandra.io.util.BufferedDataOutputStreamPlus;
 import org.apache.cassandra.service.StorageService;
 import org.apache.cassandra.utils.ByteBufferUtil;
-import org.apache.commons.codec.digest.DigestUtils;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -50,10 +54,15 @@ import static com.datastax.oss.cdc.agent.CommitLogReadHandlerImpl.RowType.DELETE
 @Slf4j
 public class CommitLogReadHandlerImpl implements CommitLogReadHandler {
 
+    private static final ThreadLocal<DigestOutput> digestOutputs = ThreadLocal.withInitial(() -> new DigestOutput(DigestAlgorithm.MD5));
+
     private final AbstractMutationMaker<CFMetaData, Mutation> mutationMaker;
     private final MutationSender<CFMetaData> mutationSender;
     private final SegmentOffsetWriter segmentOffsetWriter;
     private final CommitLogReaderService.Task task;
+    private final DigestAlgorithm digestAlgorithm;
+    private final boolean rowPayloadEnabled;
+    private final PositionWatermark processedPosition;
     private int markedPosition = 0;
 
     CommitLogReadHandlerImpl(AgentConfig config,
@@ -64,6 +73,9 @@ public class CommitLogReadHandlerImpl implements CommitLogReadHandler {
         this.mutationSender = mutationSender;
         this.mutationMaker = new MutationMaker();
         this.task = task;
+        this.digestAlgorithm = config.digestAlgorithm();
+        this.rowPayloadEnabled = config.pulsarRowPayload;
+        this.processedPosition = task.trackPositions(segmentOffsetWriter.position(Optional.empty(), task.getSegment()));
     }
 
     public int getMarkedPosition() {
@@ -231,23 +243,65 @@ public class CommitLogReadHandlerImpl implements CommitLogReadHandler {
             return;
         }
 
+        if (entryLocation < segmentOffsetWriter.position(Optional.empty(), descriptor.id)) {
+            log.debug("Mutation at {}:{} for keyspace {} already processed, skipping...",
+                    descriptor.id, entryLocation, mutation.getKeyspaceName());
+            return;
+        }
+
+        byte[] mutationDigest;
+        try {
+            mutationDigest = digest(mutation, descriptor.getMessagingVersion(), digestAlgorithm);
+        }
+        catch (Exception e) {
+            throw new RuntimeException(String.format("Failed to digest Mutation at %d:%d for keyspace %s.",
+                    descriptor.id, entryLocation, mutation.getKeyspaceName()), e);
+        }
+
+        // hold the position until all partition updates are processed
+        processedPosition.retain(entryLocation, mutation.getPartitionUpdates().size());
         for (PartitionUpdate pu : mutation.getPartitionUpdates()) {
-            if (entryLocation < segmentOffsetWriter.position(Optional.empty(), descriptor.id)) {
-                log.debug("Mutation at {}:{} for table {}.{} already processed, skipping...",
-                        descriptor.id, entryLocation, pu.metadata().ksName, pu.metadata().cfName);
-                return;
-            }
+            task.dispatch(pu.partitionKey().getToken().getTokenValue(), () -> {
+                try {
+                    process(pu, descriptor.id, entryLocation, mutationDigest);
+                }
+                catch (Exception e) {
+                    throw new RuntimeException(String.format("Failed to process PartitionUpdate %s at %d:%d for table %s.%s.",
+                            pu.toString(), descriptor.id, entryLocation, pu.metadata().ksName, pu.metadata().cfName), e);
+                }
+                processedPosition.release(entryLocation);
+            });
+        }
+    }
 
-            try {
-                DataOutputBuffer dataOutputBuffer = new DataOutputBuffer();
-                org.apache.cassandra.db.Mutation.serializer.serialize(mutation, dataOutputBuffer, descriptor.getMessagingVersion());
-                String md5Digest = DigestUtils.md5Hex(dataOutputBuffer.getData());
-                process(pu, descriptor.id, entryLocation, md5Digest);
-            }
-            catch (Exception e) {
-                throw new RuntimeException(String.format("Failed to process PartitionUpdate %s at %d:%d for table %s.%s.",
-                        pu.toString(), descriptor.id, entryLocation, pu.metadata().ksName, pu.metadata().cfName), e);
-            }
+    /**
+     * Serialize the mutation once, straight into the thread-confined digester, without any intermediate buffer.
+     * @return the mutation digest prefixed by the algorithm tag
+     */
+    static byte[] digest(org.apache.cassandra.db.Mutation mutation, int messagingVersion, DigestAlgorithm algorithm) throws IOException {
+        DigestOutput digestOutput = digestOutputs.get();
+        if (digestOutput.digester.getAlgorithm() != algorithm) {
+            digestOutput = new DigestOutput(algorithm);
+            digestOutputs.set(digestOutput);
+        }
+        // discard any leftover from a previously failed serialization
+        digestOutput.out.flush();
+        digestOutput.digester.reset();
+        org.apache.cassandra.db.Mutation.serializer.serialize(mutation, digestOutput.out, messagingVersion);
+        digestOutput.out.flush();
+        return digestOutput.digester.taggedDigest();
+    }
+
+    /**
+     * A per-thread digester and the buffered output streaming into it.
+     */
+    static class DigestOutput {
+        final MutationDigester digester;
+        final BufferedDataOutputStreamPlus out;
+
+        DigestOutput(DigestAlgorithm algorithm) {
+            this.digester = new MutationDigester(algorithm);
+            this.out = new BufferedDataOutputStreamPlus(digester, 8192);
         }
     }
 
@@ -273,7 +327,7 @@ public class CommitLogReadHandlerImpl implements CommitLogReadHandler {
      * deletion or a row-level modification) or throw an exception if it isn't. The valid partition
      * update is then converted into a {@link AbstractMutation}.
      */
-    private void process(PartitionUpdate pu, long segment, int position, String md5Digest) {
+    private void process(PartitionUpdate pu, long segment, int position, byte[] digest) {
         PartitionType partitionType = PartitionType.getPartitionType(pu);
 
         if (!PartitionType.isValid(partitionType)) {
@@ -284,7 +338,7 @@ public class CommitLogReadHandlerImpl implements CommitLogReadHandler {
         switch (partitionType) {
             case PARTITION_KEY_ROW_DELETION:
             case PARTITION_AND_CLUSTERING_KEY_ROW_DELETION: {
-                handlePartitionDeletion(pu, segment, position, md5Digest);
+                handlePartitionDeletion(pu, segment, position, digest);
             }
             break;
 
@@ -292,7 +346,7 @@ public class CommitLogReadHandlerImpl implements CommitLogReadHandler {
                 UnfilteredRowIterator it = pu.unfilteredIterator();
                 Row row = it.staticRow();
                 RowType rowType = RowType.getRowType(row);
-                handleRowModifications(row, rowType, pu, segment, position, md5Digest);
+                handleRowModifications(row, rowType, pu, segment, position, digest);
             }
             break;
 
@@ -307,7 +361,7 @@ public class CommitLogReadHandlerImpl implements CommitLogReadHandler {
                     }
                     Row row = (Row) rowOrRangeTombstone;
 
-                    handleRowModifications(row, rowType, pu, segment, position, md5Digest);
+                    handleRowModifications(row, rowType, pu, segment, position, digest);
                 }
             }
             break;
@@ -322,12 +376,13 @@ public class CommitLogReadHandlerImpl implements CommitLogReadHandler {
      * of this event into a {@link AbstractMutation} object and send it to pulsar. A valid deletion
      * event means a partition only has a single row, this implies there are no clustering keys.
      */
-    private void handlePartitionDeletion(PartitionUpdate pu, long segment, int position, String md5Digest) {
+    private void handlePartitionDeletion(PartitionUpdate pu, long segment, int position, byte[] digest) {
         try {
             Object[] after = new Object[pu.metadata().partitionKeyColumns().size() + pu.metadata().clusteringColumns().size()];
             populatePartitionColumns(after, pu);
             mutationMaker.delete(StorageService.instance.getLocalHostUUID(), segment, position,
-                    pu.maxTimestamp(), after, this::sendAsync, md5Digest, pu.metadata(), pu.partitionKey().getToken().getTokenValue());
+                    pu.maxTimestamp(), after, this::sendAsync, digest, pu.metadata(), pu.partitionKey().getToken().getTokenValue(),
+                    pu.rowCount() == 0 && pu.staticRow().isEmpty() ? MutationOperation.DELETE_PARTITION : null);
         }
         catch (Exception e) {
             log.error("Fail to send delete partition at {}:{}. Reason: {}", segment, position, e);
@@ -340,26 +395,31 @@ public class CommitLogReadHandlerImpl implements CommitLogReadHandler {
      * implies this must be an insert, update, or delete.
      */
     private void handleRowModifications(Row row, RowType rowType, PartitionUpdate pu,
-                                        long segment, int position, String md5Digest) {
+                                        long segment, int position, byte[] digest) {
         Object[] after = new Object[pu.metadata().partitionKeyColumns().size() + pu.metadata().clusteringColumns().size()];
         populatePartitionColumns(after, pu);
         populateClusteringColumns(after, row, pu);
 
         long ts = rowType == DELETE ? row.deletion().time().markedForDeleteAt() : pu.maxTimestamp();
+        String[] columns = rowType == DELETE ? null : mutatedColumns(row, pu.metadata());
+        Map<String, ByteBuffer> payload = rowPayloadEnabled && rowType != DELETE && columns == null ? rowPayload(row, pu.metadata()) : null;
         switch (rowType) {
             case INSERT:
                 mutationMaker.insert(StorageService.instance.getLocalHostUUID(), segment, position,
-                        ts, after, this::sendAsync, md5Digest, pu.metadata(), pu.partitionKey().getToken().getTokenValue());
+                        ts, after, this::sendAsync, digest, pu.metadata(), pu.partitionKey().getToken().getTokenValue(),
+                        columns, payload);
                 break;
 
             case UPDATE:
                 mutationMaker.update(StorageService.instance.getLocalHostUUID(), segment, position,
-                        ts, after, this::sendAsync, md5Digest, pu.metadata(), pu.partitionKey().getToken().getTokenValue());
+                        ts, after, this::sendAsync, digest, pu.metadata(), pu.partitionKey().getToken().getTokenValue(),
+                        columns, payload);
                 break;
 
             case DELETE:
                 mutationMaker.delete(StorageService.instance.getLocalHostUUID(), segment, position,
-                        ts, after, this::sendAsync, md5Digest, pu.metadata(), pu.partitionKey().getToken().getTokenValue());
+                        ts, after, this::sendAsync, digest, pu.metadata(), pu.partitionKey().getToken().getTokenValue(),
+                        deleteOperation(row));
                 break;
 
             default:
@@ -367,6 +427,42 @@ public class CommitLogReadHandlerImpl implements CommitLogReadHandler {
         }
     }
 
+    /**
+     * @return {@link MutationOperation#DELETE_ROW} for a row deletion writing no cell, null otherwise.
+     */
+    static MutationOperation deleteOperation(Row row) {
+        return row.primaryKeyLivenessInfo().isEmpty() && !row.iterator().hasNext() ? MutationOperation.DELETE_ROW : null;
+    }
+
+    /**
+     * @return the names of the regular or static columns mutated by the row, null when the row mutates all of them.
+     */
+    static String[] mutatedColumns(Row row, CFMetaData metadata) {
+        List<String> columns = new ArrayList<>();
+        for (ColumnData cd : row)
+            columns.add(cd.column().name.toString());
+        int tableColumns = row.isStatic() ? metadata.partitionColumns().statics.size() : metadata.partitionColumns().regulars.size();
+        return columns.size() < tableColumns ? columns.toArray(new String[columns.size()]) : null;
+    }
+
+    /**
+     * @return the CQL serialized values of the non-null columns of a row writing all the columns read back by the connector,
+     * null if the row has a non-frozen collection or if the connector would also read the static columns.
+     */
+    static Map<String, ByteBuffer> rowPayload(Row row, CFMetaData metadata) {
+        if (!row.isStatic() && !metadata.partitionColumns().statics.isEmpty())
+            return null;
+        Map<String, ByteBuffer> payload = new HashMap<>();
+        for (ColumnData cd : row) {
+            if (!cd.column().isSimple())
+                return null;
+            Cell cell = (Cell) cd;
+            if (!cell.isTombstone())
+                payload.put(cd.column().name.toString(), ByteBufferUtil.clone(cell.value()));
+        }
+        return payload;
+    }
+
     private void populatePartitionColumns(Object[] after, PartitionUpdate pu) {
         List<Object> partitionKeys = getPartitionKeys(pu);
         int  i = 0;
@@ -463,29 +559,51 @@ public class CommitLogReadHandlerImpl implements CommitLogReadHandler {
 
     public void sendAsync(Mutation mutation) {
         log.debug("Sending mutation={}", mutation);
+        boolean acquired = false;
+        long acquiredNanos = 0L;
+        long acquiredBytes = 0L;
         try {
-            task.inflightMessagesSemaphore.acquireUninterruptibly(); // may block
+            task.inflightLimiter.acquire(); // may block
+            acquired = true;
+            acquiredNanos = System.nanoTime();
+            final long estimatedSize = mutation.estimatedSize();
+            task.inflightMemoryBudget().acquire(estimatedSize); // may block
+            acquiredBytes = estimatedSize;
+            final long sendNanos = System.nanoTime();
+            processedPosition.retain(mutation.getPosition());
             this.mutationSender.sendMutationAsync(mutation)
                     .handle((msgId, t)-> {
                         if (t == null) {
                             CdcMetrics.sentMutations.inc();
                             log.debug("Sent mutation={}", mutation);
+                            processedPosition.release(mutation.getPosition());
                         } else {
                             if (t instanceof CassandraConnectorSchemaException) {
                                 log.error("Invalid primary key schema:", t);
                                 CdcMetrics.skippedMutations.inc();
+                                processedPosition.release(mutation.getPosition());
                             } else {
                                 CdcMetrics.sentErrors.inc();
                                 log.debug("Sent failed mutation=" + mutation, t);
                                 task.lastException = t;
                             }
                         }
-                        task.inflightMessagesSemaphore.release();
+                        // schema errors are not caused by the broker load
+                        task.inflightLimiter.release(System.nanoTime() - sendNanos,
+                                t != null && !(t instanceof CassandraConnectorSchemaException));
+                        task.inflightMemoryBudget().release(estimatedSize);
                         return msgId;
                     });
         } catch(Exception e) {
             log.error("Send failed:", e);
             CdcMetrics.sentErrors.inc();
+            // the send was not attempted, release what was acquired for it, the broker load is not involved
+            if (acquiredBytes > 0)
+                task.inflightMemoryBudget().release(acquiredBytes);
+            if (acquired)
+                task.inflightLimiter.release(System.nanoTime() - acquiredNanos, false);
+            // the position may have been retained and is never released, fail the task to read the mutation again
+            task.lastException = e;
         }
     }
 }
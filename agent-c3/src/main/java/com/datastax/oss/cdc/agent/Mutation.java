@@ -15,17 +15,21 @@
  */
 package com.datastax.oss.cdc.agent;
 
+import com.datastax.oss.cdc.MutationOperation;
 import org.apache.cassandra.config.CFMetaData;
 import org.apache.cassandra.config.ColumnDefinition;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public class Mutation extends AbstractMutation<CFMetaData> {
 
-    public Mutation(UUID nodeId, Long segment, int position, Object[] pkValues, long tsMicro, String md5Digest, CFMetaData t, Object token) {
-        super(nodeId, segment, position, pkValues, tsMicro, md5Digest, t, token);
+    public Mutation(UUID nodeId, Long segment, int position, Object[] pkValues, long tsMicro, byte[] digest, CFMetaData t, Object token, String[] columns, MutationOperation operation,
+                    Map<String, ByteBuffer> payload) {
+        super(nodeId, segment, position, pkValues, tsMicro, digest, t, token, columns, operation, payload);
     }
 
     @Override
@@ -22,6 +22,7 @@ import org.apache.cassandra.config.CFMetaData;
 import org.apache.cassandra.config.ColumnDefinition;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.cql3.ColumnIdentifier;
+import org.apache.cassandra.db.Keyspace;
 import org.apache.cassandra.db.marshal.AbstractType;
 import org.apache.cassandra.db.marshal.AsciiType;
 import org.apache.cassandra.db.marshal.BooleanType;
@@ -44,7 +45,10 @@ import org.apache.cassandra.db.marshal.TimestampType;
 import org.apache.cassandra.db.marshal.UTF8Type;
 import org.apache.cassandra.db.marshal.UUIDType;
 import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.gms.FailureDetector;
+import org.apache.cassandra.locator.IEndpointSnitch;
 import org.apache.cassandra.service.StorageService;
+import org.apache.cassandra.utils.FBUtilities;
 
 import java.net.InetAddress;
 import java.time.Duration;
@@ -53,7 +57,9 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Function;
 
 @Slf4j
 public class PulsarMutationSender extends AbstractPulsarMutationSender<CFMetaData> {
@@ -99,6 +105,33 @@ public class PulsarMutationSender extends AbstractPulsarMutationSender<CFMetaDat
         return avroNativeTypes.get(cql3Type);
     }
 
+    /**
+     * The primary replica is the first live replica of the partition token in the local datacenter.
+     * The liveness comes from the Cassandra failure detector, a node whose agent is down is still the primary replica.
+     * @param mutation the mutation
+     * @return true if this node is the primary replica of the mutation partition, or if it cannot be determined.
+     */
+    @Override
+    public boolean isPrimaryReplica(final AbstractMutation<CFMetaData> mutation) {
+        if (!useMurmur3Partitioner)
+            return true;
+        try {
+            IEndpointSnitch snitch = DatabaseDescriptor.getEndpointSnitch();
+            InetAddress localAddress = FBUtilities.getBroadcastAddress();
+            String localDc = snitch.getDatacenter(localAddress);
+            List<InetAddress> replicas = Keyspace.open(mutation.keyspace()).getReplicationStrategy()
+                    .getNaturalEndpoints(new Murmur3Partitioner.LongToken((Long) mutation.getToken()));
+            for (InetAddress replica : replicas) {
+                if (localDc.equals(snitch.getDatacenter(replica))
+                        && (replica.equals(localAddress) || FailureDetector.instance.isAlive(replica)))
+                    return replica.equals(localAddress);
+            }
+        } catch (Exception e) {
+            log.warn("Cannot get the primary replica of mutation {}:", mutation.key(), e);
+        }
+        return true;
+    }
+
     /**
      * Check the primary key has supported columns.
      * @param mutation
@@ -119,39 +152,47 @@ public class PulsarMutationSender extends AbstractPulsarMutationSender<CFMetaDat
 
     @Override
     public Object cqlToAvro(CFMetaData tableMetadata, String columnName, Object value) {
+        return value == null ? null : avroConverter(tableMetadata, columnName).apply(value);
+    }
+
+    @Override
+    public Function<Object, Object> avroConverter(CFMetaData tableMetadata, String columnName) {
         ColumnDefinition columnMetadata = tableMetadata.getColumnDefinition(ColumnIdentifier.getInterned(columnName, false));
         AbstractType<?> type = columnMetadata.type.isReversed() ? ((ReversedType) columnMetadata.type).baseType : columnMetadata.type;
-        log.trace("column name={} type={} class={} value={}",
-                columnMetadata.name, type.getClass().getName(),
-                value != null ? value.getClass().getName() : null, value);
-
-        if (value == null)
-            return null;
+        log.trace("column name={} type={}", columnMetadata.name, type.getClass().getName());
 
         if (type instanceof TimestampType) {
-            if (value instanceof Date)
-                return ((Date) value).getTime();
-            if (value instanceof Instant)
-                return ((Instant) value).toEpochMilli();
+            return value -> {
+                if (value instanceof Date)
+                    return ((Date) value).getTime();
+                if (value instanceof Instant)
+                    return ((Instant) value).toEpochMilli();
+                return value;
+            };
         }
-        if (type instanceof SimpleDateType && value instanceof Integer) {
-            long timeInMillis = Duration.ofDays((Integer) value + Integer.MIN_VALUE).toMillis();
-            Instant instant = Instant.ofEpochMilli(timeInMillis);
-            LocalDate localDate = LocalDateTime.ofInstant(instant, ZoneOffset.UTC).toLocalDate();
-            return (int) localDate.toEpochDay(); // Avro date is an int that stores the number of days from the unix epoch
+        if (type instanceof SimpleDateType) {
+            return value -> {
+                if (value instanceof Integer) {
+                    long timeInMillis = Duration.ofDays((Integer) value + Integer.MIN_VALUE).toMillis();
+                    Instant instant = Instant.ofEpochMilli(timeInMillis);
+                    LocalDate localDate = LocalDateTime.ofInstant(instant, ZoneOffset.UTC).toLocalDate();
+                    return (int) localDate.toEpochDay(); // Avro date is an int that stores the number of days from the unix epoch
+                }
+                return value;
+            };
         }
-        if (type instanceof TimeType && value instanceof Long) {
-            return ((Long) value / 1000); // Avro time is in microseconds
+        if (type instanceof TimeType) {
+            return value -> value instanceof Long ? (Object) ((Long) value / 1000) : value; // Avro time is in microseconds
         }
         if (type instanceof InetAddressType) {
-            return ((InetAddress) value).getHostAddress();
+            return value -> ((InetAddress) value).getHostAddress();
         }
         if (type instanceof ByteType) {
-            return Byte.toUnsignedInt((byte) value); // AVRO does not support INT8
+            return value -> Byte.toUnsignedInt((byte) value); // AVRO does not support INT8
         }
         if (type instanceof ShortType) {
-            return Short.toUnsignedInt((short) value); // AVRO does not support INT16
+            return value -> Short.toUnsignedInt((short) value); // AVRO does not support INT16
         }
-        return value;
+        return Function.identity();
     }
 }
@@ -0,0 +1,86 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.db.rows.BufferCell;
+import org.apache.cassandra.db.rows.ColumnData;
+import org.apache.cassandra.db.rows.Row;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class CommitLogReadHandlerImplTests {
+
+    static CFMetaData wideTable;
+
+    @BeforeAll
+    public static void initDatabaseDescriptor() {
+        DatabaseDescriptor.clientInitialization();
+        wideTable = CFMetaData.Builder.create("ks1", "table2")
+                .withPartitioner(Murmur3Partitioner.instance)
+                .addPartitionKey("id", Int32Type.instance)
+                .addClusteringColumn("ck", Int32Type.instance)
+                .addRegularColumn("a", Int32Type.instance)
+                .addRegularColumn("b", Int32Type.instance)
+                .addStaticColumn("s1", Int32Type.instance)
+                .addStaticColumn("s2", Int32Type.instance)
+                .build();
+    }
+
+    /**
+     * @return a row of the wide table writing the provided columns.
+     */
+    static Row row(boolean isStatic, String... columns) {
+        List<ColumnData> cells = new ArrayList<>();
+        for (String column : columns)
+            cells.add(BufferCell.live(wideTable.getColumnDefinition(ByteBufferUtil.bytes(column)), 1L, ByteBufferUtil.bytes(1)));
+        return (Row) Proxy.newProxyInstance(CommitLogReadHandlerImplTests.class.getClassLoader(),
+                new Class<?>[]{Row.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "iterator":
+                            return cells.iterator();
+                        case "isStatic":
+                            return isStatic;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @Test
+    public void testMutatedColumns() {
+        assertArrayEquals(new String[]{"a"}, CommitLogReadHandlerImpl.mutatedColumns(row(false, "a"), wideTable));
+        // all the regular columns
+        assertNull(CommitLogReadHandlerImpl.mutatedColumns(row(false, "a", "b"), wideTable));
+        // primary key only, the connector reads the full projection
+        assertArrayEquals(new String[0], CommitLogReadHandlerImpl.mutatedColumns(row(false), wideTable));
+        // static rows are compared with the static columns
+        assertArrayEquals(new String[]{"s2"}, CommitLogReadHandlerImpl.mutatedColumns(row(true, "s2"), wideTable));
+        assertNull(CommitLogReadHandlerImpl.mutatedColumns(row(true, "s1", "s2"), wideTable));
+    }
+}
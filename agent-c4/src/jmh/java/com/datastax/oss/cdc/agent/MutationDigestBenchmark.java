@@ -0,0 +1,114 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import com.datastax.oss.cdc.DigestAlgorithm;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.Mutation;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.db.partitions.PartitionUpdate;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.io.util.DataOutputBuffer;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.schema.TableMetadata;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the legacy per-PartitionUpdate mutation digest with the streaming once-per-mutation digest
+ * computed by {@link CommitLogReadHandlerImpl#digest(Mutation, int, DigestAlgorithm)}.
+ * Run with: ./gradlew agent-c4:jmh -Pjmh.profilers=gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MutationDigestBenchmark {
+
+    @Param({"1", "5", "20"})
+    public int partitionUpdates;
+
+    @Param({"64", "1024"})
+    public int valueSize;
+
+    Mutation mutation;
+
+    @Setup
+    public void setup() {
+        DatabaseDescriptor.clientInitialization();
+        DatabaseDescriptor.setPartitionerUnsafe(Murmur3Partitioner.instance);
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < valueSize; i++)
+            sb.append((char) ('a' + (i % 26)));
+        String value = sb.toString();
+
+        Mutation.PartitionUpdateCollector collector = null;
+        for (int i = 0; i < partitionUpdates; i++) {
+            TableMetadata tableMetadata = TableMetadata.builder("ks", "table" + i)
+                    .partitioner(Murmur3Partitioner.instance)
+                    .addPartitionKeyColumn("id", Int32Type.instance)
+                    .addRegularColumn("val", UTF8Type.instance)
+                    .build();
+            PartitionUpdate.SimpleBuilder builder = PartitionUpdate.simpleBuilder(tableMetadata, 1);
+            builder.row().add("val", value);
+            PartitionUpdate pu = builder.build();
+            if (collector == null)
+                collector = new Mutation.PartitionUpdateCollector("ks", pu.partitionKey());
+            collector.add(pu);
+        }
+        mutation = collector.build();
+    }
+
+    @Benchmark
+    public void legacyDigestPerPartitionUpdate(Blackhole blackhole) throws IOException {
+        for (PartitionUpdate pu : mutation.getPartitionUpdates()) {
+            DataOutputBuffer dataOutputBuffer = new DataOutputBuffer();
+            Mutation.serializer.serialize(mutation, dataOutputBuffer, MessagingService.current_version);
+            blackhole.consume(pu);
+            blackhole.consume(DigestUtils.md5Hex(dataOutputBuffer.getData()));
+        }
+    }
+
+    @Benchmark
+    public void streamingMd5DigestPerMutation(Blackhole blackhole) throws IOException {
+        streamingDigestPerMutation(blackhole, DigestAlgorithm.MD5);
+    }
+
+    @Benchmark
+    public void streamingMurmur3DigestPerMutation(Blackhole blackhole) throws IOException {
+        streamingDigestPerMutation(blackhole, DigestAlgorithm.MURMUR3_128);
+    }
+
+    void streamingDigestPerMutation(Blackhole blackhole, DigestAlgorithm algorithm) throws IOException {
+        byte[] digest = CommitLogReadHandlerImpl.digest(mutation, MessagingService.current_version, algorithm);
+        for (PartitionUpdate pu : mutation.getPartitionUpdates()) {
+            blackhole.consume(pu);
+            blackhole.consume(digest);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compare the per-segment offset files of {@link SegmentOffsetFileWriter} with the single journal of {@link SegmentOffsetJournalWriter}.
+ * Note that the journal flush is durable (fsync) while the offset file flush is not.
+ * Run with: ./gradlew agent-c4:jmh -Pjmh.includes=SegmentOffsetWriterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SegmentOffsetWriterBenchmark {
+
+    @Param({"file", "journal"})
+    public String writer;
+
+    @Param({"1", "64"})
+    public int segments;
+
+    SegmentOffsetWriter segmentOffsetWriter;
+    File dir;
+    final AtomicInteger position = new AtomicInteger();
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("offsets").toFile();
+        segmentOffsetWriter = "journal".equals(writer)
+                ? new SegmentOffsetJournalWriter(dir.getAbsolutePath())
+                : new SegmentOffsetFileWriter(dir.getAbsolutePath());
+        segmentOffsetWriter.loadOffsets();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        segmentOffsetWriter.remove(Optional.empty());
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files)
+                Files.deleteIfExists(file.toPath());
+        }
+        Files.deleteIfExists(dir.toPath());
+    }
+
+    @Benchmark
+    public void flush() throws IOException {
+        flushNext();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void concurrentFlush() throws IOException {
+        flushNext();
+    }
+
+    void flushNext() throws IOException {
+        int pos = position.incrementAndGet();
+        long segment = pos % segments;
+        segmentOffsetWriter.position(Optional.empty(), segment, pos);
+        segmentOffsetWriter.flush(Optional.empty(), segment);
+    }
+}
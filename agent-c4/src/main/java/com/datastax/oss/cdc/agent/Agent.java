@@ -59,13 +59,20 @@ public class Agent {
     static void startCdcAgent(String agentArgs) throws Exception {
         log.info("Starting CDC agent, cdc_raw_directory={}", DatabaseDescriptor.getCDCLogLocation());
         AgentConfig config = AgentConfig.create(AgentConfig.Platform.PULSAR, agentArgs);
+        if (config.cdcTotalSpaceInMB < 0)
+            config.cdcTotalSpaceInMB = DatabaseDescriptor.getCDCSpaceInMB();
 
-        SegmentOffsetFileWriter segmentOffsetFileWriter = new SegmentOffsetFileWriter(config.cdcWorkingDir);
+        SegmentOffsetWriter segmentOffsetFileWriter = config.cdcOffsetJournal
+                ? new SegmentOffsetJournalWriter(config.cdcWorkingDir)
+                : new SegmentOffsetFileWriter(config.cdcWorkingDir);
         segmentOffsetFileWriter.loadOffsets();
 
         PulsarMutationSender pulsarMutationSender = new PulsarMutationSender(config);
         CommitLogTransfer commitLogTransfer = new BlackHoleCommitLogTransfer(config);
-        CommitLogReaderServiceImpl commitLogReaderService = new CommitLogReaderServiceImpl(config, pulsarMutationSender, segmentOffsetFileWriter, commitLogTransfer);
+        CommitLogReaderGroup commitLogReaderGroup = new CommitLogReaderGroup(config);
+        CdcMetrics.register(commitLogReaderGroup);
+        CdcMetrics.register(pulsarMutationSender.producers);
+        CommitLogReaderServiceImpl commitLogReaderService = new CommitLogReaderServiceImpl(config, pulsarMutationSender, segmentOffsetFileWriter, commitLogTransfer, commitLogReaderGroup);
         CommitLogProcessor commitLogProcessor = new CommitLogProcessor(DatabaseDescriptor.getCDCLogLocation(), config, commitLogTransfer, segmentOffsetFileWriter, commitLogReaderService, true);
 
         commitLogReaderService.initialize();
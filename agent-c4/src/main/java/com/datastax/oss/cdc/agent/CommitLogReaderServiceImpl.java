@@ -20,10 +20,12 @@ import org.apache.cassandra.concurrent.JMXEnabledThreadPoolExecutor;
 import org.apache.cassandra.concurrent.NamedThreadFactory;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.commitlog.CommitLogPosition;
+import org.apache.cassandra.db.commitlog.CommitLogReadHandler;
 import org.apache.cassandra.db.commitlog.CommitLogReader;
 import org.apache.cassandra.schema.TableMetadata;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Optional;
 import java.util.concurrent.*;
 import java.util.function.IntBinaryOperator;
@@ -34,11 +36,17 @@ import java.util.function.IntBinaryOperator;
 @Slf4j
 public class CommitLogReaderServiceImpl extends CommitLogReaderService {
 
+    /**
+     * Open segment tailers, by segment id.
+     */
+    final ConcurrentMap<Long, CommitLogSegmentTailer> tailers = new ConcurrentHashMap<>();
+
     public CommitLogReaderServiceImpl(AgentConfig config,
                                       MutationSender<TableMetadata> mutationSender,
                                       SegmentOffsetWriter segmentOffsetWriter,
-                                      CommitLogTransfer commitLogTransfer) {
-        super(config, mutationSender, segmentOffsetWriter, commitLogTransfer);
+                                      CommitLogTransfer commitLogTransfer,
+                                      CommitLogReaderGroup group) {
+        super(config, mutationSender, segmentOffsetWriter, commitLogTransfer, group);
         this.tasksExecutor = new JMXEnabledThreadPoolExecutor(
                 config.cdcConcurrentProcessors == -1 ? DatabaseDescriptor.getFlushWriters() : config.cdcConcurrentProcessors,
                 config.cdcConcurrentProcessors == -1 ? DatabaseDescriptor.getFlushWriters() : config.cdcConcurrentProcessors,
@@ -56,7 +64,6 @@ public class CommitLogReaderServiceImpl extends CommitLogReaderService {
                 log.debug("Starting task={} lasSentPosition={}", this, segmentOffsetWriter.position(Optional.empty(), segment));
                 File file = getFile();
                 try {
-                    int lastSentPosition = -1;
                     if (!file.exists()) {
                         log.warn("CL file={} does not exist any more, ignoring", file.getName());
                         finish(TaskStatus.SUCCESS, -1);
@@ -67,12 +74,11 @@ public class CommitLogReaderServiceImpl extends CommitLogReaderService {
                     int currentPosition = segmentOffsetWriter.position(Optional.empty(), seg);
                     if (syncPosition >= currentPosition) {
                         CommitLogPosition minPosition = new CommitLogPosition(seg, currentPosition);
-                        CommitLogReadHandlerImpl commitLogReadHandler = new CommitLogReadHandlerImpl((MutationSender<TableMetadata>) mutationSender, this, currentPosition);
-                        CommitLogReader commitLogReader = new CommitLogReader();
-                        commitLogReader.readCommitLogSegment(commitLogReadHandler, file, minPosition, false);
-                        lastSentPosition = commitLogReadHandler.getProcessedPosition();
+                        CommitLogReadHandlerImpl commitLogReadHandler = new CommitLogReadHandlerImpl(config, (MutationSender<TableMetadata>) mutationSender, this, currentPosition);
+                        readCommitLog(segment, commitLogReadHandler, file, minPosition);
                     }
-                    finish(TaskStatus.SUCCESS, lastSentPosition);
+                    // the processed position watermark is persisted once the in-flight messages are acknowledged
+                    finish(TaskStatus.SUCCESS, -1);
                 } catch (Exception e) {
                     log.warn("Task failed {}", this, e);
                     finish(TaskStatus.ERROR, -1);
@@ -81,10 +87,62 @@ public class CommitLogReaderServiceImpl extends CommitLogReaderService {
                 }
             }
 
+            @Override
+            protected void release(boolean resumable) {
+                if (!resumable)
+                    closeTailer(segment);
+            }
+
+            @Override
+            public void cleanup(TaskStatus status) {
+                closeTailer(segment);
+                super.cleanup(status);
+            }
+
             @Override
             public File getFile() {
                 return new File(DatabaseDescriptor.getCDCLogLocation(), filename);
             }
         };
     }
+
+    /**
+     * Read the newly synced mutations of a segment with its tailer, or read the whole segment
+     * when it cannot be tailed (compressed or encrypted segment). When the tailer reaches an invalid sync marker
+     * or commitlog entry, the remaining part of the segment is read by the {@link CommitLogReader}.
+     */
+    void readCommitLog(long segment, CommitLogReadHandler commitLogReadHandler, File file, CommitLogPosition minPosition) throws IOException {
+        CommitLogSegmentTailer tailer = tailers.get(segment);
+        if (tailer == null) {
+            tailer = CommitLogSegmentTailer.open(file);
+            if (tailer != null)
+                tailers.put(segment, tailer);
+        }
+        if (tailer != null) {
+            try {
+                int sections = tailer.read(commitLogReadHandler, minPosition);
+                log.debug("Task segment={} read {} sync sections", segment, sections);
+                return;
+            } catch (CommitLogSegmentTailer.CorruptSegmentException e) {
+                log.warn("Task segment={} failed to tail the commitlog at position={}, reading the remaining segment", segment, e.position, e);
+                closeTailer(segment);
+                minPosition = new CommitLogPosition(segment, Math.max(minPosition.position, e.position));
+            }
+        }
+        CommitLogReader commitLogReader = new CommitLogReader();
+        commitLogReader.readCommitLogSegment(commitLogReadHandler, file, minPosition, false);
+    }
+
+    void closeTailer(long segment) {
+        CommitLogSegmentTailer tailer = tailers.remove(segment);
+        if (tailer != null)
+            tailer.close();
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        for (Long segment : tailers.keySet())
+            closeTailer(segment);
+    }
 }
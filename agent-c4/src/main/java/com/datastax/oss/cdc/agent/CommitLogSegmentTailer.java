@@ -0,0 +1,211 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.commitlog.CommitLogDescriptor;
+import org.apache.cassandra.db.commitlog.CommitLogPosition;
+import org.apache.cassandra.db.commitlog.CommitLogReadHandler;
+import org.apache.cassandra.db.commitlog.CommitLogReader;
+import org.apache.cassandra.io.util.FileUtils;
+import org.apache.cassandra.io.util.RandomAccessReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import static org.apache.cassandra.utils.FBUtilities.updateChecksumInt;
+
+/**
+ * Long-lived reader of an uncompressed and unencrypted commitlog segment.
+ *
+ * The segment is memory-mapped once, and each {@link #read(CommitLogReadHandler, CommitLogPosition)} call
+ * only decodes the sync sections written since the previous call, instead of re-opening the file
+ * and re-validating the header and all the sync markers on every _cdc.idx update.
+ * A tailer is confined to the task processing its segment, tasks of a segment never run concurrently.
+ */
+@Slf4j
+public class CommitLogSegmentTailer implements AutoCloseable {
+
+    static final int SYNC_MARKER_SIZE = 8;
+    static final int ENTRY_OVERHEAD_SIZE = 12;
+    static final int END_OF_SEGMENT_MARKER = 0;
+
+    final File file;
+    final CommitLogDescriptor descriptor;
+    final FileChannel channel;
+    final MutationReader mutationReader = new MutationReader();
+    final CRC32 checksum = new CRC32();
+
+    MappedByteBuffer buffer;
+    byte[] mutationBuffer = new byte[4096];
+
+    /**
+     * File offset of the next sync marker to read.
+     */
+    int nextSyncOffset;
+
+    CommitLogSegmentTailer(File file, CommitLogDescriptor descriptor, int firstSyncOffset) throws IOException {
+        this.file = file;
+        this.descriptor = descriptor;
+        this.nextSyncOffset = firstSyncOffset;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    /**
+     * Open a tailer for the provided commitlog file.
+     * @return the tailer, or null if the segment is compressed, encrypted or has an invalid header.
+     */
+    public static CommitLogSegmentTailer open(File file) throws IOException {
+        CommitLogDescriptor descriptor;
+        int firstSyncOffset;
+        try (RandomAccessReader reader = RandomAccessReader.open(file)) {
+            descriptor = CommitLogDescriptor.readHeader(reader, DatabaseDescriptor.getEncryptionContext());
+            firstSyncOffset = (int) reader.getFilePointer();
+        }
+        if (descriptor == null || descriptor.compression != null || descriptor.getEncryptionContext().isEnabled()) {
+            log.debug("CL file={} cannot be tailed, descriptor={}", file.getName(), descriptor);
+            return null;
+        }
+        return new CommitLogSegmentTailer(file, descriptor, firstSyncOffset);
+    }
+
+    /**
+     * Decode the mutations of the sync sections written since the last call.
+     * @param handler the mutation handler
+     * @param minPosition mutations up to this position are skipped without being deserialized
+     * @return the number of decoded sync sections
+     */
+    public int read(CommitLogReadHandler handler, CommitLogPosition minPosition) throws IOException {
+        if (channel.size() > buffer.capacity()) {
+            FileUtils.clean(buffer);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int sections = 0;
+        int end;
+        while ((end = readSyncMarker(nextSyncOffset)) != -1) {
+            if (end > minPosition.position)
+                readSection(handler, nextSyncOffset + SYNC_MARKER_SIZE, end, minPosition);
+            nextSyncOffset = end;
+            sections++;
+        }
+        return sections;
+    }
+
+    /**
+     * @return the end of the sync section starting at offset, or -1 if not yet synced.
+     */
+    int readSyncMarker(int offset) throws IOException {
+        if (offset > buffer.capacity() - SYNC_MARKER_SIZE)
+            return -1;
+        checksum.reset();
+        updateChecksumInt(checksum, (int) (descriptor.id & 0xFFFFFFFFL));
+        updateChecksumInt(checksum, (int) (descriptor.id >>> 32));
+        updateChecksumInt(checksum, offset);
+        int end = buffer.getInt(offset);
+        long fileCrc = buffer.getInt(offset + 4) & 0xffffffffL;
+        if (checksum.getValue() != fileCrc) {
+            if (end != 0 || fileCrc != 0)
+                throw new CorruptSegmentException(offset, String.format("Encountered bad header at position %d of commit log %s, with invalid CRC",
+                        offset, file.getName()));
+            return -1;
+        }
+        if (end < offset || end > buffer.capacity())
+            throw new CorruptSegmentException(offset, String.format("Encountered bad header at position %d of commit log %s, with bad position but valid CRC",
+                    offset, file.getName()));
+        return end;
+    }
+
+    /**
+     * Decode the mutations of a sync section, the commitlog entry layout is:
+     * [size][size crc32][serialized mutation][mutation crc32]
+     */
+    void readSection(CommitLogReadHandler handler, int start, int end, CommitLogPosition minPosition) throws IOException {
+        int position = start;
+        while (end - position >= 4) {
+            int serializedSize = buffer.getInt(position);
+            if (serializedSize == END_OF_SEGMENT_MARKER)
+                return;
+
+            int entryLocation = position + ENTRY_OVERHEAD_SIZE + serializedSize;
+            if (serializedSize < 10 || entryLocation > end || entryLocation < 0)
+                throw new CorruptSegmentException(position, String.format("Invalid mutation size %d at %d in %s", serializedSize, position, file.getName()));
+            if (entryLocation <= minPosition.position) {
+                // already processed, skip without checking nor deserializing
+                position = entryLocation;
+                continue;
+            }
+
+            checksum.reset();
+            updateChecksumInt(checksum, serializedSize);
+            if (checksum.getValue() != (buffer.getInt(position + 4) & 0xffffffffL))
+                throw new CorruptSegmentException(position, String.format("Mutation size checksum failure at %d in %s", position, file.getName()));
+
+            if (serializedSize > mutationBuffer.length)
+                mutationBuffer = new byte[(int) (1.2 * serializedSize)];
+            ByteBuffer input = buffer.duplicate();
+            input.position(position + 8);
+            input.get(mutationBuffer, 0, serializedSize);
+            checksum.update(mutationBuffer, 0, serializedSize);
+            if (checksum.getValue() != (buffer.getInt(position + 8 + serializedSize) & 0xffffffffL))
+                throw new CorruptSegmentException(position, String.format("Mutation checksum failure at %d in %s", position, file.getName()));
+
+            mutationReader.readMutation(handler, mutationBuffer, serializedSize, minPosition, entryLocation, descriptor);
+            position = entryLocation;
+        }
+    }
+
+    @Override
+    public void close() {
+        FileUtils.clean(buffer);
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close CL file={}", file.getName(), e);
+        }
+    }
+
+    /**
+     * Thrown when the tailer reaches an invalid sync marker or commitlog entry. Mutations before the position
+     * have been handled, the remaining part of the segment should be read with the {@link CommitLogReader}
+     * which applies the commitlog error handling policy.
+     */
+    public static class CorruptSegmentException extends IOException {
+        public final int position;
+
+        public CorruptSegmentException(int position, String message) {
+            super(message);
+            this.position = position;
+        }
+    }
+
+    /**
+     * Expose the mutation deserialization of the {@link CommitLogReader}.
+     */
+    static class MutationReader extends CommitLogReader {
+        @Override
+        protected void readMutation(CommitLogReadHandler handler, byte[] inputBuffer, int size, CommitLogPosition minPosition,
+                                    int entryLocation, CommitLogDescriptor desc) throws IOException {
+            super.readMutation(handler, inputBuffer, size, minPosition, entryLocation, desc);
+        }
+    }
+}
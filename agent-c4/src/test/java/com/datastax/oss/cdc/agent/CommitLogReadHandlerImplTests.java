@@ -0,0 +1,226 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.db.rows.BufferCell;
+import org.apache.cassandra.db.rows.ColumnData;
+import org.apache.cassandra.db.rows.Row;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class CommitLogReadHandlerImplTests {
+
+    static TableMetadata table;
+    static TableMetadata wideTable;
+
+    @BeforeAll
+    public static void initDatabaseDescriptor() {
+        DatabaseDescriptor.clientInitialization();
+        table = TableMetadata.builder("ks1", "table1")
+                .partitioner(Murmur3Partitioner.instance)
+                .addPartitionKeyColumn("id", Int32Type.instance)
+                .addRegularColumn("a", Int32Type.instance)
+                .build();
+        wideTable = TableMetadata.builder("ks1", "table2")
+                .partitioner(Murmur3Partitioner.instance)
+                .addPartitionKeyColumn("id", Int32Type.instance)
+                .addClusteringColumn("ck", Int32Type.instance)
+                .addRegularColumn("a", Int32Type.instance)
+                .addRegularColumn("b", Int32Type.instance)
+                .addStaticColumn("s1", Int32Type.instance)
+                .addStaticColumn("s2", Int32Type.instance)
+                .build();
+    }
+
+    /**
+     * @return a row of the wide table writing the provided columns.
+     */
+    static Row row(boolean isStatic, String... columns) {
+        List<ColumnData> cells = new ArrayList<>();
+        for (String column : columns)
+            cells.add(BufferCell.live(wideTable.getColumn(ByteBufferUtil.bytes(column)), 1L, ByteBufferUtil.bytes(1)));
+        return (Row) Proxy.newProxyInstance(CommitLogReadHandlerImplTests.class.getClassLoader(),
+                new Class<?>[]{Row.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "iterator":
+                            return cells.iterator();
+                        case "isStatic":
+                            return isStatic;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @Test
+    public void testMutatedColumns() {
+        assertArrayEquals(new String[]{"a"}, CommitLogReadHandlerImpl.mutatedColumns(row(false, "a"), wideTable));
+        // all the regular columns
+        assertNull(CommitLogReadHandlerImpl.mutatedColumns(row(false, "a", "b"), wideTable));
+        // primary key only, the connector reads the full projection
+        assertArrayEquals(new String[0], CommitLogReadHandlerImpl.mutatedColumns(row(false), wideTable));
+        // static rows are compared with the static columns
+        assertArrayEquals(new String[]{"s2"}, CommitLogReadHandlerImpl.mutatedColumns(row(true, "s2"), wideTable));
+        assertNull(CommitLogReadHandlerImpl.mutatedColumns(row(true, "s1", "s2"), wideTable));
+    }
+
+    /**
+     * Keep the offsets in memory.
+     */
+    static class MemorySegmentOffsetWriter implements SegmentOffsetWriter {
+        final Map<Long, Integer> offsets = new HashMap<>();
+
+        @Override
+        public int position(Optional<UUID> nodeId, long segmentId) {
+            return offsets.getOrDefault(segmentId, 0);
+        }
+
+        @Override
+        public void position(Optional<UUID> nodeId, long segmentId, int position) {
+            offsets.put(segmentId, position);
+        }
+
+        @Override
+        public void flush(Optional<UUID> nodeId, long segmentId) {
+        }
+
+        @Override
+        public void loadOffsets() {
+        }
+
+        @Override
+        public void remove(Optional<UUID> nodeId, long segmentId) {
+            offsets.remove(segmentId);
+        }
+
+        @Override
+        public void remove(Optional<UUID> nodeId) {
+            offsets.clear();
+        }
+    }
+
+    static Mutation mutation(int position) {
+        return new Mutation(UUID.randomUUID(), 1L, position, new Object[]{position}, 1L, new byte[16], table, 0L,
+                null, null, null);
+    }
+
+    @Test
+    public void testSynchronousSendFailureRetriesTask() {
+        AgentConfig config = new AgentConfig();
+        config.cdcConcurrentProcessors = 1;
+        MemorySegmentOffsetWriter offsetWriter = new MemorySegmentOffsetWriter();
+        RuntimeException sendFailure = new RuntimeException("producer closed");
+        MutationSender<TableMetadata> sender = mutation -> {
+            if (mutation.getPosition() == 200)
+                throw sendFailure;
+            return CompletableFuture.completedFuture(null);
+        };
+        CommitLogReaderServiceImpl service = new CommitLogReaderServiceImpl(config, sender, offsetWriter, null, new CommitLogReaderGroup(config));
+        try {
+            CommitLogReaderService.Task task = service.new Task("CommitLog-7-1.log", 1L, 300, false) {
+                @Override
+                public File getFile() {
+                    return new File(filename);
+                }
+
+                @Override
+                public void run() {
+                }
+            };
+            service.addPendingTask(task);
+            CommitLogReadHandlerImpl handler = new CommitLogReadHandlerImpl(config, sender, task, 0);
+            handler.sendAsync(mutation(100));
+            handler.sendAsync(mutation(200));
+            handler.sendAsync(mutation(300));
+
+            // the slot and bytes are released, the position of the failed send is never acknowledged
+            assertEquals(0, task.inflightLimiter.getInflight());
+            assertEquals(0L, task.inflightMemoryBudget().getUsedBytes());
+            assertSame(sendFailure, task.lastException);
+            assertEquals(100, handler.getProcessedPosition());
+
+            // the task is retried instead of persisting the sent position
+            task.finish(CommitLogReaderService.TaskStatus.SUCCESS, handler.getProcessedPosition());
+            assertSame(task, service.scheduler.running(1L));
+            assertFalse(offsetWriter.offsets.containsKey(1L));
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    public void testFinishPersistsAcknowledgedPosition() throws Exception {
+        AgentConfig config = new AgentConfig();
+        config.cdcConcurrentProcessors = 1;
+        MemorySegmentOffsetWriter offsetWriter = new MemorySegmentOffsetWriter();
+        List<CompletableFuture<Object>> sends = new ArrayList<>();
+        MutationSender<TableMetadata> sender = mutation -> {
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            sends.add(future);
+            return future;
+        };
+        CommitLogReaderServiceImpl service = new CommitLogReaderServiceImpl(config, sender, offsetWriter, null, new CommitLogReaderGroup(config));
+        try {
+            CommitLogReaderService.Task task = service.new Task("CommitLog-7-1.log", 1L, 200, false) {
+                @Override
+                public File getFile() {
+                    return new File(filename);
+                }
+
+                @Override
+                public void run() {
+                }
+            };
+            service.addPendingTask(task);
+            CommitLogReadHandlerImpl handler = new CommitLogReadHandlerImpl(config, sender, task, 0);
+            handler.sendAsync(mutation(100));
+            handler.sendAsync(mutation(200));
+            assertEquals(0, handler.getProcessedPosition());
+
+            // the position is read once the in-flight messages are acknowledged
+            Thread finisher = new Thread(() -> task.finish(CommitLogReaderService.TaskStatus.SUCCESS, -1));
+            finisher.start();
+            sends.forEach(future -> future.complete(null));
+            finisher.join(10000);
+            assertFalse(finisher.isAlive());
+            assertEquals(200, offsetWriter.offsets.get(1L));
+        } finally {
+            service.close();
+        }
+    }
+}
@@ -0,0 +1,346 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.config.ParameterizedClass;
+import org.apache.cassandra.config.TransparentDataEncryptionOptions;
+import org.apache.cassandra.db.Mutation;
+import org.apache.cassandra.db.commitlog.CommitLogDescriptor;
+import org.apache.cassandra.db.commitlog.CommitLogPosition;
+import org.apache.cassandra.db.commitlog.CommitLogReadHandler;
+import org.apache.cassandra.db.commitlog.CommitLogReader;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.db.partitions.PartitionUpdate;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.io.compress.LZ4Compressor;
+import org.apache.cassandra.io.util.DataOutputBuffer;
+import org.apache.cassandra.schema.KeyspaceMetadata;
+import org.apache.cassandra.schema.KeyspaceParams;
+import org.apache.cassandra.schema.Schema;
+import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.schema.Tables;
+import org.apache.cassandra.security.EncryptionContext;
+import org.apache.cassandra.security.KeyProvider;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.apache.cassandra.utils.FBUtilities.updateChecksumInt;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CommitLogSegmentTailerTests {
+
+    static final String CIPHER = "AES/CBC/PKCS5Padding";
+    static final String KEY_ALIAS = "testing:1";
+
+    static TableMetadata table;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    public static void initSchema() {
+        DatabaseDescriptor.clientInitialization();
+        // client initialization leaves the commitlog settings used to deserialize mutations unset
+        DatabaseDescriptor.getRawConfig().max_mutation_size_in_kb = 16 * 1024;
+        // commitlog encryption is disabled, the key provider reads the context of encrypted segment headers
+        DatabaseDescriptor.setEncryptionContext(new EncryptionContext(new TransparentDataEncryptionOptions(false, CIPHER, KEY_ALIAS,
+                new ParameterizedClass(TestKeyProvider.class.getName(), Collections.emptyMap()))));
+        table = TableMetadata.builder("ks1", "table1")
+                .partitioner(Murmur3Partitioner.instance)
+                .addPartitionKeyColumn("id", Int32Type.instance)
+                .addRegularColumn("a", Int32Type.instance)
+                .build();
+        Schema.instance.load(KeyspaceMetadata.create("ks1", KeyspaceParams.simple(1), Tables.of(table)));
+    }
+
+    public static class TestKeyProvider implements KeyProvider {
+        public TestKeyProvider(TransparentDataEncryptionOptions options) {
+        }
+
+        @Override
+        public Key getSecretKey(String alias) {
+            return new SecretKeySpec(new byte[16], "AES");
+        }
+    }
+
+    /**
+     * Writes an uncompressed commitlog segment the way the Cassandra commitlog does, one sync section at a time.
+     */
+    static class SegmentWriter {
+        final File file;
+        final CommitLogDescriptor descriptor;
+        final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        /**
+         * File offset of the sync marker of the section being written.
+         */
+        int syncOffset;
+
+        SegmentWriter(File file, CommitLogDescriptor descriptor, Map<String, String> additionalHeaders) {
+            this.file = file;
+            this.descriptor = descriptor;
+            CommitLogDescriptor.writeHeader(buffer, descriptor, additionalHeaders);
+            syncOffset = buffer.position();
+            buffer.position(syncOffset + CommitLogSegmentTailer.SYNC_MARKER_SIZE);
+        }
+
+        SegmentWriter(File file, long id) {
+            this(file, new CommitLogDescriptor(id, null, new EncryptionContext()), Collections.emptyMap());
+        }
+
+        /**
+         * @return the entry location of the mutation, the commitlog position following the mutation.
+         */
+        int add(Mutation mutation) throws IOException {
+            byte[] serialized;
+            try (DataOutputBuffer out = new DataOutputBuffer()) {
+                Mutation.serializer.serialize(mutation, out, descriptor.getMessagingVersion());
+                serialized = out.toByteArray();
+            }
+            CRC32 checksum = new CRC32();
+            updateChecksumInt(checksum, serialized.length);
+            buffer.putInt(serialized.length);
+            buffer.putInt((int) checksum.getValue());
+            checksum.update(serialized, 0, serialized.length);
+            buffer.put(serialized);
+            buffer.putInt((int) checksum.getValue());
+            return buffer.position();
+        }
+
+        /**
+         * Write the sync marker of the current section and the file up to the next, not yet synced, marker.
+         * @return the file offset of the section sync marker
+         */
+        int sync() throws IOException {
+            int end = buffer.position();
+            CRC32 checksum = new CRC32();
+            updateChecksumInt(checksum, (int) (descriptor.id & 0xFFFFFFFFL));
+            updateChecksumInt(checksum, (int) (descriptor.id >>> 32));
+            updateChecksumInt(checksum, syncOffset);
+            buffer.putInt(syncOffset, end);
+            buffer.putInt(syncOffset + 4, (int) checksum.getValue());
+            int marker = syncOffset;
+            syncOffset = end;
+            buffer.position(end + CommitLogSegmentTailer.SYNC_MARKER_SIZE);
+            write();
+            return marker;
+        }
+
+        /**
+         * Flip a bit of the file at the provided offset.
+         */
+        void corrupt(int offset) throws IOException {
+            buffer.put(offset, (byte) (buffer.get(offset) ^ 1));
+            write();
+        }
+
+        void write() throws IOException {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.write(buffer.array(), 0, buffer.position());
+            }
+        }
+    }
+
+    /**
+     * Records the entry locations of the handled mutations and the reported errors, unrecoverable errors are
+     * rethrown as the Cassandra commitlog replayer does, the commitlog reader retries the section otherwise.
+     */
+    static class RecordingHandler implements CommitLogReadHandler {
+        final List<Integer> positions = new ArrayList<>();
+        final List<CommitLogReadException> errors = new ArrayList<>();
+
+        @Override
+        public boolean shouldSkipSegmentOnError(CommitLogReadException exception) {
+            errors.add(exception);
+            return false;
+        }
+
+        @Override
+        public void handleUnrecoverableError(CommitLogReadException exception) throws IOException {
+            errors.add(exception);
+            throw exception;
+        }
+
+        @Override
+        public void handleMutation(Mutation mutation, int size, int entryLocation, CommitLogDescriptor descriptor) {
+            positions.add(entryLocation);
+        }
+    }
+
+    static Mutation mutation(int id) {
+        PartitionUpdate.SimpleBuilder builder = PartitionUpdate.simpleBuilder(table, id).timestamp(id);
+        builder.row().add("a", id);
+        return builder.buildAsMutation();
+    }
+
+    File segmentFile(long id) {
+        return new File(tempDir.toFile(), "CommitLog-7-" + id + ".log");
+    }
+
+    static CommitLogPosition position(long segment, int position) {
+        return new CommitLogPosition(segment, position);
+    }
+
+    @Test
+    public void testTailSyncSections() throws IOException {
+        SegmentWriter writer = new SegmentWriter(segmentFile(1), 1);
+        int p1 = writer.add(mutation(1));
+        int p2 = writer.add(mutation(2));
+        writer.sync();
+
+        try (CommitLogSegmentTailer tailer = CommitLogSegmentTailer.open(writer.file)) {
+            assertNotNull(tailer);
+            RecordingHandler handler = new RecordingHandler();
+            assertEquals(1, tailer.read(handler, position(1, 0)));
+            assertEquals(Arrays.asList(p1, p2), handler.positions);
+
+            // nothing synced since the last read
+            assertEquals(0, tailer.read(handler, position(1, 0)));
+            assertEquals(Arrays.asList(p1, p2), handler.positions);
+
+            // the file grows, only the new sections are decoded
+            int p3 = writer.add(mutation(3));
+            writer.sync();
+            int p4 = writer.add(mutation(4));
+            writer.sync();
+            assertEquals(2, tailer.read(handler, position(1, 0)));
+            assertEquals(Arrays.asList(p1, p2, p3, p4), handler.positions);
+            assertTrue(handler.errors.isEmpty());
+
+            // the Cassandra commitlog reader reads the same mutations
+            RecordingHandler readerHandler = new RecordingHandler();
+            new CommitLogReader().readCommitLogSegment(readerHandler, writer.file, position(1, 0), false);
+            assertEquals(handler.positions, readerHandler.positions);
+        }
+    }
+
+    @Test
+    public void testMinPosition() throws IOException {
+        SegmentWriter writer = new SegmentWriter(segmentFile(2), 2);
+        writer.add(mutation(1));
+        writer.add(mutation(2));
+        writer.sync();
+        int p3 = writer.add(mutation(3));
+        int p4 = writer.add(mutation(4));
+        writer.sync();
+
+        try (CommitLogSegmentTailer tailer = CommitLogSegmentTailer.open(writer.file)) {
+            RecordingHandler handler = new RecordingHandler();
+            // the first section and the first mutation of the second section are skipped
+            assertEquals(2, tailer.read(handler, position(2, p3)));
+            assertEquals(Collections.singletonList(p4), handler.positions);
+        }
+    }
+
+    @Test
+    public void testCorruptEntryFallback() throws IOException {
+        testFallback(3, false);
+    }
+
+    @Test
+    public void testCorruptSyncMarkerFallback() throws IOException {
+        testFallback(4, true);
+    }
+
+    /**
+     * Corrupt the second sync section of a segment, the mutations of the first section are handled by the tailer,
+     * and the remaining part of the segment is read by the Cassandra commitlog reader applying the error policy.
+     * @param corruptMarker true to corrupt the sync marker CRC, false to corrupt the CRC of the first entry
+     */
+    void testFallback(long segment, boolean corruptMarker) throws IOException {
+        AgentConfig config = new AgentConfig();
+        config.cdcConcurrentProcessors = 1;
+        CommitLogReaderServiceImpl service = new CommitLogReaderServiceImpl(config, mutation -> null,
+                new CommitLogReadHandlerImplTests.MemorySegmentOffsetWriter(), null, new CommitLogReaderGroup(config));
+        try {
+            SegmentWriter writer = new SegmentWriter(segmentFile(segment), segment);
+            int p1 = writer.add(mutation(1));
+            writer.sync();
+            writer.add(mutation(2));
+            int marker = writer.sync();
+            int entry = marker + CommitLogSegmentTailer.SYNC_MARKER_SIZE;
+            // flip a bit of the marker CRC, or of the entry serialized size CRC
+            writer.corrupt(corruptMarker ? marker + 4 : entry + 4);
+
+            // the tailer alone stops at the corrupted section
+            try (CommitLogSegmentTailer tailer = CommitLogSegmentTailer.open(writer.file)) {
+                RecordingHandler handler = new RecordingHandler();
+                CommitLogSegmentTailer.CorruptSegmentException e = assertThrows(CommitLogSegmentTailer.CorruptSegmentException.class,
+                        () -> tailer.read(handler, position(segment, 0)));
+                assertEquals(Collections.singletonList(p1), handler.positions);
+                assertEquals(corruptMarker ? marker : entry, e.position);
+            }
+
+            RecordingHandler handler = new RecordingHandler();
+            if (corruptMarker) {
+                // the commitlog reader reports a bad sync marker as an unrecoverable error
+                assertThrows(CommitLogReadHandler.CommitLogReadException.class,
+                        () -> service.readCommitLog(segment, handler, writer.file, position(segment, 0)));
+            } else {
+                service.readCommitLog(segment, handler, writer.file, position(segment, 0));
+            }
+            // the first mutation is not handled again by the commitlog reader, which reports the corruption
+            assertEquals(Collections.singletonList(p1), handler.positions);
+            assertFalse(handler.errors.isEmpty());
+            assertNull(service.tailers.get(segment));
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    public void testCompressedSegmentNotTailed() throws IOException {
+        File file = segmentFile(5);
+        SegmentWriter writer = new SegmentWriter(file,
+                new CommitLogDescriptor(5, new ParameterizedClass(LZ4Compressor.class.getName(), Collections.emptyMap()), new EncryptionContext()),
+                Collections.emptyMap());
+        writer.sync();
+        assertNull(CommitLogSegmentTailer.open(file));
+    }
+
+    @Test
+    public void testEncryptedSegmentNotTailed() throws IOException {
+        File file = segmentFile(6);
+        Map<String, String> encryptionHeaders = new HashMap<>();
+        encryptionHeaders.put(EncryptionContext.ENCRYPTION_CIPHER, CIPHER);
+        encryptionHeaders.put(EncryptionContext.ENCRYPTION_KEY_ALIAS, KEY_ALIAS);
+        SegmentWriter writer = new SegmentWriter(file, new CommitLogDescriptor(6, null, new EncryptionContext()), encryptionHeaders);
+        writer.sync();
+        assertNull(CommitLogSegmentTailer.open(file));
+    }
+}
@@ -34,21 +34,32 @@ public class CdcMetrics {
 
     public static final Counter executedTasks = Metrics.counter(factory.createMetricName("ExecutedTasks"));
 
-    public static final Gauge<Integer> submittedTasksGauge = Metrics.register(factory.createMetricName("SubmittedTasks"),
-            CommitLogReaderService.submittedTasks::size);
+    /**
+     * Register the gauges of the commitlog reader services of the agent.
+     */
+    public static void register(CommitLogReaderGroup group) {
+        Metrics.register(factory.createMetricName("SubmittedTasks"), (Gauge<Integer>) group::submittedTasks);
+        Metrics.register(factory.createMetricName("MaxSubmittedTasks"), (Gauge<Integer>) group::maxSubmittedTasks);
+        Metrics.register(factory.createMetricName("PendingTasks"), (Gauge<Integer>) group::pendingTasks);
+        Metrics.register(factory.createMetricName("MaxPendingTasks"), (Gauge<Integer>) group::maxPendingTasks);
+        Metrics.register(factory.createMetricName("UncleanedTasks"), (Gauge<Integer>) group::pendingTasks);
+        Metrics.register(factory.createMetricName("MaxUncleanedTasks"), (Gauge<Integer>) group::maxUncleanedTasks);
+        Metrics.register(factory.createMetricName("DetectionLatency"), (Gauge<Long>) group::detectionLatency);
+        Metrics.register(factory.createMetricName("CatchUpMode"), (Gauge<Integer>) group::catchUpServices);
+        Metrics.register(factory.createMetricName("BacklogSegments"), (Gauge<Integer>) group::backlogSegments);
+        Metrics.register(factory.createMetricName("InflightLimit"), (Gauge<Integer>) group::inflightLimit);
+        Metrics.register(factory.createMetricName("InflightBytes"), (Gauge<Long>) group::inflightBytes);
+        Metrics.register(factory.createMetricName("InflightBytesAvailable"), (Gauge<Long>) group::inflightBytesAvailable);
+        Metrics.register(factory.createMetricName("CdcRawUsedBytes"), (Gauge<Long>) group::cdcRawUsedBytes);
+        Metrics.register(factory.createMetricName("CdcRawHeadroomBytes"), (Gauge<Long>) group::cdcRawHeadroomBytes);
+        Metrics.register(factory.createMetricName("CdcRawTimeToFull"), (Gauge<Long>) group::cdcRawTimeToFull);
+    }
 
-    public static final Gauge<Integer> maxSubmittedTasks = Metrics.register(factory.createMetricName("MaxSubmittedTasks"),
-            CommitLogReaderService.maxSubmittedTasks::get);
-
-    public static final Gauge<Integer> pendingTasksGauge = Metrics.register(factory.createMetricName("PendingTasks"),
-            CommitLogReaderService.pendingTasks::size);
-
-    public static final Gauge<Integer> maxPendingTasks = Metrics.register(factory.createMetricName("MaxPendingTasks"),
-            CommitLogReaderService.maxPendingTasks::get);
-
-    public static final Gauge<Integer> uncleanedTasksGauge = Metrics.register(factory.createMetricName("UncleanedTasks"),
-            CommitLogReaderService.pendingTasks::size);
-
-    public static final Gauge<Integer> maxUncleanedTasks = Metrics.register(factory.createMetricName("MaxUncleanedTasks"),
-            CommitLogReaderService.maxUncleanedTasks::get);
+    /**
+     * Register the gauges of the producers of the agent.
+     */
+    public static void register(ProducerCache<?> producers) {
+        Metrics.register(factory.createMetricName("LiveProducers"), (Gauge<Integer>) producers::getLiveProducers);
+        Metrics.register(factory.createMetricName("EvictedProducers"), (Gauge<Long>) producers::getEvictedProducers);
+    }
 }
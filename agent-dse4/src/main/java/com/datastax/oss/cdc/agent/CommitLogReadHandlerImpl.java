@@ -15,6 +15,8 @@
  */
 package com.datastax.oss.cdc.agent;
 
+import com.datastax.oss.cdc.DigestAlgorithm;
+import com.datastax.oss.cdc.MutationOperation;
 import com.datastax.oss.cdc.agent.exceptions.CassandraConnectorSchemaException;
 import com.datastax.oss.cdc.agent.exceptions.CassandraConnectorTaskException;
 import lombok.extern.slf4j.Slf4j;
@@ -24,15 +26,15 @@ import org.apache.cassandra.db.commitlog.CommitLogDescriptor;
 import org.apache.cassandra.db.commitlog.CommitLogReadHandler;
 import org.apache.cassandra.db.marshal.AbstractType;
 import org.apache.cassandra.db.partitions.PartitionUpdate;
+import org.apache.cassandra.db.rows.Cell;
+import org.apache.cassandra.db.rows.ColumnData;
 import org.apache.cassandra.db.rows.Row;
 import org.apache.cassandra.db.rows.Unfiltered;
 import org.apache.cassandra.db.rows.UnfilteredRowIterator;
-import org.apache.cassandra.io.util.DataInputBuffer;
 import org.apache.cassandra.schema.ColumnMetadata;
 import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.service.StorageService;
 import org.apache.cassandra.utils.ByteBufferUtil;
-import org.apache.commons.codec.digest.DigestUtils;
 
 import java.nio.ByteBuffer;
 import java.util.*;
@@ -51,11 +53,19 @@ import static com.datastax.oss.cdc.agent.CommitLogReadHandlerImpl.RowType.DELETE
 public class CommitLogReadHandlerImpl implements CommitLogReadHandler {
 
     private final AbstractMutationMaker<TableMetadata, Mutation> mutationMaker;
+    private static final ThreadLocal<MutationDigester> digesters = ThreadLocal.withInitial(MutationDigester::new);
+
     private final BlockingConsumer<Mutation> blockingConsumer;
+    private final DigestAlgorithm digestAlgorithm;
+    private final boolean rowPayloadEnabled;
+    private final PositionWatermark processedPosition;
 
-    public CommitLogReadHandlerImpl(BlockingConsumer<Mutation> blockingConsumer) {
+    public CommitLogReadHandlerImpl(AgentConfig config, BlockingConsumer<Mutation> blockingConsumer, PositionWatermark processedPosition) {
         this.mutationMaker = new MutationMaker();
         this.blockingConsumer = blockingConsumer;
+        this.processedPosition = processedPosition;
+        this.digestAlgorithm = config.digestAlgorithm();
+        this.rowPayloadEnabled = config.pulsarRowPayload;
     }
 
     /**
@@ -224,15 +234,24 @@ public class CommitLogReadHandlerImpl implements CommitLogReadHandler {
             return;
         }
 
+        // the commitlog entry is already serialized, digest it once for all partition updates.
+        MutationDigester digester = digesters.get();
+        if (digester.getAlgorithm() != digestAlgorithm) {
+            digester = new MutationDigester(digestAlgorithm);
+            digesters.set(digester);
+        }
+        byte[] digest = digester.taggedDigest(inputBuffer, 0, size);
+        // hold the position until all partition updates are processed
+        processedPosition.retain(entryLocation, mutation.getPartitionUpdates().size());
         for (PartitionUpdate pu : mutation.getPartitionUpdates()) {
             try {
-                String md5Digest = DigestUtils.md5Hex(new DataInputBuffer(inputBuffer, 0, size));
-                process(pu, descriptor.id, entryLocation, md5Digest);
+                process(pu, descriptor.id, entryLocation, digest);
             }
             catch (Exception e) {
                 throw new RuntimeException(String.format("Failed to process PartitionUpdate %s at %d:%d for table %s.%s.",
                         pu.toString(), descriptor.id, entryLocation, pu.metadata().keyspace, pu.metadata().name), e);
             }
+            processedPosition.release(entryLocation);
         }
     }
 
@@ -258,7 +277,7 @@ public class CommitLogReadHandlerImpl implements CommitLogReadHandler {
      * deletion or a row-level modification) or throw an exception if it isn't. The valid partition
      * update is then converted into a {@link AbstractMutation}.
      */
-    private void process(PartitionUpdate pu, long segment, int position, String md5Digest) {
+    private void process(PartitionUpdate pu, long segment, int position, byte[] digest) {
         PartitionType partitionType = PartitionType.getPartitionType(pu);
 
         if (!PartitionType.isValid(partitionType)) {
@@ -269,7 +288,7 @@ public class CommitLogReadHandlerImpl implements CommitLogReadHandler {
         switch (partitionType) {
             case PARTITION_AND_CLUSTERING_KEY_ROW_DELETION:
             case PARTITION_KEY_ROW_DELETION: {
-                handlePartitionDeletion(pu, segment, position, md5Digest);
+                handlePartitionDeletion(pu, segment, position, digest);
             }
             break;
 
@@ -277,7 +296,7 @@ public class CommitLogReadHandlerImpl implements CommitLogReadHandler {
                 UnfilteredRowIterator it = pu.unfilteredIterator();
                 Row row = it.staticRow();
                 RowType rowType = RowType.getRowType(row);
-                handleRowModifications(row, rowType, pu, segment, position, md5Digest);
+                handleRowModifications(row, rowType, pu, segment, position, digest);
             }
             break;
 
@@ -291,7 +310,7 @@ public class CommitLogReadHandlerImpl implements CommitLogReadHandler {
                         continue;
                     }
                     Row row = (Row) rowOrRangeTombstone;
-                    handleRowModifications(row, rowType, pu, segment, position, md5Digest);
+                    handleRowModifications(row, rowType, pu, segment, position, digest);
                 }
             }
             break;
@@ -313,12 +332,13 @@ public class CommitLogReadHandlerImpl implements CommitLogReadHandler {
      * of this event into a {@link AbstractMutation} object and send it to pulsar. A valid deletion
      * event means a partition only has a single row, this implies there are no clustering keys.
      */
-    private void handlePartitionDeletion(PartitionUpdate pu, long segment, int position, String md5Digest) {
+    private void handlePartitionDeletion(PartitionUpdate pu, long segment, int position, byte[] digest) {
         try {
             Object[] after = new Object[pu.metadata().partitionKeyColumns().size() + pu.metadata().clusteringColumns().size()];
             populatePartitionColumns(after, pu);
             mutationMaker.delete(getHostId(), segment, position,
-                    pu.maxTimestamp(), after, blockingConsumer, md5Digest, pu.metadata(), pu.partitionKey().getToken().getTokenValue());
+                    pu.maxTimestamp(), after, blockingConsumer, digest, pu.metadata(), pu.partitionKey().getToken().getTokenValue(),
+                    pu.rowCount() == 0 && pu.staticRow().isEmpty() ? MutationOperation.DELETE_PARTITION : null);
         }
         catch (Exception e) {
             log.error("Fail to send delete partition at {}:{}. Reason: {}", segment, position, e);
@@ -330,26 +350,31 @@ public class CommitLogReadHandlerImpl implements CommitLogReadHandler {
      * this event into a {@link AbstractMutation} object and sent it to pulsar. A valid event
      * implies this must be an insert, update, or delete.
      */
-    private void handleRowModifications(Row row, RowType rowType, PartitionUpdate pu, long segment, int position, String md5Digest) {
+    private void handleRowModifications(Row row, RowType rowType, PartitionUpdate pu, long segment, int position, byte[] digest) {
         Object[] after = new Object[pu.metadata().partitionKeyColumns().size() + pu.metadata().clusteringColumns().size()];
         populatePartitionColumns(after, pu);
         populateClusteringColumns(after, row, pu);
 
         long ts = rowType == DELETE ? row.deletion().time().markedForDeleteAt() : pu.maxTimestamp();
+        String[] columns = rowType == DELETE ? null : mutatedColumns(row, pu.metadata());
+        Map<String, ByteBuffer> payload = rowPayloadEnabled && rowType != DELETE && columns == null ? rowPayload(row, pu.metadata()) : null;
         switch (rowType) {
             case INSERT:
                 mutationMaker.insert(getHostId(), segment, position,
-                        ts, after, blockingConsumer, md5Digest, pu.metadata(), pu.partitionKey().getToken().getTokenValue());
+                        ts, after, blockingConsumer, digest, pu.metadata(), pu.partitionKey().getToken().getTokenValue(),
+                        columns, payload);
                 break;
 
             case UPDATE:
                 mutationMaker.update(getHostId(), segment, position,
-                        ts, after, blockingConsumer, md5Digest, pu.metadata(), pu.partitionKey().getToken().getTokenValue());
+                        ts, after, blockingConsumer, digest, pu.metadata(), pu.partitionKey().getToken().getTokenValue(),
+                        columns, payload);
                 break;
 
             case DELETE:
                 mutationMaker.delete(getHostId(), segment, position,
-                        ts, after, blockingConsumer, md5Digest, pu.metadata(), pu.partitionKey().getToken().getTokenValue());
+                        ts, after, blockingConsumer, digest, pu.metadata(), pu.partitionKey().getToken().getTokenValue(),
+                        deleteOperation(row));
                 break;
 
             default:
@@ -357,6 +382,42 @@ public class CommitLogReadHandlerImpl implements CommitLogReadHandler {
         }
     }
 
+    /**
+     * @return {@link MutationOperation#DELETE_ROW} for a row deletion writing no cell, null otherwise.
+     */
+    static MutationOperation deleteOperation(Row row) {
+        return row.primaryKeyLivenessInfo().isEmpty() && !row.iterator().hasNext() ? MutationOperation.DELETE_ROW : null;
+    }
+
+    /**
+     * @return the names of the regular or static columns mutated by the row, null when the row mutates all of them.
+     */
+    static String[] mutatedColumns(Row row, TableMetadata metadata) {
+        List<String> columns = new ArrayList<>();
+        for (ColumnData cd : row)
+            columns.add(cd.column().name.toString());
+        int tableColumns = row.isStatic() ? metadata.staticColumns().size() : metadata.regularColumns().size();
+        return columns.size() < tableColumns ? columns.toArray(new String[columns.size()]) : null;
+    }
+
+    /**
+     * @return the CQL serialized values of the non-null columns of a row writing all the columns read back by the connector,
+     * null if the row has a non-frozen collection or if the connector would also read the static columns.
+     */
+    static Map<String, ByteBuffer> rowPayload(Row row, TableMetadata metadata) {
+        if (!row.isStatic() && !metadata.staticColumns().isEmpty())
+            return null;
+        Map<String, ByteBuffer> payload = new HashMap<>();
+        for (ColumnData cd : row) {
+            if (!cd.column().isSimple())
+                return null;
+            Cell cell = (Cell) cd;
+            if (!cell.isTombstone())
+                payload.put(cd.column().name.toString(), ByteBufferUtil.clone(cell.value()));
+        }
+        return payload;
+    }
+
     private void populatePartitionColumns(Object[] after, PartitionUpdate pu) {
         List<Object> partitionKeys = getPartitionKeys(pu);
         int i = 0;
@@ -37,8 +37,9 @@ public class CommitLogReaderServiceImpl extends CommitLogReaderService {
     public CommitLogReaderServiceImpl(AgentConfig config,
                                       MutationSender<TableMetadata> mutationSender,
                                       SegmentOffsetWriter segmentOffsetWriter,
-                                      CommitLogTransfer commitLogTransfer) {
-        super(config, mutationSender, segmentOffsetWriter, commitLogTransfer);
+                                      CommitLogTransfer commitLogTransfer,
+                                      CommitLogReaderGroup group) {
+        super(config, mutationSender, segmentOffsetWriter, commitLogTransfer, group);
         this.tasksExecutor = JMXEnabledThreadPoolExecutor.createAndPrestart(
                 config.cdcConcurrentProcessors == -1 ? DatabaseDescriptor.getFlushWriters() : config.cdcConcurrentProcessors,
                 1, TimeUnit.MINUTES,
@@ -52,6 +53,7 @@ public class CommitLogReaderServiceImpl extends CommitLogReaderService {
         return new Task(filename, segment, syncPosition, completed) {
             CommitLogReadHandlerImpl commitLogReadHandlerImpl;
             int maxPosition = 0;
+            PositionWatermark sentPosition;
 
             public void run() {
                 log.debug("Starting task={} lasSentPosition={}", this, segmentOffsetWriter.position(Optional.empty(), segment));
@@ -65,7 +67,8 @@ public class CommitLogReaderServiceImpl extends CommitLogReaderService {
                     long seg = CommitLogUtil.extractTimestamp(file.getName());
                     int currentPosition = segmentOffsetWriter.position(Optional.empty(), seg);
                     if (syncPosition > currentPosition) {
-                        commitLogReadHandlerImpl = new CommitLogReadHandlerImpl(this::sendAsync);
+                        sentPosition = trackPositions(currentPosition);
+                        commitLogReadHandlerImpl = new CommitLogReadHandlerImpl(config, this::sendAsync, sentPosition);
                         CommitLogPosition minPosition = new CommitLogPosition(seg, currentPosition);
                         CommitLogReader commitLogReader = new CommitLogReader();
                         commitLogReader.readCommitLogSegment(commitLogReadHandlerImpl, file, minPosition, false);
@@ -86,24 +89,40 @@ public class CommitLogReaderServiceImpl extends CommitLogReaderService {
 
             public CompletableFuture<?> sendAsync(AbstractMutation<TableMetadata> mutation) {
                 log.debug("Sending mutation={}", mutation);
+                boolean acquired = false;
+                long acquiredNanos = 0L;
+                long acquiredBytes = 0L;
                 try {
-                    inflightMessagesSemaphore.acquireUninterruptibly(); // may block
+                    inflightLimiter.acquire(); // may block
+                    acquired = true;
+                    acquiredNanos = System.nanoTime();
+                    final long estimatedSize = mutation.estimatedSize();
+                    inflightMemoryBudget().acquire(estimatedSize); // may block
+                    acquiredBytes = estimatedSize;
+                    final long sendNanos = System.nanoTime();
+                    final PositionWatermark watermark = sentPosition;
+                    watermark.retain(mutation.getPosition());
                     CompletableFuture<?> future = ((MutationSender<TableMetadata>) mutationSender).sendMutationAsync(mutation)
                             .handle((msgId, t)-> {
                                 if (t == null) {
                                     CdcMetrics.sentMutations.inc();
                                     log.debug("Sent mutation={}", mutation);
+                                    watermark.release(mutation.getPosition());
                                 } else {
                                     if (t instanceof CassandraConnectorSchemaException) {
                                         log.error("Invalid primary key schema:", t);
                                         CdcMetrics.skippedMutations.inc();
+                                        watermark.release(mutation.getPosition());
                                     } else {
                                         CdcMetrics.sentErrors.inc();
                                         log.debug("Sent failed mutation=" + mutation, t);
                                         lastException = t;
                                     }
                                 }
-                                inflightMessagesSemaphore.release();
+                                // schema errors are not caused by the broker load
+                                inflightLimiter.release(System.nanoTime() - sendNanos,
+                                        t != null && !(t instanceof CassandraConnectorSchemaException));
+                                inflightMemoryBudget().release(estimatedSize);
                                 return msgId;
                             });
                     maxPosition = Math.max(maxPosition, mutation.getPosition());
@@ -111,6 +130,13 @@ public class CommitLogReaderServiceImpl extends CommitLogReaderService {
                 } catch(Exception e) {
                     log.error("Send failed:", e);
                     CdcMetrics.sentErrors.inc();
+                    // the send was not attempted, release what was acquired for it, the broker load is not involved
+                    if (acquiredBytes > 0)
+                        inflightMemoryBudget().release(acquiredBytes);
+                    if (acquired)
+                        inflightLimiter.release(System.nanoTime() - acquiredNanos, false);
+                    // the position may have been retained and is never released, fail the task to read the mutation again
+                    lastException = e;
                     CompletableFuture<?> future = new CompletableFuture<>();
                     future.completeExceptionally(e);
                     return future;
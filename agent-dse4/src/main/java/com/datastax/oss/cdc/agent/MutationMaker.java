@@ -15,10 +15,13 @@
  */
 package com.datastax.oss.cdc.agent;
 
+import com.datastax.oss.cdc.MutationOperation;
 import com.datastax.oss.cdc.agent.exceptions.CassandraConnectorTaskException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.cassandra.schema.TableMetadata;
 
+import java.nio.ByteBuffer;
+import java.util.Map;
 import java.util.UUID;
 
 @Slf4j
@@ -27,8 +30,9 @@ public class MutationMaker extends AbstractMutationMaker<TableMetadata, Mutation
     public void createRecord(UUID nodeId, long segment, int position,
                              long tsMicro, Object[] pkValues,
                              BlockingConsumer<Mutation> consumer,
-                             String md5Digest, TableMetadata t, Object token) {
-        Mutation record = new Mutation(nodeId, segment, position, pkValues, tsMicro, md5Digest, t, token);
+                             byte[] digest, TableMetadata t, Object token, String[] columns,
+                             MutationOperation operation, Map<String, ByteBuffer> payload) {
+        Mutation record = new Mutation(nodeId, segment, position, pkValues, tsMicro, digest, t, token, columns, operation, payload);
         try {
             consumer.accept(record);
         } catch (InterruptedException e) {
@@ -54,6 +54,7 @@ import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.Date;
 import java.util.UUID;
+import java.util.function.Function;
 
 @Slf4j
 public class PulsarMutationSender extends AbstractPulsarMutationSender<TableMetadata> {
@@ -124,39 +125,47 @@ public class PulsarMutationSender extends AbstractPulsarMutationSender<TableMeta
 
     @Override
     public Object cqlToAvro(TableMetadata tableMetadata, String columnName, Object value) {
+        return value == null ? null : avroConverter(tableMetadata, columnName).apply(value);
+    }
+
+    @Override
+    public Function<Object, Object> avroConverter(TableMetadata tableMetadata, String columnName) {
         ColumnMetadata columnMetadata = tableMetadata.getColumn(ColumnIdentifier.getInterned(columnName, false));
         AbstractType<?> type = columnMetadata.type.isReversed() ? ((ReversedType) columnMetadata.type).baseType : columnMetadata.type;
-        log.trace("column name={} type={} class={} value={}",
-                columnMetadata.name, type.getClass().getName(),
-                value != null ? value.getClass().getName() : null, value);
-
-        if (value == null)
-            return null;
+        log.trace("column name={} type={}", columnMetadata.name, type.getClass().getName());
 
         if (type instanceof TimestampType) {
-            if (value instanceof Date)
-                return ((Date) value).getTime();
-            if (value instanceof Instant)
-                return ((Instant) value).toEpochMilli();
+            return value -> {
+                if (value instanceof Date)
+                    return ((Date) value).getTime();
+                if (value instanceof Instant)
+                    return ((Instant) value).toEpochMilli();
+                return value;
+            };
         }
-        if (type instanceof SimpleDateType && value instanceof Integer) {
-            long timeInMillis = Duration.ofDays((Integer) value + Integer.MIN_VALUE).toMillis();
-            Instant instant = Instant.ofEpochMilli(timeInMillis);
-            LocalDate localDate = LocalDateTime.ofInstant(instant, ZoneOffset.UTC).toLocalDate();
-            return (int) localDate.toEpochDay(); // Avro date is an int that stores the number of days from the unix epoch
+        if (type instanceof SimpleDateType) {
+            return value -> {
+                if (value instanceof Integer) {
+                    long timeInMillis = Duration.ofDays((Integer) value + Integer.MIN_VALUE).toMillis();
+                    Instant instant = Instant.ofEpochMilli(timeInMillis);
+                    LocalDate localDate = LocalDateTime.ofInstant(instant, ZoneOffset.UTC).toLocalDate();
+                    return (int) localDate.toEpochDay(); // Avro date is an int that stores the number of days from the unix epoch
+                }
+                return value;
+            };
         }
-        if (type instanceof TimeType && value instanceof Long) {
-            return ((Long) value / 1000); // Avro time is in microseconds
+        if (type instanceof TimeType) {
+            return value -> value instanceof Long ? (Object) ((Long) value / 1000) : value; // Avro time is in microseconds
         }
         if (type instanceof InetAddressType) {
-            return ((InetAddress) value).getHostAddress();
+            return value -> ((InetAddress) value).getHostAddress();
         }
         if (type instanceof ByteType) {
-            return Byte.toUnsignedInt((byte) value); // AVRO does not support INT8
+            return value -> Byte.toUnsignedInt((byte) value); // AVRO does not support INT8
         }
         if (type instanceof ShortType) {
-            return Short.toUnsignedInt((short) value); // AVRO does not support INT16
+            return value -> Short.toUnsignedInt((short) value); // AVRO does not support INT16
         }
-        return value;
+        return Function.identity();
     }
 }
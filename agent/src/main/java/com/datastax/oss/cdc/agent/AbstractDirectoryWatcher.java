@@ -18,55 +18,232 @@ package com.datastax.oss.cdc.agent;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Wrapper class around WatchService
+ * Wrapper class around WatchService, backed by an adaptive directory scan.
+ *
+ * Native file system events (inotify) are processed as soon as they are received, but some file systems
+ * (overlay, network) drop events and the JDK falls back to a slow polling WatchService when native events are not available.
+ * The directory is also scanned for modified files: the scan interval drops to the minimum poll interval when the scan
+ * detects changes not reported by native events, and doubles up to the maximum poll interval when the directory is idle.
+ * File system events are always reported, because a rewrite of the same size may keep the last modification time
+ * on file systems with a coarse timestamp granularity, and the processing of the commitlog files skips the already sent
+ * positions. The scan only reports the changes not already reported by an event, and the files existing when the watcher
+ * is created are not reported by the scan.
  */
 @Slf4j
 public abstract class AbstractDirectoryWatcher {
 
     private final WatchService watchService;
-    private final Duration pollInterval;
+    private final Duration minPollInterval;
+    private final Duration maxPollInterval;
     private final Path directory;
     private final Set<WatchEvent.Kind<Path>> kinds;
 
+    /**
+     * False when the JDK WatchService polls the file system instead of receiving native events.
+     */
+    private final boolean nativeEvents;
+
+    /**
+     * Last known modification time and size of the watched files.
+     */
+    private final Map<Path, FileState> fileStates = new HashMap<>();
+
+    private long pollIntervalMs;
+    private long nextScanTimeMs;
+    private boolean eventsSinceLastScan = false;
+
     public AbstractDirectoryWatcher(Path directory, Duration pollInterval, Set<WatchEvent.Kind<Path>> kinds) throws IOException {
-        this(FileSystems.getDefault().newWatchService(), directory, pollInterval, kinds);
+        this(directory, pollInterval, pollInterval, kinds);
+    }
+
+    public AbstractDirectoryWatcher(Path directory, Duration minPollInterval, Duration maxPollInterval, Set<WatchEvent.Kind<Path>> kinds) throws IOException {
+        this(FileSystems.getDefault().newWatchService(), directory, minPollInterval, maxPollInterval, kinds);
     }
 
-    AbstractDirectoryWatcher(WatchService watchService, Path directory, Duration pollInterval, Set<WatchEvent.Kind<Path>> kinds) throws IOException {
+    AbstractDirectoryWatcher(WatchService watchService, Path directory, Duration minPollInterval, Duration maxPollInterval, Set<WatchEvent.Kind<Path>> kinds) throws IOException {
         this.watchService = watchService;
-        this.pollInterval = pollInterval;
+        this.minPollInterval = minPollInterval;
+        this.maxPollInterval = maxPollInterval;
         this.directory = directory;
         this.kinds = kinds;
+        this.nativeEvents = !watchService.getClass().getName().endsWith("PollingWatchService");
+        this.pollIntervalMs = minPollInterval.toMillis();
+        this.nextScanTimeMs = System.currentTimeMillis() + pollIntervalMs;
 
         directory.register(watchService, kinds.toArray(new WatchEvent.Kind<?>[kinds.size()]));
+        snapshot();
+        log.info("Watching directory={} nativeEvents={} minPollInterval={} maxPollInterval={}",
+                directory, nativeEvents, minPollInterval, maxPollInterval);
     }
 
     public void poll() throws InterruptedException, IOException {
-        WatchKey key = watchService.poll(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        long timeout = nextScanTimeMs - System.currentTimeMillis();
+        WatchKey key = timeout > 0 ? watchService.poll(timeout, TimeUnit.MILLISECONDS) : watchService.poll();
 
         if (key != null) {
             for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    log.debug("Watch events lost in directory={}, scanning", directory);
+                    nextScanTimeMs = 0;
+                    continue;
+                }
                 Path relativePath = (Path) event.context();
                 Path absolutePath = directory.resolve(relativePath);
 
-                if (kinds.contains(event.kind())) {
-                    log.debug("Detected new commitlog file={}", absolutePath);
-                    handleEvent(event, absolutePath);
+                if (kinds.contains(event.kind()) && accept(absolutePath)) {
+                    eventsSinceLastScan = true;
+                    onEvent(event.kind(), absolutePath);
                 }
             }
             key.reset();
         }
+
+        if (System.currentTimeMillis() >= nextScanTimeMs) {
+            boolean changed = scan();
+            if (changed || (eventsSinceLastScan && !nativeEvents)) {
+                pollIntervalMs = minPollInterval.toMillis();
+            } else {
+                pollIntervalMs = Math.min(maxPollInterval.toMillis(), Math.max(1L, pollIntervalMs * 2));
+            }
+            eventsSinceLastScan = false;
+            nextScanTimeMs = System.currentTimeMillis() + pollIntervalMs;
+        }
     }
 
-    abstract void handleEvent(WatchEvent<?> event, Path path) throws IOException;
+    /**
+     * Handle a file system event and record the file state, so that the directory scan does not report this change again.
+     * @return true if the event was handled, false if the file does not exist any more
+     */
+    boolean onEvent(WatchEvent.Kind<?> kind, Path path) throws IOException {
+        FileState fileState = FileState.of(path);
+        if (fileState == null) {
+            fileStates.remove(path);
+            if (kind != StandardWatchEventKinds.ENTRY_DELETE)
+                return false;
+        } else {
+            fileStates.put(path, fileState);
+        }
+        log.debug("Detected modified commitlog file={}", path);
+        handleEvent(kind, path);
+        return true;
+    }
+
+    /**
+     * Record the state of the accepted files without reporting them, the caller processes the existing files.
+     * @return the accepted files of the directory
+     */
+    List<Path> snapshot() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        fileStates.clear();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                if (!accept(path))
+                    continue;
+                FileState fileState = FileState.of(path);
+                if (fileState == null)
+                    continue;
+                paths.add(path);
+                fileStates.put(path, fileState);
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Scan the directory for the accepted files created or modified since the last known state.
+     * @return true if some changes were not reported by file system events
+     */
+    boolean scan() throws IOException {
+        boolean changed = false;
+        Set<Path> paths = new HashSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                if (!accept(path))
+                    continue;
+                FileState fileState = FileState.of(path);
+                if (fileState == null)
+                    continue;
+                paths.add(path);
+                FileState previousState = fileStates.put(path, fileState);
+                if (!fileState.equals(previousState)) {
+                    log.debug("Detected modified commitlog file={} by scanning", path);
+                    changed = true;
+                    handleEvent(previousState == null ? StandardWatchEventKinds.ENTRY_CREATE : StandardWatchEventKinds.ENTRY_MODIFY, path);
+                }
+            }
+        }
+        fileStates.keySet().retainAll(paths);
+        return changed;
+    }
+
+    long pollIntervalMs() {
+        return pollIntervalMs;
+    }
+
+    /**
+     * @param path a file of the watched directory
+     * @return true if the file is watched
+     */
+    boolean accept(Path path) {
+        return true;
+    }
+
+    abstract void handleEvent(WatchEvent.Kind<?> kind, Path path) throws IOException;
+
+    static class FileState {
+        final FileTime lastModifiedTime;
+        final long size;
+
+        FileState(FileTime lastModifiedTime, long size) {
+            this.lastModifiedTime = lastModifiedTime;
+            this.size = size;
+        }
+
+        /**
+         * @return the file state, or null if the file does not exist any more.
+         */
+        static FileState of(Path path) throws IOException {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                return new FileState(attributes.lastModifiedTime(), attributes.size());
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            FileState fileState = (FileState) o;
+            return size == fileState.size && lastModifiedTime.equals(fileState.lastModifiedTime);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(lastModifiedTime, size);
+        }
+    }
 }
@@ -15,10 +15,14 @@
  */
 package com.datastax.oss.cdc.agent;
 
+import com.datastax.oss.cdc.DigestAlgorithm;
+import com.datastax.oss.cdc.MutationOperation;
 import com.datastax.oss.cdc.MutationValue;
 import lombok.*;
 
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -30,21 +34,88 @@ import java.util.UUID;
 @ToString
 @EqualsAndHashCode
 public abstract class AbstractMutation<T> implements TableInfo {
+    /**
+     * Estimated heap size of a mutation without its variable length fields, including the message being sent.
+     */
+    static final int BASE_SIZE = 256;
+    static final int OBJECT_SIZE = 16;
     private UUID nodeId;
     private long segment;
     private int position;
     private Object[] pkValues;
     private long ts;
-    private String md5Digest;
+    /**
+     * Mutation digest prefixed by the {@link DigestAlgorithm} tag.
+     */
+    private byte[] digest;
     protected T metadata;
     private Object token;
+    /**
+     * Regular or static columns of the mutated row, null when all columns are mutated.
+     */
+    private String[] columns;
+    /**
+     * The mutation operation, null when unknown.
+     */
+    private MutationOperation operation;
+    /**
+     * CQL serialized values of the non-null columns when the mutation writes all the columns, null otherwise.
+     */
+    private Map<String, ByteBuffer> payload;
 
     public abstract String key();
     public abstract String name();
     public abstract String keyspace();
     public abstract List<ColumnInfo> primaryKeyColumns();
 
-    public MutationValue mutationValue() {
-        return new MutationValue(md5Digest, nodeId, null);
+    /**
+     * @return the estimated heap bytes held by this mutation until its message is acknowledged.
+     */
+    public long estimatedSize() {
+        long size = BASE_SIZE;
+        if (digest != null)
+            size += digest.length;
+        if (pkValues != null) {
+            for (Object value : pkValues)
+                size += estimatedSize(value);
+        }
+        if (columns != null) {
+            for (String column : columns)
+                size += estimatedSize(column);
+        }
+        if (payload != null) {
+            for (Map.Entry<String, ByteBuffer> entry : payload.entrySet())
+                size += estimatedSize(entry.getKey()) + estimatedSize(entry.getValue());
+        }
+        return size;
+    }
+
+    static long estimatedSize(Object value) {
+        if (value instanceof ByteBuffer)
+            return OBJECT_SIZE + ((ByteBuffer) value).remaining();
+        if (value instanceof byte[])
+            return OBJECT_SIZE + ((byte[]) value).length;
+        if (value instanceof CharSequence)
+            return OBJECT_SIZE + 2L * ((CharSequence) value).length();
+        return OBJECT_SIZE;
+    }
+
+    /**
+     * @param hexDigest when true, send the legacy hexadecimal MD5 digest rather than the binary digest.
+     * @return the mutation value
+     */
+    public MutationValue mutationValue(boolean hexDigest) {
+        return hexDigest
+                ? new MutationValue(DigestAlgorithm.toMd5Hex(digest), nodeId, columns, null, null, null, null, operation, payload)
+                : new MutationValue(null, nodeId, columns, digest, null, null, null, operation, payload);
+    }
+
+    /**
+     * @param hexDigest when true, send the legacy hexadecimal MD5 digest rather than the binary digest.
+     * @return the mutation value carrying the writetime, segment and position instead of the message properties.
+     */
+    public MutationValue compactMutationValue(boolean hexDigest) {
+        return new MutationValue(hexDigest ? DigestAlgorithm.toMd5Hex(digest) : null, nodeId, columns,
+                hexDigest ? null : digest, ts, segment, position, operation, payload);
     }
 }
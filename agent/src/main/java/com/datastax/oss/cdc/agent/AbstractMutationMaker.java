@@ -15,8 +15,11 @@
  */
 package com.datastax.oss.cdc.agent;
 
+import com.datastax.oss.cdc.MutationOperation;
 import lombok.NoArgsConstructor;
 
+import java.nio.ByteBuffer;
+import java.util.Map;
 import java.util.UUID;
 
 @NoArgsConstructor
@@ -24,23 +27,27 @@ public abstract class AbstractMutationMaker<T, M> {
 
     public void insert(UUID node, long segment, int position,
                        long tsMicro, Object[] pkValues, BlockingConsumer<M> consumer,
-                       String md5Digest, T t, Object token) {
-        createRecord(node, segment, position, tsMicro, pkValues, consumer, md5Digest, t, token);
+                       byte[] digest, T t, Object token, String[] columns, Map<String, ByteBuffer> payload) {
+        createRecord(node, segment, position, tsMicro, pkValues, consumer, digest, t, token, columns, MutationOperation.INSERT, payload);
     }
 
     public void update(UUID node, long segment, int position,
                        long tsMicro, Object[] pkValues, BlockingConsumer<M> consumer,
-                       String md5Digest, T t, Object token) {
-        createRecord(node, segment, position, tsMicro, pkValues, consumer, md5Digest, t, token);
+                       byte[] digest, T t, Object token, String[] columns, Map<String, ByteBuffer> payload) {
+        createRecord(node, segment, position, tsMicro, pkValues, consumer, digest, t, token, columns, MutationOperation.UPDATE, payload);
     }
 
+    /**
+     * @param operation the delete operation, or null when the mutation also writes data for the deleted primary key.
+     */
     public void delete(UUID node, long segment, int position,
                        long tsMicro, Object[] pkValues, BlockingConsumer<M> consumer,
-                       String md5Digest, T t, Object token) {
-        createRecord(node, segment, position, tsMicro, pkValues, consumer, md5Digest, t, token);
+                       byte[] digest, T t, Object token, MutationOperation operation) {
+        createRecord(node, segment, position, tsMicro, pkValues, consumer, digest, t, token, null, operation, null);
     }
 
     public abstract void createRecord(UUID nodeId, long segment, int position,
                               long tsMicro, Object[] pkValues, BlockingConsumer<M> consumer,
-                              String md5Digest, T t, Object token);
+                              byte[] digest, T t, Object token, String[] columns,
+                              MutationOperation operation, Map<String, ByteBuffer> payload);
 }
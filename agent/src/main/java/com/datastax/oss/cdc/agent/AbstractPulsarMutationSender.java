@@ -44,6 +44,7 @@ import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 @Slf4j
 public abstract class AbstractPulsarMutationSender<T> implements MutationSender<T>, AutoCloseable {
@@ -66,23 +67,84 @@ public abstract class AbstractPulsarMutationSender<T> implements MutationSender<
     }
 
     volatile PulsarClient client;
-    final Map<String, Producer<KeyValue<byte[], MutationValue>>> producers = new ConcurrentHashMap<>();
+    final ProducerCache<Producer<KeyValue<byte[], MutationValue>>> producers;
     final Map<String, SchemaAndWriter> pkSchemas = new ConcurrentHashMap<>();
+    final Map<String, AvroKeyWriter<T>> keyWriters = new ConcurrentHashMap<>();
 
     final AgentConfig config;
     final boolean useMurmur3Partitioner;
+    final boolean hexDigest;
+    final boolean compactMetadata;
+    final ProducerProfile defaultProducerProfile;
+    final Map<String, ProducerProfile> producerProfiles;
+    final ProducerProfile catchUpProducerProfile;
+    /**
+     * True when the producers are created with the catch-up producer profile.
+     */
+    volatile boolean catchUp = false;
+    final TopicMapper topicMapper;
+    final StandbyLog<AbstractMutation<T>> standbyLog;
 
     public AbstractPulsarMutationSender(AgentConfig config, boolean useMurmur3Partitioner) {
         this.config = config;
         this.useMurmur3Partitioner = useMurmur3Partitioner;
+        this.hexDigest = config.isHexDigest();
+        this.compactMetadata = config.pulsarCompactMetadata;
+        this.defaultProducerProfile = config.defaultProducerProfile();
+        this.producerProfiles = config.producerProfiles();
+        this.catchUpProducerProfile = config.catchUpProducerProfile();
+        this.topicMapper = config.topicMapper();
+        this.producers = new ProducerCache<>(config.pulsarMaxProducers, config.pulsarProducerIdleTimeoutMs,
+                producer -> producer.flushAsync().thenCompose(x -> producer.closeAsync()),
+                this::onProducerEvicted);
+        this.standbyLog = config.cdcPrimaryReplicaOnly
+                ? new StandbyLog<>(config.cdcStandbyLogSize, config.cdcStandbyLogRetentionMs)
+                : null;
+    }
+
+    /**
+     * Release the primary key schemas and writers of the tables whose producer was evicted, rebuilt on the next mutation.
+     * @param topicName the evicted producer topic
+     */
+    void onProducerEvicted(String topicName) {
+        pkSchemas.keySet().removeIf(key -> topicName.equals(topicName(key)));
+        keyWriters.keySet().removeIf(key -> topicName.equals(topicName(key)));
+    }
+
+    /**
+     * @param key the table key
+     * @return the table events topic name
+     */
+    String topicName(String key) {
+        int i = key.indexOf('.');
+        return topicMapper.topicName(key.substring(0, i), key.substring(i + 1));
     }
 
     public abstract Schema getNativeSchema(String cql3Type);
     public abstract Object cqlToAvro(T t, String columnName, Object value);
+
+    /**
+     * Resolve once the conversion of a CQL column value to its AVRO value.
+     * @param t the table metadata
+     * @param columnName the column name
+     * @return the converter of non-null column values
+     */
+    public Function<Object, Object> avroConverter(T t, String columnName) {
+        return value -> cqlToAvro(t, columnName, value);
+    }
     public abstract boolean isSupported(AbstractMutation<T> mutation);
     public abstract void incSkippedMutations();
     public abstract UUID getHostId();
 
+    /**
+     * When {@link AgentConfig#cdcPrimaryReplicaOnly} is true, only the primary replica publishes a mutation.
+     * @param mutation the mutation
+     * @return true if this node is the primary replica of the mutation partition, or if it cannot be determined.
+     */
+    public boolean isPrimaryReplica(AbstractMutation<T> mutation) {
+        return true;
+    }
+
     public SchemaAndWriter getPkSchema(String key) {
         return pkSchemas.get(key);
     }
@@ -142,18 +204,52 @@ public abstract class AbstractPulsarMutationSender<T> implements MutationSender<
      * @return avroSchema of the table primary key
      */
     public SchemaAndWriter getAvroKeySchema(final TableInfo tableInfo) {
-        return pkSchemas.computeIfAbsent(tableInfo.key(), k -> {
-            List<Schema.Field> fields = new ArrayList<>();
-            for (ColumnInfo cm : tableInfo.primaryKeyColumns()) {
-                org.apache.avro.Schema.Field field = new org.apache.avro.Schema.Field(cm.name(), getNativeSchema(cm.cql3Type()));
-                if (cm.isClusteringKey()) {
-                    // clustering keys are optional
-                    field = new org.apache.avro.Schema.Field(cm.name(), org.apache.avro.SchemaBuilder.unionOf().nullType().and().type(field.schema()).endUnion());
-                }
-                fields.add(field);
+        return pkSchemas.computeIfAbsent(tableInfo.key(), k -> buildAvroKeySchema(tableInfo));
+    }
+
+    SchemaAndWriter buildAvroKeySchema(final TableInfo tableInfo) {
+        List<Schema.Field> fields = new ArrayList<>();
+        for (ColumnInfo cm : tableInfo.primaryKeyColumns()) {
+            org.apache.avro.Schema.Field field = new org.apache.avro.Schema.Field(cm.name(), getNativeSchema(cm.cql3Type()));
+            if (cm.isClusteringKey()) {
+                // clustering keys are optional
+                field = new org.apache.avro.Schema.Field(cm.name(), org.apache.avro.SchemaBuilder.unionOf().nullType().and().type(field.schema()).endUnion());
+            }
+            fields.add(field);
+        }
+        org.apache.avro.Schema avroSchema = org.apache.avro.Schema.createRecord(tableInfo.key(), SCHEMA_DOC_PREFIX + tableInfo.key(), tableInfo.name(), false, fields);
+        return new SchemaAndWriter(avroSchema, new SpecificDatumWriter<>(avroSchema));
+    }
+
+    /**
+     * Get the compiled primary key writer of the mutation table, rebuilt when the table metadata changes.
+     * When the primary key schema changed (table dropped and re-created), the table producer is closed
+     * and re-created with the new key schema.
+     * @param mutation the mutation
+     * @return the primary key writer
+     */
+    public AvroKeyWriter<T> getAvroKeyWriter(final AbstractMutation<T> mutation) {
+        final T metadata = mutation.getMetadata();
+        AvroKeyWriter<T> keyWriter = keyWriters.get(mutation.key());
+        if (keyWriter != null && keyWriter.metadata == metadata)
+            return keyWriter;
+        return keyWriters.compute(mutation.key(), (k, v) -> {
+            if (v != null && v.metadata == metadata)
+                return v;
+            SchemaAndWriter schemaAndWriter = getAvroKeySchema(mutation);
+            SchemaAndWriter newSchemaAndWriter = buildAvroKeySchema(mutation);
+            if (!schemaAndWriter.schema.equals(newSchemaAndWriter.schema)) {
+                log.info("Primary key schema of table {} changed, new schema={}", k, newSchemaAndWriter.schema);
+                pkSchemas.put(k, newSchemaAndWriter);
+                schemaAndWriter = newSchemaAndWriter;
+                // the key schema of a multiplexed topic is not registered
+                if (!topicMapper.isMultiplexed(mutation.keyspace(), mutation.name()))
+                    producers.invalidate(topicName(k));
             }
-            org.apache.avro.Schema avroSchema = org.apache.avro.Schema.createRecord(tableInfo.key(), SCHEMA_DOC_PREFIX + tableInfo.key(), tableInfo.name(), false, fields);
-            return new SchemaAndWriter(avroSchema, new SpecificDatumWriter<>(avroSchema));
+            List<Function<Object, Object>> converters = new ArrayList<>();
+            for (ColumnInfo columnInfo : mutation.primaryKeyColumns())
+                converters.add(avroConverter(metadata, columnInfo.name()));
+            return new AvroKeyWriter<>(metadata, schemaAndWriter, converters);
         });
     }
 
@@ -165,18 +261,21 @@ public abstract class AbstractPulsarMutationSender<T> implements MutationSender<
     }
 
     public TopicAndProducerName topicAndProducerName(final TableInfo tm) {
+        String group = topicMapper.group(tm.keyspace(), tm.name());
+        String suffix = group == null ? tm.key() : group;
         return new TopicAndProducerName(
-                config.topicPrefix + tm.key(),
-                "cdc-producer-" + getHostId() + "-" + tm.key());
+                config.topicPrefix + suffix,
+                "cdc-producer-" + getHostId() + "-" + suffix);
     }
 
     /**
-     * Build the Pulsar producer for the provided table metadata.
+     * Get or build the Pulsar producer for the provided table metadata.
+     * The producer is retained until released by {@link ProducerCache#release(ProducerCache.Entry)}.
      * @param tm table metadata
-     * @return the pulsar producer
+     * @return the retained pulsar producer
      */
     @SuppressWarnings({"rawtypes", "unchecked"})
-    public Producer<KeyValue<byte[], MutationValue>> getProducer(final TableInfo tm) throws PulsarClientException {
+    public ProducerCache.Entry<Producer<KeyValue<byte[], MutationValue>>> acquireProducer(final TableInfo tm) throws PulsarClientException {
         if (this.client == null) {
             synchronized (this) {
                 if (this.client == null)
@@ -184,15 +283,19 @@ public abstract class AbstractPulsarMutationSender<T> implements MutationSender<
             }
         }
         final TopicAndProducerName topicAndProducerName = topicAndProducerName(tm);
-        return producers.computeIfAbsent(topicAndProducerName.topicName, k -> {
+        final String group = topicMapper.group(tm.keyspace(), tm.name());
+        return producers.acquire(topicAndProducerName.topicName, k -> {
             try {
+                // the tables of a multiplexed topic have different primary keys, sent as bytes without a registered schema.
                 org.apache.pulsar.client.api.Schema<KeyValue<byte[], MutationValue>> keyValueSchema = org.apache.pulsar.client.api.Schema.KeyValue(
-                        new AvroSchemaWrapper(getAvroKeySchema(tm).schema),
+                        group == null
+                                ? new AvroSchemaWrapper(getAvroKeySchema(tm).schema)
+                                : org.apache.pulsar.client.api.Schema.BYTES,
                         org.apache.pulsar.client.api.Schema.AVRO(MutationValue.class),
                         KeyValueEncodingType.SEPARATED);
                 ProducerBuilder<KeyValue<byte[], MutationValue>> producerBuilder = client.newProducer(keyValueSchema)
                         .producerName(topicAndProducerName.producerName)
-                        .topic(k)
+                        .topic(topicAndProducerName.topicName)
                         .sendTimeout(0, TimeUnit.SECONDS)
                         .hashingScheme(HashingScheme.Murmur3_32Hash)
                         .blockIfQueueFull(true)
@@ -200,13 +303,28 @@ public abstract class AbstractPulsarMutationSender<T> implements MutationSender<
                         .maxPendingMessagesAcrossPartitions(config.pulsarMaxPendingMessagesAcrossPartitions)
                         .autoUpdatePartitions(true);
 
-                if (config.pulsarBatchDelayInMs > 0) {
+                final ProducerProfile baseProfile = catchUp
+                        ? defaultProducerProfile.merge(catchUpProducerProfile)
+                        : defaultProducerProfile;
+                final ProducerProfile profile = group == null
+                        ? ProducerProfile.resolve(baseProfile, producerProfiles, tm.keyspace(), tm.name())
+                        : baseProfile.merge(producerProfiles.get(group));
+                producerBuilder.compressionType(profile.compressionType);
+                if (profile.isBatchingEnabled()) {
                     producerBuilder.enableBatching(true)
-                            .batchingMaxPublishDelay(config.pulsarBatchDelayInMs, TimeUnit.MILLISECONDS);
+                            .batchingMaxPublishDelay(profile.batchDelayInMs, TimeUnit.MILLISECONDS);
+                    if (profile.batchingMaxMessages != null)
+                        producerBuilder.batchingMaxMessages(profile.batchingMaxMessages);
+                    if (profile.batchingMaxBytes != null)
+                        producerBuilder.batchingMaxBytes(profile.batchingMaxBytes);
                 } else {
                     producerBuilder.enableBatching(false);
                 }
-                if (config.pulsarKeyBasedBatcher) {
+                if (Boolean.TRUE.equals(profile.chunking)) {
+                    // chunking requires batching to be disabled
+                    producerBuilder.enableChunking(true);
+                }
+                if (profile.isKeyBasedBatching(config.pulsarKeyBasedBatcher, defaultProducerProfile)) {
                     // only for single non-partitioned topic and Key_Shared subscription source connector
                     producerBuilder.batcherBuilder(BatcherBuilder.KEY_BASED);
                 }
@@ -214,8 +332,8 @@ public abstract class AbstractPulsarMutationSender<T> implements MutationSender<
                     producerBuilder.messageRoutingMode(MessageRoutingMode.CustomPartition)
                             .messageRouter(Murmur3MessageRouter.instance);
                 }
-                log.info("Pulsar producer name={} created with batching delay={}ms",
-                        topicAndProducerName.producerName, config.pulsarBatchDelayInMs);
+                log.info("Pulsar producer name={} created with profile={}",
+                        topicAndProducerName.producerName, profile);
                 return producerBuilder.create();
             } catch (Exception e) {
                 log.error("Failed to get a pulsar producer", e);
@@ -241,24 +359,103 @@ public abstract class AbstractPulsarMutationSender<T> implements MutationSender<
     }
 
     @Override
-    @SuppressWarnings({"rawtypes", "unchecked"})
     public CompletableFuture<MessageId> sendMutationAsync(final AbstractMutation<T> mutation) {
         if (!isSupported(mutation)) {
             incSkippedMutations();
             return CompletableFuture.completedFuture(null);
         }
+        if (standbyLog != null && !isPrimaryReplica(mutation)) {
+            // another replica publishes the mutation, its position is acknowledged once logged
+            standbyLog.add(mutation);
+            return CompletableFuture.completedFuture(null);
+        }
+        return publishMutationAsync(mutation);
+    }
+
+    /**
+     * Recreate the producers with or without the catch-up producer profile, once their pending sends complete,
+     * so that the messages of a topic are still published in order. Producers are only recreated when
+     * a catch-up producer profile is configured, which is not the case by default.
+     */
+    @Override
+    public void setCatchUpMode(boolean catchUp) {
+        if (this.catchUp == catchUp)
+            return;
+        this.catchUp = catchUp;
+        if (!catchUpProducerProfile.equals(ProducerProfile.EMPTY)) {
+            log.info("Recreating the producers {} the catch-up profile={}", catchUp ? "with" : "without", catchUpProducerProfile);
+            producers.invalidateAll();
+        }
+    }
+
+    @Override
+    public void takeOver(InflightLimiter inflightLimiter, InflightMemoryBudget inflightMemoryBudget) {
+        if (standbyLog == null)
+            return;
+        takeOver(inflightLimiter, inflightMemoryBudget, standbyLog.maybeTakeOver(this::isPrimaryReplica));
+    }
+
+    /**
+     * Publish the taken-over mutations with the in-flight bounds of the commitlog tasks,
+     * a failed mutation goes back to the standby log to be published again by the next takeover check.
+     */
+    void takeOver(InflightLimiter inflightLimiter, InflightMemoryBudget inflightMemoryBudget, List<AbstractMutation<T>> mutations) {
+        for (AbstractMutation<T> mutation : mutations) {
+            inflightLimiter.acquire(); // may block
+            final long estimatedSize = mutation.estimatedSize();
+            inflightMemoryBudget.acquire(estimatedSize); // may block
+            final long sendNanos = System.nanoTime();
+            publishMutationAsync(mutation).whenComplete((id, t) -> {
+                if (t instanceof CassandraConnectorSchemaException) {
+                    log.error("Invalid primary key schema:", t);
+                } else if (t != null) {
+                    log.warn("Failed to publish the standby mutation {}, retrying:", mutation.key(), t);
+                    standbyLog.add(mutation);
+                }
+                inflightLimiter.release(System.nanoTime() - sendNanos, t != null && !(t instanceof CassandraConnectorSchemaException));
+                inflightMemoryBudget.release(estimatedSize);
+            });
+        }
+        inflightLimiter.awaitIdle();
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    CompletableFuture<MessageId> publishMutationAsync(final AbstractMutation<T> mutation) {
         try {
-            Producer<KeyValue<byte[], MutationValue>> producer = getProducer(mutation);
-            SchemaAndWriter schemaAndWriter = getAvroKeySchema(mutation);
-            TypedMessageBuilder<KeyValue<byte[], MutationValue>> messageBuilder = producer.newMessage();
-            return messageBuilder
-                    .value(new KeyValue(
-                            serializeAvroGenericRecord(buildAvroKey(schemaAndWriter.schema, mutation), schemaAndWriter.writer),
-                            mutation.mutationValue()))
-                    .property(Constants.WRITETIME, mutation.getTs() + "")
-                    .property(Constants.SEGMENT_AND_POSITION, mutation.getSegment() + ":" + mutation.getPosition())
-                    .property(Constants.TOKEN, mutation.getToken().toString())
-                    .sendAsync();
+            AvroKeyWriter<T> keyWriter = getAvroKeyWriter(mutation);
+            ProducerCache.Entry<Producer<KeyValue<byte[], MutationValue>>> producerEntry = acquireProducer(mutation);
+            CompletableFuture<MessageId> future;
+            try {
+                TypedMessageBuilder<KeyValue<byte[], MutationValue>> messageBuilder = producerEntry.producer.newMessage();
+                if (topicMapper.isMultiplexed(mutation.keyspace(), mutation.name())) {
+                    // the connector demultiplexes the events of its table, and checks the key encoding.
+                    messageBuilder.property(Constants.TABLE, mutation.key())
+                            .property(Constants.KEY_SCHEMA_FINGERPRINT, keyWriter.fingerprint);
+                }
+                if (compactMetadata) {
+                    // writetime, segment and position are carried by the AVRO value, the partition is chosen from the ordering key.
+                    messageBuilder.value(new KeyValue(
+                            keyWriter.write(mutation.getPkValues()),
+                            mutation.compactMutationValue(hexDigest)));
+                    if (useMurmur3Partitioner)
+                        messageBuilder.orderingKey(Murmur3MessageRouter.routingKey((Long) mutation.getToken()));
+                    future = messageBuilder.sendAsync();
+                } else {
+                    future = messageBuilder
+                            .value(new KeyValue(
+                                    keyWriter.write(mutation.getPkValues()),
+                                    mutation.mutationValue(hexDigest)))
+                            .property(Constants.WRITETIME, mutation.getTs() + "")
+                            .property(Constants.SEGMENT_AND_POSITION, mutation.getSegment() + ":" + mutation.getPosition())
+                            .property(Constants.TOKEN, mutation.getToken().toString())
+                            .sendAsync();
+                }
+            } catch (Exception e) {
+                producers.release(producerEntry);
+                throw e;
+            }
+            // the producer cannot be evicted before the send completes
+            return future.whenComplete((id, t) -> producers.release(producerEntry));
         } catch(Exception e) {
             CompletableFuture future = new CompletableFuture<>();
             future.completeExceptionally(e);
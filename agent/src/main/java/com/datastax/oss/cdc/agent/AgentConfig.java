@@ -15,8 +15,10 @@
  */
 package com.datastax.oss.cdc.agent;
 
+import com.datastax.oss.cdc.DigestAlgorithm;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.pulsar.client.api.CompressionType;
 
 import java.io.File;
 import java.io.FileWriter;
@@ -141,7 +143,7 @@ public class AgentConfig {
     public long cdcDirPollIntervalMs;
     public static final Setting<Long> CDC_DIR_POLL_INTERVAL_MS_SETTING =
             new Setting<>(CDC_DIR_POLL_INTERVAL_MS, Platform.ALL, (c, s) -> c.cdcDirPollIntervalMs = Long.parseLong(s), c -> c.cdcDirPollIntervalMs,
-                    "The poll interval in milliseconds for watching new commitlog files in the CDC raw directory.",
+                    "The maximum poll interval in milliseconds for watching new commitlog files in the CDC raw directory.",
                     60000L, "CDC_DIR_POLL_INTERVAL_MS", Setting::getEnvAsLong,
                     "Long", "main", 3);
 
@@ -165,10 +167,125 @@ public class AgentConfig {
     public int maxInflightMessagesPerTask;
     public static final Setting<Integer> MAX_INFLIGHT_MESSAGES_PER_TASK_SETTING =
             new Setting<>(MAX_INFLIGHT_MESSAGES_PER_TASK, Platform.PULSAR, (c, s) -> c.maxInflightMessagesPerTask = Integer.parseInt(s), c -> c.maxInflightMessagesPerTask,
-                    "The maximum number of in-flight messages per commitlog processing task.",
+                    "The maximum number of in-flight messages per commitlog processing task. The effective limit adapts "
+                            + "between a small minimum and this value from the observed send acknowledgement latency and errors.",
                     16384, "CDC_MAX_INFLIGHT_MESSAGES_PER_TASK", Setting::getEnvAsInteger,
                     "Integer", "main", 6);
 
+    public static final String DIGEST_ALGORITHM = "digestAlgorithm";
+    public static final String MD5_HEX = "MD5_HEX";
+    public String digestAlgorithm;
+    public static final Setting<String> DIGEST_ALGORITHM_SETTING =
+            new Setting<>(DIGEST_ALGORITHM, Platform.ALL, (c, s) -> c.digestAlgorithm = s.toUpperCase(Locale.ROOT), c -> c.digestAlgorithm,
+                    "The mutation digest used by the connector to deduplicate mutations, one of `MD5_HEX` (hexadecimal MD5 string), `MD5` or `MURMUR3_128`. "
+                            + "Binary digests are smaller and `MURMUR3_128` is cheaper to compute, but they require a connector supporting binary digests.",
+                    MD5_HEX, "CDC_DIGEST_ALGORITHM", Setting::getEnvAsString,
+                    "String", "main", 7);
+
+    public static final String CDC_INTRA_SEGMENT_PARALLELISM = "cdcIntraSegmentParallelism";
+    public int cdcIntraSegmentParallelism;
+    public static final Setting<Integer> CDC_INTRA_SEGMENT_PARALLELISM_SETTING =
+            new Setting<>(CDC_INTRA_SEGMENT_PARALLELISM, Platform.ALL, (c, s) -> c.cdcIntraSegmentParallelism = Integer.parseInt(s), c -> c.cdcIntraSegmentParallelism,
+                    "The number of threads processing the partition updates of a commitlog file, sharded by partition token to preserve the per-key ordering. "
+                            + "The default value 1 processes partition updates on the commitlog reader thread. Ignored by the DSE agent.",
+                    1, "CDC_INTRA_SEGMENT_PARALLELISM", Setting::getEnvAsInteger,
+                    "Integer", "main", 8);
+
+    public static final String CDC_DIR_POLL_MIN_INTERVAL_MS = "cdcPollMinIntervalMs";
+    public long cdcDirPollMinIntervalMs;
+    public static final Setting<Long> CDC_DIR_POLL_MIN_INTERVAL_MS_SETTING =
+            new Setting<>(CDC_DIR_POLL_MIN_INTERVAL_MS, Platform.ALL, (c, s) -> c.cdcDirPollMinIntervalMs = Long.parseLong(s), c -> c.cdcDirPollMinIntervalMs,
+                    "The minimum poll interval in milliseconds for scanning the CDC raw directory. When file system events are missed, "
+                            + "the scan interval drops to this value and doubles up to `cdcPollIntervalMs` when no commitlog file changes.",
+                    10L, "CDC_DIR_POLL_MIN_INTERVAL_MS", Setting::getEnvAsLong,
+                    "Long", "main", 9);
+
+    public static final String MAX_INFLIGHT_LATENCY_MS = "maxInflightLatencyMs";
+    public long maxInflightLatencyMs;
+    public static final Setting<Long> MAX_INFLIGHT_LATENCY_MS_SETTING =
+            new Setting<>(MAX_INFLIGHT_LATENCY_MS, Platform.PULSAR, (c, s) -> c.maxInflightLatencyMs = Long.parseLong(s), c -> c.maxInflightLatencyMs,
+                    "The send acknowledgement latency in milliseconds beyond which the in-flight messages limit of a commitlog processing task decreases. "
+                            + "The limit increases while acknowledgements are faster, up to `maxInflightMessagesPerTask`.",
+                    1000L, "CDC_MAX_INFLIGHT_LATENCY_MS", Setting::getEnvAsLong,
+                    "Long", "main", 10);
+
+    public static final String MAX_INFLIGHT_BYTES = "maxInflightBytes";
+    public long maxInflightBytes;
+    public static final Setting<Long> MAX_INFLIGHT_BYTES_SETTING =
+            new Setting<>(MAX_INFLIGHT_BYTES, Platform.PULSAR, (c, s) -> c.maxInflightBytes = Long.parseLong(s), c -> c.maxInflightBytes,
+                    "The maximum estimated heap bytes of the in-flight messages of all the commitlog processing tasks of the agent, "
+                            + "the commitlog reading blocks when it is reached. Each message is charged the estimated heap size of its mutation "
+                            + "(digest, primary key values, column names and row payload), not its serialized size, "
+                            + "and the Pulsar client buffers are not included. "
+                            + "The default value -1 is 5% of the maximum JVM heap size.",
+                    -1L, "CDC_MAX_INFLIGHT_BYTES", Setting::getEnvAsLong,
+                    "Long", "main", 11);
+
+    public static final String CDC_CHECKPOINT_INTERVAL_MS = "cdcCheckpointIntervalMs";
+    public long cdcCheckpointIntervalMs;
+    public static final Setting<Long> CDC_CHECKPOINT_INTERVAL_MS_SETTING =
+            new Setting<>(CDC_CHECKPOINT_INTERVAL_MS, Platform.ALL, (c, s) -> c.cdcCheckpointIntervalMs = Long.parseLong(s), c -> c.cdcCheckpointIntervalMs,
+                    "The interval in milliseconds for persisting the acknowledged position of the commitlog files being processed, "
+                            + "bounding the mutations sent again after a restart. Zero disables the periodic checkpoints.",
+                    5000L, "CDC_CHECKPOINT_INTERVAL_MS", Setting::getEnvAsLong,
+                    "Long", "main", 12);
+
+    public static final String CDC_OFFSET_JOURNAL = "cdcOffsetJournal";
+    public boolean cdcOffsetJournal;
+    public static final Setting<Boolean> CDC_OFFSET_JOURNAL_SETTING =
+            new Setting<>(CDC_OFFSET_JOURNAL, Platform.ALL, (c, s) -> c.cdcOffsetJournal = Boolean.parseBoolean(s), c -> c.cdcOffsetJournal,
+                    "When true, persist the commitlog offsets in a single checksummed journal file with grouped fsync, rather than one file per commitlog. "
+                            + "Existing offset files are migrated into the journal on startup.",
+                    false, "CDC_OFFSET_JOURNAL", Setting::getEnvAsBoolean,
+                    "Boolean", "main", 13);
+
+    public static final String CDC_CATCH_UP_BACKLOG_SEGMENTS = "cdcCatchUpBacklogSegments";
+    public int cdcCatchUpBacklogSegments;
+    public static final Setting<Integer> CDC_CATCH_UP_BACKLOG_SEGMENTS_SETTING =
+            new Setting<>(CDC_CATCH_UP_BACKLOG_SEGMENTS, Platform.ALL, (c, s) -> c.cdcCatchUpBacklogSegments = Integer.parseInt(s), c -> c.cdcCatchUpBacklogSegments,
+                    "The number of commitlog files waiting to be processed beyond which the agent switches to the catch-up mode, "
+                            + "doubling the commitlog processing threads until the backlog drops to half this number. Zero disables the catch-up mode.",
+                    16, "CDC_CATCH_UP_BACKLOG_SEGMENTS", Setting::getEnvAsInteger,
+                    "Integer", "main", 14);
+
+    public static final String CDC_TOTAL_SPACE_IN_MB = "cdcTotalSpaceInMB";
+    public int cdcTotalSpaceInMB;
+    public static final Setting<Integer> CDC_TOTAL_SPACE_IN_MB_SETTING =
+            new Setting<>(CDC_TOTAL_SPACE_IN_MB, Platform.ALL, (c, s) -> c.cdcTotalSpaceInMB = Integer.parseInt(s), c -> c.cdcTotalSpaceInMB,
+                    "The cdc_raw directory space limit in megabytes used to report the headroom and to prioritize the oldest commitlog files "
+                            + "when the usage exceeds 75% of this limit, until it drops below 65%. The default value -1 is the Cassandra `cdc_total_space_in_mb` when available, "
+                            + "zero disables the disk pressure detection.",
+                    -1, "CDC_TOTAL_SPACE_IN_MB", Setting::getEnvAsInteger,
+                    "Integer", "main", 15);
+
+    public static final String CDC_PRIMARY_REPLICA_ONLY = "cdcPrimaryReplicaOnly";
+    public boolean cdcPrimaryReplicaOnly;
+    public static final Setting<Boolean> CDC_PRIMARY_REPLICA_ONLY_SETTING =
+            new Setting<>(CDC_PRIMARY_REPLICA_ONLY, Platform.ALL, (c, s) -> c.cdcPrimaryReplicaOnly = Boolean.parseBoolean(s), c -> c.cdcPrimaryReplicaOnly,
+                    "When true, a mutation is only published by its primary replica, the first live replica of the partition token in the local datacenter. "
+                            + "The other replicas keep the recent mutations in a standby log, and publish them if they become the primary replica. "
+                            + "Events are lost when a write does not reach the live primary replica, or when the primary replica is up while its agent is down. "
+                            + "Requires the Murmur3Partitioner, Cassandra 3.11 or 4.x only: the DSE agent ignores this setting with a warning.",
+                    false, "CDC_PRIMARY_REPLICA_ONLY", Setting::getEnvAsBoolean,
+                    "Boolean", "main", 16);
+
+    public static final String CDC_STANDBY_LOG_SIZE = "cdcStandbyLogSize";
+    public int cdcStandbyLogSize;
+    public static final Setting<Integer> CDC_STANDBY_LOG_SIZE_SETTING =
+            new Setting<>(CDC_STANDBY_LOG_SIZE, Platform.ALL, (c, s) -> c.cdcStandbyLogSize = Integer.parseInt(s), c -> c.cdcStandbyLogSize,
+                    "The maximum number of mutations of the standby log, when `cdcPrimaryReplicaOnly` is true.",
+                    10000, "CDC_STANDBY_LOG_SIZE", Setting::getEnvAsInteger,
+                    "Integer", "main", 17);
+
+    public static final String CDC_STANDBY_LOG_RETENTION_MS = "cdcStandbyLogRetentionMs";
+    public long cdcStandbyLogRetentionMs;
+    public static final Setting<Long> CDC_STANDBY_LOG_RETENTION_MS_SETTING =
+            new Setting<>(CDC_STANDBY_LOG_RETENTION_MS, Platform.ALL, (c, s) -> c.cdcStandbyLogRetentionMs = Long.parseLong(s), c -> c.cdcStandbyLogRetentionMs,
+                    "The retention period in milliseconds of the standby log mutations, when `cdcPrimaryReplicaOnly` is true. "
+                            + "It should be greater than the failure detection delay.",
+                    60000L, "CDC_STANDBY_LOG_RETENTION_MS", Setting::getEnvAsLong,
+                    "Long", "main", 18);
+
     public static final String SSL_PROVIDER = "sslProvider";
     public String sslProvider = System.getProperty(CDC_PROPERTY_PREFIX + SSL_PROVIDER);
     public static final Setting<String> SSL_PROVIDER_SETTING =
@@ -285,7 +402,7 @@ public class AgentConfig {
     public boolean pulsarKeyBasedBatcher;
     public static final Setting<Boolean> PULSAR_KEY_BASED_BATCHER_SETTING =
             new Setting<>(PULSAR_KEY_BASED_BATCHER, Platform.PULSAR, (c, s) -> c.pulsarKeyBasedBatcher = Boolean.parseBoolean(s), c -> c.pulsarKeyBasedBatcher,
-                    "When true, use the Pulsar KEY_BASED BatchBuilder.",
+                    "When true, use the Pulsar KEY_BASED BatchBuilder. Always used when batching is only enabled by a producer profile.",
                     false, "CDC_PULSAR_KEY_BASED_BATCHER", Setting::getEnvAsBoolean,
                     "Boolean", "pulsar", 3);
 
@@ -321,6 +438,93 @@ public class AgentConfig {
                     null, "CDC_PULSAR_AUTH_PARAMS", Setting::getEnvAsString,
                     "String", "pulsar", 7);
 
+    public static final String PULSAR_COMPACT_METADATA = "pulsarCompactMetadata";
+    public boolean pulsarCompactMetadata;
+    public static final Setting<Boolean> PULSAR_COMPACT_METADATA_SETTING =
+            new Setting<>(PULSAR_COMPACT_METADATA, Platform.PULSAR, (c, s) -> c.pulsarCompactMetadata = Boolean.parseBoolean(s), c -> c.pulsarCompactMetadata,
+                    "When true, send the writetime, commitlog segment and position in the binary message value rather than as string message properties, "
+                            + "and route messages with a token ordering key computed by the agent. Requires a connector supporting compact metadata.",
+                    false, "CDC_PULSAR_COMPACT_METADATA", Setting::getEnvAsBoolean,
+                    "Boolean", "pulsar", 8);
+
+    public static final String PULSAR_ROW_PAYLOAD = "pulsarRowPayload";
+    public boolean pulsarRowPayload;
+    public static final Setting<Boolean> PULSAR_ROW_PAYLOAD_SETTING =
+            new Setting<>(PULSAR_ROW_PAYLOAD, Platform.PULSAR, (c, s) -> c.pulsarRowPayload = Boolean.parseBoolean(s), c -> c.pulsarRowPayload,
+                    "When true, send the column values of the mutations writing all the table columns, so that the connector does not read the row back. "
+                            + "Partial updates and tables with non-frozen collections are still read back by the connector.",
+                    false, "CDC_PULSAR_ROW_PAYLOAD", Setting::getEnvAsBoolean,
+                    "Boolean", "pulsar", 9);
+
+    public static final String PULSAR_COMPRESSION_TYPE = "pulsarCompressionType";
+    public String pulsarCompressionType;
+    public static final Setting<String> PULSAR_COMPRESSION_TYPE_SETTING =
+            new Setting<>(PULSAR_COMPRESSION_TYPE, Platform.PULSAR, (c, s) -> c.pulsarCompressionType = s.toUpperCase(Locale.ROOT), c -> c.pulsarCompressionType,
+                    "The Pulsar producer compression type, one of NONE, LZ4, ZLIB, ZSTD or SNAPPY.",
+                    "NONE", "CDC_PULSAR_COMPRESSION_TYPE", Setting::getEnvAsString,
+                    "String", "pulsar", 10);
+
+    public static final String PULSAR_PRODUCER_PROFILES = "pulsarProducerProfiles";
+    public String pulsarProducerProfiles;
+    public static final Setting<String> PULSAR_PRODUCER_PROFILES_SETTING =
+            new Setting<>(PULSAR_PRODUCER_PROFILES, Platform.PULSAR, (c, s) -> c.pulsarProducerProfiles = s, c -> c.pulsarProducerProfiles,
+                    "Semicolon separated keyspace or table producer profiles overriding the global producer settings, "
+                            + "formatted as `<keyspace>[.<table>]:<option>=<value>[&<option>=<value>...]`, "
+                            + "for example `ks1.table1:compressionType=ZSTD&batchingMaxMessages=500;ks2:batchDelayInMs=0`. "
+                            + "Options are compressionType, batchDelayInMs, batchingMaxMessages, batchingMaxBytes and chunking. "
+                            + "Table profiles override keyspace profiles.",
+                    null, "CDC_PULSAR_PRODUCER_PROFILES", Setting::getEnvAsString,
+                    "String", "pulsar", 11);
+
+    public static final String PULSAR_MAX_PRODUCERS = "pulsarMaxProducers";
+    public int pulsarMaxProducers;
+    public static final Setting<Integer> PULSAR_MAX_PRODUCERS_SETTING =
+            new Setting<>(PULSAR_MAX_PRODUCERS, Platform.PULSAR, (c, s) -> c.pulsarMaxProducers = Integer.parseInt(s), c -> c.pulsarMaxProducers,
+                    "The soft maximum number of Pulsar producers, one per CDC-enabled table. The least recently used idle producers are closed above this number, "
+                            + "producers having pending messages are not closed, so this number is exceeded while more producers are busy. Unbounded when not greater than zero.",
+                    1000, "CDC_PULSAR_MAX_PRODUCERS", Setting::getEnvAsInteger,
+                    "Integer", "pulsar", 12);
+
+    public static final String PULSAR_PRODUCER_IDLE_TIMEOUT_MS = "pulsarProducerIdleTimeoutMs";
+    public long pulsarProducerIdleTimeoutMs;
+    public static final Setting<Long> PULSAR_PRODUCER_IDLE_TIMEOUT_MS_SETTING =
+            new Setting<>(PULSAR_PRODUCER_IDLE_TIMEOUT_MS, Platform.PULSAR, (c, s) -> c.pulsarProducerIdleTimeoutMs = Long.parseLong(s), c -> c.pulsarProducerIdleTimeoutMs,
+                    "The time in milliseconds after which the Pulsar producer of a table having no pending messages is closed, and re-created on the next mutation. "
+                            + "Producers are never closed when not greater than zero.",
+                    600000L, "CDC_PULSAR_PRODUCER_IDLE_TIMEOUT_MS", Setting::getEnvAsLong,
+                    "Long", "pulsar", 13);
+
+    public static final String PULSAR_TOPIC_PER_KEYSPACE = "pulsarTopicPerKeyspace";
+    public boolean pulsarTopicPerKeyspace;
+    public static final Setting<Boolean> PULSAR_TOPIC_PER_KEYSPACE_SETTING =
+            new Setting<>(PULSAR_TOPIC_PER_KEYSPACE, Platform.PULSAR, (c, s) -> c.pulsarTopicPerKeyspace = Boolean.parseBoolean(s), c -> c.pulsarTopicPerKeyspace,
+                    "When true, the events of all the tables of a keyspace are sent to a single `<topicPrefix><keyspace_name>` topic, "
+                            + "with the source table and primary key schema fingerprint as message properties. Requires a connector supporting multiplexed topics.",
+                    false, "CDC_PULSAR_TOPIC_PER_KEYSPACE", Setting::getEnvAsBoolean,
+                    "Boolean", "pulsar", 14);
+
+    public static final String PULSAR_TOPIC_GROUPS = "pulsarTopicGroups";
+    public String pulsarTopicGroups;
+    public static final Setting<String> PULSAR_TOPIC_GROUPS_SETTING =
+            new Setting<>(PULSAR_TOPIC_GROUPS, Platform.PULSAR, (c, s) -> c.pulsarTopicGroups = s, c -> c.pulsarTopicGroups,
+                    "Semicolon separated groups of keyspaces or tables sharing a single `<topicPrefix><group>` topic, "
+                            + "formatted as `<group>:<keyspace>[.<table>][&<keyspace>[.<table>]...]`, for example `small_tables:ks1.t1&ks1.t2;ks2:ks2`. "
+                            + "Requires a connector supporting multiplexed topics.",
+                    null, "CDC_PULSAR_TOPIC_GROUPS", Setting::getEnvAsString,
+                    "String", "pulsar", 15);
+
+    public static final String PULSAR_CATCH_UP_PRODUCER_PROFILE = "pulsarCatchUpProducerProfile";
+    public String pulsarCatchUpProducerProfile;
+    public static final Setting<String> PULSAR_CATCH_UP_PRODUCER_PROFILE_SETTING =
+            new Setting<>(PULSAR_CATCH_UP_PRODUCER_PROFILE, Platform.PULSAR, (c, s) -> c.pulsarCatchUpProducerProfile = s, c -> c.pulsarCatchUpProducerProfile,
+                    "Producer options applied in catch-up mode, see `cdcCatchUpBacklogSegments`, formatted as `<option>=<value>[&<option>=<value>...]` "
+                            + "with the options of `pulsarProducerProfiles`. They override the global producer settings, "
+                            + "keyspace and table producer profiles override them. When set, producers are recreated when the agent enters or leaves the catch-up mode, "
+                            + "and a profile enabling batching uses the KEY_BASED batcher. By default, the producer settings are kept in catch-up mode.",
+                    null,
+                    "CDC_PULSAR_CATCH_UP_PRODUCER_PROFILE", Setting::getEnvAsString,
+                    "String", "pulsar", 16);
+
     public static final Set<Setting<?>> settings;
     public static final Map<String, Setting<?>> settingMap;
 
@@ -329,10 +533,22 @@ public class AgentConfig {
         Set<Setting<?>> set = new HashSet<>();
         set.add(CDC_RELOCATION_DIR_SETTING);
         set.add(CDC_DIR_POLL_INTERVAL_MS_SETTING);
+        set.add(CDC_DIR_POLL_MIN_INTERVAL_MS_SETTING);
         set.add(CDC_CONCURRENT_PROCESSORS_SETTING);
         set.add(ERROR_COMMITLOG_REPROCESS_ENABLED_SETTING);
         set.add(TOPIC_PREFIX_SETTING);
         set.add(MAX_INFLIGHT_MESSAGES_PER_TASK_SETTING);
+        set.add(MAX_INFLIGHT_LATENCY_MS_SETTING);
+        set.add(MAX_INFLIGHT_BYTES_SETTING);
+        set.add(CDC_CHECKPOINT_INTERVAL_MS_SETTING);
+        set.add(CDC_OFFSET_JOURNAL_SETTING);
+        set.add(CDC_CATCH_UP_BACKLOG_SEGMENTS_SETTING);
+        set.add(CDC_TOTAL_SPACE_IN_MB_SETTING);
+        set.add(CDC_PRIMARY_REPLICA_ONLY_SETTING);
+        set.add(CDC_STANDBY_LOG_SIZE_SETTING);
+        set.add(CDC_STANDBY_LOG_RETENTION_MS_SETTING);
+        set.add(DIGEST_ALGORITHM_SETTING);
+        set.add(CDC_INTRA_SEGMENT_PARALLELISM_SETTING);
         set.add(SSL_PROVIDER_SETTING);
         set.add(SSL_TRUSTSTORE_PATH_SETTING);
         set.add(TLS_TRUST_CERTS_FILE_PATH_SETTING);
@@ -352,6 +568,15 @@ public class AgentConfig {
         set.add(PULSAR_MAX_PENDING_MESSAGES_ACROSS_PARTITIONS_SETTING);
         set.add(PULSAR_AUTH_PLUGIN_CLASS_NAME_SETTING);
         set.add(PULSAR_AUTH_PARAMS_SETTING);
+        set.add(PULSAR_COMPACT_METADATA_SETTING);
+        set.add(PULSAR_ROW_PAYLOAD_SETTING);
+        set.add(PULSAR_COMPRESSION_TYPE_SETTING);
+        set.add(PULSAR_PRODUCER_PROFILES_SETTING);
+        set.add(PULSAR_MAX_PRODUCERS_SETTING);
+        set.add(PULSAR_PRODUCER_IDLE_TIMEOUT_MS_SETTING);
+        set.add(PULSAR_TOPIC_PER_KEYSPACE_SETTING);
+        set.add(PULSAR_TOPIC_GROUPS_SETTING);
+        set.add(PULSAR_CATCH_UP_PRODUCER_PROFILE_SETTING);
         settings = Collections.unmodifiableSet(set);
 
         Map<String, Setting<?>> map = new HashMap<>();
@@ -362,10 +587,22 @@ public class AgentConfig {
     public AgentConfig() {
         this.cdcWorkingDir = CDC_RELOCATION_DIR_SETTING.initDefault();
         this.cdcDirPollIntervalMs = CDC_DIR_POLL_INTERVAL_MS_SETTING.initDefault();
+        this.cdcDirPollMinIntervalMs = CDC_DIR_POLL_MIN_INTERVAL_MS_SETTING.initDefault();
         this.cdcConcurrentProcessors = CDC_CONCURRENT_PROCESSORS_SETTING.initDefault();
         this.errorCommitLogReprocessEnabled = ERROR_COMMITLOG_REPROCESS_ENABLED_SETTING.initDefault();
         this.topicPrefix = TOPIC_PREFIX_SETTING.initDefault();
         this.maxInflightMessagesPerTask = MAX_INFLIGHT_MESSAGES_PER_TASK_SETTING.initDefault();
+        this.maxInflightLatencyMs = MAX_INFLIGHT_LATENCY_MS_SETTING.initDefault();
+        this.maxInflightBytes = MAX_INFLIGHT_BYTES_SETTING.initDefault();
+        this.cdcCheckpointIntervalMs = CDC_CHECKPOINT_INTERVAL_MS_SETTING.initDefault();
+        this.cdcOffsetJournal = CDC_OFFSET_JOURNAL_SETTING.initDefault();
+        this.cdcCatchUpBacklogSegments = CDC_CATCH_UP_BACKLOG_SEGMENTS_SETTING.initDefault();
+        this.cdcTotalSpaceInMB = CDC_TOTAL_SPACE_IN_MB_SETTING.initDefault();
+        this.cdcPrimaryReplicaOnly = CDC_PRIMARY_REPLICA_ONLY_SETTING.initDefault();
+        this.cdcStandbyLogSize = CDC_STANDBY_LOG_SIZE_SETTING.initDefault();
+        this.cdcStandbyLogRetentionMs = CDC_STANDBY_LOG_RETENTION_MS_SETTING.initDefault();
+        this.digestAlgorithm = DIGEST_ALGORITHM_SETTING.initDefault().toUpperCase(Locale.ROOT);
+        this.cdcIntraSegmentParallelism = CDC_INTRA_SEGMENT_PARALLELISM_SETTING.initDefault();
         this.sslProvider = SSL_PROVIDER_SETTING.initDefault();
         this.sslTruststorePath = SSL_TRUSTSTORE_PATH_SETTING.initDefault();
         this.tlsTrustCertsFilePath = TLS_TRUST_CERTS_FILE_PATH_SETTING.initDefault();
@@ -385,6 +622,57 @@ public class AgentConfig {
         this.pulsarMaxPendingMessagesAcrossPartitions = PULSAR_MAX_PENDING_MESSAGES_ACROSS_PARTITIONS_SETTING.initDefault();
         this.pulsarAuthPluginClassName = PULSAR_AUTH_PLUGIN_CLASS_NAME_SETTING.initDefault();
         this.pulsarAuthParams = PULSAR_AUTH_PARAMS_SETTING.initDefault();
+        this.pulsarCompactMetadata = PULSAR_COMPACT_METADATA_SETTING.initDefault();
+        this.pulsarRowPayload = PULSAR_ROW_PAYLOAD_SETTING.initDefault();
+        this.pulsarCompressionType = PULSAR_COMPRESSION_TYPE_SETTING.initDefault().toUpperCase(Locale.ROOT);
+        this.pulsarProducerProfiles = PULSAR_PRODUCER_PROFILES_SETTING.initDefault();
+        this.pulsarMaxProducers = PULSAR_MAX_PRODUCERS_SETTING.initDefault();
+        this.pulsarProducerIdleTimeoutMs = PULSAR_PRODUCER_IDLE_TIMEOUT_MS_SETTING.initDefault();
+        this.pulsarTopicPerKeyspace = PULSAR_TOPIC_PER_KEYSPACE_SETTING.initDefault();
+        this.pulsarTopicGroups = PULSAR_TOPIC_GROUPS_SETTING.initDefault();
+        this.pulsarCatchUpProducerProfile = PULSAR_CATCH_UP_PRODUCER_PROFILE_SETTING.initDefault();
+    }
+
+    /**
+     * @return the mutation digest algorithm, MD5 for the legacy hexadecimal MD5 digest.
+     */
+    public DigestAlgorithm digestAlgorithm() {
+        return MD5_HEX.equals(digestAlgorithm) ? DigestAlgorithm.MD5 : DigestAlgorithm.valueOf(digestAlgorithm);
+    }
+
+    /**
+     * @return true when the mutation digest is sent as a legacy hexadecimal MD5 string.
+     */
+    public boolean isHexDigest() {
+        return MD5_HEX.equals(digestAlgorithm);
+    }
+
+    /**
+     * @return the global producer settings.
+     */
+    public ProducerProfile defaultProducerProfile() {
+        return new ProducerProfile(CompressionType.valueOf(pulsarCompressionType), pulsarBatchDelayInMs, null, null, false);
+    }
+
+    /**
+     * @return the keyspace and table producer profiles, indexed by keyspace or keyspace.table name.
+     */
+    public Map<String, ProducerProfile> producerProfiles() {
+        return ProducerProfile.parse(pulsarProducerProfiles);
+    }
+
+    /**
+     * @return the producer settings overriding the global producer settings in catch-up mode.
+     */
+    public ProducerProfile catchUpProducerProfile() {
+        return ProducerProfile.parseOptions(PULSAR_CATCH_UP_PRODUCER_PROFILE, pulsarCatchUpProducerProfile);
+    }
+
+    /**
+     * @return the table to events topic mapping.
+     */
+    public TopicMapper topicMapper() {
+        return new TopicMapper(topicPrefix, pulsarTopicPerKeyspace, pulsarTopicGroups);
     }
 
     public static void main(String[] args) {
@@ -514,6 +802,17 @@ public class AgentConfig {
             }
         }
 
+        // fail fast on unsupported digest algorithm
+        digestAlgorithm();
+
+        // fail fast on malformed producer and topic settings
+        if (platform.equals(Platform.PULSAR)) {
+            defaultProducerProfile();
+            producerProfiles();
+            catchUpProducerProfile();
+            topicMapper();
+        }
+
         if (log.isInfoEnabled()) {
             StringBuilder sb = new StringBuilder();
             settings.forEach(s -> {
@@ -0,0 +1,211 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import com.datastax.oss.cdc.KeySchemaFingerprint;
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Primary key AVRO writer compiled for a given table metadata.
+ *
+ * Primary key values are converted with pre-resolved column converters and written in the schema field order
+ * straight into a reusable thread-local binary encoder, without building an intermediate GenericRecord.
+ * The produced bytes are the same as the {@link SpecificDatumWriter} serialization of the key record.
+ *
+ * @param <T> the table metadata type
+ */
+public class AvroKeyWriter<T> {
+
+    private static final ThreadLocal<KeyEncoder> keyEncoders = ThreadLocal.withInitial(KeyEncoder::new);
+
+    /**
+     * The table metadata this writer was compiled for, identity compared to detect schema changes.
+     */
+    final T metadata;
+    final AbstractPulsarMutationSender.SchemaAndWriter schemaAndWriter;
+    final FieldWriter[] fieldWriters;
+    /**
+     * The key schema fingerprint, sent with the events of tables sharing a topic.
+     */
+    final String fingerprint;
+
+    @FunctionalInterface
+    interface FieldWriter {
+        void write(Object value, BinaryEncoder encoder) throws IOException;
+    }
+
+    public AvroKeyWriter(T metadata, AbstractPulsarMutationSender.SchemaAndWriter schemaAndWriter, List<Function<Object, Object>> converters) {
+        this.metadata = metadata;
+        this.schemaAndWriter = schemaAndWriter;
+        List<Schema.Field> fields = schemaAndWriter.schema.getFields();
+        if (fields.size() != converters.size())
+            throw new IllegalArgumentException("Expecting " + fields.size() + " converters, got " + converters.size());
+        this.fieldWriters = new FieldWriter[fields.size()];
+        for (int i = 0; i < fieldWriters.length; i++)
+            fieldWriters[i] = fieldWriter(fields.get(i).schema(), converters.get(i));
+        this.fingerprint = KeySchemaFingerprint.of(schemaAndWriter.schema);
+    }
+
+    public T getMetadata() {
+        return metadata;
+    }
+
+    public AbstractPulsarMutationSender.SchemaAndWriter getSchemaAndWriter() {
+        return schemaAndWriter;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Serialize the primary key values.
+     * @param pkValues primary key values in the primary key column order, missing clustering values are null.
+     * @return the AVRO binary encoded key
+     */
+    public byte[] write(Object[] pkValues) throws IOException {
+        KeyEncoder keyEncoder = keyEncoders.get();
+        keyEncoder.out.reset();
+        for (int i = 0; i < fieldWriters.length; i++)
+            fieldWriters[i].write(i < pkValues.length ? pkValues[i] : null, keyEncoder.encoder);
+        return keyEncoder.out.toByteArray();
+    }
+
+    static FieldWriter fieldWriter(Schema schema, Function<Object, Object> converter) {
+        if (schema.getType() == Schema.Type.UNION) {
+            // optional clustering column [null, type]
+            List<Schema> types = schema.getTypes();
+            Integer index = schema.getIndexNamed(Schema.Type.NULL.getName());
+            if (types.size() != 2 || index == null)
+                return datumWriter(schema, converter);
+            final int nullIndex = index;
+            final int valueIndex = 1 - nullIndex;
+            final FieldWriter valueWriter = fieldWriter(types.get(valueIndex), converter);
+            return (value, encoder) -> {
+                if (value == null) {
+                    encoder.writeIndex(nullIndex);
+                } else {
+                    encoder.writeIndex(valueIndex);
+                    valueWriter.write(value, encoder);
+                }
+            };
+        }
+
+        final FieldWriter datumWriter = datumWriter(schema, converter);
+        // writes already converted values, the converter must run once per value.
+        final FieldWriter convertedWriter = specificWriter(schema);
+        switch (schema.getType()) {
+            case STRING:
+                return schema.getLogicalType() != null
+                        ? datumWriter
+                        : (value, encoder) -> encoder.writeString(converter.apply(value).toString());
+            case BOOLEAN:
+                return (value, encoder) -> encoder.writeBoolean((Boolean) converter.apply(value));
+            case INT:
+                // logical types backed by an int (date) have no registered conversion for converted values.
+                return (value, encoder) -> {
+                    Object converted = converter.apply(value);
+                    if (converted instanceof Number)
+                        encoder.writeInt(((Number) converted).intValue());
+                    else
+                        convertedWriter.write(converted, encoder);
+                };
+            case LONG:
+                return (value, encoder) -> {
+                    Object converted = converter.apply(value);
+                    if (converted instanceof Number)
+                        encoder.writeLong(((Number) converted).longValue());
+                    else
+                        convertedWriter.write(converted, encoder);
+                };
+            case FLOAT:
+                return (value, encoder) -> encoder.writeFloat(((Number) converter.apply(value)).floatValue());
+            case DOUBLE:
+                return (value, encoder) -> encoder.writeDouble(((Number) converter.apply(value)).doubleValue());
+            case BYTES:
+                return schema.getLogicalType() != null
+                        ? datumWriter
+                        : (value, encoder) -> encoder.writeBytes((ByteBuffer) converter.apply(value));
+            default:
+                return datumWriter;
+        }
+    }
+
+    /**
+     * Generic field writer applying the AVRO logical type conversions.
+     */
+    static FieldWriter datumWriter(Schema schema, Function<Object, Object> converter) {
+        final FieldWriter writer = specificWriter(schema);
+        return (value, encoder) -> writer.write(value == null ? null : converter.apply(value), encoder);
+    }
+
+    /**
+     * Generic field writer applying the AVRO logical type conversions to already converted values.
+     */
+    static FieldWriter specificWriter(Schema schema) {
+        final SpecificDatumWriter<Object> writer = new SpecificDatumWriter<>(schema);
+        return writer::write;
+    }
+
+    static class KeyEncoder {
+        final KeyOutputStream out = new KeyOutputStream();
+        final BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(out, null);
+    }
+
+    /**
+     * Unsynchronized reusable output buffer.
+     */
+    static class KeyOutputStream extends OutputStream {
+        byte[] buf = new byte[64];
+        int count = 0;
+
+        void reset() {
+            count = 0;
+        }
+
+        private void ensureCapacity(int minCapacity) {
+            if (minCapacity > buf.length)
+                buf = Arrays.copyOf(buf, Math.max(buf.length << 1, minCapacity));
+        }
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(count + 1);
+            buf[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensureCapacity(count + len);
+            System.arraycopy(b, off, buf, count, len);
+            count += len;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, count);
+        }
+    }
+}
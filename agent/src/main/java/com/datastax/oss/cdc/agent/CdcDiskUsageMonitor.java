@@ -0,0 +1,144 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Track the disk usage of the commitlog files in the cdc_raw directory against the cdc_total_space,
+ * beyond which Cassandra rejects the writes to the CDC enabled tables.
+ *
+ * The time to full is estimated from an exponentially weighted moving average of the usage growth rate.
+ */
+@Slf4j
+public class CdcDiskUsageMonitor {
+    /**
+     * Usage ratio of the cdc_total_space beyond which the agent is under disk pressure.
+     */
+    public static final double PRESSURE_RATIO = 0.75;
+
+    /**
+     * Usage ratio of the cdc_total_space below which the disk pressure ends. Lower than the {@link #PRESSURE_RATIO}
+     * so that a usage oscillating around the threshold does not switch the processing mode back and forth.
+     */
+    public static final double PRESSURE_EXIT_RATIO = 0.65;
+
+    static final long MIN_UPDATE_INTERVAL_MS = 1000;
+    static final double GROWTH_RATE_WEIGHT = 0.2;
+
+    /**
+     * Commitlog bytes in the cdc_raw directory.
+     */
+    final AtomicLong usedBytes = new AtomicLong(0);
+
+    /**
+     * Remaining bytes before the cdc_total_space is full, -1 when unknown.
+     */
+    final AtomicLong headroomBytes = new AtomicLong(-1);
+
+    /**
+     * Estimated seconds before the cdc_total_space is full, -1 when unknown or not growing.
+     */
+    final AtomicLong timeToFullSeconds = new AtomicLong(-1);
+
+    private final File cdcDir;
+    private final long totalSpaceBytes;
+    private final Consumer<Boolean> pressureListener;
+
+    private long lastUpdateMillis = 0;
+    private long lastUsedBytes = -1;
+    private double growthRate = 0;
+    private boolean pressure = false;
+
+    /**
+     * @param cdcDir the cdc_raw directory
+     * @param totalSpaceBytes the cdc_total_space in bytes, zero or negative when unknown
+     * @param pressureListener notified when the disk pressure starts or ends
+     */
+    public CdcDiskUsageMonitor(File cdcDir, long totalSpaceBytes, Consumer<Boolean> pressureListener) {
+        this.cdcDir = cdcDir;
+        this.totalSpaceBytes = totalSpaceBytes;
+        this.pressureListener = pressureListener;
+    }
+
+    /**
+     * Measure the cdc_raw usage, at most once per second.
+     */
+    public void maybeUpdate() {
+        long now = System.currentTimeMillis();
+        if (now - lastUpdateMillis < MIN_UPDATE_INTERVAL_MS)
+            return;
+        long used = 0;
+        for (File file : CommitLogUtil.getCommitLogs(cdcDir))
+            used += file.length();
+        update(now, used);
+    }
+
+    void update(long nowMillis, long used) {
+        if (lastUsedBytes >= 0 && nowMillis > lastUpdateMillis) {
+            double rate = (used - lastUsedBytes) * 1000.0 / (nowMillis - lastUpdateMillis);
+            growthRate = GROWTH_RATE_WEIGHT * rate + (1 - GROWTH_RATE_WEIGHT) * growthRate;
+        }
+        lastUpdateMillis = nowMillis;
+        lastUsedBytes = used;
+        usedBytes.set(used);
+        if (totalSpaceBytes <= 0)
+            return;
+
+        long headroom = Math.max(0, totalSpaceBytes - used);
+        headroomBytes.set(headroom);
+        timeToFullSeconds.set(growthRate > 0 ? (long) (headroom / growthRate) : -1);
+        boolean underPressure = used >= totalSpaceBytes * (pressure ? PRESSURE_EXIT_RATIO : PRESSURE_RATIO);
+        if (underPressure != pressure) {
+            pressure = underPressure;
+            if (underPressure) {
+                log.warn("cdc_raw usage={}MB headroom={}MB timeToFull={}s, prioritizing the oldest commitlogs",
+                        used >> 20, headroom >> 20, timeToFullSeconds.get());
+            } else {
+                log.info("cdc_raw usage={}MB back under {}% of {}MB",
+                        used >> 20, (int) (PRESSURE_EXIT_RATIO * 100), totalSpaceBytes >> 20);
+            }
+            pressureListener.accept(underPressure);
+        }
+    }
+
+    public boolean isUnderPressure() {
+        return pressure;
+    }
+
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    public long getHeadroomBytes() {
+        return headroomBytes.get();
+    }
+
+    public long getTimeToFullSeconds() {
+        return timeToFullSeconds.get();
+    }
+
+    /**
+     * @return the estimated usage growth rate in bytes per second
+     */
+    double getGrowthRate() {
+        return growthRate;
+    }
+}
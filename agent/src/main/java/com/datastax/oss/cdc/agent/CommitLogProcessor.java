@@ -21,7 +21,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.WatchEvent;
 import java.time.Duration;
-import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -41,6 +41,7 @@ public class CommitLogProcessor extends AbstractProcessor implements AutoCloseab
     private final AbstractDirectoryWatcher newCommitLogWatcher;
     private final CommitLogTransfer commitLogTransfer;
     private final File cdcDir;
+    private final CdcDiskUsageMonitor diskUsageMonitor;
     private boolean initial = true;
 
     final CommitLogReaderService commitLogReaderService;
@@ -66,26 +67,33 @@ public class CommitLogProcessor extends AbstractProcessor implements AutoCloseab
                 throw new IOException("Failed to create " + cdcLogDir);
             }
         }
+        this.diskUsageMonitor = new CdcDiskUsageMonitor(cdcDir, config.cdcTotalSpaceInMB * 1024L * 1024L,
+                commitLogReaderService::onDiskPressure);
+        commitLogReaderService.diskUsageMonitor = diskUsageMonitor;
         this.newCommitLogWatcher = new AbstractDirectoryWatcher(cdcDir.toPath(),
+                Duration.ofMillis(Math.min(config.cdcDirPollMinIntervalMs, config.cdcDirPollIntervalMs)),
                 Duration.ofMillis(config.cdcDirPollIntervalMs),
                 watchedEvents) {
             @Override
-            void handleEvent(WatchEvent<?> event, Path path) {
+            boolean accept(Path path) {
+                return isCommitLog(path);
+            }
+
+            @Override
+            void handleEvent(WatchEvent.Kind<?> kind, Path path) {
                 collectCommitlog(path);
             }
         };
     }
 
+    private boolean isCommitLog(Path path) {
+        // _cdc.idx files for Cassandra 4.x and DSE 6.8.16+ only
+        return path.toString().endsWith(withNearRealTimeCdc ? "_cdc.idx" : ".log");
+    }
+
     private void collectCommitlog(Path path) {
-        if (withNearRealTimeCdc) {
-            // for Cassandra 4.x and DSE 6.8.16+ only
-            if (path.toString().endsWith("_cdc.idx")) {
-                commitLogReaderService.commitLogQueue.add(path.toFile());
-            }
-        } else {
-            if (path.toString().endsWith(".log")) {
-                commitLogReaderService.commitLogQueue.add(path.toFile());
-            }
+        if (isCommitLog(path)) {
+            commitLogReaderService.commitLogQueue.add(path.toFile());
         }
     }
 
@@ -106,9 +114,13 @@ public class CommitLogProcessor extends AbstractProcessor implements AutoCloseab
                 commitLogTransfer.recycleErrorCommitLogFiles(cdcDir.toPath());
             }
 
-            File[] commitLogFiles = CommitLogUtil.getCommitLogs(cdcDir);
-            Arrays.sort(commitLogFiles, CommitLogUtil::compareCommitLogs);
-            log.debug("Reading existing commit logs in {}, files={}", cdcDir, Arrays.asList(commitLogFiles));
+            // the watcher only reports the files created or modified after this snapshot
+            List<File> commitLogFiles = newCommitLogWatcher.snapshot().stream()
+                    .map(Path::toFile)
+                    .filter(f -> CommitLogUtil.FILENAME_REGEX_PATTERN.matcher(f.getName()).matches())
+                    .sorted(CommitLogUtil::compareCommitLogs)
+                    .collect(Collectors.toList());
+            log.debug("Reading existing commit logs in {}, files={}", cdcDir, commitLogFiles);
             for (File file : commitLogFiles) {
                 collectCommitlog(file.toPath());
             }
@@ -117,5 +129,6 @@ public class CommitLogProcessor extends AbstractProcessor implements AutoCloseab
 
         // collect new segment files
         newCommitLogWatcher.poll();
+        diskUsageMonitor.maybeUpdate();
     }
 }
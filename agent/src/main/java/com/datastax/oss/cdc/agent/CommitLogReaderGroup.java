@@ -0,0 +1,150 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * The commitlog reader services of an agent, created by the agent and passed to its services.
+ * The agent metrics aggregate the state of the services of the group.
+ */
+public class CommitLogReaderGroup {
+
+    final Set<CommitLogReaderService> services = new CopyOnWriteArraySet<>();
+
+    /**
+     * In-flight messages memory budget shared by the tasks of all the services of the agent.
+     * Mutations are charged their estimated heap size, see {@link AbstractMutation#estimatedSize()}.
+     */
+    final InflightMemoryBudget inflightMemoryBudget;
+
+    public CommitLogReaderGroup(AgentConfig config) {
+        this.inflightMemoryBudget = new InflightMemoryBudget(
+                config.maxInflightBytes > 0 ? config.maxInflightBytes : Runtime.getRuntime().maxMemory() / 20, bytes -> {});
+    }
+
+    void add(CommitLogReaderService service) {
+        services.add(service);
+    }
+
+    void remove(CommitLogReaderService service) {
+        services.remove(service);
+    }
+
+    int sum(ToIntFunction<CommitLogReaderService> counter) {
+        int sum = 0;
+        for (CommitLogReaderService service : services)
+            sum += counter.applyAsInt(service);
+        return sum;
+    }
+
+    long max(ToLongFunction<CommitLogReaderService> counter) {
+        long max = 0;
+        for (CommitLogReaderService service : services)
+            max = Math.max(max, counter.applyAsLong(service));
+        return max;
+    }
+
+    /**
+     * @return the lowest non-negative value of the services, -1 when none is known.
+     */
+    long minKnown(ToLongFunction<CommitLogReaderService> counter) {
+        long min = -1;
+        for (CommitLogReaderService service : services) {
+            long value = counter.applyAsLong(service);
+            if (value >= 0 && (min < 0 || value < min))
+                min = value;
+        }
+        return min;
+    }
+
+    public int submittedTasks() {
+        return sum(service -> service.scheduler.getRunningTasks());
+    }
+
+    public int maxSubmittedTasks() {
+        return sum(service -> service.scheduler.getMaxRunningTasks());
+    }
+
+    public int pendingTasks() {
+        return sum(service -> service.scheduler.getPendingTasks());
+    }
+
+    public int maxPendingTasks() {
+        return sum(service -> service.scheduler.getMaxPendingTasks());
+    }
+
+    public int maxUncleanedTasks() {
+        return sum(service -> service.scheduler.getMaxUncleanedTasks());
+    }
+
+    public int backlogSegments() {
+        return sum(service -> service.scheduler.getSegments());
+    }
+
+    /**
+     * @return the number of services in catch-up mode.
+     */
+    public int catchUpServices() {
+        return sum(service -> service.catchUp ? 1 : 0);
+    }
+
+    /**
+     * @return the highest detection latency of the services, in milliseconds.
+     */
+    public long detectionLatency() {
+        return max(service -> service.detectionLatency.get());
+    }
+
+    /**
+     * @return the highest in-flight messages limit learned by the tasks of the services.
+     */
+    public int inflightLimit() {
+        return (int) max(service -> service.inflightLimit.get());
+    }
+
+    public long inflightBytes() {
+        return inflightMemoryBudget.getUsedBytes();
+    }
+
+    public long inflightBytesAvailable() {
+        return inflightMemoryBudget.getAvailableBytes();
+    }
+
+    /**
+     * @return the highest cdc_raw usage of the services, in bytes.
+     */
+    public long cdcRawUsedBytes() {
+        return max(service -> service.diskUsageMonitor == null ? 0 : service.diskUsageMonitor.getUsedBytes());
+    }
+
+    /**
+     * @return the lowest cdc_raw headroom of the services in bytes, -1 when unknown.
+     */
+    public long cdcRawHeadroomBytes() {
+        return minKnown(service -> service.diskUsageMonitor == null ? -1 : service.diskUsageMonitor.getHeadroomBytes());
+    }
+
+    /**
+     * @return the lowest estimated time before a cdc_raw directory is full in seconds, -1 when unknown or not growing.
+     */
+    public long cdcRawTimeToFull() {
+        return minKnown(service -> service.diskUsageMonitor == null ? -1 : service.diskUsageMonitor.getTimeToFullSeconds());
+    }
+}
@@ -24,8 +24,8 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -40,33 +40,40 @@ public abstract class CommitLogReaderService implements Runnable, AutoCloseable
     public static final String ERROR_FOLDER = "errors";
 
     /**
-     * Submitted tasks to process CL files
+     * Capacity of each partition worker queue.
      */
-    static final ConcurrentMap<Long, Task> submittedTasks = new ConcurrentHashMap<>();
+    static final int PARTITION_QUEUE_CAPACITY = 1024;
 
     /**
-     * Pending tasks to process CL files.
+     * Lower bound and initial value of the adaptive in-flight messages limit of a task.
      */
-    static final ConcurrentMap<Long, Task> pendingTasks = new ConcurrentHashMap<>();
+    static final int MIN_INFLIGHT_LIMIT = 16;
+    static final int INITIAL_INFLIGHT_LIMIT = 1024;
+
+    final AgentConfig config;
+    final MutationSender<?> mutationSender;
+    final SegmentOffsetWriter segmentOffsetWriter;
+    final CommitLogTransfer commitLogTransfer;
 
     /**
-     * Uncompleted segments task for delayed task cleanup
+     * The reader services of the agent, aggregating their metrics.
      */
-    static final ConcurrentMap<Long, Task> uncleanedTasks = new ConcurrentHashMap<>();
+    final CommitLogReaderGroup group;
 
     /**
-     * Identify the working segment (not immutable) to properly garbageCollect immutable CL files.
+     * Elapsed time in milliseconds between the last _cdc.idx file update and the submission of its task.
      */
-    static AtomicLong lastSegment = new AtomicLong(0);
+    final AtomicLong detectionLatency = new AtomicLong(0);
 
-    static AtomicInteger maxSubmittedTasks = new AtomicInteger(0);
-    static AtomicInteger maxPendingTasks = new AtomicInteger(0);
-    static AtomicInteger maxUncleanedTasks = new AtomicInteger(0);
+    /**
+     * Last in-flight messages limit learned by a task, used as the initial limit of the next tasks.
+     */
+    final AtomicInteger inflightLimit = new AtomicInteger(0);
 
-    final AgentConfig config;
-    final MutationSender<?> mutationSender;
-    final SegmentOffsetWriter segmentOffsetWriter;
-    final CommitLogTransfer commitLogTransfer;
+    /**
+     * In-flight messages memory budget of the agent, see {@link CommitLogReaderGroup#inflightMemoryBudget}.
+     */
+    final InflightMemoryBudget inflightMemoryBudget;
 
     /**
      * ordered commitlog file queue.
@@ -78,15 +85,74 @@ public abstract class CommitLogReaderService implements Runnable, AutoCloseable
      */
     ExecutorService tasksExecutor;
 
+    /**
+     * Processes the partition updates of commitlog files in parallel, null when intra-segment parallelism is disabled.
+     */
+    final PartitionedExecutor partitionedExecutor;
+
+    /**
+     * Schedules the tasks, at most one running task per segment.
+     */
+    final SegmentScheduler<Task> scheduler;
+
+    /**
+     * Identify the working segment (not immutable) to properly garbageCollect immutable CL files.
+     */
+    final AtomicLong lastSegment = new AtomicLong(0);
+
+    /**
+     * Started tasks waiting for a processing thread, oldest segment first.
+     */
+    final PriorityBlockingQueue<Task> readyTasks = new PriorityBlockingQueue<>(16, Comparator.comparingLong(Task::getSegment));
+
+    /**
+     * True when the backlog is large enough to favor throughput over latency.
+     */
+    volatile boolean catchUp = false;
+
+    /**
+     * True when the cdc_raw usage is close to the cdc_total_space.
+     */
+    volatile boolean diskPressure = false;
+
+    /**
+     * Disk usage of the cdc_raw directory read by this service, set by its {@link CommitLogProcessor}.
+     */
+    volatile CdcDiskUsageMonitor diskUsageMonitor;
+
+    /**
+     * Number of processing threads in the latency-optimized mode, set when entering the catch-up mode.
+     */
+    int baseProcessors = 0;
+
+    /**
+     * Periodically persists the acknowledged position of the running tasks, null when checkpoints are disabled.
+     */
+    ScheduledExecutorService checkpointExecutor;
+
+    /**
+     * Periodically publishes the standby mutations this node became the primary replica of, null unless
+     * {@link AgentConfig#cdcPrimaryReplicaOnly} is true.
+     */
+    ScheduledExecutorService takeoverExecutor;
+
     public CommitLogReaderService(AgentConfig config,
                                   MutationSender<?> mutationSender,
                                   SegmentOffsetWriter segmentOffsetWriter,
-                                  CommitLogTransfer commitLogTransfer) {
+                                  CommitLogTransfer commitLogTransfer,
+                                  CommitLogReaderGroup group) {
         this.config = config;
         this.mutationSender = mutationSender;
         this.segmentOffsetWriter = segmentOffsetWriter;
         this.commitLogTransfer = commitLogTransfer;
+        this.group = group;
         this.commitLogQueue = new PriorityBlockingQueue<>(128, CommitLogUtil::compareCommitLogs);
+        this.inflightMemoryBudget = group.inflightMemoryBudget;
+        this.scheduler = new SegmentScheduler<>(this::launch);
+        this.partitionedExecutor = config.cdcIntraSegmentParallelism > 1
+                ? new PartitionedExecutor(config.cdcIntraSegmentParallelism, PARTITION_QUEUE_CAPACITY, "CdcPartitionProcessor")
+                : null;
+        group.add(this);
     }
 
     @Override
@@ -103,12 +169,19 @@ public abstract class CommitLogReaderService implements Runnable, AutoCloseable
 
     @Override
     public void close() {
+        if (checkpointExecutor != null)
+            checkpointExecutor.shutdownNow();
+        if (takeoverExecutor != null)
+            takeoverExecutor.shutdownNow();
         try {
             tasksExecutor.shutdown();
             tasksExecutor.awaitTermination(10, TimeUnit.SECONDS);
         } catch (InterruptedException e) {
             log.error("error:", e);
         }
+        if (partitionedExecutor != null)
+            partitionedExecutor.close();
+        group.remove(this);
     }
 
     public void submitCommitLog(File file) {
@@ -130,10 +203,11 @@ public abstract class CommitLogReaderService implements Runnable, AutoCloseable
                         }
                     } catch(Exception ex) {
                     }
-                    Task runningTask = submittedTasks.get(seg);
+                    Task runningTask = scheduler.running(seg);
                     if (pos > segmentOffsetWriter.position(Optional.empty(), seg) && (runningTask == null || pos > runningTask.syncPosition)) {
                         String commitlogName = file.getName().substring(0, file.getName().length() - "_cdc.idx".length()) + ".log";
                         addPendingTask(createTask(commitlogName, seg, pos, completed));
+                        detectionLatency.set(Math.max(0L, System.currentTimeMillis() - file.lastModified()));
                     }
                 }
             } catch(Exception ex) {
@@ -169,6 +243,50 @@ public abstract class CommitLogReaderService implements Runnable, AutoCloseable
                 throw new IOException("Failed to create " + errorDir);
             }
         }
+
+        if (config.cdcCheckpointIntervalMs > 0) {
+            checkpointExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "CdcOffsetCheckpointer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            checkpointExecutor.scheduleWithFixedDelay(this::checkpoint,
+                    config.cdcCheckpointIntervalMs, config.cdcCheckpointIntervalMs, TimeUnit.MILLISECONDS);
+        }
+
+        if (config.cdcPrimaryReplicaOnly) {
+            takeoverExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "CdcStandbyTakeover");
+                thread.setDaemon(true);
+                return thread;
+            });
+            takeoverExecutor.scheduleWithFixedDelay(this::takeOver,
+                    StandbyLog.TAKEOVER_CHECK_INTERVAL_MS, StandbyLog.TAKEOVER_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Publish the standby mutations this node became the primary replica of, bounded like the messages of a task.
+     */
+    void takeOver() {
+        try {
+            mutationSender.takeOver(newInflightLimiter(), inflightMemoryBudget);
+        } catch (Throwable t) {
+            log.warn("Failed to take over the standby mutations:", t);
+        }
+    }
+
+    /**
+     * Persist the acknowledged position of the running tasks.
+     */
+    void checkpoint() {
+        for (Task task : scheduler.runningTasks()) {
+            try {
+                task.checkpoint();
+            } catch (Throwable t) {
+                log.warn("Task segment={} failed to checkpoint its position:", task.segment, t);
+            }
+        }
     }
 
     /**
@@ -183,32 +301,66 @@ public abstract class CommitLogReaderService implements Runnable, AutoCloseable
 
 
     public void addPendingTask(Task task) {
-        pendingTasks.put(task.segment, task);
-        maxPendingTasks.getAndAccumulate(pendingTasks.size(), Math::max);
-        log.trace("maxPendingTasks={}", maxPendingTasks);
-        maybeRunPendingTask(task.segment);
+        scheduler.schedule(task.segment, task);
+        updateMode();
     }
 
     /**
-     * Start the pending task if not yet running.
-     * This ensures that only on task per segment is running.
-     * @param segment id
-     * @return the running task or null
+     * Queue a started task, each processing thread runs the oldest queued segment task.
      */
-    public Task maybeRunPendingTask(long segment) {
-        Task task = submittedTasks.compute(segment, (k1, v1) -> {
-            if (v1 == null) {
-                Task pendingTask = pendingTasks.get(segment);
-                if (pendingTask != null) {
-                    pendingTasks.remove(segment);
-                    tasksExecutor.submit(pendingTask);
-                }
-                return pendingTask;
-            }
-            return v1;
+    void launch(Task task) {
+        readyTasks.add(task);
+        tasksExecutor.submit(() -> {
+            Task next = readyTasks.poll();
+            if (next != null)
+                next.run();
         });
-        maxSubmittedTasks.getAndAccumulate(submittedTasks.size(), Math::max);
-        return task;
+    }
+
+    /**
+     * Switch to the catch-up mode when the backlog exceeds the threshold or under disk pressure, and back to
+     * the latency-optimized mode when the backlog drops to half the threshold and the disk pressure ends.
+     * The catch-up mode doubles the processing threads, and the mutation sender applies the catch-up producer profile
+     * while a service of the agent is in catch-up mode.
+     */
+    synchronized void updateMode() {
+        int threshold = config.cdcCatchUpBacklogSegments;
+        if (!(tasksExecutor instanceof ThreadPoolExecutor))
+            return;
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) tasksExecutor;
+        int backlog = scheduler.getSegments();
+        boolean backlogged = threshold > 0 && backlog >= threshold;
+        boolean drained = threshold <= 0 || backlog <= threshold / 2;
+        if (!catchUp && (diskPressure || backlogged)) {
+            catchUp = true;
+            baseProcessors = executor.getCorePoolSize();
+            executor.setMaximumPoolSize(Math.max(executor.getMaximumPoolSize(), 2 * baseProcessors));
+            executor.setCorePoolSize(2 * baseProcessors);
+            log.info("Entering catch-up mode, backlog={} segments, processors={}", backlog, 2 * baseProcessors);
+        } else if (catchUp && !diskPressure && drained) {
+            catchUp = false;
+            executor.setCorePoolSize(baseProcessors);
+            executor.setMaximumPoolSize(baseProcessors);
+            log.info("Leaving catch-up mode, backlog={} segments, processors={}", backlog, baseProcessors);
+        } else {
+            return;
+        }
+        // the services of the agent share the mutation sender, the last update sees the mode of all the services
+        synchronized (group) {
+            mutationSender.setCatchUpMode(group.catchUpServices() > 0);
+        }
+    }
+
+    /**
+     * Switch to the catch-up mode while the cdc_raw directory is close to full, and release the commitlog files
+     * of the older segments awaiting cleanup without waiting for the next segment.
+     * @param underPressure true when the disk pressure starts, false when it ends
+     */
+    public void onDiskPressure(boolean underPressure) {
+        this.diskPressure = underPressure;
+        updateMode();
+        if (underPressure)
+            garbageCollect(lastSegment.get());
     }
 
     /**
@@ -217,13 +369,8 @@ public abstract class CommitLogReaderService implements Runnable, AutoCloseable
      * @param lastSegment the last segment id
      */
     private void garbageCollect(long lastSegment) {
-        for(Map.Entry<Long, Task> entry : uncleanedTasks.entrySet()) {
-            if (entry.getKey() < lastSegment
-                    && submittedTasks.get(entry.getKey()) == null
-                    && pendingTasks.get(entry.getKey()) == null) {
-                entry.getValue().cleanup(entry.getValue().getStatus());
-            }
-        }
+        for (Task task : scheduler.collectGarbage(lastSegment))
+            task.cleanup(task.getStatus());
     }
 
     enum TaskStatus {
@@ -231,6 +378,14 @@ public abstract class CommitLogReaderService implements Runnable, AutoCloseable
         ERROR
     }
 
+    InflightLimiter newInflightLimiter() {
+        int maxLimit = config.maxInflightMessagesPerTask;
+        int minLimit = Math.min(MIN_INFLIGHT_LIMIT, maxLimit);
+        int learnedLimit = inflightLimit.get();
+        return new InflightLimiter(learnedLimit > 0 ? learnedLimit : INITIAL_INFLIGHT_LIMIT,
+                minLimit, maxLimit, config.maxInflightLatencyMs, inflightLimit::set);
+    }
+
     /**
      * commitlog file task
      */
@@ -252,7 +407,36 @@ public abstract class CommitLogReaderService implements Runnable, AutoCloseable
 
         @EqualsAndHashCode.Exclude
         @ToString.Exclude
-        Semaphore inflightMessagesSemaphore = new Semaphore(config.maxInflightMessagesPerTask);
+        InflightLimiter inflightLimiter = newInflightLimiter();
+
+        /**
+         * Number of dispatched partition updates not yet processed.
+         */
+        @EqualsAndHashCode.Exclude
+        @ToString.Exclude
+        int dispatchedTasks = 0;
+
+        @EqualsAndHashCode.Exclude
+        @ToString.Exclude
+        volatile Throwable dispatchException = null;
+
+        /**
+         * Acknowledged position watermark of this task, null when not tracked or after the task finished.
+         */
+        @EqualsAndHashCode.Exclude
+        @ToString.Exclude
+        PositionWatermark positionWatermark = null;
+
+        /**
+         * Last position persisted by {@link #checkpoint()}, guarded by the checkpointLock.
+         */
+        @EqualsAndHashCode.Exclude
+        @ToString.Exclude
+        int checkpointedPosition = 0;
+
+        @EqualsAndHashCode.Exclude
+        @ToString.Exclude
+        final Object checkpointLock = new Object();
 
         public Task(String filename, long segment, int syncPosition, boolean completed) {
             this.filename = filename;
@@ -263,42 +447,180 @@ public abstract class CommitLogReaderService implements Runnable, AutoCloseable
 
         public abstract File getFile();
 
+        /**
+         * Track the acknowledged positions of this task, to be periodically persisted by {@link #checkpoint()}.
+         * @param initialPosition the position this task starts reading from
+         * @return the position watermark
+         */
+        public PositionWatermark trackPositions(int initialPosition) {
+            PositionWatermark watermark = new PositionWatermark(initialPosition);
+            synchronized (checkpointLock) {
+                this.checkpointedPosition = initialPosition;
+                this.positionWatermark = watermark;
+            }
+            return watermark;
+        }
+
+        /**
+         * Persist the acknowledged position watermark if it advanced since the last checkpoint.
+         */
+        public void checkpoint() throws IOException {
+            synchronized (checkpointLock) {
+                if (positionWatermark == null)
+                    return;
+                int position = positionWatermark.position();
+                if (position > checkpointedPosition) {
+                    segmentOffsetWriter.position(Optional.empty(), segment, position);
+                    segmentOffsetWriter.flush(Optional.empty(), segment);
+                    checkpointedPosition = position;
+                    log.debug("Task segment={} checkpointed position={}", segment, position);
+                }
+            }
+        }
+
+        /**
+         * Stop the periodic checkpoints, before the task persists its final position or removes its offset.
+         */
+        void stopCheckpoints() {
+            synchronized (checkpointLock) {
+                positionWatermark = null;
+            }
+        }
+
+        /**
+         * @return the in-flight messages memory budget shared by all the tasks.
+         */
+        public InflightMemoryBudget inflightMemoryBudget() {
+            return inflightMemoryBudget;
+        }
+
+        /**
+         * Process a partition update of this task, on the partition worker of the token when the intra-segment
+         * parallelism is enabled, or in the calling thread otherwise.
+         * @param token the partition token
+         * @param runnable the partition update processing
+         */
+        public void dispatch(Object token, Runnable runnable) {
+            if (partitionedExecutor == null) {
+                runnable.run();
+                return;
+            }
+            if (dispatchException != null)
+                throw new RuntimeException("Partition update processing failed", dispatchException);
+            synchronized (this) {
+                dispatchedTasks++;
+            }
+            try {
+                partitionedExecutor.execute(token, () -> {
+                    try {
+                        runnable.run();
+                    } catch (Throwable t) {
+                        log.warn("Task segment={} partition update processing failed:", segment, t);
+                        dispatchException = t;
+                    } finally {
+                        dispatchDone();
+                    }
+                });
+            } catch (RuntimeException e) {
+                dispatchDone();
+                throw e;
+            }
+        }
+
+        private synchronized void dispatchDone() {
+            if (--dispatchedTasks == 0)
+                notifyAll();
+        }
+
+        /**
+         * Wait for all the dispatched partition updates to be processed.
+         */
+        public synchronized void awaitDispatched() {
+            boolean interrupted = false;
+            while (dispatchedTasks > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+
+        /**
+         * Wait for the dispatched partition updates and the in-flight messages, persist the sent position of a
+         * segment still written and release the segment, or reschedule the task on failure.
+         * @param taskStatus the status of the segment reading
+         * @param lastSentPosition the last sent position, or -1 to persist the acknowledged position watermark
+         *                         of the task once all its messages are acknowledged
+         */
         public void finish(TaskStatus taskStatus, int lastSentPosition) {
+            boolean succeeded = false;
+            boolean retry = false;
+            awaitDispatched();
+            final PositionWatermark watermark;
+            synchronized (checkpointLock) {
+                watermark = positionWatermark;
+            }
+            stopCheckpoints();
+            if (dispatchException != null) {
+                log.warn("Task segment={} failed to process partition updates", segment, dispatchException);
+                taskStatus = TaskStatus.ERROR;
+            }
             if (taskStatus.equals(TaskStatus.SUCCESS)) {
                 try {
-                    log.debug("Task segment={} waiting for {} in-flight messages",
-                            segment, config.maxInflightMessagesPerTask - inflightMessagesSemaphore.availablePermits());
-                    inflightMessagesSemaphore.acquireUninterruptibly(config.maxInflightMessagesPerTask);
+                    log.debug("Task segment={} waiting for {} in-flight messages", segment, inflightLimiter.getInflight());
+                    inflightLimiter.awaitIdle();
                     if (lastException != null)
                         throw lastException;
+                    if (watermark != null)
+                        lastSentPosition = Math.max(lastSentPosition, watermark.position());
                     if (!completed && lastSentPosition > 0) {
-                        // flush sent offset on disk to restart from that position
-                        segmentOffsetWriter.position(Optional.empty(), segment, lastSentPosition);
-                        segmentOffsetWriter.flush(Optional.empty(), segment);
+                        synchronized (checkpointLock) {
+                            // flush sent offset on disk to restart from that position, never behind a checkpoint
+                            if (lastSentPosition > checkpointedPosition) {
+                                segmentOffsetWriter.position(Optional.empty(), segment, lastSentPosition);
+                                segmentOffsetWriter.flush(Optional.empty(), segment);
+                                checkpointedPosition = lastSentPosition;
+                            }
+                        }
                     }
                     log.debug("Task segment={} completed={} lastSentPosition={} succeed", segment, completed, lastSentPosition);
+                    succeeded = true;
                 } catch (Throwable e) {
-                    // eventually resubmit self after 10s
                     log.error("Task segment={} completed={} syncPosition={} failed, retrying:", segment, completed, syncPosition, e);
-                    pendingTasks.putIfAbsent(segment, this);
+                    retry = true;
                 }
             }
 
-            submittedTasks.remove(this.segment);
-            Task nextTask = maybeRunPendingTask(this.segment);
+            release(succeeded && !completed);
+            Task nextTask = scheduler.finished(this.segment);
+            updateMode();
+            if (retry && nextTask == null) {
+                // no newer task of the segment, run this task again
+                scheduler.reschedule(this.segment, this);
+                return;
+            }
             if (nextTask == null) {
                 if (completed) {
-                    uncleanedTasks.remove(segment);
+                    scheduler.cleaned(segment);
                     cleanup(taskStatus);
                 } else {
                     // task will be cleaned up when processing the next segment
                     this.status = taskStatus;
-                    uncleanedTasks.put(segment, this);
-                    maxUncleanedTasks.getAndAccumulate(uncleanedTasks.size(), Math::max);
+                    scheduler.awaitCleanup(segment, this);
                 }
             }
         }
 
+        /**
+         * Release the per-segment resources of the task, before the next task of the segment can start.
+         * @param resumable true when the next task of the segment may resume from the state left by this task.
+         */
+        protected void release(boolean resumable) {
+        }
+
         public void cleanup(TaskStatus status) {
             log.debug("Cleanup task={}", this, status);
             File file = getFile();
@@ -0,0 +1,123 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Additive-increase/multiplicative-decrease (AIMD) limit of the in-flight messages of a task,
+ * adjusted from the observed send acknowledgement latency and errors.
+ *
+ * The limit grows by one on each timely acknowledgement while at least half of the window is in use,
+ * and is multiplied by {@link #BACKOFF_RATIO} on a send error or when an acknowledgement is slower than the latency threshold.
+ * The limit decreases at most once per latency threshold period, so that a burst of slow acknowledgements
+ * for the same window only backs off once.
+ */
+public class InflightLimiter {
+    public static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final IntConsumer limitListener;
+
+    private int limit;
+    private int inflight = 0;
+    private long lastDecreaseNanos;
+
+    /**
+     * @param initialLimit the initial limit, bounded by the min and max limits
+     * @param minLimit the minimum limit
+     * @param maxLimit the maximum limit
+     * @param latencyThresholdMs the acknowledgement latency in milliseconds beyond which the limit decreases
+     * @param limitListener notified of the new limit when it changes
+     */
+    public InflightLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThresholdMs, IntConsumer limitListener) {
+        if (minLimit < 1 || maxLimit < minLimit)
+            throw new IllegalArgumentException("Invalid limits min=" + minLimit + " max=" + maxLimit);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.limitListener = limitListener;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.lastDecreaseNanos = System.nanoTime() - latencyThresholdNanos;
+        limitListener.accept(limit);
+    }
+
+    /**
+     * Acquire an in-flight slot, blocking uninterruptibly while the limit is reached.
+     */
+    public synchronized void acquire() {
+        boolean interrupted = false;
+        while (inflight >= limit) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        inflight++;
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Release an in-flight slot and adjust the limit.
+     * @param latencyNanos the elapsed time between the send and its acknowledgement
+     * @param error true if the send failed
+     */
+    public synchronized void release(long latencyNanos, boolean error) {
+        int previousLimit = limit;
+        if (error || latencyNanos > latencyThresholdNanos) {
+            long now = System.nanoTime();
+            if (now - lastDecreaseNanos >= latencyThresholdNanos) {
+                limit = Math.max(minLimit, (int) (limit * BACKOFF_RATIO));
+                lastDecreaseNanos = now;
+            }
+        } else if (inflight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+        inflight--;
+        if (limit != previousLimit)
+            limitListener.accept(limit);
+        notifyAll();
+    }
+
+    /**
+     * Wait for all the in-flight slots to be released.
+     */
+    public synchronized void awaitIdle() {
+        boolean interrupted = false;
+        while (inflight > 0) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInflight() {
+        return inflight;
+    }
+}
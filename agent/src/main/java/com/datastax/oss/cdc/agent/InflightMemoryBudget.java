@@ -0,0 +1,82 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Agent-wide budget of the estimated heap bytes held by the in-flight mutations of all the commitlog processing tasks.
+ *
+ * A mutation larger than the whole budget is admitted when nothing else is in flight, so that it cannot block forever.
+ */
+public class InflightMemoryBudget {
+    private final long maxBytes;
+    private final LongConsumer usedBytesListener;
+
+    private long usedBytes = 0;
+
+    /**
+     * @param maxBytes the maximum number of in-flight bytes
+     * @param usedBytesListener notified of the used bytes when they change
+     */
+    public InflightMemoryBudget(long maxBytes, LongConsumer usedBytesListener) {
+        if (maxBytes <= 0)
+            throw new IllegalArgumentException("Invalid in-flight bytes budget " + maxBytes);
+        this.maxBytes = maxBytes;
+        this.usedBytesListener = usedBytesListener;
+    }
+
+    /**
+     * Reserve bytes, blocking uninterruptibly until they fit in the budget.
+     * @param bytes the number of bytes to reserve
+     */
+    public synchronized void acquire(long bytes) {
+        boolean interrupted = false;
+        while (usedBytes > 0 && usedBytes + bytes > maxBytes) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        usedBytes += bytes;
+        usedBytesListener.accept(usedBytes);
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Release bytes reserved by {@link #acquire(long)}.
+     * @param bytes the number of bytes to release
+     */
+    public synchronized void release(long bytes) {
+        usedBytes -= bytes;
+        usedBytesListener.accept(usedBytes);
+        notifyAll();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public synchronized long getAvailableBytes() {
+        return Math.max(0, maxBytes - usedBytes);
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Streaming MurmurHash3 x64 128-bit (seed 0), producing the same output as Guava's murmur3_128.
+ * Instances are reusable but not thread-safe.
+ */
+public class Murmur3Hash128 {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private final byte[] tail = new byte[16];
+    private int tailLength;
+    private long length;
+    private long h1;
+    private long h2;
+
+    public void reset() {
+        h1 = 0;
+        h2 = 0;
+        length = 0;
+        tailLength = 0;
+    }
+
+    public void update(byte[] input, int offset, int len) {
+        length += len;
+        if (tailLength > 0) {
+            int n = Math.min(16 - tailLength, len);
+            System.arraycopy(input, offset, tail, tailLength, n);
+            tailLength += n;
+            offset += n;
+            len -= n;
+            if (tailLength < 16)
+                return;
+            mixBlock(getLong(tail, 0), getLong(tail, 8));
+            tailLength = 0;
+        }
+        while (len >= 16) {
+            mixBlock(getLong(input, offset), getLong(input, offset + 8));
+            offset += 16;
+            len -= 16;
+        }
+        if (len > 0) {
+            System.arraycopy(input, offset, tail, 0, len);
+            tailLength = len;
+        }
+    }
+
+    public void update(ByteBuffer input) {
+        if (input.hasArray()) {
+            update(input.array(), input.arrayOffset() + input.position(), input.remaining());
+            input.position(input.limit());
+        } else {
+            while (input.hasRemaining()) {
+                int n = Math.min(16 - tailLength, input.remaining());
+                input.get(tail, tailLength, n);
+                tailLength += n;
+                length += n;
+                if (tailLength == 16) {
+                    mixBlock(getLong(tail, 0), getLong(tail, 8));
+                    tailLength = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Complete the hash, write the 16 bytes result and reset the hasher.
+     */
+    public void digest(byte[] out, int offset) {
+        long k1 = 0;
+        long k2 = 0;
+        for (int i = tailLength - 1; i >= 8; i--)
+            k2 = (k2 << 8) | (tail[i] & 0xffL);
+        for (int i = Math.min(tailLength, 8) - 1; i >= 0; i--)
+            k1 = (k1 << 8) | (tail[i] & 0xffL);
+        h1 ^= mixK1(k1);
+        h2 ^= mixK2(k2);
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+
+        putLong(out, offset, h1);
+        putLong(out, offset + 8, h2);
+        reset();
+    }
+
+    private void mixBlock(long k1, long k2) {
+        h1 ^= mixK1(k1);
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        h2 ^= mixK2(k2);
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        return k1;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        return k2;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    // little-endian
+    private static long getLong(byte[] b, int offset) {
+        return (b[offset] & 0xffL)
+                | (b[offset + 1] & 0xffL) << 8
+                | (b[offset + 2] & 0xffL) << 16
+                | (b[offset + 3] & 0xffL) << 24
+                | (b[offset + 4] & 0xffL) << 32
+                | (b[offset + 5] & 0xffL) << 40
+                | (b[offset + 6] & 0xffL) << 48
+                | (b[offset + 7] & 0xffL) << 56;
+    }
+
+    private static void putLong(byte[] b, int offset, long v) {
+        for (int i = 0; i < 8; i++) {
+            b[offset + i] = (byte) (v >>> (8 * i));
+        }
+    }
+}
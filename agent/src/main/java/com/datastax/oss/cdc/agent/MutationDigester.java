@@ -0,0 +1,169 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import com.datastax.oss.cdc.DigestAlgorithm;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Reusable digester for serialized mutations, supporting the {@link DigestAlgorithm}s.
+ *
+ * The digester is a {@link WritableByteChannel}, so a mutation can be serialized straight into it
+ * without an intermediate byte array. Instances are not thread-safe and must be confined to a single thread.
+ */
+public class MutationDigester implements WritableByteChannel {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final DigestAlgorithm algorithm;
+    private final MessageDigest messageDigest;
+    private final Murmur3Hash128 murmur3Hash;
+    private final byte[] digest;
+    private final char[] hexDigest;
+
+    public MutationDigester() {
+        this(DigestAlgorithm.MD5);
+    }
+
+    public MutationDigester(DigestAlgorithm algorithm) {
+        this.algorithm = algorithm;
+        switch (algorithm) {
+            case MD5:
+                try {
+                    this.messageDigest = MessageDigest.getInstance("MD5");
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException(e);
+                }
+                this.murmur3Hash = null;
+                break;
+            case MURMUR3_128:
+                this.messageDigest = null;
+                this.murmur3Hash = new Murmur3Hash128();
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported digest algorithm " + algorithm);
+        }
+        this.digest = new byte[algorithm.length];
+        this.hexDigest = new char[digest.length * 2];
+    }
+
+    public DigestAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Discard any bytes written since the last digest.
+     */
+    public void reset() {
+        if (messageDigest != null)
+            messageDigest.reset();
+        else
+            murmur3Hash.reset();
+    }
+
+    public void update(byte[] input, int offset, int length) {
+        if (messageDigest != null)
+            messageDigest.update(input, offset, length);
+        else
+            murmur3Hash.update(input, offset, length);
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        int length = src.remaining();
+        if (messageDigest != null)
+            messageDigest.update(src);
+        else
+            murmur3Hash.update(src);
+        return length;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        // nothing to release, the digester is reused.
+    }
+
+    /**
+     * Complete the digest of the bytes written so far and reset the digester.
+     * @return the digest, backed by an internal buffer overwritten by the next call.
+     */
+    public byte[] digest() {
+        if (messageDigest != null) {
+            try {
+                messageDigest.digest(digest, 0, digest.length);
+            } catch (DigestException e) {
+                throw new IllegalStateException(e);
+            }
+        } else {
+            murmur3Hash.digest(digest, 0);
+        }
+        return digest;
+    }
+
+    /**
+     * Complete the digest of the bytes written so far and reset the digester.
+     * @return a new array holding the algorithm tag followed by the digest.
+     */
+    public byte[] taggedDigest() {
+        byte[] bytes = digest();
+        byte[] tagged = new byte[bytes.length + 1];
+        tagged[0] = algorithm.tag;
+        System.arraycopy(bytes, 0, tagged, 1, bytes.length);
+        return tagged;
+    }
+
+    /**
+     * Complete the digest of the bytes written so far and reset the digester.
+     * @return the lowercase hexadecimal digest
+     */
+    public String hexDigest() {
+        byte[] bytes = digest();
+        for (int i = 0; i < bytes.length; i++) {
+            hexDigest[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0x0f];
+            hexDigest[2 * i + 1] = HEX_DIGITS[bytes[i] & 0x0f];
+        }
+        return new String(hexDigest);
+    }
+
+    /**
+     * Digest a byte array range in one shot.
+     * @return the lowercase hexadecimal digest
+     */
+    public String hexDigest(byte[] input, int offset, int length) {
+        reset();
+        update(input, offset, length);
+        return hexDigest();
+    }
+
+    /**
+     * Digest a byte array range in one shot.
+     * @return a new array holding the algorithm tag followed by the digest.
+     */
+    public byte[] taggedDigest(byte[] input, int offset, int length) {
+        reset();
+        update(input, offset, length);
+        return taggedDigest();
+    }
+}
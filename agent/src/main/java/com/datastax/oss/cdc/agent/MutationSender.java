@@ -23,4 +23,21 @@ public interface MutationSender<T> {
     }
 
     CompletableFuture<?> sendMutationAsync(final AbstractMutation<T> mutation);
+
+    /**
+     * Called by the commitlog reader service when the agent enters or leaves the catch-up mode,
+     * see {@link AgentConfig#cdcCatchUpBacklogSegments}.
+     * @param catchUp true in catch-up mode
+     */
+    default void setCatchUpMode(boolean catchUp) {
+    }
+
+    /**
+     * Publish the standby mutations this node became the primary replica of, see {@link AgentConfig#cdcPrimaryReplicaOnly}.
+     * Periodically called by the commitlog reader service, returns when the published messages are acknowledged.
+     * @param inflightLimiter bounds the in-flight messages
+     * @param inflightMemoryBudget bounds the in-flight messages memory
+     */
+    default void takeOver(InflightLimiter inflightLimiter, InflightMemoryBudget inflightMemoryBudget) {
+    }
 }
@@ -0,0 +1,90 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes tasks on single threaded shards selected by partition token,
+ * so that the tasks of a given partition are executed in submission order.
+ *
+ * Shard queues are bounded, submitters block when the selected shard queue is full.
+ */
+@Slf4j
+public class PartitionedExecutor implements AutoCloseable {
+
+    private final ThreadPoolExecutor[] shards;
+
+    public PartitionedExecutor(int parallelism, int queueCapacity, String threadNamePrefix) {
+        this.shards = new ThreadPoolExecutor[parallelism];
+        final AtomicInteger threadCount = new AtomicInteger(0);
+        for (int i = 0; i < parallelism; i++) {
+            shards[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    r -> {
+                        Thread thread = new Thread(r, threadNamePrefix + "-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    (r, executor) -> {
+                        if (executor.isShutdown())
+                            throw new RejectedExecutionException("Executor " + threadNamePrefix + " is shutdown");
+                        try {
+                            executor.getQueue().put(r); // may block
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RejectedExecutionException(e);
+                        }
+                    });
+        }
+    }
+
+    public int parallelism() {
+        return shards.length;
+    }
+
+    /**
+     * Execute the task on the shard of the provided partition token, may block if the shard queue is full.
+     * @param token the partition token
+     * @param task the task to execute
+     */
+    public void execute(Object token, Runnable task) {
+        shards[shard(token, shards.length)].execute(task);
+    }
+
+    static int shard(Object token, int parallelism) {
+        int h = token == null ? 0 : token.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), parallelism);
+    }
+
+    @Override
+    public void close() {
+        for (ThreadPoolExecutor shard : shards)
+            shard.shutdown();
+        try {
+            for (ThreadPoolExecutor shard : shards)
+                shard.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            log.error("error:", e);
+        }
+    }
+}
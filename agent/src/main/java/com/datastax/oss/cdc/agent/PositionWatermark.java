@@ -0,0 +1,99 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Ordered watermark of the commitlog positions processed in a segment.
+ *
+ * Each position is retained while some work (partition update processing, in-flight message) is pending for it,
+ * and the watermark only advances to a position once it and all lower positions are released.
+ * New positions must be retained in ascending order, this is the commitlog reading order.
+ */
+public class PositionWatermark {
+
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+    private final Map<Integer, Entry> index = new HashMap<>();
+    private int position;
+
+    public PositionWatermark(int initialPosition) {
+        this.position = initialPosition;
+    }
+
+    public synchronized void retain(int position) {
+        retain(position, 1);
+    }
+
+    /**
+     * Retain a position count times.
+     * @param position the commitlog position
+     * @param count the number of releases required to acknowledge the position
+     */
+    public synchronized void retain(int position, int count) {
+        Entry entry = index.get(position);
+        if (entry == null) {
+            Entry last = entries.peekLast();
+            if (position < this.position || (last != null && position < last.position))
+                throw new IllegalStateException("Position " + position + " retained out of order, watermark=" + this.position);
+            entry = new Entry(position);
+            entries.addLast(entry);
+            index.put(position, entry);
+        }
+        entry.pending += count;
+    }
+
+    /**
+     * Release a position, and advance the watermark if all lower positions are released.
+     * @param position the commitlog position
+     */
+    public synchronized void release(int position) {
+        Entry entry = index.get(position);
+        if (entry == null || entry.pending == 0)
+            throw new IllegalStateException("Position " + position + " is not retained");
+        entry.pending--;
+        while (!entries.isEmpty() && entries.peekFirst().pending == 0) {
+            Entry head = entries.pollFirst();
+            index.remove(head.position);
+            this.position = head.position;
+        }
+    }
+
+    /**
+     * @return the highest position such that this position and all lower positions are released.
+     */
+    public synchronized int position() {
+        return this.position;
+    }
+
+    /**
+     * @return the number of retained positions not yet acknowledged by the watermark.
+     */
+    public synchronized int pendingPositions() {
+        return entries.size();
+    }
+
+    static class Entry {
+        final int position;
+        int pending;
+
+        Entry(int position) {
+            this.position = position;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of producers evicting the idle and least recently used ones.
+ *
+ * A producer is retained for each pending send and released when the send completes, so that a producer is only
+ * closed once all its sends are acknowledged. Idle producers are evicted after the idle timeout, checked at most
+ * every half timeout when acquiring a producer, and the least recently used idle producers are evicted when the cache
+ * exceeds its capacity. The capacity is a soft limit: producers having pending sends are not evicted, so the cache
+ * exceeds its capacity while more producers are busy. Evicted producers are lazily re-created, after the previous
+ * producer of the same key is closed, and acquiring a producer fails when this close does not complete in time.
+ *
+ * @param <P> the producer type
+ */
+@Slf4j
+public class ProducerCache<P> {
+
+    public static final long DEFAULT_CLOSE_TIMEOUT_MS = 10000;
+
+    /**
+     * A cached producer.
+     */
+    public static final class Entry<P> {
+        public final String key;
+        public final P producer;
+        /**
+         * Number of pending sends, -1 once the producer is closing.
+         */
+        final AtomicInteger pendingSends = new AtomicInteger(0);
+        final AtomicBoolean closed = new AtomicBoolean(false);
+        /**
+         * Completed when the producer is closed, registered as closing before the entry is removed.
+         */
+        final CompletableFuture<Void> closeFuture = new CompletableFuture<>();
+        volatile boolean removed = false;
+        volatile long lastUsedNanos;
+
+        Entry(String key, P producer, long nowNanos) {
+            this.key = key;
+            this.producer = producer;
+            this.lastUsedNanos = nowNanos;
+        }
+
+        boolean retain() {
+            while (true) {
+                int n = pendingSends.get();
+                if (n < 0)
+                    return false;
+                if (pendingSends.compareAndSet(n, n + 1))
+                    return true;
+            }
+        }
+
+        public int getPendingSends() {
+            return Math.max(0, pendingSends.get());
+        }
+    }
+
+    private final Map<String, Entry<P>> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<?>> closing = new ConcurrentHashMap<>();
+    private final Function<P, CompletableFuture<?>> closer;
+    private final Consumer<String> evictionListener;
+    private final int maxProducers;
+    private final long idleTimeoutNanos;
+    private final long closeTimeoutMs;
+    private final AtomicLong lastIdleCheckNanos;
+
+    private final AtomicInteger liveProducers = new AtomicInteger(0);
+    private final AtomicLong evictedProducers = new AtomicLong(0);
+
+    /**
+     * @param maxProducers the maximum number of producers, unbounded when not greater than zero
+     * @param idleTimeoutMs the idle time before a producer is evicted, never evicted when not greater than zero
+     * @param closer flushes and closes a producer
+     * @param evictionListener called with the key of an evicted producer
+     */
+    public ProducerCache(int maxProducers, long idleTimeoutMs, Function<P, CompletableFuture<?>> closer, Consumer<String> evictionListener) {
+        this(maxProducers, idleTimeoutMs, DEFAULT_CLOSE_TIMEOUT_MS, closer, evictionListener);
+    }
+
+    /**
+     * @param maxProducers the maximum number of producers, unbounded when not greater than zero
+     * @param idleTimeoutMs the idle time before a producer is evicted, never evicted when not greater than zero
+     * @param closeTimeoutMs the maximum time to wait for the previous producer of a key to be closed
+     * @param closer flushes and closes a producer
+     * @param evictionListener called with the key of an evicted producer
+     */
+    public ProducerCache(int maxProducers, long idleTimeoutMs, long closeTimeoutMs, Function<P, CompletableFuture<?>> closer, Consumer<String> evictionListener) {
+        this.maxProducers = maxProducers;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMs);
+        this.closeTimeoutMs = closeTimeoutMs;
+        this.closer = closer;
+        this.evictionListener = evictionListener;
+        this.lastIdleCheckNanos = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Get or create the producer of a key, and retain it until {@link #release(Entry)}.
+     * @param key the producer key
+     * @param factory creates the producer
+     * @return the retained producer entry
+     * @throws IllegalStateException when the previous producer of the key is not closed within the close timeout,
+     * for example while the broker is unreachable
+     */
+    public Entry<P> acquire(String key, Function<String, P> factory) {
+        return acquire(key, factory, System.nanoTime());
+    }
+
+    Entry<P> acquire(String key, Function<String, P> factory, long nowNanos) {
+        if (idleTimeoutNanos > 0) {
+            long lastCheck = lastIdleCheckNanos.get();
+            if (nowNanos - lastCheck >= idleTimeoutNanos / 2 && lastIdleCheckNanos.compareAndSet(lastCheck, nowNanos))
+                evictIdle(nowNanos);
+        }
+        while (true) {
+            AtomicBoolean created = new AtomicBoolean(false);
+            Entry<P> entry = entries.get(key);
+            if (entry == null) {
+                CompletableFuture<?> previous = closing.get(key);
+                if (previous != null) {
+                    // the producer name must be released by the broker, wait outside of the map lock
+                    awaitClose(key, previous);
+                    continue;
+                }
+                entry = entries.computeIfAbsent(key, k -> {
+                    if (closing.containsKey(k))
+                        return null;
+                    created.set(true);
+                    return new Entry<>(k, factory.apply(k), nowNanos);
+                });
+                if (entry == null) {
+                    // a producer of the key started closing meanwhile
+                    continue;
+                }
+            }
+            if (entry.retain()) {
+                entry.lastUsedNanos = nowNanos;
+                if (created.get()) {
+                    liveProducers.incrementAndGet();
+                    if (maxProducers > 0 && entries.size() > maxProducers)
+                        evictLeastRecentlyUsed(entries.size() - maxProducers);
+                }
+                return entry;
+            }
+            // evicted meanwhile, retry with a new producer
+        }
+    }
+
+    /**
+     * Wait for the previous producer of a key to be closed, so that the reader thread fails the send
+     * and retries the commitlog later rather than blocking while the close never completes.
+     */
+    private void awaitClose(String key, CompletableFuture<?> previous) {
+        try {
+            previous.get(closeTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // the close outcome is logged by the closer callback
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Previous producer key=" + key + " not closed after " + closeTimeoutMs + "ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the previous producer key=" + key + " to be closed");
+        }
+    }
+
+    /**
+     * Release a producer when a send completes.
+     * @param entry the producer entry
+     */
+    public void release(Entry<P> entry) {
+        release(entry, System.nanoTime());
+    }
+
+    void release(Entry<P> entry, long nowNanos) {
+        entry.lastUsedNanos = nowNanos;
+        if (entry.pendingSends.decrementAndGet() == 0 && entry.removed && entry.pendingSends.compareAndSet(0, -1))
+            close(entry);
+    }
+
+    /**
+     * Remove a producer, closed once its pending sends complete.
+     * Until then, acquiring the key waits for the producer to be closed.
+     * @param key the producer key
+     */
+    public void invalidate(String key) {
+        Entry<P> entry = entries.get(key);
+        if (entry == null)
+            return;
+        // registered before the removal, so that a new producer is not created before this one is closed.
+        closing.put(key, entry.closeFuture);
+        if (!entries.remove(key, entry)) {
+            // evicted meanwhile, and possibly already closed
+            if (entry.closeFuture.isDone())
+                closing.remove(key, entry.closeFuture);
+            return;
+        }
+        entry.removed = true;
+        if (entry.pendingSends.compareAndSet(0, -1))
+            close(entry);
+    }
+
+    /**
+     * Remove all the producers, see {@link #invalidate(String)}.
+     */
+    public void invalidateAll() {
+        for (String key : entries.keySet())
+            invalidate(key);
+    }
+
+    /**
+     * Evict the producers idle for more than the idle timeout.
+     * @return the number of evicted producers
+     */
+    int evictIdle(long nowNanos) {
+        int evicted = 0;
+        for (Entry<P> entry : entries.values()) {
+            if (nowNanos - entry.lastUsedNanos >= idleTimeoutNanos && evict(entry))
+                evicted++;
+        }
+        return evicted;
+    }
+
+    int evictLeastRecentlyUsed(int count) {
+        List<Entry<P>> idleEntries = new ArrayList<>();
+        for (Entry<P> entry : entries.values()) {
+            if (entry.pendingSends.get() == 0)
+                idleEntries.add(entry);
+        }
+        idleEntries.sort(Comparator.comparingLong(e -> e.lastUsedNanos));
+        int evicted = 0;
+        for (int i = 0; i < idleEntries.size() && evicted < count; i++) {
+            if (evict(idleEntries.get(i)))
+                evicted++;
+        }
+        return evicted;
+    }
+
+    /**
+     * Evict a producer having no pending sends.
+     */
+    boolean evict(Entry<P> entry) {
+        if (!entry.pendingSends.compareAndSet(0, -1))
+            return false;
+        // registered before the removal, so that a new producer is not created before this one is closed.
+        closing.put(entry.key, entry.closeFuture);
+        if (!entries.remove(entry.key, entry)) {
+            // invalidated meanwhile, but not closed as it was no more idle
+            close(entry);
+            return false;
+        }
+        entry.removed = true;
+        evictedProducers.incrementAndGet();
+        log.debug("Evicting idle producer key={}", entry.key);
+        close(entry);
+        evictionListener.accept(entry.key);
+        return true;
+    }
+
+    private void close(Entry<P> entry) {
+        if (!entry.closed.compareAndSet(false, true))
+            return;
+        liveProducers.decrementAndGet();
+        CompletableFuture<?> future;
+        try {
+            future = closer.apply(entry.producer);
+        } catch (Exception e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        future.whenComplete((r, t) -> {
+            if (t != null)
+                log.warn("Failed to close producer key={}:", entry.key, t);
+            closing.remove(entry.key, entry.closeFuture);
+            entry.closeFuture.complete(null);
+        });
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of open producers, including the producers closing once their pending sends complete.
+     */
+    public int getLiveProducers() {
+        return liveProducers.get();
+    }
+
+    /**
+     * @return the number of producers closed after the idle timeout or above the maximum number of producers.
+     */
+    public long getEvictedProducers() {
+        return evictedProducers.get();
+    }
+
+    public Entry<P> get(String key) {
+        return entries.get(key);
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.apache.pulsar.client.api.CompressionType;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Pulsar producer settings of a keyspace or a table.
+ *
+ * Profiles are declared as {@code <keyspace>[.<table>]:<option>=<value>[&<option>=<value>...]} separated by semicolons,
+ * for example {@code ks1.wide_table:compressionType=ZSTD&batchingMaxMessages=500;ks2:batchDelayInMs=0}.
+ * Null fields are inherited: a table profile overrides its keyspace profile, which overrides the global producer settings.
+ */
+@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
+public class ProducerProfile {
+    public static final String COMPRESSION_TYPE = "compressionType";
+    public static final String BATCH_DELAY_IN_MS = "batchDelayInMs";
+    public static final String BATCHING_MAX_MESSAGES = "batchingMaxMessages";
+    public static final String BATCHING_MAX_BYTES = "batchingMaxBytes";
+    public static final String CHUNKING = "chunking";
+
+    public static final ProducerProfile EMPTY = new ProducerProfile(null, null, null, null, null);
+
+    /**
+     * Pulsar compression type: NONE, LZ4, ZLIB, ZSTD or SNAPPY.
+     */
+    public final CompressionType compressionType;
+    /**
+     * Batching delay in milliseconds, batching is disabled when not greater than zero.
+     */
+    public final Long batchDelayInMs;
+    public final Integer batchingMaxMessages;
+    public final Integer batchingMaxBytes;
+    /**
+     * When true, messages larger than the broker max message size are split into chunks. Disables batching.
+     */
+    public final Boolean chunking;
+
+    /**
+     * @param profile the profile overriding this one
+     * @return this profile with the non-null fields of the provided profile.
+     */
+    public ProducerProfile merge(ProducerProfile profile) {
+        if (profile == null)
+            return this;
+        return new ProducerProfile(
+                profile.compressionType != null ? profile.compressionType : compressionType,
+                profile.batchDelayInMs != null ? profile.batchDelayInMs : batchDelayInMs,
+                profile.batchingMaxMessages != null ? profile.batchingMaxMessages : batchingMaxMessages,
+                profile.batchingMaxBytes != null ? profile.batchingMaxBytes : batchingMaxBytes,
+                profile.chunking != null ? profile.chunking : chunking);
+    }
+
+    public boolean isBatchingEnabled() {
+        return batchDelayInMs != null && batchDelayInMs > 0 && !Boolean.TRUE.equals(chunking);
+    }
+
+    /**
+     * A profile enabling batching while the global producer settings disable it always batches by key,
+     * because the Key_Shared subscription of the source connector does not accept mixed-key batches.
+     * @param keyBasedBatcher the pulsarKeyBasedBatcher setting
+     * @param defaultProfile the global producer settings
+     * @return true when the producer must use the KEY_BASED batcher.
+     */
+    public boolean isKeyBasedBatching(boolean keyBasedBatcher, ProducerProfile defaultProfile) {
+        return isBatchingEnabled() && (keyBasedBatcher || !defaultProfile.isBatchingEnabled());
+    }
+
+    /**
+     * Resolve the producer settings of a table.
+     * @param defaultProfile the global producer settings
+     * @param profiles the keyspace and table profiles
+     * @param keyspace the keyspace name
+     * @param table the table name
+     * @return the merged producer profile
+     */
+    public static ProducerProfile resolve(ProducerProfile defaultProfile, Map<String, ProducerProfile> profiles, String keyspace, String table) {
+        return defaultProfile
+                .merge(profiles.get(keyspace))
+                .merge(profiles.get(keyspace + "." + table));
+    }
+
+    /**
+     * Parse the keyspace and table producer profiles.
+     * @param profiles the profiles definition, may be null
+     * @return the profiles indexed by keyspace or keyspace.table name
+     * @throws IllegalArgumentException on malformed profiles
+     */
+    public static Map<String, ProducerProfile> parse(String profiles) {
+        if (profiles == null || profiles.trim().isEmpty())
+            return Collections.emptyMap();
+        Map<String, ProducerProfile> map = new HashMap<>();
+        for (String profile : profiles.split(";")) {
+            if (profile.trim().isEmpty())
+                continue;
+            int i = profile.indexOf(':');
+            if (i <= 0)
+                throw new IllegalArgumentException("Missing keyspace or table name in producer profile '" + profile + "'");
+            String name = profile.substring(0, i).trim();
+            map.put(name, map.getOrDefault(name, EMPTY).merge(parseOptions(name, profile.substring(i + 1))));
+        }
+        return map;
+    }
+
+    /**
+     * Parse the options of a producer profile.
+     * @param name the profile name, for error messages
+     * @param options the options formatted as {@code <option>=<value>[&<option>=<value>...]}, may be null
+     * @return the producer profile, {@link #EMPTY} when no option is provided
+     * @throws IllegalArgumentException on malformed options
+     */
+    public static ProducerProfile parseOptions(String name, String options) {
+        if (options == null || options.trim().isEmpty())
+            return EMPTY;
+        ProducerProfile producerProfile = EMPTY;
+        for (String option : options.split("&")) {
+            int j = option.indexOf('=');
+            if (j <= 0)
+                throw new IllegalArgumentException("Malformed option '" + option + "' in producer profile '" + name + "'");
+            producerProfile = producerProfile.merge(option(option.substring(0, j).trim(), option.substring(j + 1).trim()));
+        }
+        return producerProfile;
+    }
+
+    static ProducerProfile option(String key, String value) {
+        switch (key) {
+            case COMPRESSION_TYPE:
+                return new ProducerProfile(CompressionType.valueOf(value.toUpperCase(Locale.ROOT)), null, null, null, null);
+            case BATCH_DELAY_IN_MS:
+                return new ProducerProfile(null, Long.parseLong(value), null, null, null);
+            case BATCHING_MAX_MESSAGES:
+                return new ProducerProfile(null, null, Integer.parseInt(value), null, null);
+            case BATCHING_MAX_BYTES:
+                return new ProducerProfile(null, null, null, Integer.parseInt(value), null);
+            case CHUNKING:
+                return new ProducerProfile(null, null, null, null, Boolean.parseBoolean(value));
+            default:
+                throw new IllegalArgumentException("Unknown producer profile option '" + key + "'");
+        }
+    }
+}
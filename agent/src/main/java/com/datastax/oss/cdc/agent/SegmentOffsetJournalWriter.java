@@ -0,0 +1,282 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+/**
+ * Persist the segment offsets in a single append-only journal of checksummed fixed-size records,
+ * rather than one offset file per segment.
+ *
+ * Concurrent flushes share a single fsync (group commit): a flush returns once a fsync started after its record was appended completes.
+ * The journal is compacted into a snapshot of the live offsets, atomically and durably renamed over the journal, when it holds too many stale records.
+ * On load, the journal is read up to the first torn or corrupted record, and the legacy offset files
+ * written by {@link SegmentOffsetFileWriter} are migrated into the journal.
+ */
+@Slf4j
+public class SegmentOffsetJournalWriter implements SegmentOffsetWriter, AutoCloseable {
+    public static final String JOURNAL_FILE = "offsets.journal";
+
+    static final byte POSITION = 1;
+    static final byte REMOVE = 2;
+    static final byte CLEAR = 3;
+
+    /**
+     * Record layout: type (1 byte), segment (8 bytes), position (4 bytes), CRC32 of the previous fields (4 bytes).
+     */
+    static final int RECORD_SIZE = 17;
+
+    /**
+     * Minimum number of journal records before compaction.
+     */
+    static final int MIN_COMPACTION_RECORDS = 1024;
+
+    private final ConcurrentMap<Long, Integer> segmentOffsets = new ConcurrentHashMap<>();
+    private final File cdcLogDir;
+    private final Path journalPath;
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 crc32 = new CRC32();
+    private final Object syncLock = new Object();
+
+    // written under the writer lock
+    private volatile FileChannel journal;
+    private volatile long appendedRecords = 0;
+    private volatile long compactedRecords = 0;
+    private int journalRecords = 0;
+
+    // guarded by syncLock
+    private long syncedRecords = 0;
+
+    public SegmentOffsetJournalWriter(String cdcLogDir) throws IOException {
+        this.cdcLogDir = new File(cdcLogDir);
+        if (!this.cdcLogDir.exists())
+            Files.createDirectories(this.cdcLogDir.toPath());
+        this.journalPath = new File(cdcLogDir, JOURNAL_FILE).toPath();
+    }
+
+    @Override
+    public int position(Optional<UUID> nodeId, long segmentId) {
+        Integer position = segmentOffsets.get(segmentId);
+        return position == null ? 0 : position;
+    }
+
+    @Override
+    public void position(Optional<UUID> nodeId, long segmentId, int position) {
+        segmentOffsets.put(segmentId, position);
+    }
+
+    @Override
+    public void flush(Optional<UUID> nodeId, long segmentId) throws IOException {
+        Integer position = segmentOffsets.get(segmentId);
+        if (position == null)
+            return;
+        long record = append(POSITION, segmentId, position);
+        sync(record);
+    }
+
+    @Override
+    public void loadOffsets() throws IOException {
+        synchronized (this) {
+            if (journal != null)
+                throw new IllegalStateException("Offsets already loaded");
+            File[] legacyFiles = cdcLogDir.listFiles(f -> f.isFile()
+                    && SegmentOffsetFileWriter.COMMITLOG_OFFSETS_REGEX_PATTERN.matcher(f.getName()).matches());
+            if (legacyFiles != null) {
+                for (File f : legacyFiles) {
+                    long segment = Long.parseLong(f.getName().substring(0, f.getName().length() - SegmentOffsetFileWriter.COMMITLOG_OFFSET_FILE_SUFFIX.length()));
+                    segmentOffsets.put(segment, SegmentOffsetFileWriter.deserializePosition(new String(Files.readAllBytes(f.toPath())).trim()));
+                }
+            }
+            if (Files.exists(journalPath))
+                replay();
+            // rewrite the valid records, dropping any torn tail and the legacy offsets
+            compact();
+            if (legacyFiles != null) {
+                for (File f : legacyFiles)
+                    Files.deleteIfExists(f.toPath());
+            }
+        }
+    }
+
+    @Override
+    public void remove(Optional<UUID> nodeId, long segmentId) {
+        segmentOffsets.remove(segmentId);
+        appendQuietly(REMOVE, segmentId, 0);
+    }
+
+    @Override
+    public void remove(Optional<UUID> nodeId) {
+        segmentOffsets.clear();
+        appendQuietly(CLEAR, 0, 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (journal == null)
+                return;
+            for (Map.Entry<Long, Integer> entry : segmentOffsets.entrySet())
+                append(POSITION, entry.getKey(), entry.getValue());
+            journal.force(false);
+            journal.close();
+            journal = null;
+        }
+    }
+
+    private void appendQuietly(byte type, long segment, int position) {
+        try {
+            append(type, segment, position);
+        } catch (IOException e) {
+            log.error("Failed to append offset journal record type={} segment={}", type, segment, e);
+        }
+    }
+
+    /**
+     * Append a record, compacting the journal when it holds too many stale records.
+     * @return the sequence number of the appended record
+     */
+    private synchronized long append(byte type, long segment, int position) throws IOException {
+        if (journal == null)
+            openJournal(false);
+        if (journalRecords >= Math.max(MIN_COMPACTION_RECORDS, 4 * segmentOffsets.size())) {
+            compact();
+            if (type == POSITION)
+                // the durable snapshot already holds the position
+                return compactedRecords;
+        }
+        recordBuffer.clear();
+        recordBuffer.put(type).putLong(segment).putInt(position);
+        crc32.reset();
+        crc32.update(recordBuffer.array(), 0, RECORD_SIZE - 4);
+        recordBuffer.putInt((int) crc32.getValue());
+        recordBuffer.flip();
+        while (recordBuffer.hasRemaining())
+            journal.write(recordBuffer);
+        journalRecords++;
+        return ++appendedRecords;
+    }
+
+    /**
+     * Wait for the record to be durable, sharing a single fsync with the concurrent flushes.
+     */
+    private void sync(long record) throws IOException {
+        synchronized (syncLock) {
+            if (syncedRecords >= record || compactedRecords >= record)
+                return;
+            // records appended up to now are either in the current journal or in a later compaction snapshot
+            long appended = appendedRecords;
+            FileChannel channel = journal;
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException e) {
+                if (compactedRecords < record)
+                    throw e;
+            }
+            syncedRecords = appended;
+        }
+    }
+
+    private void replay() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(journalPath));
+        CRC32 checksum = new CRC32();
+        int records = 0;
+        while (buffer.remaining() >= RECORD_SIZE) {
+            int start = buffer.position();
+            checksum.reset();
+            checksum.update(buffer.array(), start, RECORD_SIZE - 4);
+            byte type = buffer.get();
+            long segment = buffer.getLong();
+            int position = buffer.getInt();
+            if ((int) checksum.getValue() != buffer.getInt()) {
+                log.warn("Corrupted offset journal record at {}, ignoring the {} remaining bytes", start, buffer.limit() - start);
+                return;
+            }
+            switch (type) {
+                case POSITION:
+                    segmentOffsets.put(segment, position);
+                    break;
+                case REMOVE:
+                    segmentOffsets.remove(segment);
+                    break;
+                case CLEAR:
+                    segmentOffsets.clear();
+                    break;
+                default:
+                    log.warn("Unknown offset journal record type={} at {}, ignoring the remaining bytes", type, start);
+                    return;
+            }
+            records++;
+        }
+        log.info("Loaded {} segment offsets from {} journal records", segmentOffsets.size(), records);
+    }
+
+    /**
+     * Write a snapshot of the live offsets to a temporary file, fsync it and atomically rename it over the journal,
+     * then fsync the directory so that the rename survives a crash before the legacy offset files are deleted.
+     */
+    private synchronized void compact() throws IOException {
+        Path tmpPath = journalPath.resolveSibling(JOURNAL_FILE + ".tmp");
+        try (FileChannel tmp = FileChannel.open(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+            CRC32 checksum = new CRC32();
+            for (Map.Entry<Long, Integer> entry : segmentOffsets.entrySet()) {
+                buffer.clear();
+                buffer.put(POSITION).putLong(entry.getKey()).putInt(entry.getValue());
+                checksum.reset();
+                checksum.update(buffer.array(), 0, RECORD_SIZE - 4);
+                buffer.putInt((int) checksum.getValue());
+                buffer.flip();
+                while (buffer.hasRemaining())
+                    tmp.write(buffer);
+            }
+            tmp.force(true);
+        }
+        Files.move(tmpPath, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+        openJournal(true);
+        journalRecords = segmentOffsets.size();
+        // the snapshot is durable, so are all the previously appended records
+        compactedRecords = appendedRecords;
+    }
+
+    private void syncDirectory() throws IOException {
+        try (FileChannel directory = FileChannel.open(journalPath.getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        }
+    }
+
+    private void openJournal(boolean reopen) throws IOException {
+        if (reopen && journal != null)
+            journal.close();
+        journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,224 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Schedule the commitlog processing tasks, ensuring that at most one task per segment is running.
+ *
+ * A segment task is pending, then running, then possibly awaiting cleanup until a newer segment shows up.
+ * A newer pending task of a segment replaces the previous pending one. The per-segment state is an immutable value
+ * swapped in a concurrent map, and the tasks are started outside of any map lock, so each transition costs O(1).
+ * Each reader service owns its scheduler, so that several reader services can run in the same JVM.
+ *
+ * @param <T> the task type
+ */
+public class SegmentScheduler<T> {
+
+    /**
+     * Immutable running and pending tasks of a segment.
+     */
+    static final class SegmentState<T> {
+        final T running;
+        final T pending;
+
+        SegmentState(T running, T pending) {
+            this.running = running;
+            this.pending = pending;
+        }
+    }
+
+    private final Consumer<T> launcher;
+    private final ConcurrentMap<Long, SegmentState<T>> segments = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<Long, T> uncleaned = new ConcurrentSkipListMap<>();
+
+    private final AtomicInteger runningTasks = new AtomicInteger(0);
+    private final AtomicInteger pendingTasks = new AtomicInteger(0);
+    private final AtomicInteger uncleanedTasks = new AtomicInteger(0);
+    private final AtomicInteger maxRunningTasks = new AtomicInteger(0);
+    private final AtomicInteger maxPendingTasks = new AtomicInteger(0);
+    private final AtomicInteger maxUncleanedTasks = new AtomicInteger(0);
+
+    /**
+     * @param launcher starts a task, called outside of any lock
+     */
+    public SegmentScheduler(Consumer<T> launcher) {
+        this.launcher = launcher;
+    }
+
+    /**
+     * Add a pending task, replacing the pending task of the segment if any, and start it when no task of the segment is running.
+     * @param segment the segment id
+     * @param task the task
+     * @return true if the task was started
+     */
+    public boolean schedule(long segment, T task) {
+        return transition(segment, task, false);
+    }
+
+    /**
+     * Add a pending task unless the segment already has one, and start it when no task of the segment is running.
+     * @param segment the segment id
+     * @param task the task to retry
+     */
+    public void reschedule(long segment, T task) {
+        transition(segment, task, true);
+    }
+
+    private boolean transition(long segment, T task, boolean keepPending) {
+        cleaned(segment);
+        Object[] started = new Object[1];
+        segments.compute(segment, (k, state) -> {
+            if (state == null || state.running == null) {
+                started[0] = task;
+                runningTasks.incrementAndGet();
+                return new SegmentState<>(task, null);
+            }
+            if (state.pending == null) {
+                pendingTasks.incrementAndGet();
+                return new SegmentState<>(state.running, task);
+            }
+            return keepPending ? state : new SegmentState<>(state.running, task);
+        });
+        maxRunningTasks.getAndAccumulate(runningTasks.get(), Math::max);
+        maxPendingTasks.getAndAccumulate(pendingTasks.get(), Math::max);
+        if (started[0] != null) {
+            launcher.accept(task);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Mark the running task of a segment as finished, and start the pending task of the segment if any.
+     * @param segment the segment id
+     * @return the started pending task, or null when the segment is idle
+     */
+    @SuppressWarnings("unchecked")
+    public T finished(long segment) {
+        Object[] started = new Object[1];
+        segments.computeIfPresent(segment, (k, state) -> {
+            if (state.running != null)
+                runningTasks.decrementAndGet();
+            if (state.pending == null)
+                return null;
+            pendingTasks.decrementAndGet();
+            runningTasks.incrementAndGet();
+            started[0] = state.pending;
+            return new SegmentState<>(state.pending, null);
+        });
+        T next = (T) started[0];
+        if (next != null)
+            launcher.accept(next);
+        return next;
+    }
+
+    /**
+     * @return the running task of the segment, or null
+     */
+    public T running(long segment) {
+        SegmentState<T> state = segments.get(segment);
+        return state == null ? null : state.running;
+    }
+
+    /**
+     * @return the running tasks of all segments
+     */
+    public Collection<T> runningTasks() {
+        List<T> tasks = new ArrayList<>(segments.size());
+        for (SegmentState<T> state : segments.values()) {
+            if (state.running != null)
+                tasks.add(state.running);
+        }
+        return tasks;
+    }
+
+    /**
+     * Keep a finished task of a segment not yet COMPLETED, until {@link #collectGarbage(long)} reports it.
+     * @param segment the segment id
+     * @param task the finished task
+     */
+    public void awaitCleanup(long segment, T task) {
+        if (uncleaned.put(segment, task) == null)
+            maxUncleanedTasks.getAndAccumulate(uncleanedTasks.incrementAndGet(), Math::max);
+    }
+
+    /**
+     * Forget the task of a segment awaiting cleanup.
+     * @param segment the segment id
+     */
+    public void cleaned(long segment) {
+        if (uncleaned.remove(segment) != null)
+            uncleanedTasks.decrementAndGet();
+    }
+
+    /**
+     * Remove the tasks awaiting cleanup of the idle segments older than the last segment.
+     * @param lastSegment the last segment id
+     * @return the tasks to cleanup
+     */
+    public List<T> collectGarbage(long lastSegment) {
+        List<T> tasks = new ArrayList<>();
+        for (Map.Entry<Long, T> entry : uncleaned.headMap(lastSegment).entrySet()) {
+            if (!segments.containsKey(entry.getKey()) && uncleaned.remove(entry.getKey(), entry.getValue())) {
+                uncleanedTasks.decrementAndGet();
+                tasks.add(entry.getValue());
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * @return the number of segments with a running or pending task
+     */
+    public int getSegments() {
+        return segments.size();
+    }
+
+    public int getRunningTasks() {
+        return runningTasks.get();
+    }
+
+    public int getPendingTasks() {
+        return pendingTasks.get();
+    }
+
+    public int getUncleanedTasks() {
+        return uncleanedTasks.get();
+    }
+
+    public int getMaxRunningTasks() {
+        return maxRunningTasks.get();
+    }
+
+    public int getMaxPendingTasks() {
+        return maxPendingTasks.get();
+    }
+
+    public int getMaxUncleanedTasks() {
+        return maxUncleanedTasks.get();
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Bounded log of the recent mutations not published by this node because another replica is the primary one.
+ *
+ * When the primary replica of a mutation is marked down, this node becomes the primary replica and publishes
+ * the logged mutations of the retention period, which may duplicate some events already published by the previous primary.
+ * Mutations are dropped from the log once older than the retention period, or when the log is full.
+ *
+ * @param <M> the mutation type
+ */
+public class StandbyLog<M> {
+
+    public static final AtomicInteger standbyMutations = new AtomicInteger(0);
+    public static final AtomicLong takenOverMutations = new AtomicLong(0);
+
+    /**
+     * Minimum interval between two takeover checks.
+     */
+    public static final long TAKEOVER_CHECK_INTERVAL_MS = 1000;
+
+    /**
+     * A logged mutation, set once removed from the log.
+     */
+    @SuppressWarnings("serial")
+    static final class Entry<M> extends AtomicBoolean {
+        final M mutation;
+        final long timestampMs;
+
+        Entry(M mutation, long timestampMs) {
+            this.mutation = mutation;
+            this.timestampMs = timestampMs;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Entry<M>> entries = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger(0);
+    private final AtomicLong lastCheckMs = new AtomicLong(0);
+    private final int maxSize;
+    private final long retentionMs;
+
+    public StandbyLog(int maxSize, long retentionMs) {
+        this.maxSize = maxSize;
+        this.retentionMs = retentionMs;
+    }
+
+    public void add(M mutation) {
+        add(mutation, System.currentTimeMillis());
+    }
+
+    void add(M mutation, long nowMs) {
+        entries.offer(new Entry<>(mutation, nowMs));
+        size.incrementAndGet();
+        standbyMutations.incrementAndGet();
+        while (size.get() > maxSize && poll() != null) {
+            // drop the oldest mutations
+        }
+    }
+
+    private Entry<M> poll() {
+        Entry<M> entry;
+        while ((entry = entries.poll()) != null) {
+            if (claim(entry))
+                return entry;
+        }
+        return null;
+    }
+
+    private boolean claim(Entry<M> entry) {
+        if (!entry.compareAndSet(false, true))
+            return false;
+        size.decrementAndGet();
+        standbyMutations.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Remove the expired mutations, then remove and return the mutations this node is now the primary replica for.
+     * Checked at most every {@link #TAKEOVER_CHECK_INTERVAL_MS} by a single caller.
+     * @param isPrimary true if this node is the primary replica of a mutation
+     * @return the mutations to publish, in the log order
+     */
+    public List<M> maybeTakeOver(Predicate<M> isPrimary) {
+        return maybeTakeOver(isPrimary, System.currentTimeMillis());
+    }
+
+    List<M> maybeTakeOver(Predicate<M> isPrimary, long nowMs) {
+        long lastCheck = lastCheckMs.get();
+        if (nowMs - lastCheck < TAKEOVER_CHECK_INTERVAL_MS || !lastCheckMs.compareAndSet(lastCheck, nowMs))
+            return Collections.emptyList();
+
+        Entry<M> head;
+        while ((head = entries.peek()) != null && nowMs - head.timestampMs > retentionMs) {
+            claim(head);
+            entries.remove(head);
+        }
+        List<M> mutations = new ArrayList<>();
+        for (Iterator<Entry<M>> it = entries.iterator(); it.hasNext(); ) {
+            Entry<M> entry = it.next();
+            if (!entry.get() && isPrimary.test(entry.mutation) && claim(entry)) {
+                it.remove();
+                mutations.add(entry.mutation);
+            }
+        }
+        takenOverMutations.addAndGet(mutations.size());
+        return mutations;
+    }
+
+    public int size() {
+        return size.get();
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Map the CDC-enabled tables to their events topic.
+ *
+ * By default, each table has its own topic {@code <topicPrefix><keyspace>.<table>}. Tables can share a multiplexed
+ * topic {@code <topicPrefix><group>}, either per keyspace, or per group declared as
+ * {@code <group>:<keyspace>[.<table>][&<keyspace>[.<table>]...]} separated by semicolons, for example
+ * {@code small_tables:ks1.t1&ks1.t2;ks2:ks2}. A table group overrides a keyspace group, which overrides the topic per keyspace.
+ */
+public class TopicMapper {
+    final String topicPrefix;
+    final boolean topicPerKeyspace;
+    final Map<String, String> groups;
+
+    public TopicMapper(String topicPrefix, boolean topicPerKeyspace, String topicGroups) {
+        this.topicPrefix = topicPrefix;
+        this.topicPerKeyspace = topicPerKeyspace;
+        this.groups = parse(topicGroups);
+    }
+
+    /**
+     * @return the topic group of a table, or null if the table has its own topic.
+     */
+    public String group(String keyspace, String table) {
+        if (groups.isEmpty())
+            return topicPerKeyspace ? keyspace : null;
+        String group = groups.get(keyspace + "." + table);
+        if (group == null)
+            group = groups.get(keyspace);
+        if (group == null && topicPerKeyspace)
+            group = keyspace;
+        return group;
+    }
+
+    /**
+     * @return true if the table events are sent to a topic shared with other tables.
+     */
+    public boolean isMultiplexed(String keyspace, String table) {
+        return group(keyspace, table) != null;
+    }
+
+    /**
+     * @return the table events topic name.
+     */
+    public String topicName(String keyspace, String table) {
+        String group = group(keyspace, table);
+        return topicPrefix + (group == null ? keyspace + "." + table : group);
+    }
+
+    /**
+     * Parse the topic groups.
+     * @param topicGroups the groups definition, may be null
+     * @return the groups indexed by keyspace or keyspace.table name
+     * @throws IllegalArgumentException on malformed groups
+     */
+    public static Map<String, String> parse(String topicGroups) {
+        if (topicGroups == null || topicGroups.trim().isEmpty())
+            return Collections.emptyMap();
+        Map<String, String> map = new HashMap<>();
+        for (String group : topicGroups.split(";")) {
+            if (group.trim().isEmpty())
+                continue;
+            int i = group.indexOf(':');
+            if (i <= 0)
+                throw new IllegalArgumentException("Missing group name in topic group '" + group + "'");
+            String name = group.substring(0, i).trim();
+            for (String member : group.substring(i + 1).split("&", -1)) {
+                member = member.trim();
+                if (member.isEmpty())
+                    throw new IllegalArgumentException("Empty keyspace or table name in topic group '" + name + "'");
+                String previous = map.put(member, name);
+                if (previous != null && !previous.equals(name))
+                    throw new IllegalArgumentException("'" + member + "' belongs to the topic groups '" + previous + "' and '" + name + "'");
+            }
+        }
+        return map;
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AbstractDirectoryWatcherTests {
+
+    @Test
+    public void testScan() throws IOException {
+        Path dir = Files.createTempDirectory("cdc_raw");
+        List<Path> detected = new ArrayList<>();
+        AbstractDirectoryWatcher watcher = new AbstractDirectoryWatcher(dir, Duration.ofMillis(10), Duration.ofMillis(1000),
+                Collections.singleton(StandardWatchEventKinds.ENTRY_MODIFY)) {
+            @Override
+            boolean accept(Path path) {
+                return path.toString().endsWith("_cdc.idx");
+            }
+
+            @Override
+            void handleEvent(WatchEvent.Kind<?> kind, Path path) {
+                detected.add(path);
+            }
+        };
+
+        Path idx = dir.resolve("CommitLog-7-1_cdc.idx");
+        Files.write(idx, "100".getBytes(StandardCharsets.UTF_8));
+        Files.write(dir.resolve("CommitLog-7-1.log"), "log".getBytes(StandardCharsets.UTF_8));
+        assertTrue(watcher.scan());
+        assertEquals(Collections.singletonList(idx), detected);
+
+        // unchanged files are not detected again
+        assertFalse(watcher.scan());
+        assertEquals(1, detected.size());
+
+        Files.write(idx, "1000\nCOMPLETED".getBytes(StandardCharsets.UTF_8));
+        assertTrue(watcher.scan());
+        assertEquals(2, detected.size());
+    }
+
+    @Test
+    public void testExistingAndCreatedLogFiles() throws IOException {
+        // Cassandra 3.11 reads the .log files from the beginning, the scan must not report them again
+        Path dir = Files.createTempDirectory("cdc_raw");
+        Path existing = dir.resolve("CommitLog-6-1.log");
+        Files.write(existing, "log1".getBytes(StandardCharsets.UTF_8));
+        List<Path> detected = new ArrayList<>();
+        AbstractDirectoryWatcher watcher = new AbstractDirectoryWatcher(dir, Duration.ofMillis(10), Duration.ofMillis(1000),
+                new HashSet<>(Arrays.asList(StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY))) {
+            @Override
+            boolean accept(Path path) {
+                return path.toString().endsWith(".log");
+            }
+
+            @Override
+            void handleEvent(WatchEvent.Kind<?> kind, Path path) {
+                detected.add(path);
+            }
+        };
+
+        // the existing files are processed by the initial pass of the caller
+        assertEquals(Collections.singletonList(existing), watcher.snapshot());
+        assertFalse(watcher.scan());
+        assertTrue(detected.isEmpty());
+
+        // a new file reported by an event is not reported again by the scan
+        Path created = dir.resolve("CommitLog-6-2.log");
+        Files.write(created, "log2".getBytes(StandardCharsets.UTF_8));
+        assertTrue(watcher.onEvent(StandardWatchEventKinds.ENTRY_CREATE, created));
+        assertFalse(watcher.scan());
+        assertEquals(Collections.singletonList(created), detected);
+
+        Path scanned = dir.resolve("CommitLog-6-3.log");
+        Files.write(scanned, "log3".getBytes(StandardCharsets.UTF_8));
+        assertTrue(watcher.scan());
+        assertEquals(Arrays.asList(created, scanned), detected);
+
+        // events are always reported, even when the file state did not change
+        assertTrue(watcher.onEvent(StandardWatchEventKinds.ENTRY_MODIFY, scanned));
+        assertEquals(Arrays.asList(created, scanned, scanned), detected);
+
+        // a deleted file is not reported
+        Files.delete(scanned);
+        assertFalse(watcher.onEvent(StandardWatchEventKinds.ENTRY_MODIFY, scanned));
+        assertEquals(3, detected.size());
+    }
+}
@@ -0,0 +1,206 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import com.datastax.oss.cdc.DigestAlgorithm;
+import com.datastax.oss.cdc.MutationValue;
+import org.apache.avro.Schema;
+import org.apache.pulsar.client.api.MessageId;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AbstractPulsarMutationSenderTests {
+
+    static class TestMutation extends AbstractMutation<String> {
+        TestMutation(int position) {
+            this(position, 1L, new byte[16]);
+        }
+
+        TestMutation(int position, long ts, byte[] digest) {
+            super(UUID.randomUUID(), 1L, position, new Object[]{position}, ts, digest, "table1", (long) position,
+                    null, null, null);
+        }
+
+        @Override
+        public String key() {
+            return "ks1.table1";
+        }
+
+        @Override
+        public String name() {
+            return "table1";
+        }
+
+        @Override
+        public String keyspace() {
+            return "ks1";
+        }
+
+        @Override
+        public List<ColumnInfo> primaryKeyColumns() {
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Records the published mutations, acknowledged by the test.
+     */
+    static class TestSender extends AbstractPulsarMutationSender<String> {
+        final Set<Integer> primaryPositions = ConcurrentHashMap.newKeySet();
+        final Map<Integer, CompletableFuture<MessageId>> published = new ConcurrentHashMap<>();
+
+        TestSender(AgentConfig config) {
+            super(config, true);
+        }
+
+        @Override
+        CompletableFuture<MessageId> publishMutationAsync(AbstractMutation<String> mutation) {
+            CompletableFuture<MessageId> future = new CompletableFuture<>();
+            published.put(mutation.getPosition(), future);
+            return future;
+        }
+
+        @Override
+        public boolean isPrimaryReplica(AbstractMutation<String> mutation) {
+            return primaryPositions.contains(mutation.getPosition());
+        }
+
+        @Override
+        public Schema getNativeSchema(String cql3Type) {
+            return null;
+        }
+
+        @Override
+        public Object cqlToAvro(String table, String columnName, Object value) {
+            return value;
+        }
+
+        @Override
+        public boolean isSupported(AbstractMutation<String> mutation) {
+            return true;
+        }
+
+        @Override
+        public void incSkippedMutations() {
+        }
+
+        @Override
+        public UUID getHostId() {
+            return null;
+        }
+    }
+
+    static void awaitPublished(TestSender sender, int position) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!sender.published.containsKey(position) && System.nanoTime() < deadline)
+            Thread.sleep(10);
+        assertTrue(sender.published.containsKey(position), "mutation " + position + " not published");
+    }
+
+    @Test
+    public void testCompactMutationValue() {
+        byte[] digest = DigestAlgorithm.fromMd5Hex("00112233445566778899aabbccddeeff");
+        TestMutation mutation = new TestMutation(42, 1234567890123456L, digest);
+
+        // the writetime, segment and position are carried by the value instead of the message properties
+        MutationValue value = mutation.compactMutationValue(false);
+        assertEquals(Long.valueOf(1234567890123456L), value.getWritetime());
+        assertEquals(Long.valueOf(1L), value.getSegment());
+        assertEquals(Integer.valueOf(42), value.getPosition());
+        assertArrayEquals(digest, value.getDigest());
+        assertNull(value.getMd5Digest());
+        assertEquals(mutation.getNodeId(), value.getNodeId());
+
+        MutationValue hexValue = mutation.compactMutationValue(true);
+        assertEquals("00112233445566778899aabbccddeeff", hexValue.getMd5Digest());
+        assertNull(hexValue.getDigest());
+        assertEquals(Long.valueOf(1234567890123456L), hexValue.getWritetime());
+        assertArrayEquals(digest, hexValue.taggedDigest());
+
+        // the legacy value leaves them to the message properties
+        MutationValue legacyValue = mutation.mutationValue(false);
+        assertNull(legacyValue.getWritetime());
+        assertNull(legacyValue.getSegment());
+        assertNull(legacyValue.getPosition());
+    }
+
+    @Test
+    public void testTakeOver() throws Exception {
+        AgentConfig config = new AgentConfig();
+        config.cdcPrimaryReplicaOnly = true;
+        TestSender sender = new TestSender(config);
+        sender.primaryPositions.add(1);
+
+        TestMutation m1 = new TestMutation(1);
+        TestMutation m2 = new TestMutation(2);
+        TestMutation m3 = new TestMutation(3);
+        sender.sendMutationAsync(m1);
+        // the mutations of another primary replica are logged, not published
+        assertTrue(sender.sendMutationAsync(m2).isDone());
+        assertTrue(sender.sendMutationAsync(m3).isDone());
+        assertEquals(Collections.singleton(1), sender.published.keySet());
+        assertEquals(2, sender.standbyLog.size());
+
+        // the primary replica of m2 and m3 is down, taken over one in-flight message at a time
+        sender.primaryPositions.add(2);
+        sender.primaryPositions.add(3);
+        InflightLimiter limiter = new InflightLimiter(1, 1, 1, 60000, limit -> {});
+        InflightMemoryBudget budget = new InflightMemoryBudget(1 << 20, bytes -> {});
+        Thread takeover = new Thread(() -> sender.takeOver(limiter, budget));
+        takeover.start();
+        awaitPublished(sender, 2);
+        assertEquals(m2.estimatedSize(), budget.getUsedBytes());
+        assertFalse(sender.published.containsKey(3));
+
+        // the failed mutation returns to the standby log, the next one is published
+        sender.published.get(2).completeExceptionally(new RuntimeException("broker down"));
+        awaitPublished(sender, 3);
+        assertTrue(takeover.isAlive());
+        sender.published.get(3).complete(null);
+        takeover.join(10000);
+        assertFalse(takeover.isAlive());
+        assertEquals(0, limiter.getInflight());
+        assertEquals(0L, budget.getUsedBytes());
+        assertEquals(1, sender.standbyLog.size());
+
+        // the next takeover check publishes the failed mutation again
+        sender.published.remove(2);
+        Thread retry = new Thread(() -> sender.takeOver(limiter, budget,
+                sender.standbyLog.maybeTakeOver(sender::isPrimaryReplica,
+                        System.currentTimeMillis() + StandbyLog.TAKEOVER_CHECK_INTERVAL_MS)));
+        retry.start();
+        awaitPublished(sender, 2);
+        sender.published.get(2).complete(null);
+        retry.join(10000);
+        assertFalse(retry.isAlive());
+        assertEquals(0, sender.standbyLog.size());
+        assertEquals(0L, budget.getUsedBytes());
+    }
+}
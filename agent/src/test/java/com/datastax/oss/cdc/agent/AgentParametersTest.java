@@ -15,6 +15,8 @@
  */
 package com.datastax.oss.cdc.agent;
 
+import com.datastax.oss.cdc.DigestAlgorithm;
+import org.apache.pulsar.client.api.CompressionType;
 import org.junit.jupiter.api.Test;
 import org.junitpioneer.jupiter.SetEnvironmentVariable;
 import org.junitpioneer.jupiter.SetSystemProperty;
@@ -23,6 +25,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static com.datastax.oss.cdc.agent.AgentConfig.*;
 
@@ -32,8 +35,20 @@ public class AgentParametersTest {
             CDC_WORKING_DIR + "=cdc_working," +
                     ERROR_COMMITLOG_REPROCESS_ENABLED + "=true," +
                     CDC_DIR_POLL_INTERVAL_MS + "=1234," +
+                    CDC_DIR_POLL_MIN_INTERVAL_MS + "=12," +
                     CDC_CONCURRENT_PROCESSORS + "=5," +
+                    CDC_CHECKPOINT_INTERVAL_MS + "=2000," +
+                    CDC_OFFSET_JOURNAL + "=true," +
+                    CDC_CATCH_UP_BACKLOG_SEGMENTS + "=32," +
+                    CDC_TOTAL_SPACE_IN_MB + "=2048," +
+                    CDC_PRIMARY_REPLICA_ONLY + "=true," +
+                    CDC_STANDBY_LOG_SIZE + "=500," +
+                    CDC_STANDBY_LOG_RETENTION_MS + "=30000," +
                     MAX_INFLIGHT_MESSAGES_PER_TASK + "=50," +
+                    MAX_INFLIGHT_LATENCY_MS + "=250," +
+                    MAX_INFLIGHT_BYTES + "=1048576," +
+                    DIGEST_ALGORITHM + "=murmur3_128," +
+                    CDC_INTRA_SEGMENT_PARALLELISM + "=4," +
                     TOPIC_PREFIX + "=events-mutations," +
                     SSL_TRUSTSTORE_PATH + "=/truststore.jks," +
                     TLS_TRUST_CERTS_FILE_PATH + "=/truststore.p12," +
@@ -50,8 +65,21 @@ public class AgentParametersTest {
         assertEquals("cdc_working", config.cdcWorkingDir);
         assertEquals(true, config.errorCommitLogReprocessEnabled);
         assertEquals(1234L, config.cdcDirPollIntervalMs);
+        assertEquals(12L, config.cdcDirPollMinIntervalMs);
         assertEquals(5, config.cdcConcurrentProcessors);
+        assertEquals(2000L, config.cdcCheckpointIntervalMs);
+        assertEquals(true, config.cdcOffsetJournal);
+        assertEquals(32, config.cdcCatchUpBacklogSegments);
+        assertEquals(2048, config.cdcTotalSpaceInMB);
+        assertEquals(true, config.cdcPrimaryReplicaOnly);
+        assertEquals(500, config.cdcStandbyLogSize);
+        assertEquals(30000L, config.cdcStandbyLogRetentionMs);
         assertEquals(50, config.maxInflightMessagesPerTask);
+        assertEquals(250L, config.maxInflightLatencyMs);
+        assertEquals(1048576L, config.maxInflightBytes);
+        assertEquals(DigestAlgorithm.MURMUR3_128, config.digestAlgorithm());
+        assertEquals(false, config.isHexDigest());
+        assertEquals(4, config.cdcIntraSegmentParallelism);
         assertEquals("events-mutations", config.topicPrefix);
 
         // common TLS settings
@@ -77,6 +105,15 @@ public class AgentParametersTest {
                 PULSAR_MAX_PENDING_MESSAGES_ACROSS_PARTITIONS + "=200," +
                 PULSAR_AUTH_PLUGIN_CLASS_NAME + "=MyAuthPlugin," +
                 PULSAR_AUTH_PARAMS + "=x:y\\,z:t," +
+                PULSAR_COMPACT_METADATA + "=true," +
+                PULSAR_ROW_PAYLOAD + "=true," +
+                PULSAR_COMPRESSION_TYPE + "=zstd," +
+                PULSAR_PRODUCER_PROFILES + "=ks1.table1:compressionType=LZ4&batchDelayInMs=0;ks2:batchingMaxMessages=500," +
+                PULSAR_MAX_PRODUCERS + "=100," +
+                PULSAR_PRODUCER_IDLE_TIMEOUT_MS + "=60000," +
+                PULSAR_TOPIC_PER_KEYSPACE + "=true," +
+                PULSAR_TOPIC_GROUPS + "=small:ks1.t1&ks1.t2," +
+                PULSAR_CATCH_UP_PRODUCER_PROFILE + "=compressionType=ZSTD&batchingMaxBytes=2097152," +
                 SSL_ALLOW_INSECURE_CONNECTION + "=true," +
                 SSL_HOSTNAME_VERIFICATION_ENABLE + "=true,"
                 ;
@@ -96,6 +133,16 @@ public class AgentParametersTest {
         // Pulsar Auth
         assertEquals("MyAuthPlugin", config.pulsarAuthPluginClassName);
         assertEquals("x:y,z:t", config.pulsarAuthParams);
+        assertTrue(config.pulsarCompactMetadata);
+        assertTrue(config.pulsarRowPayload);
+        assertEquals("ZSTD", config.pulsarCompressionType);
+        assertEquals("ks1.table1:compressionType=LZ4&batchDelayInMs=0;ks2:batchingMaxMessages=500", config.pulsarProducerProfiles);
+        assertEquals(2, config.producerProfiles().size());
+        assertEquals(100, config.pulsarMaxProducers);
+        assertEquals(60000L, config.pulsarProducerIdleTimeoutMs);
+        assertTrue(config.pulsarTopicPerKeyspace);
+        assertEquals("small:ks1.t1&ks1.t2", config.pulsarTopicGroups);
+        assertEquals(new ProducerProfile(CompressionType.ZSTD, null, null, 2097152, null), config.catchUpProducerProfile());
     }
 
     @Test
@@ -174,17 +221,34 @@ public class AgentParametersTest {
     @SetSystemProperty(key = "cassandra.storagedir", value = "toto")
     @SetEnvironmentVariable(key = "CDC_WORKING_DIR", value = "toto/cdc2")
     @SetEnvironmentVariable(key = "CDC_DIR_POLL_INTERVAL_MS", value = "555")
+    @SetEnvironmentVariable(key = "CDC_DIR_POLL_MIN_INTERVAL_MS", value = "5")
     @SetEnvironmentVariable(key = "CDC_CONCURRENT_PROCESSORS", value = "16")
+    @SetEnvironmentVariable(key = "CDC_CHECKPOINT_INTERVAL_MS", value = "3000")
     @SetEnvironmentVariable(key = "CDC_ERROR_COMMITLOG_REPROCESS_ENABLED", value = "true")
     @SetEnvironmentVariable(key = "CDC_TOPIC_PREFIX", value = "myevents-")
     @SetEnvironmentVariable(key = "CDC_MAX_INFLIGHT_MESSAGES_PER_TASK", value = "55")
+    @SetEnvironmentVariable(key = "CDC_MAX_INFLIGHT_LATENCY_MS", value = "500")
+    @SetEnvironmentVariable(key = "CDC_MAX_INFLIGHT_BYTES", value = "2097152")
+    @SetEnvironmentVariable(key = "CDC_INTRA_SEGMENT_PARALLELISM", value = "8")
     public void testConfigureCdcFromEnvVar() {
         AgentConfig config = AgentConfig.create(Platform.PULSAR, "");
         assertEquals("toto/cdc2", config.cdcWorkingDir);
         assertEquals(555, config.cdcDirPollIntervalMs);
+        assertEquals(5, config.cdcDirPollMinIntervalMs);
         assertEquals(16, config.cdcConcurrentProcessors);
+        assertEquals(3000L, config.cdcCheckpointIntervalMs);
         assertEquals(true, config.errorCommitLogReprocessEnabled);
         assertEquals(55, config.maxInflightMessagesPerTask);
+        assertEquals(500L, config.maxInflightLatencyMs);
+        assertEquals(2097152L, config.maxInflightBytes);
+        assertEquals(DigestAlgorithm.MD5, config.digestAlgorithm());
+        assertEquals(true, config.isHexDigest());
+        assertEquals(8, config.cdcIntraSegmentParallelism);
+    }
+
+    @Test
+    public void testUnsupportedDigestAlgorithm() {
+        assertThrows(IllegalArgumentException.class, () -> AgentConfig.create(Platform.PULSAR, DIGEST_ALGORITHM + "=SHA1"));
     }
 
     @Test
@@ -0,0 +1,132 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import com.datastax.oss.cdc.CqlLogicalTypes;
+import org.apache.avro.Conversions;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.data.TimeConversions;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AvroKeyWriterTests {
+
+    static {
+        SpecificData.get().addLogicalTypeConversion(new CqlLogicalTypes.CqlVarintConversion());
+        SpecificData.get().addLogicalTypeConversion(new Conversions.UUIDConversion());
+        SpecificData.get().addLogicalTypeConversion(new TimeConversions.DateConversion());
+        SpecificData.get().addLogicalTypeConversion(new TimeConversions.TimeMicrosConversion());
+        SpecificData.get().addLogicalTypeConversion(new TimeConversions.TimestampMillisConversion());
+    }
+
+    static byte[] serialize(Schema schema, Object[] values) throws IOException {
+        GenericRecord record = new GenericData.Record(schema);
+        for (int i = 0; i < values.length; i++)
+            record.put(i, values[i]);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        new SpecificDatumWriter<GenericRecord>(schema).write(record, encoder);
+        encoder.flush();
+        return out.toByteArray();
+    }
+
+    static Schema.Field optional(String name, Schema schema) {
+        return new Schema.Field(name, SchemaBuilder.unionOf().nullType().and().type(schema).endUnion());
+    }
+
+    @Test
+    public void testSameBytesAsRecordWriter() throws IOException {
+        List<Schema.Field> fields = new ArrayList<>();
+        fields.add(new Schema.Field("a", Schema.create(Schema.Type.STRING)));
+        fields.add(new Schema.Field("b", Schema.create(Schema.Type.INT)));
+        fields.add(new Schema.Field("c", CqlLogicalTypes.varintType));
+        fields.add(optional("d", Schema.create(Schema.Type.LONG)));
+        fields.add(optional("e", CqlLogicalTypes.uuidType));
+        fields.add(optional("f", Schema.create(Schema.Type.BYTES)));
+        fields.add(optional("g", Schema.create(Schema.Type.DOUBLE)));
+        Schema schema = Schema.createRecord("ks.table", "doc", "table", false, fields);
+
+        List<Function<Object, Object>> converters = new ArrayList<>();
+        for (int i = 0; i < fields.size(); i++)
+            converters.add(Function.identity());
+        AvroKeyWriter<Object> keyWriter = new AvroKeyWriter<>(new Object(),
+                new AbstractPulsarMutationSender.SchemaAndWriter(schema, new SpecificDatumWriter<>(schema)), converters);
+
+        Object[] values = new Object[] { "key", 12, new BigInteger("123456789012345678901234567890"), 123L,
+                UUID.randomUUID(), ByteBuffer.wrap(new byte[] { 1, 2, 3 }), 1.5d };
+        assertArrayEquals(serialize(schema, values), keyWriter.write(values));
+
+        // missing clustering columns
+        Object[] partialValues = new Object[] { "key2", -1, BigInteger.ONE, 5L, null, null, null };
+        assertArrayEquals(serialize(schema, partialValues), keyWriter.write(Arrays.copyOf(partialValues, 4)));
+    }
+
+    @Test
+    public void testDateAndTimeKeys() throws IOException {
+        List<Schema.Field> fields = new ArrayList<>();
+        fields.add(new Schema.Field("a", CqlLogicalTypes.dateType));
+        fields.add(new Schema.Field("b", CqlLogicalTypes.timeMicrosType));
+        fields.add(optional("c", CqlLogicalTypes.timestampMillisType));
+        Schema schema = Schema.createRecord("ks.table", "doc", "table", false, fields);
+
+        // epoch day, nanos of day and epoch millis converted to java.time values, not idempotent.
+        AtomicInteger conversions = new AtomicInteger();
+        List<Function<Object, Object>> converters = new ArrayList<>();
+        converters.add(value -> {
+            conversions.incrementAndGet();
+            return LocalDate.ofEpochDay((Long) value);
+        });
+        converters.add(value -> {
+            conversions.incrementAndGet();
+            return LocalTime.ofNanoOfDay((Long) value);
+        });
+        converters.add(value -> {
+            conversions.incrementAndGet();
+            return Instant.ofEpochMilli((Long) value);
+        });
+        AvroKeyWriter<Object> keyWriter = new AvroKeyWriter<>(new Object(),
+                new AbstractPulsarMutationSender.SchemaAndWriter(schema, new SpecificDatumWriter<>(schema)), converters);
+
+        Object[] values = new Object[] { 18628L, 45296789000000L, 1609459200123L };
+        Object[] convertedValues = new Object[] { LocalDate.ofEpochDay(18628L), LocalTime.ofNanoOfDay(45296789000000L),
+                Instant.ofEpochMilli(1609459200123L) };
+        assertArrayEquals(serialize(schema, convertedValues), keyWriter.write(values));
+        assertEquals(3, conversions.get());
+    }
+}
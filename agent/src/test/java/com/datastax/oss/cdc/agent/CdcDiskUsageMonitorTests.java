@@ -0,0 +1,86 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CdcDiskUsageMonitorTests {
+    static final long MB = 1024 * 1024;
+
+    @Test
+    public void testPressureAndTimeToFull() {
+        List<Boolean> events = new ArrayList<>();
+        CdcDiskUsageMonitor monitor = new CdcDiskUsageMonitor(new File("."), 100 * MB, events::add);
+        monitor.update(0, 10 * MB);
+        assertEquals(90 * MB, monitor.getHeadroomBytes());
+        assertEquals(-1, monitor.getTimeToFullSeconds());
+
+        // growing by 10MB per second
+        for (int i = 1; i <= 7; i++)
+            monitor.update(i * 1000L, (10 + 10 * i) * MB);
+        assertEquals(80 * MB, monitor.getUsedBytes());
+        assertTrue(monitor.isUnderPressure());
+        assertTrue(monitor.getTimeToFullSeconds() >= 2, "timeToFull=" + monitor.getTimeToFullSeconds());
+
+        monitor.update(8000L, 30 * MB);
+        assertFalse(monitor.isUnderPressure());
+        assertEquals(Arrays.asList(true, false), events);
+    }
+
+    @Test
+    public void testPressureHysteresis() {
+        List<Boolean> events = new ArrayList<>();
+        CdcDiskUsageMonitor monitor = new CdcDiskUsageMonitor(new File("."), 100 * MB, events::add);
+        monitor.update(0, 76 * MB);
+        assertTrue(monitor.isUnderPressure());
+
+        // oscillating around the pressure ratio does not end the pressure
+        monitor.update(1000L, 74 * MB);
+        monitor.update(2000L, 76 * MB);
+        monitor.update(3000L, 66 * MB);
+        assertTrue(monitor.isUnderPressure());
+        assertEquals(Arrays.asList(true), events);
+
+        monitor.update(4000L, 64 * MB);
+        assertFalse(monitor.isUnderPressure());
+        monitor.update(5000L, 74 * MB);
+        assertFalse(monitor.isUnderPressure());
+        assertEquals(Arrays.asList(true, false), events);
+    }
+
+    @Test
+    public void testCommitLogUsage() throws IOException {
+        File dir = Files.createTempDirectory("cdc_raw").toFile();
+        Files.write(new File(dir, "CommitLog-7-1.log").toPath(), new byte[1000]);
+        Files.write(new File(dir, "CommitLog-7-1_cdc.idx").toPath(), new byte[10]);
+        Files.write(new File(dir, "other.txt").toPath(), new byte[500]);
+        CdcDiskUsageMonitor monitor = new CdcDiskUsageMonitor(dir, 0, p -> {});
+        monitor.maybeUpdate();
+        assertEquals(1010, monitor.getUsedBytes());
+        assertFalse(monitor.isUnderPressure());
+    }
+}
@@ -0,0 +1,364 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CommitLogReaderServiceTests {
+
+    /**
+     * Keep the offsets in memory and record the flushed positions.
+     */
+    static class MemorySegmentOffsetWriter implements SegmentOffsetWriter {
+        final Map<Long, Integer> offsets = new HashMap<>();
+        final List<Integer> flushedPositions = new ArrayList<>();
+
+        @Override
+        public int position(Optional<UUID> nodeId, long segmentId) {
+            return offsets.getOrDefault(segmentId, -1);
+        }
+
+        @Override
+        public void position(Optional<UUID> nodeId, long segmentId, int position) {
+            offsets.put(segmentId, position);
+        }
+
+        @Override
+        public void flush(Optional<UUID> nodeId, long segmentId) {
+            flushedPositions.add(offsets.get(segmentId));
+        }
+
+        @Override
+        public void loadOffsets() {
+        }
+
+        @Override
+        public void remove(Optional<UUID> nodeId, long segmentId) {
+            offsets.remove(segmentId);
+        }
+
+        @Override
+        public void remove(Optional<UUID> nodeId) {
+            offsets.clear();
+        }
+    }
+
+    /**
+     * Record the catch-up mode updates.
+     */
+    static class CatchUpModeSender implements MutationSender<Object> {
+        final List<Boolean> catchUpModes = new ArrayList<>();
+
+        @Override
+        public CompletableFuture<?> sendMutationAsync(AbstractMutation<Object> mutation) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void setCatchUpMode(boolean catchUp) {
+            catchUpModes.add(catchUp);
+        }
+    }
+
+    /**
+     * Tasks stay running until the test finishes them.
+     */
+    static class TestCommitLogReaderService extends CommitLogReaderService {
+        TestCommitLogReaderService(AgentConfig config, SegmentOffsetWriter segmentOffsetWriter) {
+            this(config, segmentOffsetWriter, new CommitLogReaderGroup(config));
+        }
+
+        TestCommitLogReaderService(AgentConfig config, SegmentOffsetWriter segmentOffsetWriter, CommitLogReaderGroup group) {
+            super(config, new CatchUpModeSender(), segmentOffsetWriter, null, group);
+        }
+
+        List<Boolean> catchUpModes() {
+            return ((CatchUpModeSender) mutationSender).catchUpModes;
+        }
+
+        @Override
+        public Task createTask(String commitlogName, long seg, int pos, boolean completed) {
+            return new Task(commitlogName, seg, pos, completed) {
+                @Override
+                public File getFile() {
+                    return new File(commitlogName);
+                }
+
+                @Override
+                public void run() {
+                }
+            };
+        }
+    }
+
+    @Test
+    public void testCheckpointWithOutOfOrderAcks() {
+        MemorySegmentOffsetWriter offsetWriter = new MemorySegmentOffsetWriter();
+        TestCommitLogReaderService service = new TestCommitLogReaderService(new AgentConfig(), offsetWriter);
+        service.tasksExecutor = Executors.newSingleThreadExecutor();
+        try {
+            CommitLogReaderService.Task task = service.createTask("CommitLog-6-1.log", 1L, 0, false);
+            PositionWatermark watermark = task.trackPositions(100);
+            service.addPendingTask(task);
+
+            watermark.retain(200);
+            watermark.retain(300);
+            watermark.retain(400);
+            // the messages of 300 and 400 are acknowledged before the message of 200
+            watermark.release(400);
+            watermark.release(300);
+            service.checkpoint();
+            assertEquals(Collections.emptyList(), offsetWriter.flushedPositions);
+
+            watermark.release(200);
+            service.checkpoint();
+            assertEquals(Collections.singletonList(400), offsetWriter.flushedPositions);
+
+            watermark.retain(500);
+            watermark.retain(600);
+            watermark.release(600);
+            service.checkpoint();
+            assertEquals(Collections.singletonList(400), offsetWriter.flushedPositions);
+
+            watermark.release(500);
+            service.checkpoint();
+            service.checkpoint();
+            assertEquals(Arrays.asList(400, 600), offsetWriter.flushedPositions);
+            assertEquals(600, offsetWriter.position(Optional.empty(), 1L));
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    public void testFinishDoesNotMoveCheckpointBack() {
+        MemorySegmentOffsetWriter offsetWriter = new MemorySegmentOffsetWriter();
+        TestCommitLogReaderService service = new TestCommitLogReaderService(new AgentConfig(), offsetWriter);
+        service.tasksExecutor = Executors.newSingleThreadExecutor();
+        try {
+            CommitLogReaderService.Task task = service.createTask("CommitLog-6-1.log", 1L, 0, false);
+            PositionWatermark watermark = task.trackPositions(100);
+            service.addPendingTask(task);
+
+            watermark.retain(200);
+            watermark.retain(300);
+            watermark.release(200);
+            watermark.release(300);
+            service.checkpoint();
+            assertEquals(Collections.singletonList(300), offsetWriter.flushedPositions);
+
+            // the final position was read before the last checkpoint
+            task.stopCheckpoints();
+            task.finish(CommitLogReaderService.TaskStatus.SUCCESS, 200);
+            assertEquals(Collections.singletonList(300), offsetWriter.flushedPositions);
+            assertEquals(300, offsetWriter.position(Optional.empty(), 1L));
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    public void testCatchUpModeThreshold() {
+        AgentConfig config = new AgentConfig();
+        config.cdcCatchUpBacklogSegments = 4;
+        TestCommitLogReaderService service = new TestCommitLogReaderService(config, new MemorySegmentOffsetWriter());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>());
+        service.tasksExecutor = executor;
+        try {
+            for (long segment = 1; segment <= 3; segment++)
+                service.addPendingTask(service.createTask("CommitLog-6-" + segment + ".log", segment, 0, false));
+            assertFalse(service.catchUp);
+            assertEquals(2, executor.getCorePoolSize());
+
+            // entering at the threshold doubles the processing threads
+            service.addPendingTask(service.createTask("CommitLog-6-4.log", 4L, 0, false));
+            assertTrue(service.catchUp);
+            assertEquals(1, service.group.catchUpServices());
+            // the producers switch to the catch-up profile
+            assertEquals(Collections.singletonList(true), service.catchUpModes());
+            assertEquals(4, executor.getCorePoolSize());
+            assertEquals(4, executor.getMaximumPoolSize());
+
+            // staying above half the threshold
+            service.scheduler.finished(1L);
+            service.updateMode();
+            assertTrue(service.catchUp);
+            assertEquals(4, executor.getCorePoolSize());
+            assertEquals(Collections.singletonList(true), service.catchUpModes());
+
+            // leaving at half the threshold restores the processing threads
+            service.scheduler.finished(2L);
+            service.updateMode();
+            assertFalse(service.catchUp);
+            assertEquals(0, service.group.catchUpServices());
+            assertEquals(Arrays.asList(true, false), service.catchUpModes());
+            assertEquals(2, executor.getCorePoolSize());
+            assertEquals(2, executor.getMaximumPoolSize());
+
+            // entering again when the backlog grows back
+            service.addPendingTask(service.createTask("CommitLog-6-5.log", 5L, 0, false));
+            service.addPendingTask(service.createTask("CommitLog-6-6.log", 6L, 0, false));
+            assertTrue(service.catchUp);
+            assertEquals(4, executor.getCorePoolSize());
+            assertEquals(Arrays.asList(true, false, true), service.catchUpModes());
+        } finally {
+            for (long segment = 1; segment <= 6; segment++)
+                service.scheduler.finished(segment);
+            service.updateMode();
+            service.close();
+        }
+    }
+
+    @Test
+    public void testGroupMetrics() {
+        AgentConfig config = new AgentConfig();
+        config.maxInflightBytes = 1000;
+        CommitLogReaderGroup group = new CommitLogReaderGroup(config);
+        TestCommitLogReaderService service1 = new TestCommitLogReaderService(config, new MemorySegmentOffsetWriter(), group);
+        TestCommitLogReaderService service2 = new TestCommitLogReaderService(config, new MemorySegmentOffsetWriter(), group);
+        service1.tasksExecutor = Executors.newSingleThreadExecutor();
+        service2.tasksExecutor = Executors.newSingleThreadExecutor();
+        try {
+            // the services share the memory budget of the agent, and keep their own learned limit
+            assertSame(group.inflightMemoryBudget, service1.inflightMemoryBudget);
+            assertSame(group.inflightMemoryBudget, service2.inflightMemoryBudget);
+            service1.inflightMemoryBudget.acquire(400);
+            service2.inflightMemoryBudget.acquire(100);
+            service1.inflightLimit.set(32);
+            assertEquals(32, service1.newInflightLimiter().getLimit());
+            assertEquals(CommitLogReaderService.INITIAL_INFLIGHT_LIMIT, service2.newInflightLimiter().getLimit());
+
+            // the group aggregates the services
+            service1.addPendingTask(service1.createTask("CommitLog-6-1.log", 1L, 0, false));
+            service2.addPendingTask(service2.createTask("CommitLog-6-2.log", 2L, 0, false));
+            service2.addPendingTask(service2.createTask("CommitLog-6-3.log", 3L, 0, false));
+            service1.detectionLatency.set(10);
+            service2.detectionLatency.set(20);
+            assertEquals(3, group.backlogSegments());
+            assertEquals(20, group.detectionLatency());
+            assertEquals(CommitLogReaderService.INITIAL_INFLIGHT_LIMIT, group.inflightLimit());
+            assertEquals(500, group.inflightBytes());
+            assertEquals(500, group.inflightBytesAvailable());
+
+            // each service reports the disk usage of its own cdc_raw directory
+            assertEquals(-1, group.cdcRawHeadroomBytes());
+            service1.diskUsageMonitor = new CdcDiskUsageMonitor(new File("."), 1000, p -> {});
+            service2.diskUsageMonitor = new CdcDiskUsageMonitor(new File("."), 1000, p -> {});
+            service1.diskUsageMonitor.update(0, 100);
+            service2.diskUsageMonitor.update(0, 300);
+            assertEquals(300, group.cdcRawUsedBytes());
+            assertEquals(700, group.cdcRawHeadroomBytes());
+            assertEquals(-1, group.cdcRawTimeToFull());
+            assertEquals(100, service1.diskUsageMonitor.getUsedBytes());
+        } finally {
+            service1.close();
+            service2.close();
+        }
+        assertEquals(0, group.backlogSegments());
+    }
+
+    @Test
+    public void testDispatchFailureFailsTask() {
+        AgentConfig config = new AgentConfig();
+        config.cdcIntraSegmentParallelism = 2;
+        MemorySegmentOffsetWriter offsetWriter = new MemorySegmentOffsetWriter();
+        TestCommitLogReaderService service = new TestCommitLogReaderService(config, offsetWriter);
+        service.tasksExecutor = Executors.newSingleThreadExecutor();
+        try {
+            CommitLogReaderService.Task task = service.createTask("CommitLog-6-1.log", 1L, 300, false);
+            service.addPendingTask(task);
+            RuntimeException failure = new RuntimeException("invalid partition update");
+            task.dispatch(1L, () -> {
+                throw failure;
+            });
+            task.awaitDispatched();
+            assertSame(failure, task.dispatchException);
+            // the next partition updates of the task are not processed
+            assertThrows(RuntimeException.class, () -> task.dispatch(2L, () -> {}));
+
+            // the task fails without persisting its position
+            task.finish(CommitLogReaderService.TaskStatus.SUCCESS, 300);
+            assertEquals(CommitLogReaderService.TaskStatus.ERROR, task.getStatus());
+            assertNull(service.scheduler.running(1L));
+            assertFalse(offsetWriter.offsets.containsKey(1L));
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    public void testAwaitDispatched() throws Exception {
+        AgentConfig config = new AgentConfig();
+        config.cdcIntraSegmentParallelism = 2;
+        TestCommitLogReaderService service = new TestCommitLogReaderService(config, new MemorySegmentOffsetWriter());
+        service.tasksExecutor = Executors.newSingleThreadExecutor();
+        try {
+            CommitLogReaderService.Task task = service.createTask("CommitLog-6-1.log", 1L, 300, false);
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger processed = new AtomicInteger();
+            for (long token = 0; token < 4; token++) {
+                task.dispatch(token, () -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    processed.incrementAndGet();
+                });
+            }
+
+            CountDownLatch awaited = new CountDownLatch(1);
+            Thread reader = new Thread(() -> {
+                task.awaitDispatched();
+                awaited.countDown();
+            });
+            reader.start();
+            assertFalse(awaited.await(200, TimeUnit.MILLISECONDS));
+
+            release.countDown();
+            assertTrue(awaited.await(10, TimeUnit.SECONDS));
+            // all the dispatched partition updates were processed
+            assertEquals(4, processed.get());
+            assertNull(task.dispatchException);
+        } finally {
+            service.close();
+        }
+    }
+}
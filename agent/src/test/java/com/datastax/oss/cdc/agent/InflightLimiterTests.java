@@ -0,0 +1,102 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InflightLimiterTests {
+    static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    static final long SLOW = TimeUnit.SECONDS.toNanos(2);
+
+    @Test
+    public void testAdditiveIncrease() {
+        AtomicInteger lastLimit = new AtomicInteger();
+        InflightLimiter limiter = new InflightLimiter(4, 2, 6, 1000, lastLimit::set);
+        assertEquals(4, lastLimit.get());
+
+        // the limit only grows while the window is used
+        limiter.acquire();
+        limiter.release(FAST, false);
+        assertEquals(4, limiter.getLimit());
+
+        for (int i = 0; i < 4; i++)
+            limiter.acquire();
+        limiter.release(FAST, false);
+        limiter.release(FAST, false);
+        limiter.release(FAST, false);
+        limiter.release(FAST, false);
+        assertEquals(6, limiter.getLimit());
+        assertEquals(6, lastLimit.get());
+        assertEquals(0, limiter.getInflight());
+    }
+
+    @Test
+    public void testMultiplicativeDecrease() {
+        AtomicInteger lastLimit = new AtomicInteger();
+        InflightLimiter limiter = new InflightLimiter(100, 80, 200, 1000, lastLimit::set);
+        limiter.acquire();
+        limiter.acquire();
+        limiter.acquire();
+        limiter.release(SLOW, false);
+        assertEquals(90, limiter.getLimit());
+        assertEquals(90, lastLimit.get());
+
+        // backs off once per latency threshold period
+        limiter.release(FAST, true);
+        assertEquals(90, limiter.getLimit());
+
+        InflightLimiter noDelay = new InflightLimiter(100, 80, 200, 0, lastLimit::set);
+        for (int i = 0; i < 3; i++) {
+            noDelay.acquire();
+            noDelay.release(FAST, true);
+        }
+        assertEquals(80, noDelay.getLimit());
+    }
+
+    @Test
+    public void testBlocking() throws InterruptedException {
+        InflightLimiter limiter = new InflightLimiter(1, 1, 1, 1000, l -> {});
+        limiter.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            limiter.acquire();
+            acquired.countDown();
+            limiter.release(FAST, false);
+        });
+        thread.start();
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        limiter.release(FAST, false);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        limiter.awaitIdle();
+        thread.join();
+        assertEquals(0, limiter.getInflight());
+    }
+
+    @Test
+    public void testInvalidLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new InflightLimiter(1, 0, 10, 1000, l -> {}));
+        assertThrows(IllegalArgumentException.class, () -> new InflightLimiter(1, 10, 5, 1000, l -> {}));
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InflightMemoryBudgetTests {
+
+    @Test
+    public void testAcquireRelease() {
+        AtomicLong used = new AtomicLong();
+        InflightMemoryBudget budget = new InflightMemoryBudget(1000, used::set);
+        budget.acquire(300);
+        budget.acquire(700);
+        assertEquals(1000, used.get());
+        assertEquals(0, budget.getAvailableBytes());
+        budget.release(300);
+        assertEquals(700, budget.getUsedBytes());
+        assertEquals(300, budget.getAvailableBytes());
+        budget.release(700);
+        assertEquals(0, used.get());
+
+        // an oversized mutation is admitted alone
+        budget.acquire(5000);
+        assertEquals(5000, budget.getUsedBytes());
+        assertEquals(0, budget.getAvailableBytes());
+        budget.release(5000);
+    }
+
+    @Test
+    public void testBlocking() throws InterruptedException {
+        InflightMemoryBudget budget = new InflightMemoryBudget(100, b -> {});
+        budget.acquire(80);
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            budget.acquire(50);
+            acquired.countDown();
+        });
+        thread.start();
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        budget.release(80);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        thread.join();
+        assertEquals(50, budget.getUsedBytes());
+    }
+
+    @Test
+    public void testInvalidBudget() {
+        assertThrows(IllegalArgumentException.class, () -> new InflightMemoryBudget(0, b -> {}));
+    }
+}
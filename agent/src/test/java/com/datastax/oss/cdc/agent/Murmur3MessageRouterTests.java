@@ -0,0 +1,84 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import com.datastax.oss.cdc.Constants;
+import com.datastax.oss.cdc.Murmur3MessageRouter;
+import org.apache.pulsar.client.api.Message;
+import org.apache.pulsar.client.api.TopicMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class Murmur3MessageRouterTests {
+
+    static final long[] TOKENS = {
+            Long.MIN_VALUE, Long.MIN_VALUE + 1, -1L << 48, -1L, 0L, 1L, 1L << 48, Long.MAX_VALUE - 1, Long.MAX_VALUE,
+            -4069959284402364209L, 3248873570005575792L
+    };
+
+    /**
+     * @return a message with the compact metadata ordering key, or with the legacy token property.
+     */
+    static Message<?> message(long token, boolean compact) {
+        byte[] orderingKey = Murmur3MessageRouter.routingKey(token);
+        return (Message<?>) Proxy.newProxyInstance(Murmur3MessageRouterTests.class.getClassLoader(),
+                new Class<?>[]{Message.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "hasOrderingKey":
+                            return compact;
+                        case "getOrderingKey":
+                            return compact ? orderingKey : null;
+                        case "getProperty":
+                            return !compact && Constants.TOKEN.equals(args[0]) ? Long.toString(token) : null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @Test
+    public void testOrderingKeyPartitionMatchesTokenPartition() {
+        for (int numPartitions : new int[]{1, 2, 3, 7, 16, 100, 65536}) {
+            TopicMetadata metadata = () -> numPartitions;
+            for (long token : TOKENS) {
+                int legacyPartition = Murmur3MessageRouter.instance.choosePartition(message(token, false), metadata);
+                int partition = Murmur3MessageRouter.instance.choosePartition(message(token, true), metadata);
+                assertEquals(legacyPartition, partition, "token=" + token + " partitions=" + numPartitions);
+                assertTrue(partition >= 0 && partition < numPartitions);
+            }
+        }
+    }
+
+    @Test
+    public void testRoutingKey() {
+        // the routing key is the unsigned 16 upper bits of the token shifted by 2^15
+        assertEquals(0, routingHash(Long.MIN_VALUE));
+        assertEquals(32767, routingHash(-1L));
+        assertEquals(32768, routingHash(0L));
+        assertEquals(65535, routingHash(Long.MAX_VALUE));
+    }
+
+    static int routingHash(long token) {
+        byte[] key = Murmur3MessageRouter.routingKey(token);
+        assertEquals(2, key.length);
+        return ((key[0] & 0xff) << 8) | (key[1] & 0xff);
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import com.datastax.oss.cdc.DigestAlgorithm;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MutationDigesterTests {
+
+    @Test
+    public void testHexDigest() {
+        MutationDigester digester = new MutationDigester();
+        byte[] input = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8);
+        assertEquals("9e107d9d372bb6826bd81d3542a419d6", digester.hexDigest(input, 0, input.length));
+        // the digester is reusable
+        assertEquals("d41d8cd98f00b204e9800998ecf8427e", digester.hexDigest(input, 0, 0));
+    }
+
+    @Test
+    public void testStreamingDigest() {
+        MutationDigester digester = new MutationDigester();
+        byte[] input = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8);
+        digester.write(ByteBuffer.wrap(input, 0, 10));
+        digester.write(ByteBuffer.wrap(input, 10, input.length - 10));
+        assertEquals("9e107d9d372bb6826bd81d3542a419d6", digester.hexDigest());
+
+        digester.write(ByteBuffer.wrap(input));
+        digester.reset();
+        digester.update(input, 0, input.length);
+        assertEquals("9e107d9d372bb6826bd81d3542a419d6", digester.hexDigest());
+    }
+
+    @Test
+    public void testMurmur3Digest() {
+        MutationDigester digester = new MutationDigester(DigestAlgorithm.MURMUR3_128);
+        byte[] input = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8);
+        // same as Guava murmur3_128
+        assertEquals("6c1b07bc7bbc4be347939ac4a93c437a", digester.hexDigest(input, 0, input.length));
+
+        // streamed through heap and direct buffers
+        for (int i = 0; i < input.length; i += 5) {
+            ByteBuffer bb = ByteBuffer.allocateDirect(Math.min(5, input.length - i));
+            bb.put(input, i, bb.capacity());
+            bb.flip();
+            digester.write(bb);
+        }
+        byte[] tagged = digester.taggedDigest();
+        assertEquals(17, tagged.length);
+        assertEquals(DigestAlgorithm.MURMUR3_128.tag, tagged[0]);
+        assertArrayEquals(tagged, digester.taggedDigest(input, 0, input.length));
+    }
+}
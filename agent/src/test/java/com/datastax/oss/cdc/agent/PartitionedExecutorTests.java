@@ -0,0 +1,98 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PartitionedExecutorTests {
+
+    @Test
+    public void testPerTokenOrdering() {
+        Map<Long, List<Integer>> executed = new ConcurrentHashMap<>();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        try (PartitionedExecutor executor = new PartitionedExecutor(4, 8, "test")) {
+            for (long token = 0; token < 16; token++)
+                executed.put(token, new ArrayList<>());
+            for (int i = 0; i < 1000; i++) {
+                final long token = i % 16;
+                final int sequence = i;
+                executor.execute(token, () -> {
+                    threads.add(Thread.currentThread().getName());
+                    executed.get(token).add(sequence);
+                    if (sequence % 7 == 0)
+                        Thread.yield();
+                });
+            }
+        }
+        // the tasks of a token run on a single worker, in submission order
+        for (long token = 0; token < 16; token++) {
+            List<Integer> sequences = executed.get(token);
+            assertEquals(1000 / 16 + (token < 1000 % 16 ? 1 : 0), sequences.size());
+            for (int i = 1; i < sequences.size(); i++)
+                assertTrue(sequences.get(i - 1) < sequences.get(i), "token " + token + " out of order: " + sequences);
+        }
+        assertTrue(threads.size() > 1, "tasks ran on " + threads);
+    }
+
+    @Test
+    public void testBoundedQueueBlocksSubmitter() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executed = new AtomicInteger();
+        try (PartitionedExecutor executor = new PartitionedExecutor(1, 1, "test")) {
+            executor.execute(1L, () -> {
+                running.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                executed.incrementAndGet();
+            });
+            assertTrue(running.await(10, TimeUnit.SECONDS));
+            // fills the queue of the busy worker
+            executor.execute(2L, executed::incrementAndGet);
+
+            CountDownLatch submitted = new CountDownLatch(1);
+            Thread reader = new Thread(() -> {
+                executor.execute(3L, executed::incrementAndGet);
+                submitted.countDown();
+            });
+            reader.start();
+            // the reader blocks while the queue is full
+            assertFalse(submitted.await(200, TimeUnit.MILLISECONDS));
+            assertEquals(Thread.State.WAITING, reader.getState());
+
+            release.countDown();
+            assertTrue(submitted.await(10, TimeUnit.SECONDS));
+            reader.join(10000);
+        }
+        assertEquals(3, executed.get());
+    }
+}
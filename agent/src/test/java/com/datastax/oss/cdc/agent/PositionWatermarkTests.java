@@ -0,0 +1,68 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PositionWatermarkTests {
+
+    @Test
+    public void testOrderedRelease() {
+        PositionWatermark watermark = new PositionWatermark(100);
+        watermark.retain(120, 2);
+        watermark.retain(150);
+        watermark.retain(180);
+        assertEquals(100, watermark.position());
+
+        // higher positions acknowledged first do not advance the watermark
+        watermark.release(180);
+        watermark.release(150);
+        assertEquals(100, watermark.position());
+        watermark.release(120);
+        assertEquals(100, watermark.position());
+        assertEquals(3, watermark.pendingPositions());
+
+        watermark.release(120);
+        assertEquals(180, watermark.position());
+        assertEquals(0, watermark.pendingPositions());
+    }
+
+    @Test
+    public void testRetainWhilePending() {
+        PositionWatermark watermark = new PositionWatermark(0);
+        watermark.retain(10);
+        watermark.retain(20);
+        // a partition update hold on 10 sends a message before being released
+        watermark.retain(10);
+        watermark.release(10);
+        watermark.release(20);
+        assertEquals(0, watermark.position());
+        watermark.release(10);
+        assertEquals(20, watermark.position());
+    }
+
+    @Test
+    public void testInvalidOperations() {
+        PositionWatermark watermark = new PositionWatermark(50);
+        assertThrows(IllegalStateException.class, () -> watermark.retain(40));
+        assertThrows(IllegalStateException.class, () -> watermark.release(50));
+        watermark.retain(60);
+        assertThrows(IllegalStateException.class, () -> watermark.retain(55));
+    }
+}
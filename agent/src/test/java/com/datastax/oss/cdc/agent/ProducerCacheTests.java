@@ -0,0 +1,279 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProducerCacheTests {
+
+    final AtomicInteger created = new AtomicInteger(0);
+    final List<String> closed = new ArrayList<>();
+    final List<String> evicted = new ArrayList<>();
+
+    ProducerCache<String> newCache(int maxProducers, long idleTimeoutMs) {
+        return new ProducerCache<>(maxProducers, idleTimeoutMs,
+                p -> {
+                    closed.add(p);
+                    return CompletableFuture.completedFuture(null);
+                },
+                evicted::add);
+    }
+
+    String newProducer(String key) {
+        return key + "-" + created.incrementAndGet();
+    }
+
+    @Test
+    public void testIdleEviction() {
+        ProducerCache<String> cache = newCache(0, 1000);
+        long now = 0;
+        ProducerCache.Entry<String> a = cache.acquire("a", this::newProducer, now);
+        ProducerCache.Entry<String> b = cache.acquire("b", this::newProducer, now);
+        cache.release(a, now);
+        assertSame(a, cache.acquire("a", this::newProducer, now));
+        cache.release(a, now);
+
+        // b has a pending send
+        now += TimeUnit.MILLISECONDS.toNanos(1000);
+        assertEquals(1, cache.evictIdle(now));
+        assertEquals(Arrays.asList("a-1"), closed);
+        assertEquals(Arrays.asList("a"), evicted);
+        assertNull(cache.get("a"));
+        assertSame(b, cache.get("b"));
+
+        cache.release(b, now);
+        assertEquals(0, cache.evictIdle(now));
+        now += TimeUnit.MILLISECONDS.toNanos(1000);
+        assertEquals(1, cache.evictIdle(now));
+        assertEquals(Arrays.asList("a-1", "b-2"), closed);
+
+        // lazily re-created
+        ProducerCache.Entry<String> a2 = cache.acquire("a", this::newProducer, now);
+        assertEquals("a-3", a2.producer);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testMaxProducers() {
+        ProducerCache<String> cache = newCache(2, 0);
+        ProducerCache.Entry<String> a = cache.acquire("a", this::newProducer, 1);
+        cache.release(a, 1);
+        ProducerCache.Entry<String> b = cache.acquire("b", this::newProducer, 2);
+        cache.release(b, 2);
+        cache.release(cache.acquire("a", this::newProducer, 3), 3);
+
+        // b is the least recently used
+        ProducerCache.Entry<String> c = cache.acquire("c", this::newProducer, 4);
+        assertEquals(2, cache.size());
+        assertEquals(Arrays.asList("b-2"), closed);
+
+        // a and c are busy, exceed the max until released
+        ProducerCache.Entry<String> a2 = cache.acquire("a", this::newProducer, 5);
+        assertSame(a, a2);
+        ProducerCache.Entry<String> d = cache.acquire("d", this::newProducer, 6);
+        assertEquals(3, cache.size());
+        assertEquals(Arrays.asList("b-2"), closed);
+        cache.release(c, 7);
+        cache.release(a2, 8);
+        cache.release(d, 9);
+        cache.release(cache.acquire("e", this::newProducer, 10), 10);
+        assertEquals(2, cache.size());
+        assertEquals(Arrays.asList("b-2", "c-3", "a-1"), closed);
+    }
+
+    @Test
+    public void testInvalidateWithPendingSends() {
+        ProducerCache<String> cache = newCache(0, 0);
+        ProducerCache.Entry<String> a = cache.acquire("a", this::newProducer, 0);
+        cache.invalidate("a");
+        assertTrue(closed.isEmpty());
+        assertNull(cache.get("a"));
+
+        cache.release(a, 0);
+        assertEquals(Arrays.asList("a-1"), closed);
+        ProducerCache.Entry<String> a2 = cache.acquire("a", this::newProducer, 0);
+        assertNotSame(a, a2);
+        assertTrue(evicted.isEmpty());
+        cache.release(a2, 0);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        ProducerCache<String> cache = newCache(0, 0);
+        ProducerCache.Entry<String> a = cache.acquire("a", this::newProducer, 0);
+        cache.release(cache.acquire("b", this::newProducer, 0), 0);
+        cache.invalidateAll();
+        // the idle producer is closed, the busy one once its pending sends complete
+        assertEquals(Arrays.asList("b-2"), closed);
+        assertEquals(0, cache.size());
+        cache.release(a, 0);
+        assertEquals(Arrays.asList("b-2", "a-1"), closed);
+        assertTrue(evicted.isEmpty());
+    }
+
+    @Test
+    public void testAcquireWaitsForClose() throws Exception {
+        CompletableFuture<Void> closeFuture = new CompletableFuture<>();
+        ProducerCache<String> cache = new ProducerCache<>(0, 1000,
+                p -> {
+                    closed.add(p);
+                    return closeFuture;
+                },
+                evicted::add);
+        ProducerCache.Entry<String> a = cache.acquire("a", this::newProducer, 0);
+        cache.release(a, 0);
+        assertEquals(1, cache.evictIdle(TimeUnit.MILLISECONDS.toNanos(1000)));
+        assertEquals(Arrays.asList("a-1"), closed);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ProducerCache.Entry<String>> a2 = executor.submit(() -> cache.acquire("a", this::newProducer, 0));
+            assertThrows(TimeoutException.class, () -> a2.get(200, TimeUnit.MILLISECONDS));
+            assertEquals(1, created.get());
+            closeFuture.complete(null);
+            assertEquals("a-2", a2.get(10, TimeUnit.SECONDS).producer);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWaitForCloseDoesNotBlockOtherKeys() throws Exception {
+        CompletableFuture<Void> closeFuture = new CompletableFuture<>();
+        ProducerCache<String> cache = new ProducerCache<>(0, 1000,
+                p -> {
+                    closed.add(p);
+                    return p.startsWith("Aa") ? closeFuture : CompletableFuture.completedFuture(null);
+                },
+                evicted::add);
+        // same hash code, so the same map bin
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        cache.release(cache.acquire("Aa", this::newProducer, 0), 0);
+        assertEquals(1, cache.evictIdle(TimeUnit.MILLISECONDS.toNanos(1000)));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // the close of the previous producer never completes, as during a broker outage
+            Future<ProducerCache.Entry<String>> aa = executor.submit(() -> cache.acquire("Aa", this::newProducer, 0));
+            assertThrows(TimeoutException.class, () -> aa.get(200, TimeUnit.MILLISECONDS));
+
+            ProducerCache.Entry<String> bb = cache.acquire("BB", this::newProducer, 0);
+            assertEquals("BB-2", bb.producer);
+            cache.release(bb, 0);
+            cache.invalidate("BB");
+            assertEquals(Arrays.asList("Aa-1", "BB-2"), closed);
+
+            closeFuture.complete(null);
+            assertEquals("Aa-3", aa.get(10, TimeUnit.SECONDS).producer);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAcquireFailsWhenCloseTimesOut() {
+        CompletableFuture<Void> closeFuture = new CompletableFuture<>();
+        ProducerCache<String> cache = new ProducerCache<>(1, 0, 100,
+                p -> {
+                    closed.add(p);
+                    return closeFuture;
+                },
+                evicted::add);
+        cache.release(cache.acquire("a", this::newProducer, 0), 0);
+        cache.release(cache.acquire("b", this::newProducer, 1), 1);
+        assertEquals(1, cache.getEvictedProducers());
+        assertEquals(1, cache.getLiveProducers());
+
+        // the close of the previous producer never completes, as during a broker outage
+        assertThrows(IllegalStateException.class, () -> cache.acquire("a", this::newProducer, 2));
+        assertEquals(2, created.get());
+
+        closeFuture.complete(null);
+        assertEquals("a-3", cache.acquire("a", this::newProducer, 3).producer);
+    }
+
+    @Test
+    public void testConcurrentAcquireAndEvict() throws Exception {
+        // at most one open producer per key, as the producer name must be unique
+        AtomicInteger openProducers = new AtomicInteger(0);
+        AtomicInteger violations = new AtomicInteger(0);
+        ExecutorService closeExecutor = Executors.newSingleThreadExecutor();
+        ProducerCache<String> cache = new ProducerCache<>(0, 1,
+                p -> CompletableFuture.runAsync(openProducers::decrementAndGet, closeExecutor),
+                evicted::add);
+        Function<String, String> factory = k -> {
+            if (openProducers.incrementAndGet() != 1)
+                violations.incrementAndGet();
+            return newProducer(k);
+        };
+
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        try {
+            AtomicBoolean running = new AtomicBoolean(true);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    while (running.get())
+                        cache.release(cache.acquire("a", factory));
+                }));
+            }
+            Future<?> evictor = executor.submit(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    if (i % 2 == 0)
+                        cache.evictIdle(System.nanoTime() + TimeUnit.SECONDS.toNanos(1));
+                    else
+                        cache.invalidate("a");
+                }
+            });
+            try {
+                evictor.get(60, TimeUnit.SECONDS);
+            } finally {
+                running.set(false);
+            }
+            for (Future<?> future : futures)
+                future.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+            closeExecutor.shutdown();
+            closeExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        assertEquals(0, violations.get());
+        assertTrue(created.get() > 1);
+        assertEquals(cache.size(), openProducers.get());
+    }
+}
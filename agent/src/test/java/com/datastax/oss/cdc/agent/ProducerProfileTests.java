@@ -0,0 +1,87 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import org.apache.pulsar.client.api.CompressionType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProducerProfileTests {
+
+    @Test
+    public void testResolve() {
+        ProducerProfile defaultProfile = new ProducerProfile(CompressionType.NONE, 10L, null, null, false);
+        Map<String, ProducerProfile> profiles = ProducerProfile.parse(
+                "ks1:compressionType=zstd&batchingMaxMessages=500;ks1.t1:batchDelayInMs=0; ks1.t2:chunking=true&batchingMaxBytes=65536;");
+        assertEquals(3, profiles.size());
+
+        ProducerProfile ks1 = ProducerProfile.resolve(defaultProfile, profiles, "ks1", "t0");
+        assertEquals(new ProducerProfile(CompressionType.ZSTD, 10L, 500, null, false), ks1);
+        assertTrue(ks1.isBatchingEnabled());
+
+        ProducerProfile t1 = ProducerProfile.resolve(defaultProfile, profiles, "ks1", "t1");
+        assertEquals(new ProducerProfile(CompressionType.ZSTD, 0L, 500, null, false), t1);
+        assertFalse(t1.isBatchingEnabled());
+
+        ProducerProfile t2 = ProducerProfile.resolve(defaultProfile, profiles, "ks1", "t2");
+        assertEquals(new ProducerProfile(CompressionType.ZSTD, 10L, 500, 65536, true), t2);
+        assertFalse(t2.isBatchingEnabled());
+
+        assertEquals(defaultProfile, ProducerProfile.resolve(defaultProfile, profiles, "ks2", "t1"));
+    }
+
+    @Test
+    public void testCatchUpProfile() {
+        ProducerProfile defaultProfile = new ProducerProfile(CompressionType.NONE, -1L, null, null, false);
+        ProducerProfile catchUpProfile = ProducerProfile.parseOptions("catchUp", "compressionType=lz4&batchDelayInMs=50&batchingMaxMessages=5000");
+        assertEquals(new ProducerProfile(CompressionType.LZ4, 50L, 5000, null, null), catchUpProfile);
+        assertEquals(ProducerProfile.EMPTY, ProducerProfile.parseOptions("catchUp", ""));
+
+        // the catch-up profile overrides the global settings, the table profiles override the catch-up profile
+        Map<String, ProducerProfile> profiles = ProducerProfile.parse("ks1.t1:batchDelayInMs=0");
+        ProducerProfile t0 = ProducerProfile.resolve(defaultProfile.merge(catchUpProfile), profiles, "ks1", "t0");
+        assertEquals(new ProducerProfile(CompressionType.LZ4, 50L, 5000, null, false), t0);
+        assertTrue(t0.isBatchingEnabled());
+        ProducerProfile t1 = ProducerProfile.resolve(defaultProfile.merge(catchUpProfile), profiles, "ks1", "t1");
+        assertFalse(t1.isBatchingEnabled());
+        assertEquals(CompressionType.LZ4, t1.compressionType);
+
+        // batches enabled by a profile only are always built by key
+        assertTrue(t0.isKeyBasedBatching(false, defaultProfile));
+        assertFalse(t1.isKeyBasedBatching(true, defaultProfile));
+        ProducerProfile batchingProfile = new ProducerProfile(CompressionType.NONE, 10L, null, null, false);
+        assertFalse(batchingProfile.merge(catchUpProfile).isKeyBasedBatching(false, batchingProfile));
+        assertTrue(batchingProfile.merge(catchUpProfile).isKeyBasedBatching(true, batchingProfile));
+    }
+
+    @Test
+    public void testMalformedProfiles() {
+        assertTrue(ProducerProfile.parse(null).isEmpty());
+        assertTrue(ProducerProfile.parse(" ").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> ProducerProfile.parse("compressionType=ZSTD"));
+        assertThrows(IllegalArgumentException.class, () -> ProducerProfile.parse("ks1:compressionType"));
+        assertThrows(IllegalArgumentException.class, () -> ProducerProfile.parse("ks1:compressionType=GZIP"));
+        assertThrows(IllegalArgumentException.class, () -> ProducerProfile.parse("ks1:batchDelayInMs=ten"));
+        assertThrows(IllegalArgumentException.class, () -> ProducerProfile.parse("ks1:unknown=1"));
+        assertThrows(IllegalArgumentException.class, () -> ProducerProfile.parseOptions("catchUp", "batchDelayInMs"));
+    }
+}
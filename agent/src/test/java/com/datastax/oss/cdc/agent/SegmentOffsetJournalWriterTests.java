@@ -0,0 +1,95 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SegmentOffsetJournalWriterTests {
+
+    @Test
+    public void testReplayAndCompaction() throws IOException {
+        Path dir = Files.createTempDirectory("offsets");
+        SegmentOffsetJournalWriter writer = new SegmentOffsetJournalWriter(dir.toString());
+        writer.loadOffsets();
+        for (int i = 0; i < 3 * SegmentOffsetJournalWriter.MIN_COMPACTION_RECORDS; i++) {
+            writer.position(Optional.empty(), i % 4, i);
+            writer.flush(Optional.empty(), i % 4);
+        }
+        writer.remove(Optional.empty(), 2);
+        // compacted snapshot and the records appended since
+        assertTrue(Files.size(dir.resolve(SegmentOffsetJournalWriter.JOURNAL_FILE))
+                <= (long) SegmentOffsetJournalWriter.MIN_COMPACTION_RECORDS * SegmentOffsetJournalWriter.RECORD_SIZE);
+
+        SegmentOffsetJournalWriter writer2 = new SegmentOffsetJournalWriter(dir.toString());
+        writer2.loadOffsets();
+        int last = 3 * SegmentOffsetJournalWriter.MIN_COMPACTION_RECORDS - 1;
+        assertEquals(last - 3, writer2.position(Optional.empty(), 0));
+        assertEquals(last - 2, writer2.position(Optional.empty(), 1));
+        assertEquals(0, writer2.position(Optional.empty(), 2));
+        assertEquals(last, writer2.position(Optional.empty(), 3));
+    }
+
+    @Test
+    public void testTornRecord() throws IOException {
+        Path dir = Files.createTempDirectory("offsets");
+        SegmentOffsetJournalWriter writer = new SegmentOffsetJournalWriter(dir.toString());
+        writer.loadOffsets();
+        writer.position(Optional.empty(), 10L, 100);
+        writer.flush(Optional.empty(), 10L);
+        writer.position(Optional.empty(), 10L, 200);
+        writer.flush(Optional.empty(), 10L);
+        // truncate the last record
+        Path journal = dir.resolve(SegmentOffsetJournalWriter.JOURNAL_FILE);
+        byte[] bytes = Files.readAllBytes(journal);
+        Files.write(journal, Arrays.copyOf(bytes, bytes.length - 3), StandardOpenOption.TRUNCATE_EXISTING);
+
+        SegmentOffsetJournalWriter writer2 = new SegmentOffsetJournalWriter(dir.toString());
+        writer2.loadOffsets();
+        assertEquals(100, writer2.position(Optional.empty(), 10L));
+        // the torn record is dropped by the compaction on load
+        assertEquals(SegmentOffsetJournalWriter.RECORD_SIZE, Files.size(journal));
+    }
+
+    @Test
+    public void testLegacyMigration() throws IOException {
+        Path dir = Files.createTempDirectory("offsets");
+        SegmentOffsetFileWriter legacyWriter = new SegmentOffsetFileWriter(dir.toString());
+        legacyWriter.position(Optional.empty(), 42L, 4242);
+        legacyWriter.flush(Optional.empty(), 42L);
+
+        SegmentOffsetJournalWriter writer = new SegmentOffsetJournalWriter(dir.toString());
+        writer.loadOffsets();
+        assertEquals(4242, writer.position(Optional.empty(), 42L));
+        assertFalse(new File(dir.toFile(), 42L + SegmentOffsetFileWriter.COMMITLOG_OFFSET_FILE_SUFFIX).exists());
+        writer.close();
+
+        SegmentOffsetJournalWriter writer2 = new SegmentOffsetJournalWriter(dir.toString());
+        writer2.loadOffsets();
+        assertEquals(4242, writer2.position(Optional.empty(), 42L));
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SegmentSchedulerTests {
+
+    @Test
+    public void testOneRunningTaskPerSegment() {
+        List<String> started = new ArrayList<>();
+        SegmentScheduler<String> scheduler = new SegmentScheduler<>(started::add);
+        assertTrue(scheduler.schedule(1L, "a1"));
+        assertFalse(scheduler.schedule(1L, "a2"));
+        // a newer pending task replaces the previous one
+        assertFalse(scheduler.schedule(1L, "a3"));
+        assertTrue(scheduler.schedule(2L, "b1"));
+        assertEquals(Arrays.asList("a1", "b1"), started);
+        assertEquals("a1", scheduler.running(1L));
+        assertEquals(2, scheduler.getRunningTasks());
+        assertEquals(1, scheduler.getPendingTasks());
+
+        assertEquals("a3", scheduler.finished(1L));
+        assertEquals(Arrays.asList("a1", "b1", "a3"), started);
+        assertEquals(0, scheduler.getPendingTasks());
+        assertNull(scheduler.finished(1L));
+        assertNull(scheduler.running(1L));
+        assertEquals(Collections.singletonList("b1"), new ArrayList<>(scheduler.runningTasks()));
+        assertEquals(1, scheduler.getRunningTasks());
+        assertEquals(2, scheduler.getMaxRunningTasks());
+        assertEquals(1, scheduler.getMaxPendingTasks());
+    }
+
+    @Test
+    public void testReschedule() {
+        List<String> started = new ArrayList<>();
+        SegmentScheduler<String> scheduler = new SegmentScheduler<>(started::add);
+        scheduler.schedule(1L, "a1");
+        scheduler.schedule(1L, "a2");
+        // a failed task does not replace a newer pending task
+        scheduler.reschedule(1L, "a1");
+        assertEquals("a2", scheduler.finished(1L));
+        assertNull(scheduler.finished(1L));
+        scheduler.reschedule(1L, "a2");
+        assertEquals(Arrays.asList("a1", "a2", "a2"), started);
+    }
+
+    @Test
+    public void testCollectGarbage() {
+        SegmentScheduler<String> scheduler = new SegmentScheduler<>(t -> {});
+        scheduler.schedule(1L, "a1");
+        scheduler.finished(1L);
+        scheduler.awaitCleanup(1L, "a1");
+        scheduler.schedule(2L, "b1");
+        scheduler.finished(2L);
+        scheduler.awaitCleanup(2L, "b1");
+        scheduler.schedule(3L, "c1");
+        assertEquals(2, scheduler.getUncleanedTasks());
+
+        assertEquals(Collections.emptyList(), scheduler.collectGarbage(1L));
+        assertEquals(Arrays.asList("a1", "b1"), scheduler.collectGarbage(3L));
+        assertEquals(0, scheduler.getUncleanedTasks());
+        assertEquals(2, scheduler.getMaxUncleanedTasks());
+
+        // a segment scheduled again is no more awaiting cleanup
+        scheduler.finished(3L);
+        scheduler.awaitCleanup(3L, "c1");
+        scheduler.schedule(3L, "c2");
+        assertEquals(0, scheduler.getUncleanedTasks());
+        assertEquals(Collections.emptyList(), scheduler.collectGarbage(4L));
+    }
+}
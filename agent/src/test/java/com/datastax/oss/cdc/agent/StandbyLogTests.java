@@ -0,0 +1,72 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class StandbyLogTests {
+
+    @Test
+    public void testTakeOver() {
+        StandbyLog<String> standbyLog = new StandbyLog<>(10, 60000);
+        long now = 10000;
+        standbyLog.add("a1", now);
+        standbyLog.add("b1", now);
+        standbyLog.add("a2", now);
+        assertEquals(3, standbyLog.size());
+
+        Set<String> primary = new HashSet<>();
+        assertEquals(Collections.emptyList(), standbyLog.maybeTakeOver(primary::contains, now));
+        assertEquals(3, standbyLog.size());
+
+        // the primary replica of a1 and a2 is down
+        primary.addAll(Arrays.asList("a1", "a2"));
+        assertEquals(Collections.emptyList(), standbyLog.maybeTakeOver(primary::contains, now + 10));
+        assertEquals(Arrays.asList("a1", "a2"),
+                standbyLog.maybeTakeOver(primary::contains, now + StandbyLog.TAKEOVER_CHECK_INTERVAL_MS));
+        assertEquals(1, standbyLog.size());
+    }
+
+    @Test
+    public void testRetention() {
+        StandbyLog<String> standbyLog = new StandbyLog<>(10, 5000);
+        long now = 10000;
+        standbyLog.add("a", now);
+        standbyLog.add("b", now + 3000);
+        assertEquals(Collections.emptyList(), standbyLog.maybeTakeOver(m -> false, now + 6000));
+        assertEquals(1, standbyLog.size());
+        assertEquals(Collections.singletonList("b"), standbyLog.maybeTakeOver(m -> true, now + 8000));
+        assertEquals(0, standbyLog.size());
+    }
+
+    @Test
+    public void testMaxSize() {
+        StandbyLog<String> standbyLog = new StandbyLog<>(2, 60000);
+        long now = 10000;
+        standbyLog.add("a", now);
+        standbyLog.add("b", now);
+        standbyLog.add("c", now);
+        assertEquals(2, standbyLog.size());
+        assertEquals(Arrays.asList("b", "c"), standbyLog.maybeTakeOver(m -> true, now));
+    }
+}
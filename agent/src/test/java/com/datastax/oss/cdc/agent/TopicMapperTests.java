@@ -0,0 +1,58 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc.agent;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TopicMapperTests {
+
+    @Test
+    public void testTopicPerTable() {
+        TopicMapper topicMapper = new TopicMapper("events-", false, null);
+        assertNull(topicMapper.group("ks1", "t1"));
+        assertFalse(topicMapper.isMultiplexed("ks1", "t1"));
+        assertEquals("events-ks1.t1", topicMapper.topicName("ks1", "t1"));
+    }
+
+    @Test
+    public void testTopicGroups() {
+        TopicMapper topicMapper = new TopicMapper("events-", true, "small:ks1.t1&ks1.t2; ks2:ks2 ;");
+        assertEquals("events-small", topicMapper.topicName("ks1", "t1"));
+        assertEquals("events-small", topicMapper.topicName("ks1", "t2"));
+        assertEquals("events-ks1", topicMapper.topicName("ks1", "t3"));
+        assertEquals("events-ks2", topicMapper.topicName("ks2", "t1"));
+        assertTrue(topicMapper.isMultiplexed("ks3", "t1"));
+
+        topicMapper = new TopicMapper("events-", false, "small:ks1.t1&ks2");
+        assertEquals("events-small", topicMapper.topicName("ks1", "t1"));
+        assertEquals("events-ks1.t2", topicMapper.topicName("ks1", "t2"));
+        assertEquals("events-small", topicMapper.topicName("ks2", "t2"));
+    }
+
+    @Test
+    public void testMalformedTopicGroups() {
+        assertTrue(TopicMapper.parse(" ").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> TopicMapper.parse("ks1.t1"));
+        assertThrows(IllegalArgumentException.class, () -> TopicMapper.parse("small:ks1.t1&"));
+        assertThrows(IllegalArgumentException.class, () -> TopicMapper.parse("g1:ks1.t1;g2:ks1.t1"));
+    }
+}
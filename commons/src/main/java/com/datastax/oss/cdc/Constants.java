@@ -30,4 +30,14 @@ public class Constants {
      * Cassandra partition token property name.
      */
     public static final String TOKEN = "token";
+
+    /**
+     * Source table message property name, set when the events of several tables share a topic.
+     */
+    public static final String TABLE = "table";
+
+    /**
+     * Primary key schema fingerprint message property name, set when the events of several tables share a topic.
+     */
+    public static final String KEY_SCHEMA_FINGERPRINT = "keyfp";
 }
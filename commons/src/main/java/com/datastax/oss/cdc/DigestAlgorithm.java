@@ -0,0 +1,77 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc;
+
+/**
+ * Mutation digest algorithms. A binary {@link MutationValue#getDigest()} starts with the algorithm tag byte,
+ * followed by the digest bytes, so that digests computed with different algorithms never collide.
+ */
+public enum DigestAlgorithm {
+    MD5((byte) 1, 16),
+    MURMUR3_128((byte) 2, 16);
+
+    public final byte tag;
+    public final int length;
+
+    DigestAlgorithm(byte tag, int length) {
+        this.tag = tag;
+        this.length = length;
+    }
+
+    public static DigestAlgorithm fromTag(byte tag) {
+        for (DigestAlgorithm algorithm : values()) {
+            if (algorithm.tag == tag)
+                return algorithm;
+        }
+        throw new IllegalArgumentException("Unknown digest algorithm tag=" + tag);
+    }
+
+    /**
+     * Convert a legacy hexadecimal MD5 digest into a tagged binary digest.
+     * @param md5Hex the 32 chars hexadecimal MD5 digest
+     * @return the tagged binary digest, or null if md5Hex is not an hexadecimal MD5 digest.
+     */
+    public static byte[] fromMd5Hex(String md5Hex) {
+        if (md5Hex == null || md5Hex.length() != 2 * MD5.length)
+            return null;
+        byte[] digest = new byte[1 + MD5.length];
+        digest[0] = MD5.tag;
+        for (int i = 0; i < MD5.length; i++) {
+            int hi = Character.digit(md5Hex.charAt(2 * i), 16);
+            int lo = Character.digit(md5Hex.charAt(2 * i + 1), 16);
+            if (hi < 0 || lo < 0)
+                return null;
+            digest[i + 1] = (byte) ((hi << 4) | lo);
+        }
+        return digest;
+    }
+
+    /**
+     * Convert a tagged binary MD5 digest into the legacy hexadecimal MD5 digest.
+     * @param digest the tagged binary MD5 digest
+     * @return the 32 chars hexadecimal MD5 digest
+     */
+    public static String toMd5Hex(byte[] digest) {
+        if (digest == null || digest.length != 1 + MD5.length || digest[0] != MD5.tag)
+            throw new IllegalArgumentException("Not a MD5 digest");
+        char[] hex = new char[2 * MD5.length];
+        for (int i = 0; i < MD5.length; i++) {
+            hex[2 * i] = Character.forDigit((digest[i + 1] >> 4) & 0x0f, 16);
+            hex[2 * i + 1] = Character.forDigit(digest[i + 1] & 0x0f, 16);
+        }
+        return new String(hex);
+    }
+}
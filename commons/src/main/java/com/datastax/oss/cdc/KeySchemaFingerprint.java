@@ -0,0 +1,46 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fingerprint of a primary key AVRO schema, identifying its binary encoding.
+ *
+ * When the events of several tables share a topic, the primary key is sent as plain bytes rather than with a
+ * registered schema, and the connector checks the fingerprint before decoding the key with its own schema.
+ * Only the field types are fingerprinted, in order, as the record and field names do not change the binary encoding.
+ */
+public class KeySchemaFingerprint {
+
+    private KeySchemaFingerprint() {
+    }
+
+    /**
+     * @param keySchema the primary key record schema
+     * @return the hexadecimal 64 bits fingerprint of the field types
+     */
+    public static String of(Schema keySchema) {
+        StringBuilder sb = new StringBuilder();
+        for (Schema.Field field : keySchema.getFields()) {
+            sb.append(SchemaNormalization.toParsingForm(field.schema())).append(',');
+        }
+        return Long.toHexString(SchemaNormalization.fingerprint64(sb.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+}
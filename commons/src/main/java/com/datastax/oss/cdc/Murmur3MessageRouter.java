@@ -22,7 +22,22 @@ import org.apache.pulsar.client.api.TopicMetadata;
 public class Murmur3MessageRouter implements MessageRouter {
     public final static Murmur3MessageRouter instance = new Murmur3MessageRouter();
 
+    /**
+     * Compute the routing key of a Murmur3 token once at send time, so that the router does not parse the token property.
+     * @param token the Murmur3 partition token
+     * @return the unsigned 16 bits hash of the token range, big-endian encoded as the message ordering key.
+     */
+    public static byte[] routingKey(long token) {
+        int hash = (short)((token >>> 48)) + Short.MAX_VALUE + 1;
+        return new byte[] { (byte) (hash >>> 8), (byte) hash };
+    }
+
     public int choosePartition(Message<?> msg, TopicMetadata metadata) {
+        if (msg.hasOrderingKey()) {
+            byte[] key = msg.getOrderingKey();
+            if (key.length == 2)
+                return (((key[0] & 0xff) << 8) | (key[1] & 0xff)) % metadata.numPartitions();
+        }
         Long token = Long.parseLong(msg.getProperty(Constants.TOKEN));
         return ((short)((token >>> 48)) + Short.MAX_VALUE + 1 ) % metadata.numPartitions();
     }
@@ -0,0 +1,41 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc;
+
+/**
+ * Type of the change carried by a {@link MutationValue}.
+ */
+public enum MutationOperation {
+    INSERT,
+    UPDATE,
+
+    /**
+     * Deletion of a single row, without any cell written by the same mutation.
+     */
+    DELETE_ROW,
+
+    /**
+     * Deletion of a whole partition, without any row written by the same mutation.
+     */
+    DELETE_PARTITION;
+
+    /**
+     * @return true if the mutation leaves no live data for its primary key.
+     */
+    public boolean isDelete() {
+        return this == DELETE_ROW || this == DELETE_PARTITION;
+    }
+}
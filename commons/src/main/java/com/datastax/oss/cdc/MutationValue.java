@@ -18,6 +18,8 @@ package com.datastax.oss.cdc;
 import lombok.*;
 import lombok.ToString;
 
+import java.nio.ByteBuffer;
+import java.util.Map;
 import java.util.UUID;
 
 @Getter
@@ -27,7 +29,7 @@ import java.util.UUID;
 @EqualsAndHashCode
 public class MutationValue {
     /**
-     * Mutation digest
+     * Legacy hexadecimal MD5 mutation digest, null when the binary digest is provided.
      */
     String md5Digest;
 
@@ -40,4 +42,50 @@ public class MutationValue {
      * Optional mutated columns
      */
     String[] columns;
+
+    /**
+     * Optional binary mutation digest, prefixed by the {@link DigestAlgorithm} tag.
+     */
+    byte[] digest;
+
+    /**
+     * Optional mutation writetime in microseconds, replacing the {@link Constants#WRITETIME} message property.
+     */
+    Long writetime;
+
+    /**
+     * Optional commitlog segment id, replacing the {@link Constants#SEGMENT_AND_POSITION} message property.
+     */
+    Long segment;
+
+    /**
+     * Optional commitlog position, replacing the {@link Constants#SEGMENT_AND_POSITION} message property.
+     */
+    Integer position;
+
+    /**
+     * Optional mutation operation, null when unknown.
+     */
+    MutationOperation operation;
+
+    /**
+     * Optional CQL serialized values of the non-null columns, only provided when the mutation writes all the columns,
+     * so that the row does not have to be read back.
+     */
+    Map<String, ByteBuffer> payload;
+
+    public MutationValue(String md5Digest, UUID nodeId, String[] columns) {
+        this(md5Digest, nodeId, columns, null);
+    }
+
+    public MutationValue(String md5Digest, UUID nodeId, String[] columns, byte[] digest) {
+        this(md5Digest, nodeId, columns, digest, null, null, null, null, null);
+    }
+
+    /**
+     * @return the binary mutation digest prefixed by its algorithm tag, converted from the legacy MD5 digest if needed.
+     */
+    public byte[] taggedDigest() {
+        return digest != null ? digest : DigestAlgorithm.fromMd5Hex(md5Digest);
+    }
 }
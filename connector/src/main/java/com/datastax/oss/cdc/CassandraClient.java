@@ -31,6 +31,7 @@ import com.datastax.oss.driver.api.core.config.ProgrammaticDriverConfigLoaderBui
 import com.datastax.oss.driver.api.core.config.TypedDriverOption;
 import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
 import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
 import com.datastax.oss.driver.api.core.cql.Row;
 import com.datastax.oss.driver.api.core.metadata.Metadata;
@@ -55,8 +56,10 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
@@ -82,6 +85,10 @@ public class CassandraClient implements AutoCloseable {
         this.cqlSession = buildCqlSession(config, version, applicationName, schemaChangeListener);
     }
 
+    public CassandraClient(CqlSession cqlSession) {
+        this.cqlSession = cqlSession;
+    }
+
     public static CqlSession buildCqlSession(
             CassandraSourceConnectorConfig config,
             String version, String applicationName,
@@ -174,6 +181,31 @@ public class CassandraClient implements AutoCloseable {
         return cqlSession.prepare(query.asCql());
     }
 
+    /**
+     * Build a SELECT prepared statement reading several rows of a partition, restricted by equality on the
+     * first <i>pkLength</i> - 1 primary key columns and by a IN clause on the last one.
+     * The last primary key column is appended to the projection to match the rows with the requested values.
+     * @param keyspaceName
+     * @param tableName
+     * @param projection columns
+     * @param pk primary key columns
+     * @param pkLength primary key length
+     * @return preparedStatement binding the first <i>pkLength</i> - 1 primary key values and the list of the last one.
+     */
+    public PreparedStatement prepareSelectRows(String keyspaceName, String tableName,
+                                               CqlIdentifier[] projection,
+                                               CqlIdentifier[] pk,
+                                               int pkLength) {
+        Select query = selectFrom(keyspaceName, tableName)
+                .columns(projection)
+                .column(pk[pkLength - 1]);
+        for (int i = 0; i < pkLength - 1; i++)
+            query = query.whereColumn(pk[i]).isEqualTo(bindMarker());
+        query = query.whereColumn(pk[pkLength - 1]).in(bindMarker());
+        log.debug(query.asCql());
+        return cqlSession.prepare(query.asCql());
+    }
+
     /**
      * Process ssl settings in the config; essentially map them to settings in the session builder.
      *
@@ -312,12 +344,9 @@ public class CassandraClient implements AutoCloseable {
         BoundStatement statement = preparedStatement.bind(pkValues.toArray(new Object[pkValues.size()]));
 
         // set the coordinator node
-        Node node = null;
-        if (nodeId != null) {
-            node = cqlSession.getMetadata().getNodes().get(nodeId);
-            if (node != null && node.getState().equals(NodeState.UP)) {
-                statement = statement.setNode(node);
-            }
+        Node node = coordinator(nodeId);
+        if (node != null) {
+            statement = statement.setNode(node);
         }
         log.debug("Fetching md5Digest={} coordinator={} query={} pk={} ", md5Digest, node, preparedStatement.getQuery(), pkValues);
         return executeWithDowngradeConsistencyRetry(cqlSession, statement, consistencyLevels)
@@ -333,6 +362,93 @@ public class CassandraClient implements AutoCloseable {
                 });
     }
 
+    /**
+     * Try to read several rows of a partition with downgraded consistency.
+     * @param prefixValues values of the primary key columns but the last one
+     * @param lastValues values of the last primary key column
+     * @param nodeId coordinator node id
+     * @param consistencyLevels list of consistency to retry
+     * @param preparedStatement CQL prepared statement built by {@link #prepareSelectRows}
+     * @param rowDefinitions columns of the returned rows, the projection of the multi-row statement without the last primary key column
+     * @return the rows by value of the last primary key column, the consistency level and the coordinator host id
+     */
+    public CompletionStage<Tuple3<Map<Object, Row>, ConsistencyLevel, UUID>> selectRowsAsync(List<Object> prefixValues,
+                                                                                             List<Object> lastValues,
+                                                                                             UUID nodeId,
+                                                                                             List<ConsistencyLevel> consistencyLevels,
+                                                                                             PreparedStatement preparedStatement,
+                                                                                             ColumnDefinitions rowDefinitions) {
+        Object[] values = prefixValues.toArray(new Object[prefixValues.size() + 1]);
+        values[prefixValues.size()] = lastValues;
+        BoundStatement statement = preparedStatement.bind(values);
+
+        // set the coordinator node
+        Node node = coordinator(nodeId);
+        if (node != null) {
+            statement = statement.setNode(node);
+        }
+        log.debug("Fetching {} rows coordinator={} query={} pk={}", lastValues.size(), node, preparedStatement.getQuery(), prefixValues);
+        return executeWithDowngradeConsistencyRetry(cqlSession, statement, consistencyLevels)
+                .thenCompose(tuple -> {
+                    log.debug("Read cl={} coordinator={} pk={}", tuple._2, tuple._1.getExecutionInfo().getCoordinator().getHostId(), prefixValues);
+                    UUID coordinatorId = tuple._1.getExecutionInfo().getCoordinator().getHostId();
+                    return collectRows(tuple._1, rowDefinitions, new HashMap<>())
+                            .thenApply(rows -> new Tuple3<>(rows, tuple._2, coordinatorId));
+                })
+                .whenComplete((tuple, error) -> {
+                    if (error != null) {
+                        log.warn("Failed to retrieve rows: {}", error);
+                    }
+                });
+    }
+
+    /**
+     * Map the rows of the result set by value of the last primary key column, fetching the remaining pages
+     * when the rows do not fit in the driver page size.
+     * @param resultSet the current page of the multi-row statement
+     * @param rowDefinitions columns of the returned rows, the projection of the multi-row statement without the last primary key column
+     * @param rows the rows of the previous pages
+     * @return the rows of all the pages
+     */
+    static CompletionStage<Map<Object, Row>> collectRows(AsyncResultSet resultSet,
+                                                         ColumnDefinitions rowDefinitions,
+                                                         Map<Object, Row> rows) {
+        for (Row row : resultSet.currentPage()) {
+            List<ByteBuffer> data = new ArrayList<>(rowDefinitions.size());
+            for (int i = 0; i < rowDefinitions.size(); i++)
+                data.add(row.getBytesUnsafe(i));
+            rows.put(row.getObject(rowDefinitions.size()), new ValuesRow(rowDefinitions, data, row.codecRegistry(), row.protocolVersion()));
+        }
+        if (resultSet.hasMorePages())
+            return resultSet.fetchNextPage().thenCompose(next -> collectRows(next, rowDefinitions, rows));
+        return CompletableFuture.completedFuture(rows);
+    }
+
+    /**
+     * @param nodeId node host id, or null
+     * @return the node if it is UP, null otherwise
+     */
+    private Node coordinator(UUID nodeId) {
+        if (nodeId != null) {
+            Node node = cqlSession.getMetadata().getNodes().get(nodeId);
+            if (node != null && node.getState().equals(NodeState.UP)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Build a row from the CQL serialized column values sent by the change agent, as if it was read with the prepared statement.
+     * @param preparedStatement CQL prepared statement defining the row columns
+     * @param payload CQL serialized values of the non-null columns
+     * @return the row, with null values for the columns missing from the payload
+     */
+    public Row buildRow(PreparedStatement preparedStatement, Map<String, ByteBuffer> payload) {
+        return ValuesRow.fromPayload(preparedStatement.getResultSetDefinitions(), payload,
+                cqlSession.getContext().getCodecRegistry(), cqlSession.getContext().getProtocolVersion());
+    }
+
     CompletionStage<Tuple2<AsyncResultSet, ConsistencyLevel>> executeWithDowngradeConsistencyRetry(
             CqlSession cqlSession,
             BoundStatement boundStatement,
@@ -61,6 +61,12 @@ public class CassandraSourceConnectorConfig {
     public static final String QUERY_MIN_MOBILE_AVG_LATENCY_CONFIG = "query.minMobileAvgLatency";
     public static final String QUERY_BACKOFF_IN_MS_CONFIG = "query.backoffInMs";
     public static final String QUERY_MAX_BACKOFF_IN_SEC_CONFIG = "query.maxBackoffInSec";
+    public static final String QUERY_CHANGED_COLUMNS_ONLY_CONFIG = "query.changedColumnsOnly";
+    public static final String QUERY_DELETE_WITHOUT_READ_CONFIG = "query.deleteWithoutRead";
+    public static final String QUERY_COALESCE_EVENTS_CONFIG = "query.coalesceEvents";
+    public static final String QUERY_RECORD_PER_COALESCED_EVENT_CONFIG = "query.recordPerCoalescedEvent";
+    public static final String QUERY_GROUP_PARTITION_READS_CONFIG = "query.groupPartitionReads";
+    public static final String QUERY_MAX_ROWS_PER_PARTITION_READ_CONFIG = "query.maxRowsPerPartitionRead";
 
     public static final String CACHE_ONLY_IF_COORDINATOR_MATCH = "cache.only_if_coordinator_match";
     public static final String CACHE_MAX_DIGESTS_CONFIG = "cache.max.digest";
@@ -145,7 +151,8 @@ public class CassandraSourceConnectorConfig {
                             ConfigDef.Type.STRING,
                             "sub",
                             ConfigDef.Importance.HIGH,
-                            "The pulsar events topic subscription name, with a default set to 'sub'",
+                            "The pulsar events topic subscription name, with a default set to 'sub'." +
+                            " When the events topic is shared by several tables, each connector must have its own subscription name",
                             "Pulsar only", 1, ConfigDef.Width.NONE, "SubscriptionName")
                     .define(EVENTS_SUBSCRIPTION_TYPE_CONFIG,
                             ConfigDef.Type.STRING,
@@ -159,22 +166,22 @@ public class CassandraSourceConnectorConfig {
                             ConfigDef.Type.INT,
                             200,
                             ConfigDef.Importance.MEDIUM,
-                            "The batch size for grouping mutations before sending them to the data topic")
+                            "The maximum number of mutations read concurrently from Cassandra, each mutation is sent to the data topic once its read and the reads of the previous mutations of the same primary key complete")
                     .define(QUERY_EXECUTORS_CONFIG,
                             ConfigDef.Type.INT,
                             10,
                             ConfigDef.Importance.MEDIUM,
-                            "The initial and maximum number of threads to execute concurrent Cassandra queries")
+                            "The initial and maximum number of concurrent Cassandra queries, executed asynchronously")
                     .define(QUERY_MAX_MOBILE_AVG_LATENCY_CONFIG,
                             ConfigDef.Type.LONG,
                             100L,
                             ConfigDef.Importance.MEDIUM,
-                            "Maximum mobile average CQL query latency beyond which the number of executors is decreased")
+                            "Maximum mobile average CQL query latency beyond which the number of concurrent queries is decreased")
                     .define(QUERY_MIN_MOBILE_AVG_LATENCY_CONFIG,
                             ConfigDef.Type.LONG,
                             10L,
                             ConfigDef.Importance.MEDIUM,
-                            "Minimum mobile average CQL query latency beyond which the number of executors is increased")
+                            "Minimum mobile average CQL query latency beyond which the number of concurrent queries is increased")
                     .define(QUERY_BACKOFF_IN_MS_CONFIG,
                             ConfigDef.Type.LONG,
                             100L,
@@ -186,6 +193,44 @@ public class CassandraSourceConnectorConfig {
                             3600L,
                             ConfigDef.Importance.MEDIUM,
                             "Maximum backoff delay in seconds when there is not enough Cassandra replicas to perform the query")
+                    .define(QUERY_CHANGED_COLUMNS_ONLY_CONFIG,
+                            ConfigDef.Type.BOOLEAN,
+                            false,
+                            ConfigDef.Importance.MEDIUM,
+                            "When true, only read the columns changed by the mutation when the change agent provides them. " +
+                                    "The other columns are null in the data topic record.")
+                    .define(QUERY_DELETE_WITHOUT_READ_CONFIG,
+                            ConfigDef.Type.BOOLEAN,
+                            false,
+                            ConfigDef.Importance.MEDIUM,
+                            "When true, a delete event tagged by the change agent publishes a tombstone without reading the row back. " +
+                                    "If the delete digest was evicted from the mutation cache, a late delete event may then publish " +
+                                    "a tombstone after the record of a newer write of the same key.")
+                    .define(QUERY_COALESCE_EVENTS_CONFIG,
+                            ConfigDef.Type.BOOLEAN,
+                            false,
+                            ConfigDef.Importance.MEDIUM,
+                            "When true, the update events of a primary key waiting for the read of a previous event of the same key " +
+                                    "share a single CQL read of the latest row state. Unless query.recordPerCoalescedEvent is enabled, " +
+                                    "the coalesced events are acknowledged without a data topic record of their own.")
+                    .define(QUERY_RECORD_PER_COALESCED_EVENT_CONFIG,
+                            ConfigDef.Type.BOOLEAN,
+                            false,
+                            ConfigDef.Importance.MEDIUM,
+                            "When true, a data topic record is sent for each coalesced event, " +
+                                    "otherwise a single record is sent for the events sharing a CQL read.")
+                    .define(QUERY_GROUP_PARTITION_READS_CONFIG,
+                            ConfigDef.Type.BOOLEAN,
+                            false,
+                            ConfigDef.Importance.MEDIUM,
+                            "When true, the events of the rows of a partition waiting for a previous read of the same partition " +
+                                    "are read with a single CQL query restricting the last clustering column with an IN clause.")
+                    .define(QUERY_MAX_ROWS_PER_PARTITION_READ_CONFIG,
+                            ConfigDef.Type.INT,
+                            100,
+                            ConfigDef.Range.atLeast(1),
+                            ConfigDef.Importance.MEDIUM,
+                            "Maximum number of rows read by a single CQL query when query.groupPartitionReads is true")
                     .define(CACHE_MAX_DIGESTS_CONFIG,
                             ConfigDef.Type.LONG,
                             "3",
@@ -641,6 +686,30 @@ public class CassandraSourceConnectorConfig {
         return globalConfig.getLong(QUERY_MAX_BACKOFF_IN_SEC_CONFIG);
     }
 
+    public boolean getQueryChangedColumnsOnly() {
+        return globalConfig.getBoolean(QUERY_CHANGED_COLUMNS_ONLY_CONFIG);
+    }
+
+    public boolean getQueryDeleteWithoutRead() {
+        return globalConfig.getBoolean(QUERY_DELETE_WITHOUT_READ_CONFIG);
+    }
+
+    public boolean getQueryCoalesceEvents() {
+        return globalConfig.getBoolean(QUERY_COALESCE_EVENTS_CONFIG);
+    }
+
+    public boolean getQueryRecordPerCoalescedEvent() {
+        return globalConfig.getBoolean(QUERY_RECORD_PER_COALESCED_EVENT_CONFIG);
+    }
+
+    public boolean getQueryGroupPartitionReads() {
+        return globalConfig.getBoolean(QUERY_GROUP_PARTITION_READS_CONFIG);
+    }
+
+    public int getQueryMaxRowsPerPartitionRead() {
+        return globalConfig.getInt(QUERY_MAX_ROWS_PER_PARTITION_READ_CONFIG);
+    }
+
     public boolean getCacheOnlyIfCoordinatorMatch() {
         return globalConfig.getBoolean(CACHE_ONLY_IF_COORDINATOR_MATCH);
     }
@@ -737,6 +806,12 @@ public class CassandraSourceConnectorConfig {
                         + "        " + QUERY_MAX_MOBILE_AVG_LATENCY_CONFIG + ": %d%n"
                         + "        " + QUERY_BACKOFF_IN_MS_CONFIG + ": %d%n"
                         + "        " + QUERY_MAX_BACKOFF_IN_SEC_CONFIG + ": %d%n"
+                        + "        " + QUERY_CHANGED_COLUMNS_ONLY_CONFIG + ": %s%n"
+                        + "        " + QUERY_DELETE_WITHOUT_READ_CONFIG + ": %s%n"
+                        + "        " + QUERY_COALESCE_EVENTS_CONFIG + ": %s%n"
+                        + "        " + QUERY_RECORD_PER_COALESCED_EVENT_CONFIG + ": %s%n"
+                        + "        " + QUERY_GROUP_PARTITION_READS_CONFIG + ": %s%n"
+                        + "        " + QUERY_MAX_ROWS_PER_PARTITION_READ_CONFIG + ": %d%n"
                         + "        " + CACHE_MAX_DIGESTS_CONFIG + ": %d%n"
                         + "        " + CACHE_MAX_CAPACITY_CONFIG + ": %d%n"
                         + "        " + CACHE_EXPIRE_AFTER_MS_CONFIG + ": %d%n"
@@ -760,6 +835,12 @@ public class CassandraSourceConnectorConfig {
                 getQueryMaxMobileAvgLatency(),
                 getQueryBackoffInMs(),
                 getQueryMaxBackoffInSec(),
+                getQueryChangedColumnsOnly(),
+                getQueryDeleteWithoutRead(),
+                getQueryCoalesceEvents(),
+                getQueryRecordPerCoalescedEvent(),
+                getQueryGroupPartitionReads(),
+                getQueryMaxRowsPerPartitionRead(),
                 getCacheMaxDigests(),
                 getCacheMaxCapacity(),
                 getCacheExpireAfterMs(),
@@ -19,17 +19,22 @@ import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.stats.CacheStats;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Keep MD5 digests to deduplicate Cassandra mutations
+ * Keep mutation digests to deduplicate Cassandra mutations.
+ *
+ * Digests are kept in their binary tagged form (see {@link DigestAlgorithm}), so that a legacy hexadecimal
+ * MD5 digest and the equivalent binary MD5 digest match during a rolling upgrade of the agents.
  */
 public class MutationCache<K> {
 
-    Cache<K, List<String>> mutationCache;
+    Cache<K, List<byte[]>> mutationCache;
 
     /**
      * Max number of cached digest per cached entry.
@@ -45,22 +50,34 @@ public class MutationCache<K> {
                 .build();
     }
 
-    public List<String> getMutationCRCs(K mutationKey) {
+    /**
+     * Convert a string digest into its binary form, a legacy hexadecimal MD5 digest becomes a tagged MD5 digest.
+     */
+    static byte[] toDigest(String digest) {
+        byte[] md5 = DigestAlgorithm.fromMd5Hex(digest);
+        return md5 != null ? md5 : digest.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public List<byte[]> getMutationCRCs(K mutationKey) {
         return mutationCache.getIfPresent(mutationKey);
     }
 
-    public List<String> addMutationMd5(K mutationKey, String md5Digest) {
-        List<String> crcs = getMutationCRCs(mutationKey);
+    public List<byte[]> addMutationMd5(K mutationKey, String md5Digest) {
+        return addMutationDigest(mutationKey, toDigest(md5Digest));
+    }
+
+    public List<byte[]> addMutationDigest(K mutationKey, byte[] digest) {
+        List<byte[]> crcs = getMutationCRCs(mutationKey);
         if(crcs == null) {
             crcs = new ArrayList<>(1);
-            crcs.add(md5Digest);
+            crcs.add(digest);
         } else {
-            if (!crcs.contains(md5Digest)) {
+            if (!contains(crcs, digest)) {
                 if (crcs.size() >= maxDigests) {
                     // remove the oldest digest
                     crcs.remove(0);
                 }
-                crcs.add(md5Digest);
+                crcs.add(digest);
             }
         }
         mutationCache.put(mutationKey, crcs);
@@ -68,10 +85,21 @@ public class MutationCache<K> {
     }
 
     public boolean isMutationProcessed(K mutationKey, String md5Digest) {
-        List<String> digests = getMutationCRCs(mutationKey);
-        return digests != null && digests.contains(md5Digest);
+        return isMutationProcessed(mutationKey, toDigest(md5Digest));
+    }
+
+    public boolean isMutationProcessed(K mutationKey, byte[] digest) {
+        List<byte[]> digests = getMutationCRCs(mutationKey);
+        return digests != null && contains(digests, digest);
     }
 
+    private static boolean contains(List<byte[]> digests, byte[] digest) {
+        for (byte[] d : digests) {
+            if (Arrays.equals(d, digest))
+                return true;
+        }
+        return false;
+    }
     public CacheStats stats() {
         return mutationCache.stats();
     }
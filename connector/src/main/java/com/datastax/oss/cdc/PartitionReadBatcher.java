@@ -0,0 +1,149 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiFunction;
+
+/**
+ * Group the reads of the rows of a partition into multi-row reads.
+ *
+ * The first read of a partition is sent immediately. While a read of the partition is in flight,
+ * the next reads are grouped into a pending batch, sent when the in-flight read completes,
+ * or immediately once it holds maxBatchSize rows. A grouped read is always sent after the
+ * requests it serves, so it returns a row state at least as recent as a single-row read would.
+ *
+ * @param <P> the partition, including anything the multi-row read depends on
+ * @param <K> the row key within the partition
+ * @param <R> the multi-row read result
+ */
+public class PartitionReadBatcher<P, K, R> {
+
+    private final int maxBatchSize;
+    private final BiFunction<P, List<K>, CompletionStage<R>> reader;
+
+    /**
+     * Partitions with a read in flight, guarded by this.
+     */
+    private final Map<P, Partition> partitions = new HashMap<>();
+
+    /**
+     * @param maxBatchSize maximum number of row keys per read
+     * @param reader reads the rows of the row keys of a partition
+     */
+    public PartitionReadBatcher(int maxBatchSize, BiFunction<P, List<K>, CompletionStage<R>> reader) {
+        if (maxBatchSize < 1)
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        this.maxBatchSize = maxBatchSize;
+        this.reader = reader;
+    }
+
+    /**
+     * Read a row, possibly together with other rows of the same partition.
+     * @param partition the partition
+     * @param key the row key
+     * @return the result of the read including this row key
+     */
+    public CompletionStage<R> read(P partition, K key) {
+        final Batch toSend;
+        final CompletableFuture<R> result;
+        synchronized (this) {
+            Partition p = partitions.computeIfAbsent(partition, k -> new Partition());
+            if (p.inflight == 0) {
+                toSend = new Batch();
+                toSend.keys.add(key);
+                result = toSend.result;
+                p.inflight++;
+            } else {
+                if (p.next == null)
+                    p.next = new Batch();
+                p.next.keys.add(key);
+                result = p.next.result;
+                if (p.next.keys.size() >= maxBatchSize) {
+                    toSend = p.next;
+                    p.next = null;
+                    p.inflight++;
+                } else {
+                    toSend = null;
+                }
+            }
+        }
+        if (toSend != null)
+            send(partition, toSend);
+        return result;
+    }
+
+    /**
+     * @return the number of partitions with a read in flight.
+     */
+    public synchronized int size() {
+        return partitions.size();
+    }
+
+    private void send(P partition, Batch batch) {
+        CompletionStage<R> stage;
+        try {
+            stage = reader.apply(partition, new ArrayList<>(batch.keys));
+        } catch (Throwable t) {
+            CompletableFuture<R> failed = new CompletableFuture<>();
+            failed.completeExceptionally(t);
+            stage = failed;
+        }
+        stage.whenComplete((r, t) -> {
+            if (t != null)
+                batch.result.completeExceptionally(t);
+            else
+                batch.result.complete(r);
+            completed(partition);
+        });
+    }
+
+    private void completed(P partition) {
+        final Batch toSend;
+        synchronized (this) {
+            Partition p = partitions.get(partition);
+            p.inflight--;
+            if (p.next != null) {
+                toSend = p.next;
+                p.next = null;
+                p.inflight++;
+            } else {
+                toSend = null;
+                if (p.inflight == 0)
+                    partitions.remove(partition);
+            }
+        }
+        if (toSend != null)
+            send(partition, toSend);
+    }
+
+    private class Partition {
+        int inflight = 0;
+        Batch next;
+    }
+
+    private class Batch {
+        final Set<K> keys = new LinkedHashSet<>();
+        final CompletableFuture<R> result = new CompletableFuture<>();
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.ProtocolVersion;
+import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.detach.AttachmentPoint;
+import com.datastax.oss.driver.api.core.type.DataType;
+import com.datastax.oss.driver.api.core.type.codec.registry.CodecRegistry;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A row of CQL serialized column values that was not returned by a query, like the row payload
+ * sent by the change agent or a row of a multi-row read. Values are decoded on access by the
+ * codecs of the session, through the default methods of the public {@link Row} API.
+ */
+public class ValuesRow implements Row {
+
+    private final ColumnDefinitions definitions;
+    private final List<ByteBuffer> values;
+    private final CodecRegistry codecRegistry;
+    private final ProtocolVersion protocolVersion;
+
+    /**
+     * @param definitions the row columns
+     * @param values the CQL serialized values of the columns, in the same order, null for a null value
+     * @param codecRegistry the codecs decoding the values
+     * @param protocolVersion the protocol version the values are serialized with
+     */
+    public ValuesRow(ColumnDefinitions definitions, List<ByteBuffer> values, CodecRegistry codecRegistry, ProtocolVersion protocolVersion) {
+        if (definitions.size() != values.size())
+            throw new IllegalArgumentException("Expecting " + definitions.size() + " values, got " + values.size());
+        this.definitions = definitions;
+        this.values = values;
+        this.codecRegistry = codecRegistry;
+        this.protocolVersion = protocolVersion;
+    }
+
+    /**
+     * Build a row from the CQL serialized values of the non-null columns sent by the change agent.
+     * @param definitions the row columns
+     * @param payload CQL serialized values by column name, columns missing from the payload are null
+     * @param codecRegistry the codecs decoding the values
+     * @param protocolVersion the protocol version the values are serialized with
+     * @return the row
+     */
+    public static ValuesRow fromPayload(ColumnDefinitions definitions, Map<String, ByteBuffer> payload, CodecRegistry codecRegistry, ProtocolVersion protocolVersion) {
+        List<ByteBuffer> values = new ArrayList<>(definitions.size());
+        for (int i = 0; i < definitions.size(); i++) {
+            ByteBuffer value = payload.get(definitions.get(i).getName().asInternal());
+            values.add(value == null ? null : value.duplicate());
+        }
+        return new ValuesRow(definitions, values, codecRegistry, protocolVersion);
+    }
+
+    @NonNull
+    @Override
+    public ColumnDefinitions getColumnDefinitions() {
+        return definitions;
+    }
+
+    @Override
+    public int size() {
+        return definitions.size();
+    }
+
+    @NonNull
+    @Override
+    public DataType getType(int i) {
+        return definitions.get(i).getType();
+    }
+
+    @Override
+    public int firstIndexOf(@NonNull String name) {
+        int i = definitions.firstIndexOf(name);
+        if (i < 0)
+            throw new IllegalArgumentException(name + " is not a column in this row");
+        return i;
+    }
+
+    @NonNull
+    @Override
+    public DataType getType(@NonNull String name) {
+        return getType(firstIndexOf(name));
+    }
+
+    @Override
+    public int firstIndexOf(@NonNull CqlIdentifier id) {
+        int i = definitions.firstIndexOf(id);
+        if (i < 0)
+            throw new IllegalArgumentException(id + " is not a column in this row");
+        return i;
+    }
+
+    @NonNull
+    @Override
+    public DataType getType(@NonNull CqlIdentifier id) {
+        return getType(firstIndexOf(id));
+    }
+
+    @Override
+    public ByteBuffer getBytesUnsafe(int i) {
+        return values.get(i);
+    }
+
+    @NonNull
+    @Override
+    public CodecRegistry codecRegistry() {
+        return codecRegistry;
+    }
+
+    @NonNull
+    @Override
+    public ProtocolVersion protocolVersion() {
+        return protocolVersion;
+    }
+
+    @Override
+    public boolean isDetached() {
+        return false;
+    }
+
+    @Override
+    public void attach(@NonNull AttachmentPoint attachmentPoint) {
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ValuesRow{");
+        for (int i = 0; i < definitions.size(); i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(definitions.get(i).getName().asCql(true)).append('=').append(getObject(i));
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -20,8 +20,10 @@ import com.datastax.oss.cdc.CassandraSourceConnectorConfig;
 import com.datastax.oss.cdc.ConfigUtil;
 import com.datastax.oss.cdc.Constants;
 import com.datastax.oss.cdc.CqlLogicalTypes;
+import com.datastax.oss.cdc.KeySchemaFingerprint;
 import com.datastax.oss.cdc.MutationCache;
 import com.datastax.oss.cdc.MutationValue;
+import com.datastax.oss.cdc.PartitionReadBatcher;
 import com.datastax.oss.cdc.Version;
 import com.datastax.oss.driver.api.core.ConsistencyLevel;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
@@ -43,9 +45,12 @@ import com.google.common.collect.Lists;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import io.vavr.Tuple2;
 import io.vavr.Tuple3;
+import io.vavr.Tuple4;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.avro.Conversions;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.specific.SpecificData;
 import org.apache.pulsar.client.api.Consumer;
 import org.apache.pulsar.client.api.ConsumerBuilder;
@@ -65,29 +70,37 @@ import org.apache.pulsar.io.core.SourceContext;
 import org.apache.pulsar.io.core.annotations.Connector;
 import org.apache.pulsar.io.core.annotations.IOType;
 
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.Callable;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -129,7 +142,7 @@ public class CassandraSource implements Source<GenericRecord>, SchemaChangeListe
     public static final String QUERY_LATENCY = "query_latency";
 
     /**
-     * Metric name for the current number of query executor threads
+     * Metric name for the current maximum number of concurrent CQL queries
      */
     public static final String QUERY_EXECUTORS = "query_executors";
 
@@ -138,6 +151,16 @@ public class CassandraSource implements Source<GenericRecord>, SchemaChangeListe
      */
     public static final String REPLICATION_LATENCY = "replication_latency";
 
+    /**
+     * Metric name for the number of skipped events, whose primary key schema does not match the connector table.
+     */
+    public static final String SKIPPED_EVENTS = "skipped_events";
+
+    /**
+     * Maximum number of cached prepared statements projecting the mutated columns.
+     */
+    static final int MAX_PREPARED_PROJECTIONS = 64;
+
     SourceContext sourceContext;
     CassandraSourceConnectorConfig config;
     Consumer<KeyValue<GenericRecord, MutationValue>> consumer = null;
@@ -145,8 +168,19 @@ public class CassandraSource implements Source<GenericRecord>, SchemaChangeListe
 
     String dirtyTopicName;
     Converter mutationKeyConverter;
+    /**
+     * Decode the primary key of the events sent to a topic shared by several tables, without a registered key schema.
+     */
+    volatile MutationKeyDecoder mutationKeyDecoder;
+    String tableKey;
     Converter keyConverter;
     List<String> pkColumns;
+    int partitionKeyLength;
+
+    /**
+     * Number of events skipped because their primary key schema does not match the connector table.
+     */
+    final AtomicLong skippedEvents = new AtomicLong(0);
 
     Optional<Pattern> columnPattern = Optional.empty();
 
@@ -157,6 +191,8 @@ public class CassandraSource implements Source<GenericRecord>, SchemaChangeListe
             Schema.AVRO(MutationValue.class),
             KeyValueEncodingType.SEPARATED);
 
+    final Schema<MutationValue> mutationValueSchema = Schema.AVRO(MutationValue.class);
+
     /**
      * Converter and CQL query parameters updated on CQL schema update.
      */
@@ -164,22 +200,41 @@ public class CassandraSource implements Source<GenericRecord>, SchemaChangeListe
 
 
     /**
-     * Single threaded executors to fetch CQL rows.
-     * Protect from a race condition issue when processing the same PK in parallel.
+     * Threads processing the CQL query results, the CQL queries are asynchronous.
+     */
+    volatile ExecutorService queryExecutor;
+
+    /**
+     * Maximum number of concurrent CQL queries, up to query.executors.
      *
-     * The number of threads is adaptive to avoid overloading the source C* cluster,
+     * The concurrency is adaptive to avoid overloading the source C* cluster,
      * it depends ont the average query latency and timeouts.
-     *
      */
-    List<ExecutorService> queryExecutors;
+    volatile int queryConcurrency;
+
+    /**
+     * Number of running CQL queries.
+     */
+    final AtomicInteger runningQueries = new AtomicInteger(0);
+
+    /**
+     * CQL queries waiting for the concurrency limit.
+     */
+    final Queue<Runnable> waitingQueries = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Multi-row reads of the rows of a partition by (multi-row statement, single-row statement, partition key values, coordinator),
+     * null when query.groupPartitionReads is disabled.
+     */
+    volatile PartitionReadBatcher<Tuple4<PreparedStatement, PreparedStatement, List<Object>, UUID>, Object, Tuple3<Map<Object, Row>, ConsistencyLevel, UUID>> partitionReads;
 
     /**
-     *  Per batch total CQL latency
+     *  Total CQL latency since the last query executors adjustment
      */
     final AtomicLong batchTotalLatency = new AtomicLong(0);
 
     /**
-     *  Per batch total CQL queries
+     *  Total CQL queries since the last query executors adjustment
      */
     final AtomicLong batchTotalQuery = new AtomicLong(0);
 
@@ -195,7 +250,42 @@ public class CassandraSource implements Source<GenericRecord>, SchemaChangeListe
      */
     long consecutiveUnavailableException = 0;
 
-    private ArrayBlockingQueue<MyKVRecord> buffer;
+    /**
+     * Last CQL read of each message key, the next read of the key starts when it completes.
+     */
+    final Map<String, CompletableFuture<Void>> keyTails = new ConcurrentHashMap<>();
+
+    /**
+     * Update events of each message key waiting for the read of a previous event of the same key.
+     */
+    final Map<String, CoalescedRead> pendingReads = new ConcurrentHashMap<>();
+
+    /**
+     * Records of the completed CQL reads, in completion order.
+     */
+    final BlockingQueue<MyKVRecord> completedRecords = new LinkedBlockingQueue<>();
+
+    /**
+     * Released when a CQL read or a message receive completes.
+     */
+    final Semaphore readSignal = new Semaphore(0);
+
+    CompletableFuture<Message<KeyValue<GenericRecord, MutationValue>>> pendingReceive = null;
+
+    /**
+     * Number of received messages not yet emitted, at most batch.size.
+     */
+    int inflightRecords = 0;
+
+    /**
+     * Number of completed reads since the last query executors adjustment.
+     */
+    int windowRecords = 0;
+
+    /**
+     * End of the last backoff, the reads started before are not retried again.
+     */
+    long backoffEndMs = 0;
 
     public CassandraSource() {
         // register AVRO logical types conversion
@@ -205,18 +295,71 @@ public class CassandraSource implements Source<GenericRecord>, SchemaChangeListe
         SpecificData.get().addLogicalTypeConversion(new Conversions.UUIDConversion());
     }
     
-    private <T> Future<T> executeOrdered(Object key, Callable<T> task) {
+    /**
+     * Execute an asynchronous task when the previous tasks of the same key have completed,
+     * and when the number of running tasks is below the query concurrency.
+     */
+    private void executeOrdered(String key, Supplier<CompletionStage<?>> task) {
         Preconditions.checkArgument(key != null, "message key should not be null");
-        Preconditions.checkState(queryExecutors != null, "queryExecutors should not be null");
-        int threadIdx = Math.abs(Objects.hashCode(key)) % queryExecutors.size();
-        log.debug("Submit task key={} on thread={}/{}", key, threadIdx, queryExecutors.size());
-        return queryExecutors.get(threadIdx).submit(task);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        CompletableFuture<Void> previous = keyTails.put(key, done);
+        Runnable orderedTask = () -> {
+            CompletionStage<?> stage;
+            try {
+                stage = task.get();
+            } catch (Throwable t) {
+                CompletableFuture<Void> failed = new CompletableFuture<>();
+                failed.completeExceptionally(t);
+                stage = failed;
+            }
+            stage.whenComplete((x, t) -> {
+                keyTails.remove(key, done);
+                runningQueries.decrementAndGet();
+                done.complete(null);
+                startQueries();
+            });
+        };
+        if (previous == null) {
+            submitQuery(orderedTask);
+        } else {
+            previous.whenComplete((x, t) -> submitQuery(orderedTask));
+        }
+    }
+
+    private void submitQuery(Runnable task) {
+        waitingQueries.add(task);
+        startQueries();
+    }
+
+    /**
+     * Start the waiting queries up to the query concurrency.
+     */
+    private void startQueries() {
+        while (!waitingQueries.isEmpty()) {
+            int running = runningQueries.get();
+            if (running >= queryConcurrency)
+                return;
+            if (runningQueries.compareAndSet(running, running + 1)) {
+                Runnable task = waitingQueries.poll();
+                if (task == null) {
+                    runningQueries.decrementAndGet();
+                } else {
+                    ExecutorService executor = this.queryExecutor;
+                    try {
+                        Preconditions.checkState(executor != null, "queryExecutor should not be null");
+                        executor.execute(task);
+                    } catch (IllegalStateException | RejectedExecutionException e) {
+                        log.debug("Connector closed, dropping the query task");
+                    }
+                }
+            }
+        }
     }
 
     /**
-     * Adjust the number of threads depending on the mobile moving average of the read latency.
+     * Adjust the query concurrency depending on the mobile moving average of the read latency.
      */
-    private void adjustExecutors() {
+    private void adjustQueryConcurrency() {
         long batchAvgLatency = this.batchTotalLatency.get() / this.batchTotalQuery.get();
         this.batchAvgLatencyList[this.batchAvgLatencyHead] = batchAvgLatency;
         this.batchAvgLatencyHead = (this.batchAvgLatencyHead + 1) % this.batchAvgLatencyList.length;
@@ -230,28 +373,27 @@ public class CassandraSource implements Source<GenericRecord>, SchemaChangeListe
         }
         long mobileAvgLatency = latencyTotal / batchAvgLatencyListSize;
         log.debug("mobileAvgLatency={}, batchAvgLatencyList={}", mobileAvgLatency, Arrays.toString(batchAvgLatencyList));
-        if (mobileAvgLatency < config.getQueryMinMobileAvgLatency() && queryExecutors.size() < config.getQueryExecutors() ) {
-            queryExecutors.add(Executors.newSingleThreadExecutor());
-            log.info("mobileAvgLatency={}, increasing the query executor to {} threads", mobileAvgLatency, queryExecutors.size());
+        if (mobileAvgLatency < config.getQueryMinMobileAvgLatency() && queryConcurrency < config.getQueryExecutors() ) {
+            queryConcurrency = Math.min(config.getQueryExecutors(), queryConcurrency + Math.max(1, queryConcurrency / 10));
+            log.info("mobileAvgLatency={}, increasing the query concurrency to {}", mobileAvgLatency, queryConcurrency);
+            startQueries();
         }
-        if (mobileAvgLatency > config.getQueryMaxMobileAvgLatency() && queryExecutors.size() > 1) {
-            queryExecutors.remove(queryExecutors.size() - 1).shutdown();
-            log.info("mobileAvgLatency={}, decreasing the query executor to {} threads", mobileAvgLatency, queryExecutors.size());
+        if (mobileAvgLatency > config.getQueryMaxMobileAvgLatency() && queryConcurrency > 1) {
+            queryConcurrency = queryConcurrency - Math.max(1, queryConcurrency / 10);
+            log.info("mobileAvgLatency={}, decreasing the query concurrency to {}", mobileAvgLatency, queryConcurrency);
         }
     }
 
     /**
-     * Decrease the number of thread by 10 percent because of the provided Exception.
+     * Decrease the query concurrency by 10 percent because of the provided Exception.
      * @param throwable
      */
-    private void decreaseExecutors(Throwable throwable) {
-        if (queryExecutors.size() > 1) {
-            int numberOfThreadToRemove = Math.max(1, queryExecutors.size() / 10);
-            for(int i = 0; i < numberOfThreadToRemove; i++)
-                queryExecutors.remove(queryExecutors.size() - 1).shutdown();
-            log.warn("CQL read issue={}, decreasing the query executor to {} threads", throwable, queryExecutors.size());
+    private void decreaseQueryConcurrency(Throwable throwable) {
+        if (queryConcurrency > 1) {
+            queryConcurrency = queryConcurrency - Math.max(1, queryConcurrency / 10);
+            log.warn("CQL read issue={}, decreasing the query concurrency to {}", throwable, queryConcurrency);
         } else {
-            log.warn("CQL read issue={} with only 1 executor threads, please consider limiting the source connector throughput to avoid overloading the Cassandra cluster", throwable);
+            log.warn("CQL read issue={} with a query concurrency of 1, please consider limiting the source connector throughput to avoid overloading the Cassandra cluster", throwable);
         }
     }
 
@@ -275,11 +417,21 @@ public class CassandraSource implements Source<GenericRecord>, SchemaChangeListe
         }
     }
 
-    private void initQueryExecutors() {
-        log.info("initQueryExecutors with {} treads", this.config.getQueryExecutors());
-        this.queryExecutors = new ArrayList<>(this.config.getQueryExecutors());
-        for(int i = 0; i < this.config.getQueryExecutors(); i++)
-            this.queryExecutors.add(Executors.newSingleThreadExecutor());
+    private void initQueryExecutor() {
+        int threads = Math.min(this.config.getQueryExecutors(), Runtime.getRuntime().availableProcessors());
+        log.info("initQueryExecutor with a query concurrency of {} and {} threads", this.config.getQueryExecutors(), threads);
+        this.queryConcurrency = this.config.getQueryExecutors();
+        this.queryExecutor = Executors.newFixedThreadPool(threads);
+        if (this.config.getQueryGroupPartitionReads()) {
+            this.partitionReads = new PartitionReadBatcher<>(this.config.getQueryMaxRowsPerPartitionRead(),
+                    (partition, lastValues) -> cassandraClient.selectRowsAsync(
+                            partition._3,
+                            lastValues,
+                            partition._4,
+                            Lists.newArrayList(ConsistencyLevel.LOCAL_QUORUM, ConsistencyLevel.LOCAL_ONE),
+                            partition._1,
+                            partition._2.getResultSetDefinitions()));
+        }
     }
 
     @Override
@@ -287,13 +439,13 @@ public class CassandraSource implements Source<GenericRecord>, SchemaChangeListe
         try {
             this.sourceContext = sourceContext;
             this.config = new CassandraSourceConnectorConfig(ConfigUtil.flatString(config));
-            this.buffer = new ArrayBlockingQueue<>(this.config.getBatchSize());
             if (!Strings.isNullOrEmpty(this.config.getColumnsRegexp()) && !".*".equals(this.config.getColumnsRegexp())) {
                 this.columnPattern = Optional.of(Pattern.compile(this.config.getColumnsRegexp()));
             }
 
             Preconditions.checkArgument(this.config.getEventsTopic() != null, "Events topic not set");
             this.dirtyTopicName = this.config.getEventsTopic();
+            this.tableKey = this.config.getKeyspaceName() + "." + this.config.getTableName();
             ConsumerBuilder<KeyValue<GenericRecord, MutationValue>> consumerBuilder = sourceContext.newConsumerBuilder(eventsSchema)
                     .consumerName("CDC Consumer")
                     .topic(dirtyTopicName)
@@ -334,12 +486,24 @@ public class CassandraSource implements Source<GenericRecord>, SchemaChangeListe
         Tuple2<KeyspaceMetadata, TableMetadata> tuple = cassandraClient.getTableMetadata(this.config.getKeyspaceName(), this.config.getTableName());
         Preconditions.checkArgument(tuple._1 != null, String.format(Locale.ROOT, "Keyspace %s does not exist", this.config.getKeyspaceName()));
         Preconditions.checkArgument(tuple._2 != null, String.format(Locale.ROOT, "Table %s.%s does not exist", this.config.getKeyspaceName(), this.config.getTableName()));
-        this.pkColumns = tuple._2.getPrimaryKey().stream().map(c -> c.getName().asInternal()).collect(Collectors.toList());
-        this.keyConverter = createConverter(getKeyConverterClass(), tuple._1, tuple._2, tuple._2.getPrimaryKey());
-        this.mutationKeyConverter = new NativeAvroConverter(tuple._1, tuple._2, tuple._2.getPrimaryKey());
+        setKeyConverters(tuple._1, tuple._2);
         setValueConverterAndQuery(tuple._1, tuple._2);
     }
 
+    /**
+     * Update the primary key converters and decoder, on startup and when the table is re-created or updated.
+     */
+    synchronized void setKeyConverters(KeyspaceMetadata ksm, TableMetadata tableMetadata) throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        this.pkColumns = tableMetadata.getPrimaryKey().stream().map(c -> c.getName().asInternal()).collect(Collectors.toList());
+        this.partitionKeyLength = tableMetadata.getPartitionKey().size();
+        this.keyConverter = createConverter(getKeyConverterClass(), ksm, tableMetadata, tableMetadata.getPrimaryKey());
+        NativeAvroConverter nativeAvroConverter = new NativeAvroConverter(ksm, tableMetadata, tableMetadata.getPrimaryKey());
+        this.mutationKeyConverter = nativeAvroConverter;
+        this.mutationKeyDecoder = new MutationKeyDecoder(nativeAvroConverter.avroSchema);
+        log.info("Primary key schema of table {}.{} columns={} fingerprint={}", ksm.getName(), tableMetadata.getName(),
+                pkColumns, mutationKeyDecoder.fingerprint);
+    }
+
     synchronized void setValueConverterAndQuery(KeyspaceMetadata ksm, TableMetadata tableMetadata) {
         try {
             List<ColumnMetadata> columns = tableMetadata.getColumns().values().stream()
@@ -360,6 +524,7 @@ public class CassandraSource implements Source<GenericRecord>, SchemaChangeListe
                     cassandraClient.buildProjectionClause(columns),
                     cassandraClient.buildProjectionClause(staticColumns),
                     cassandraClient.buildPrimaryKeyClause(tableMetadata),
+                    new ConcurrentHashMap<>(),
                     new ConcurrentHashMap<>());
             log.debug("valueConverterAndQuery={}", this.valueConverterAndQuery);
         } catch (Exception e) {
@@ -376,13 +541,60 @@ public class CassandraSource implements Source<GenericRecord>, SchemaChangeListe
      * @return preparedStatement
      */
     synchronized PreparedStatement getSelectStatement(ConverterAndQuery valueConverterAndQuery, int whereClauseLength) {
-        return valueConverterAndQuery.getPreparedStatements().computeIfAbsent(whereClauseLength, k ->
+        return getSelectStatement(valueConverterAndQuery, whereClauseLength, null);
+    }
+
+    /**
+     * Build the CQL prepared statement for the specified where clause length, projecting only the mutated columns.
+     * The number of cached projections is bounded, beyond that limit the full projection is used.
+     * @param valueConverterAndQuery
+     * @param whereClauseLength the number of columns in the where clause
+     * @param columns the mutated columns, or null to read all columns
+     * @return preparedStatement
+     */
+    synchronized PreparedStatement getSelectStatement(ConverterAndQuery valueConverterAndQuery, int whereClauseLength, String[] columns) {
+        return valueConverterAndQuery.getPreparedStatements().computeIfAbsent(
+                projectionKey(valueConverterAndQuery.getPreparedStatements(), whereClauseLength, columns), k ->
                 cassandraClient.prepareSelect(
                         valueConverterAndQuery.keyspaceName,
                         valueConverterAndQuery.tableName,
-                        valueConverterAndQuery.getProjectionClause(whereClauseLength),
+                        valueConverterAndQuery.getProjectionClause(k._1, k._2),
                         valueConverterAndQuery.primaryKeyClause,
-                        k));
+                        k._1));
+    }
+
+    /**
+     * Build the CQL prepared statement reading several rows of a partition, projecting only the mutated columns.
+     * The statement has the projection of {@link #getSelectStatement(ConverterAndQuery, int, String[])} for the full primary key
+     * and the same columns, followed by the last primary key column.
+     * @param valueConverterAndQuery
+     * @param columns the mutated columns, or null to read all columns
+     * @return preparedStatement
+     */
+    synchronized PreparedStatement getSelectRowsStatement(ConverterAndQuery valueConverterAndQuery, String[] columns) {
+        return valueConverterAndQuery.getRowsPreparedStatements().computeIfAbsent(
+                projectionKey(valueConverterAndQuery.getRowsPreparedStatements(), valueConverterAndQuery.primaryKeyClause.length, columns), k ->
+                cassandraClient.prepareSelectRows(
+                        valueConverterAndQuery.keyspaceName,
+                        valueConverterAndQuery.tableName,
+                        valueConverterAndQuery.getProjectionClause(k._1, k._2),
+                        valueConverterAndQuery.primaryKeyClause,
+                        k._1));
+    }
+
+    /**
+     * @param preparedStatements the prepared statement cache the key is built for
+     * @return the prepared statement cache key, without the mutated columns when too many projections are cached.
+     */
+    static Tuple2<Integer, List<String>> projectionKey(Map<Tuple2<Integer, List<String>>, PreparedStatement> preparedStatements,
+                                                       int whereClauseLength, String[] columns) {
+        Tuple2<Integer, List<String>> key = new Tuple2<>(whereClauseLength, columns == null ? null : Arrays.asList(columns));
+        if (columns != null
+                && preparedStatements.size() >= MAX_PREPARED_PROJECTIONS
+                && !preparedStatements.containsKey(key)) {
+            key = new Tuple2<>(whereClauseLength, null);
+        }
+        return key;
     }
 
     Class<?> getKeyConverterClass() {
@@ -411,11 +623,11 @@ public class CassandraSource implements Source<GenericRecord>, SchemaChangeListe
             this.cassandraClient.close();
             this.cassandraClient = null;
         }
-        if (queryExecutors != null) {
-            for (ExecutorService thread : queryExecutors) {
-                thread.shutdownNow();
-            }
-            queryExecutors = null;
+        ExecutorService executor = queryExecutor;
+        if (executor != null) {
+            // the waiting queries are not started once the executor is removed
+            queryExecutor = null;
+            executor.shutdownNow();
         }
     }
 
@@ -423,6 +635,9 @@ public class CassandraSource implements Source<GenericRecord>, SchemaChangeListe
      * Reads the next message from source.
      * If source does not have any new messages, this call should block.
      *
+     * Up to batch.size messages are read concurrently from Cassandra, and each record is returned
+     * as soon as its own read completes, after the previous reads of the same key.
+     *
      * @return next message from source.  The return result should never be null
      * @throws Exception
      */
@@ -431,181 +646,370 @@ public class CassandraSource implements Source<GenericRecord>, SchemaChangeListe
     public Record<GenericRecord> read() throws Exception
     {
         Preconditions.checkState(this.sourceContext != null, "sourceContext should not be null");
-        MyKVRecord myKVRecord = buffer.poll();
-        if (myKVRecord != null) {
-            consumer.acknowledge(myKVRecord.msg);
-            return (Record) myKVRecord;
-        }
-        // this methods returns only if the buffer holds at least one record
-        maybeBatchRead();
-        myKVRecord = buffer.poll();
-        consumer.acknowledge(myKVRecord.msg);
-        return myKVRecord;
-    }
-
-    private void maybeBatchRead() throws Exception {
-        Preconditions.checkState(buffer.isEmpty(), "Buffer is not empty");
-        List<MyKVRecord> newRecords = batchRead();
-        while (newRecords.isEmpty()) {
-            newRecords = batchRead();
+        if (this.queryExecutor == null)
+            initQueryExecutor();
+        while (true) {
+            MyKVRecord record = completedRecords.poll();
+            if (record != null) {
+                inflightRecords--;
+                if (completeRead(record)) {
+                    consumer.acknowledge(record.msg);
+                    return (Record) record;
+                }
+                continue;
+            }
+            if (pendingReceive == null && inflightRecords < this.config.getBatchSize()) {
+                pendingReceive = consumer.receiveAsync();
+                pendingReceive.whenComplete((m, t) -> readSignal.release());
+            }
+            if (pendingReceive != null && pendingReceive.isDone()) {
+                final Message<KeyValue<GenericRecord, MutationValue>> msg;
+                try {
+                    msg = pendingReceive.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                } finally {
+                    pendingReceive = null;
+                }
+                submitRead(msg);
+                continue;
+            }
+            readSignal.tryAcquire(1, TimeUnit.SECONDS);
         }
-        buffer.addAll(newRecords);
     }
 
+    /**
+     * Decode the message and submit the CQL read of the mutated row.
+     */
     @SuppressWarnings("unchecked")
-    private List<MyKVRecord> batchRead() throws Exception {
-        batchTotalLatency.set(0);
-        batchTotalQuery.set(0);
-        List<MyKVRecord> newRecords = new ArrayList<>();
-        if (this.queryExecutors == null)
-            initQueryExecutors();
+    private void submitRead(final Message<KeyValue<GenericRecord, MutationValue>> msg) throws Exception {
         try {
             maybeInitCassandraClient();
+        } catch(com.datastax.oss.driver.api.core.AllNodesFailedException e) {
+            log.info("AllNodesFailedException:", e);
+            negativeAcknowledge(consumer, msg);
+            backoffRetry(e);
+            return;
+        }
+        final String table = msg.getProperty(Constants.TABLE);
+        final Object mutationKey;
+        final MutationValue mutationValue;
+        if (table == null) {
+            final KeyValue<GenericRecord, MutationValue> kv = msg.getValue();
+            mutationKey = kv.getKey().getNativeObject();
+            mutationValue = kv.getValue();
+        } else {
+            // events topic shared by several tables, the subscription must be dedicated to this connector.
+            if (!table.equals(tableKey)) {
+                consumer.acknowledge(msg);
+                return;
+            }
+            mutationKey = decodeMutationKey(msg);
+            if (mutationKey == null) {
+                // the event cannot be read back, redelivering it would block the subscription
+                consumer.acknowledge(msg);
+                sourceContext.recordMetric(SKIPPED_EVENTS, skippedEvents.incrementAndGet());
+                return;
+            }
+            mutationValue = mutationValueSchema.decode(msg.getData());
+        }
+        // binary digest, converted from the legacy hexadecimal MD5 digest if needed
+        final byte[] digest = mutationValue.taggedDigest();
+        // writetime in microseconds, from the compact metadata or the legacy message property
+        final Long writetime = writetime(msg, mutationValue);
+
+        log.debug("Message from producer={} msgId={} key={} value={} schema {}\n",
+                msg.getProducerName(), msg.getMessageId(), mutationKey, mutationValue, msg.getReaderSchema().orElse(null));
+
+        List<Object> pk = (List<Object>) mutationKeyConverter.fromConnectData(mutationKey);
+        // ensure the schema is the one used when building the struct.
+        final ConverterAndQuery converterAndQueryFinal = this.valueConverterAndQuery;
+
+        final MyKVRecord record = new MyKVRecord(converterAndQueryFinal, new CompletableFuture<>(), msg, writetime, mutationValue, digest);
+        inflightRecords++;
+        // we have to process sequentially the records from the same key
+        // otherwise our mutation cache will not be enough efficient
+        // in deduplicating mutations coming from different nodes
+        final String key = msg.getKey();
+        if (config.getQueryCoalesceEvents() && record.isRowRead()) {
+            CoalescedRead pendingRead = pendingReads.get(key);
+            if (pendingRead != null && pendingRead.add(record)) {
+                log.debug("Message key={} md5={} coalesced with a pending read", key, mutationValue.getMd5Digest());
+                return;
+            }
+            final CoalescedRead coalescedRead = new CoalescedRead(record);
+            pendingReads.put(key, coalescedRead);
+            executeOrdered(key, () -> {
+                pendingReads.remove(key, coalescedRead);
+                return processRecords(coalescedRead.start(), pk);
+            });
+        } else {
+            // the next events cannot be coalesced with the read of a previous event
+            pendingReads.remove(key);
+            executeOrdered(key, () -> processRecords(Collections.singletonList(record), pk));
+        }
+    }
 
-            // we want to fill the buffer
-            // this method will block until we receive at least one record
-            while (newRecords.size() < this.config.getBatchSize()) {
-                final Message<KeyValue<GenericRecord, MutationValue>> msg = consumer.receive(1, TimeUnit.SECONDS);
-                if (msg == null) {
-                    if (!newRecords.isEmpty()) {
-                        log.debug("no message received, buffer size {}", newRecords.size());
-                        // no more records within the timeout, but we have at least one record
-                        break;
-                    } else {
-                        log.debug("no message received");
-                        continue;
-                    }
+    /**
+     * Complete the records of the events of a primary key with a single CQL read,
+     * the duplicated mutations are acknowledged and discarded.
+     * @param records the records of the key, only the last one is a delete or has a payload
+     * @param pk the primary key values
+     * @return completed when the records are queued
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private CompletionStage<Void> processRecords(final List<MyKVRecord> records, final List<Object> pk) {
+        final CompletableFuture<Void> queued = CompletableFuture.allOf(records.stream()
+                .map(r -> r.queued)
+                .toArray(CompletableFuture[]::new));
+        try {
+            final List<MyKVRecord> mutations = new ArrayList<>(records.size());
+            for (MyKVRecord record : records) {
+                if (mutationCache.isMutationProcessed(record.msg.getKey(), record.digest)) {
+                    log.debug("Message key={} md5={} already processed", record.msg.getKey(), record.mutationValue.getMd5Digest());
+                    // ignore duplicated mutation
+                    consumer.acknowledge(record.msg);
+                    record.keyValue.complete(null);
+                    CacheStats cacheStats = mutationCache.stats();
+                    sourceContext.recordMetric(CACHE_HITS, cacheStats.hitCount());
+                    sourceContext.recordMetric(CACHE_MISSES, cacheStats.missCount());
+                    sourceContext.recordMetric(CACHE_EVICTIONS, cacheStats.evictionCount());
+                    sourceContext.recordMetric(CACHE_SIZE, mutationCache.estimatedSize());
+                    sourceContext.recordMetric(QUERY_LATENCY, 0);
+                    sourceContext.recordMetric(QUERY_EXECUTORS, queryConcurrency);
+                    recordReplicationLatency(record, System.currentTimeMillis());
+                } else {
+                    mutations.add(record);
                 }
-                final KeyValue<GenericRecord, MutationValue> kv = msg.getValue();
-                final GenericRecord mutationKey = kv.getKey();
-                final MutationValue mutationValue = kv.getValue();
-
-                log.debug("Message from producer={} msgId={} key={} value={} schema {}\n",
-                        msg.getProducerName(), msg.getMessageId(), kv.getKey(), kv.getValue(), msg.getReaderSchema().orElse(null));
-
-                List<Object> pk = (List<Object>) mutationKeyConverter.fromConnectData(mutationKey.getNativeObject());
-                // ensure the schema is the one used when building the struct.
-                final ConverterAndQuery converterAndQueryFinal = this.valueConverterAndQuery;
-
-                CompletableFuture<KeyValue<Object, Object>> queryResult = new CompletableFuture<>();
-                // we have to process sequentially the records from the same key
-                // otherwise our mutation cache will not be enough efficient
-                // in deduplicating mutations coming from different nodes
-                executeOrdered(msg.getKey(), () -> {
-                    try {
-                        if (mutationCache.isMutationProcessed(msg.getKey(), mutationValue.getMd5Digest())) {
-                            log.debug("Message key={} md5={} already processed", msg.getKey(), mutationValue.getMd5Digest());
-                            // ignore duplicated mutation
-                            consumer.acknowledge(msg);
-                            queryResult.complete(null);
+            }
+            if (mutations.isEmpty())
+                return queued;
+
+            final MyKVRecord last = mutations.get(mutations.size() - 1);
+            final MutationValue mutationValue = last.mutationValue;
+            final ConverterAndQuery converterAndQueryFinal = last.converterAndQueryFinal;
+            final Message<KeyValue<GenericRecord, MutationValue>> msg = last.msg;
+            if (config.getQueryDeleteWithoutRead() && mutationValue.getOperation() != null && mutationValue.getOperation().isDelete()) {
+                // a delete leaves no live data for the primary key, publish a tombstone without reading it back.
+                log.debug("Deleting key={} md5={} operation={}", msg.getKey(), mutationValue.getMd5Digest(), mutationValue.getOperation());
+                mutationCache.addMutationDigest(msg.getKey(), last.digest);
+                sourceContext.recordMetric(QUERY_LATENCY, 0);
+                sourceContext.recordMetric(QUERY_EXECUTORS, queryConcurrency);
+                recordReplicationLatency(last, System.currentTimeMillis());
+                last.keyValue.complete(new KeyValue(msg.getKeyBytes(), null));
+                return queued;
+            }
+
+            List<Object> nonNullPkValues = pk.stream().filter(e -> e != null).collect(Collectors.toList());
+            if (mutationValue.getPayload() != null) {
+                // the mutation wrote all the columns, publish its values without reading the row back.
+                log.debug("Publishing payload key={} md5={} pk={}", msg.getKey(), mutationValue.getMd5Digest(), nonNullPkValues);
+                Row row = cassandraClient.buildRow(getSelectStatement(converterAndQueryFinal, nonNullPkValues.size()), mutationValue.getPayload());
+                Object value = converterAndQueryFinal.getConverter().toConnectData(row);
+                mutationCache.addMutationDigest(msg.getKey(), last.digest);
+                sourceContext.recordMetric(QUERY_LATENCY, 0);
+                sourceContext.recordMetric(QUERY_EXECUTORS, queryConcurrency);
+                recordReplicationLatency(last, System.currentTimeMillis());
+                last.keyValue.complete(new KeyValue(msg.getKeyBytes(), value));
+                return queued;
+            }
+            long start = System.currentTimeMillis();
+            readRow(converterAndQueryFinal,
+                    nonNullPkValues,
+                    mutationValue,
+                    config.getQueryChangedColumnsOnly() ? changedColumns(mutations) : null)
+                    .whenCompleteAsync((tuple, error) -> {
+                        try {
+                            if (error != null) {
+                                mutations.forEach(r -> r.keyValue.completeExceptionally(error));
+                                return;
+                            }
                             CacheStats cacheStats = mutationCache.stats();
                             sourceContext.recordMetric(CACHE_HITS, cacheStats.hitCount());
                             sourceContext.recordMetric(CACHE_MISSES, cacheStats.missCount());
                             sourceContext.recordMetric(CACHE_EVICTIONS, cacheStats.evictionCount());
                             sourceContext.recordMetric(CACHE_SIZE, mutationCache.estimatedSize());
-                            sourceContext.recordMetric(QUERY_LATENCY, 0);
-                            sourceContext.recordMetric(QUERY_EXECUTORS, queryExecutors.size());
-                            if (msg.hasProperty(Constants.WRITETIME))
-                                sourceContext.recordMetric(REPLICATION_LATENCY, System.currentTimeMillis() - (Long.parseLong(msg.getProperty(Constants.WRITETIME)) / 1000L));
-                            return null;
+                            long end = System.currentTimeMillis();
+                            sourceContext.recordMetric(QUERY_LATENCY, end - start);
+                            sourceContext.recordMetric(QUERY_EXECUTORS, queryConcurrency);
+                            batchTotalLatency.addAndGet(end - start);
+                            batchTotalQuery.incrementAndGet();
+                            Object value = tuple._1 == null ? null : converterAndQueryFinal.getConverter().toConnectData(tuple._1);
+                            for (MyKVRecord record : mutations) {
+                                recordReplicationLatency(record, end);
+                                if (ConsistencyLevel.LOCAL_QUORUM.equals(tuple._2()) &&
+                                        (!config.getCacheOnlyIfCoordinatorMatch() || (tuple._3 != null && tuple._3.equals(record.mutationValue.getNodeId())))) {
+                                    log.debug("Caching mutation key={} md5={} pk={}", record.msg.getKey(), record.mutationValue.getMd5Digest(), nonNullPkValues);
+                                    // cache the mutation digest if the coordinator is the source of this event.
+                                    mutationCache.addMutationDigest(record.msg.getKey(), record.digest);
+                                } else {
+                                    log.debug("Not caching mutation key={} md5={} pk={} CL={} coordinator={}",
+                                            record.msg.getKey(), record.mutationValue.getMd5Digest(), nonNullPkValues, tuple._2(), tuple._3());
+                                }
+                            }
+                            for (MyKVRecord record : mutations) {
+                                if (record == last || config.getQueryRecordPerCoalescedEvent()) {
+                                    record.keyValue.complete(new KeyValue(record.msg.getKeyBytes(), value));
+                                } else {
+                                    // the record of the last coalesced event holds the same row
+                                    consumer.acknowledge(record.msg);
+                                    record.keyValue.complete(null);
+                                }
+                            }
+                        } catch (Throwable err) {
+                            mutations.forEach(r -> r.keyValue.completeExceptionally(err));
                         }
+                    }, queryExecutor);
+        } catch (Throwable err) {
+            records.forEach(r -> r.keyValue.completeExceptionally(err));
+        }
+        return queued;
+    }
 
-                        List<Object> nonNullPkValues = pk.stream().filter(e -> e != null).collect(Collectors.toList());
-                        long start = System.currentTimeMillis();
-                        Tuple3<Row, ConsistencyLevel, UUID> tuple = cassandraClient.selectRow(
-                                nonNullPkValues,
-                                mutationValue.getNodeId(),
-                                Lists.newArrayList(ConsistencyLevel.LOCAL_QUORUM, ConsistencyLevel.LOCAL_ONE),
-                                getSelectStatement(converterAndQueryFinal, nonNullPkValues.size()),
-                                mutationValue.getMd5Digest());
-                        CacheStats cacheStats = mutationCache.stats();
-                        sourceContext.recordMetric(CACHE_HITS, cacheStats.hitCount());
-                        sourceContext.recordMetric(CACHE_MISSES, cacheStats.missCount());
-                        sourceContext.recordMetric(CACHE_EVICTIONS, cacheStats.evictionCount());
-                        sourceContext.recordMetric(CACHE_SIZE, mutationCache.estimatedSize());
-                        long end = System.currentTimeMillis();
-                        sourceContext.recordMetric(QUERY_LATENCY, end - start);
-                        sourceContext.recordMetric(QUERY_EXECUTORS, queryExecutors.size());
-                        batchTotalLatency.addAndGet(end - start);
-                        batchTotalQuery.incrementAndGet();
-                        if (msg.hasProperty(Constants.WRITETIME))
-                            sourceContext.recordMetric(REPLICATION_LATENCY, end - (Long.parseLong(msg.getProperty(Constants.WRITETIME)) / 1000L));
-                        Object value = tuple._1 == null ? null : converterAndQueryFinal.getConverter().toConnectData(tuple._1);
-                        if (ConsistencyLevel.LOCAL_QUORUM.equals(tuple._2()) &&
-                                (!config.getCacheOnlyIfCoordinatorMatch() || (tuple._3 != null && tuple._3.equals(mutationValue.getNodeId())))) {
-                            log.debug("Caching mutation key={} md5={} pk={}", msg.getKey(), mutationValue.getMd5Digest(), nonNullPkValues);
-                            // cache the mutation digest if the coordinator is the source of this event.
-                            mutationCache.addMutationMd5(msg.getKey(), mutationValue.getMd5Digest());
-                        } else {
-                            log.debug("Not caching mutation key={} md5={} pk={} CL={} coordinator={}",
-                                    msg.getKey(), mutationValue.getMd5Digest(), nonNullPkValues, tuple._2(), tuple._3());
-                        }
-                        queryResult.complete(new KeyValue(msg.getKeyBytes(), value));
-                    } catch (Throwable err) {
-                        queryResult.completeExceptionally(err);
-                    }
-                    return null;
-                });
-                final MyKVRecord record = new MyKVRecord(converterAndQueryFinal, queryResult, msg);
-                newRecords.add(record);
-            }
-            Preconditions.checkState(!newRecords.isEmpty(), "Buffer cannot be empty here");
-            List<MyKVRecord> usefulRecords = new ArrayList<>(newRecords.size());
-            int cacheHits = 0;
-            long start = System.currentTimeMillis();
-            // wait for all queries to complete
-            for (MyKVRecord record : newRecords) {
-                KeyValue res = record.keyValue.join();
-                if (res != null) {
-                    // if the result is "null" the mutation has been discarded
-                    usefulRecords.add(record);
-                } else {
-                    cacheHits++;
-                }
+    /**
+     * Read the row of a primary key. When query.groupPartitionReads is enabled and the primary key has clustering columns,
+     * the read is grouped with the concurrent reads of the other rows of the same partition.
+     * @param converterAndQuery the converter and query of the mutation
+     * @param pkValues the non-null primary key values
+     * @param mutationValue the mutation providing the coordinator and digest
+     * @param columns the mutated columns, or null to read all columns
+     * @return the row, the consistency level and the coordinator host id
+     */
+    private CompletionStage<Tuple3<Row, ConsistencyLevel, UUID>> readRow(ConverterAndQuery converterAndQuery,
+                                                                        List<Object> pkValues,
+                                                                        MutationValue mutationValue,
+                                                                        String[] columns) {
+        final PreparedStatement rowStatement = getSelectStatement(converterAndQuery, pkValues.size(), columns);
+        final PartitionReadBatcher<Tuple4<PreparedStatement, PreparedStatement, List<Object>, UUID>, Object, Tuple3<Map<Object, Row>, ConsistencyLevel, UUID>> batcher = this.partitionReads;
+        if (batcher != null
+                && pkValues.size() == converterAndQuery.primaryKeyClause.length
+                && pkValues.size() > partitionKeyLength) {
+            PreparedStatement rowsStatement = null;
+            try {
+                rowsStatement = getSelectRowsStatement(converterAndQuery, columns);
+            } catch (Exception e) {
+                log.warn("Cannot prepare the multi-row query of table {}.{}, reading rows one by one:",
+                        converterAndQuery.keyspaceName, converterAndQuery.tableName, e);
+                this.partitionReads = null;
             }
-            long duration = System.currentTimeMillis() - start;
-            long throughput = duration > 0 ? (1000L * newRecords.size()) / duration : 0;
-            log.debug("Query time for {} msg in {} ms throughput={} msg/s cacheHits={}", newRecords.size(), duration, throughput, cacheHits);
-            if (batchTotalQuery.get() > 0) {
-                adjustExecutors();
+            if (rowsStatement != null) {
+                final Object lastValue = pkValues.get(pkValues.size() - 1);
+                final List<Object> prefixValues = new ArrayList<>(pkValues.subList(0, pkValues.size() - 1));
+                log.debug("Grouping md5Digest={} pk={}", mutationValue.getMd5Digest(), pkValues);
+                return batcher.read(new Tuple4<>(rowsStatement, rowStatement, prefixValues, mutationValue.getNodeId()), lastValue)
+                        .thenApply(tuple -> new Tuple3<>(tuple._1.get(lastValue), tuple._2, tuple._3));
             }
-            consecutiveUnavailableException = 0;
-            return usefulRecords;
+        }
+        return cassandraClient.selectRowAsync(
+                pkValues,
+                mutationValue.getNodeId(),
+                Lists.newArrayList(ConsistencyLevel.LOCAL_QUORUM, ConsistencyLevel.LOCAL_ONE),
+                rowStatement,
+                mutationValue.getMd5Digest());
+    }
+
+    private void recordReplicationLatency(MyKVRecord record, long nowMs) {
+        if (record.writetime != null)
+            sourceContext.recordMetric(REPLICATION_LATENCY, nowMs - (record.writetime / 1000L));
+    }
+
+    /**
+     * @return the columns changed by the coalesced mutations, or null if a mutation does not provide them.
+     */
+    static String[] changedColumns(List<MyKVRecord> mutations) {
+        if (mutations.size() == 1)
+            return mutations.get(0).mutationValue.getColumns();
+        Set<String> columns = new LinkedHashSet<>();
+        for (MyKVRecord record : mutations) {
+            if (record.mutationValue.getColumns() == null)
+                return null;
+            columns.addAll(Arrays.asList(record.mutationValue.getColumns()));
+        }
+        return columns.toArray(new String[0]);
+    }
+
+    /**
+     * Handle a completed read, the failed reads are negatively acknowledged.
+     * @return true if the record must be emitted, false if the mutation is a duplicate or the read failed.
+     */
+    private boolean completeRead(MyKVRecord record) throws Exception {
+        final KeyValue<Object, Object> result;
+        try {
+            result = record.keyValue.join();
         } catch (CompletionException e) {
             Throwable e2 = e.getCause();
             if (e2 instanceof ExecutionException) {
                 e2 = e2.getCause();
             }
             log.info("CompletionException cause:", e2);
+            negativeAcknowledge(consumer, record.getMsg());
 
-            if (e2 instanceof com.datastax.oss.driver.api.core.servererrors.ReadTimeoutException ||
-                    e2 instanceof com.datastax.oss.driver.api.core.servererrors.OverloadedException) {
-                decreaseExecutors(e2);
-            } else if (e2 instanceof com.datastax.oss.driver.api.core.AllNodesFailedException) {
-                // just retry
-            } else {
+            if (!(e2 instanceof com.datastax.oss.driver.api.core.servererrors.ReadTimeoutException ||
+                    e2 instanceof com.datastax.oss.driver.api.core.servererrors.OverloadedException ||
+                    e2 instanceof com.datastax.oss.driver.api.core.AllNodesFailedException)) {
                 log.warn("Unexpected exception class=" + e.getClass() + " message=" + e.getMessage() + " cause={}" + e.getCause(), e);
                 throw e;
             }
-
-            for (MyKVRecord record : newRecords) {
-                negativeAcknowledge(consumer, record.getMsg()); // fail every message in the buffer
-            }
-            backoffRetry(e2);
-            return Collections.emptyList();
-        } catch(com.datastax.oss.driver.api.core.AllNodesFailedException e) {
-            log.info("AllNodesFailedException:", e);
-            for (MyKVRecord record : newRecords) {
-                negativeAcknowledge(consumer, record.getMsg()); // fail every message in the buffer
+            // the reads started during the last backoff probably failed for the same reason
+            if (record.startMs >= backoffEndMs) {
+                if (!(e2 instanceof com.datastax.oss.driver.api.core.AllNodesFailedException)) {
+                    decreaseQueryConcurrency(e2);
+                }
+                backoffRetry(e2);
+                backoffEndMs = System.currentTimeMillis();
             }
-            backoffRetry(e);
-            return Collections.emptyList();
-        } catch(Throwable e) {
-            log.error("Unrecoverable error:", e);
-            for (MyKVRecord record : newRecords) {
-                negativeAcknowledge(consumer, record.getMsg());
+            return false;
+        }
+        consecutiveUnavailableException = 0;
+        if (++windowRecords >= this.config.getBatchSize()) {
+            if (batchTotalQuery.get() > 0) {
+                adjustQueryConcurrency();
             }
-            throw e;
+            windowRecords = 0;
+            batchTotalLatency.set(0);
+            batchTotalQuery.set(0);
+        }
+        // if the result is "null" the mutation has been discarded
+        return result != null;
+    }
+
+    /**
+     * @return the mutation writetime in microseconds, read from the message value when the agent sends compact metadata,
+     * or parsed from the legacy message property, null if unavailable.
+     */
+    static Long writetime(Message<?> msg, MutationValue mutationValue) {
+        if (mutationValue.getWritetime() != null)
+            return mutationValue.getWritetime();
+        return msg.hasProperty(Constants.WRITETIME)
+                ? Long.parseLong(msg.getProperty(Constants.WRITETIME))
+                : null;
+    }
+
+    /**
+     * Decode the primary key of an event sent to a topic shared by several tables.
+     * @return the primary key, or null if the key was not encoded with the primary key schema of the connector table.
+     */
+    org.apache.avro.generic.GenericRecord decodeMutationKey(Message<?> msg) throws IOException {
+        final MutationKeyDecoder decoder = this.mutationKeyDecoder;
+        String fingerprint = msg.getProperty(Constants.KEY_SCHEMA_FINGERPRINT);
+        if (!decoder.fingerprint.equals(fingerprint)) {
+            log.warn("Skipping message msgId={}, the primary key schema fingerprint={} of table {} does not match the connector fingerprint={}",
+                    msg.getMessageId(), fingerprint, tableKey, decoder.fingerprint);
+            return null;
+        }
+        return decoder.reader.read(null, DecoderFactory.get().binaryDecoder(msg.getKeyBytes(), null));
+    }
+
+    /**
+     * Primary key AVRO reader and the fingerprint of its schema, updated together on table schema changes.
+     */
+    static class MutationKeyDecoder {
+        final String fingerprint;
+        final GenericDatumReader<org.apache.avro.generic.GenericRecord> reader;
+
+        MutationKeyDecoder(org.apache.avro.Schema schema) {
+            this.fingerprint = KeySchemaFingerprint.of(schema);
+            this.reader = new GenericDatumReader<>(schema);
         }
     }
 
@@ -629,9 +1033,17 @@ public class CassandraSource implements Source<GenericRecord>, SchemaChangeListe
 
     }
 
+    @SneakyThrows
     @Override
     public void onTableCreated(@NonNull TableMetadata table) {
-
+        log.debug("onTableCreated {}", table);
+        if (table.getKeyspace().asInternal().equals(config.getKeyspaceName())
+                && table.getName().asInternal().equals(config.getTableName())) {
+            // the table may have been re-created with another primary key
+            KeyspaceMetadata ksm = cassandraClient.getCqlSession().getMetadata().getKeyspace(table.getKeyspace()).get();
+            setKeyConverters(ksm, table);
+            setValueConverterAndQuery(ksm, table);
+        }
     }
 
     @Override
@@ -646,6 +1058,7 @@ public class CassandraSource implements Source<GenericRecord>, SchemaChangeListe
         if (current.getKeyspace().asInternal().equals(config.getKeyspaceName())
                 && current.getName().asInternal().equals(config.getTableName())) {
             KeyspaceMetadata ksm = cassandraClient.getCqlSession().getMetadata().getKeyspace(current.getKeyspace()).get();
+            setKeyConverters(ksm, current);
             setValueConverterAndQuery(ksm, current);
         }
     }
@@ -720,15 +1133,67 @@ public class CassandraSource implements Source<GenericRecord>, SchemaChangeListe
 
     }
 
+    /**
+     * Update events of a primary key sharing a single CQL read, until the read starts.
+     */
+    private class CoalescedRead {
+        private final List<MyKVRecord> records = new ArrayList<>(1);
+        private boolean started = false;
+
+        CoalescedRead(MyKVRecord record) {
+            records.add(record);
+        }
+
+        /**
+         * @return false if the read has started, or if the record was converted with another schema.
+         */
+        synchronized boolean add(MyKVRecord record) {
+            if (started || record.converterAndQueryFinal != records.get(0).converterAndQueryFinal)
+                return false;
+            records.add(record);
+            return true;
+        }
+
+        synchronized List<MyKVRecord> start() {
+            started = true;
+            return records;
+        }
+    }
+
     private class MyKVRecord implements KVRecord {
         private final ConverterAndQuery converterAndQueryFinal;
         private final CompletableFuture<KeyValue<Object, Object>> keyValue;
         private final Message<KeyValue<GenericRecord, MutationValue>> msg;
-
-        public MyKVRecord(ConverterAndQuery converterAndQueryFinal, CompletableFuture<KeyValue<Object, Object>> keyValue, Message<KeyValue<GenericRecord, MutationValue>> msg) {
+        private final Long writetime;
+        private final MutationValue mutationValue;
+        private final byte[] digest;
+        private final long startMs = System.currentTimeMillis();
+        /**
+         * Completed when the record is queued, before the next read of the same key starts.
+         */
+        private final CompletableFuture<Void> queued;
+
+        public MyKVRecord(ConverterAndQuery converterAndQueryFinal, CompletableFuture<KeyValue<Object, Object>> keyValue, Message<KeyValue<GenericRecord, MutationValue>> msg, Long writetime,
+                          MutationValue mutationValue, byte[] digest) {
             this.converterAndQueryFinal = converterAndQueryFinal;
             this.keyValue = keyValue;
             this.msg = msg;
+            this.writetime = writetime;
+            this.mutationValue = mutationValue;
+            this.digest = digest;
+            this.queued = keyValue.handle((kv, t) -> {
+                completedRecords.add(this);
+                readSignal.release();
+                return null;
+            });
+        }
+
+        /**
+         * @return true for an update read back from Cassandra, false for a delete or a mutation with a payload, never coalesced.
+         */
+        boolean isRowRead() {
+            return mutationValue.getPayload() == null
+                    && (mutationValue.getOperation() == null || !mutationValue.getOperation().isDelete());
         }
 
         public Message<KeyValue<GenericRecord, MutationValue>> getMsg() {
@@ -762,8 +1227,10 @@ public class CassandraSource implements Source<GenericRecord>, SchemaChangeListe
 
         @Override
         public Map<String, String> getProperties() {
-            return msg.hasProperty(Constants.WRITETIME)
-                    ? ImmutableMap.of(Constants.WRITETIME, msg.getProperty(Constants.WRITETIME))
+            if (msg.hasProperty(Constants.WRITETIME))
+                return ImmutableMap.of(Constants.WRITETIME, msg.getProperty(Constants.WRITETIME));
+            return writetime != null
+                    ? ImmutableMap.of(Constants.WRITETIME, Long.toString(writetime))
                     : ImmutableMap.of();
         }
     }
@@ -17,11 +17,14 @@ package com.datastax.oss.pulsar.source;
 
 import com.datastax.oss.driver.api.core.CqlIdentifier;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import io.vavr.Tuple2;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.ConcurrentMap;
 
 @Data
@@ -59,7 +62,15 @@ public class ConverterAndQuery {
      */
     final CqlIdentifier[] primaryKeyClause;
 
-    final ConcurrentMap<Integer, PreparedStatement> preparedStatements;
+    /**
+     * Prepared statements by where clause length and mutated columns, null columns for the full projection.
+     */
+    final ConcurrentMap<Tuple2<Integer, List<String>>, PreparedStatement> preparedStatements;
+
+    /**
+     * Multi-row prepared statements restricting the last primary key column with a IN clause, by mutated columns.
+     */
+    final ConcurrentMap<Tuple2<Integer, List<String>>, PreparedStatement> rowsPreparedStatements;
 
     /**
      * When requesting a partition, the projection clause contains only static columns.
@@ -72,4 +83,21 @@ public class ConverterAndQuery {
                 ? projectionClause
                 : staticProjectionClause;
     }
+
+    /**
+     * Restrict the projection clause to the mutated columns.
+     * @param whereClauseLength number of columns in the CQL where clause.
+     * @param columns the mutated column names, or null for all columns.
+     * @return the projection clause restricted to the mutated columns,
+     * or the full projection clause when none of the mutated columns is replicated.
+     */
+    public CqlIdentifier[] getProjectionClause(int whereClauseLength, List<String> columns) {
+        CqlIdentifier[] projection = getProjectionClause(whereClauseLength);
+        if (columns == null)
+            return projection;
+        CqlIdentifier[] mutatedProjection = Arrays.stream(projection)
+                .filter(c -> columns.contains(c.asInternal()))
+                .toArray(CqlIdentifier[]::new);
+        return mutatedProjection.length > 0 ? mutatedProjection : projection;
+    }
 }
@@ -0,0 +1,83 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc;
+
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.type.codec.TypeCodecs;
+import com.datastax.oss.driver.api.core.type.codec.registry.CodecRegistry;
+import com.datastax.oss.driver.internal.core.cql.DefaultColumnDefinitions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static com.datastax.oss.cdc.ValuesRowTests.PROTOCOL_VERSION;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CassandraClientTests {
+
+    static Row row(ColumnDefinitions definitions, String id, int a, String c) {
+        return new ValuesRow(definitions, Arrays.asList(
+                TypeCodecs.TEXT.encode(id, PROTOCOL_VERSION),
+                TypeCodecs.INT.encode(a, PROTOCOL_VERSION),
+                null,
+                TypeCodecs.TEXT.encode(c, PROTOCOL_VERSION)), CodecRegistry.DEFAULT, PROTOCOL_VERSION);
+    }
+
+    // The driver result set is not instantiable outside of a session, the test only needs its paging methods.
+    static AsyncResultSet page(List<Row> rows, AsyncResultSet next) {
+        return (AsyncResultSet) Proxy.newProxyInstance(CassandraClientTests.class.getClassLoader(),
+                new Class<?>[]{AsyncResultSet.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "currentPage":
+                            return rows;
+                        case "hasMorePages":
+                            return next != null;
+                        case "fetchNextPage":
+                            return CompletableFuture.completedFuture(next);
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @Test
+    public final void testCollectRowsOfAllPages() throws Exception {
+        ColumnDefinitions definitions = ValuesRowTests.definitions();
+        ColumnDefinitions rowDefinitions = DefaultColumnDefinitions.valueOf(Arrays.asList(
+                definitions.get(0), definitions.get(1), definitions.get(2)));
+        AsyncResultSet lastPage = page(Arrays.asList(row(definitions, "key1", 3, "c3")), null);
+        AsyncResultSet firstPage = page(Arrays.asList(
+                row(definitions, "key1", 1, "c1"),
+                row(definitions, "key1", 2, "c2")), lastPage);
+
+        Map<Object, Row> rows = CassandraClient.collectRows(firstPage, rowDefinitions, new HashMap<>())
+                .toCompletableFuture().get();
+        assertEquals(3, rows.size());
+        for (int i = 1; i <= 3; i++) {
+            Row row = rows.get("c" + i);
+            assertEquals(3, row.size());
+            assertEquals("key1", row.getString("id"));
+            assertEquals(i, row.getInt("a"));
+        }
+    }
+}
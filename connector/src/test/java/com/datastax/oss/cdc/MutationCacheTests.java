@@ -51,4 +51,23 @@ public class MutationCacheTests {
         assertEquals(false, mutationCache.isMutationProcessed("mutation1","digest1"));
     }
 
+    @Test
+    public final void testLegacyAndBinaryDigests() throws Exception {
+        MutationCache<String> mutationCache = new MutationCache<>(3, 10, Duration.ofHours(1));
+        String md5Hex = "9e107d9d372bb6826bd81d3542a419d6";
+        byte[] md5 = DigestAlgorithm.fromMd5Hex(md5Hex);
+        assertEquals(md5Hex, DigestAlgorithm.toMd5Hex(md5));
+
+        mutationCache.addMutationMd5("mutation1", md5Hex);
+        assertEquals(true, mutationCache.isMutationProcessed("mutation1", md5));
+        assertEquals(true, mutationCache.isMutationProcessed("mutation1", new MutationValue(md5Hex, null, null).taggedDigest()));
+
+        byte[] murmur3 = new byte[17];
+        murmur3[0] = DigestAlgorithm.MURMUR3_128.tag;
+        System.arraycopy(md5, 1, murmur3, 1, 16);
+        assertEquals(false, mutationCache.isMutationProcessed("mutation1", murmur3));
+        mutationCache.addMutationDigest("mutation1", murmur3);
+        assertEquals(true, mutationCache.isMutationProcessed("mutation1", new MutationValue(null, null, null, murmur3).taggedDigest()));
+        assertEquals(2, mutationCache.getMutationCRCs("mutation1").size());
+    }
 }
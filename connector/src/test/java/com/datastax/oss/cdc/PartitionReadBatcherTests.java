@@ -0,0 +1,109 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PartitionReadBatcherTests {
+
+    static class Read {
+        final String partition;
+        final List<Integer> keys;
+        final CompletableFuture<List<Integer>> result = new CompletableFuture<>();
+
+        Read(String partition, List<Integer> keys) {
+            this.partition = partition;
+            this.keys = keys;
+        }
+    }
+
+    final List<Read> reads = new ArrayList<>();
+
+    CompletionStage<List<Integer>> read(String partition, List<Integer> keys) {
+        Read read = new Read(partition, keys);
+        reads.add(read);
+        return read.result;
+    }
+
+    @Test
+    public final void testGroupWhileInflight() throws Exception {
+        PartitionReadBatcher<String, Integer, List<Integer>> batcher = new PartitionReadBatcher<>(10, this::read);
+        CompletionStage<List<Integer>> r1 = batcher.read("p1", 1);
+        CompletionStage<List<Integer>> r2 = batcher.read("p1", 2);
+        CompletionStage<List<Integer>> r3 = batcher.read("p1", 3);
+        CompletionStage<List<Integer>> r4 = batcher.read("p2", 1);
+        assertEquals(2, reads.size());
+        assertEquals(Collections.singletonList(1), reads.get(0).keys);
+        assertEquals("p2", reads.get(1).partition);
+
+        reads.get(0).result.complete(reads.get(0).keys);
+        assertEquals(Collections.singletonList(1), r1.toCompletableFuture().get());
+        assertEquals(3, reads.size());
+        assertEquals("p1", reads.get(2).partition);
+        assertEquals(Arrays.asList(2, 3), reads.get(2).keys);
+
+        reads.get(2).result.complete(reads.get(2).keys);
+        assertEquals(Arrays.asList(2, 3), r2.toCompletableFuture().get());
+        assertEquals(Arrays.asList(2, 3), r3.toCompletableFuture().get());
+        assertEquals(1, batcher.size());
+
+        reads.get(1).result.complete(reads.get(1).keys);
+        assertEquals(Collections.singletonList(1), r4.toCompletableFuture().get());
+        assertEquals(0, batcher.size());
+    }
+
+    @Test
+    public final void testMaxBatchSize() throws Exception {
+        PartitionReadBatcher<String, Integer, List<Integer>> batcher = new PartitionReadBatcher<>(2, this::read);
+        batcher.read("p1", 1);
+        batcher.read("p1", 2);
+        batcher.read("p1", 3);
+        batcher.read("p1", 4);
+        assertEquals(2, reads.size());
+        assertEquals(Arrays.asList(2, 3), reads.get(1).keys);
+
+        reads.get(1).result.complete(reads.get(1).keys);
+        assertEquals(3, reads.size());
+        assertEquals(Collections.singletonList(4), reads.get(2).keys);
+        reads.get(0).result.complete(reads.get(0).keys);
+        reads.get(2).result.complete(reads.get(2).keys);
+        assertEquals(3, reads.size());
+        assertEquals(0, batcher.size());
+    }
+
+    @Test
+    public final void testFailedRead() throws Exception {
+        PartitionReadBatcher<String, Integer, List<Integer>> batcher = new PartitionReadBatcher<>(10, this::read);
+        CompletionStage<List<Integer>> r1 = batcher.read("p1", 1);
+        CompletionStage<List<Integer>> r2 = batcher.read("p1", 2);
+        reads.get(0).result.completeExceptionally(new IllegalStateException("read failed"));
+        assertTrue(r1.toCompletableFuture().isCompletedExceptionally());
+        assertEquals(2, reads.size());
+        reads.get(1).result.complete(reads.get(1).keys);
+        assertEquals(Collections.singletonList(2), r2.toCompletableFuture().get());
+        assertEquals(0, batcher.size());
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.cdc;
+
+import com.datastax.oss.driver.api.core.ProtocolVersion;
+import com.datastax.oss.driver.api.core.cql.ColumnDefinition;
+import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
+import com.datastax.oss.driver.api.core.detach.AttachmentPoint;
+import com.datastax.oss.driver.api.core.type.codec.TypeCodecs;
+import com.datastax.oss.driver.api.core.type.codec.registry.CodecRegistry;
+import com.datastax.oss.driver.api.core.type.reflect.GenericType;
+import com.datastax.oss.driver.internal.core.cql.DefaultColumnDefinition;
+import com.datastax.oss.driver.internal.core.cql.DefaultColumnDefinitions;
+import com.datastax.oss.protocol.internal.ProtocolConstants;
+import com.datastax.oss.protocol.internal.response.result.ColumnSpec;
+import com.datastax.oss.protocol.internal.response.result.RawType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ValuesRowTests {
+
+    static final ProtocolVersion PROTOCOL_VERSION = ProtocolVersion.DEFAULT;
+
+    // Result set definitions are built by the driver, the test builds them from the protocol column specs.
+    static ColumnDefinitions definitions() {
+        List<ColumnDefinition> columns = Arrays.asList(
+                column("id", 0, RawType.PRIMITIVES.get(ProtocolConstants.DataType.VARCHAR)),
+                column("a", 1, RawType.PRIMITIVES.get(ProtocolConstants.DataType.INT)),
+                column("b", 2, new RawType.RawList(RawType.PRIMITIVES.get(ProtocolConstants.DataType.BIGINT))),
+                column("c", 3, RawType.PRIMITIVES.get(ProtocolConstants.DataType.VARCHAR)));
+        return DefaultColumnDefinitions.valueOf(columns);
+    }
+
+    static ColumnDefinition column(String name, int index, RawType type) {
+        return new DefaultColumnDefinition(new ColumnSpec("ks1", "table1", name, index, type), AttachmentPoint.NONE);
+    }
+
+    @Test
+    public final void testPayloadRoundTrip() {
+        Map<String, ByteBuffer> payload = new HashMap<>();
+        payload.put("id", TypeCodecs.TEXT.encode("key1", PROTOCOL_VERSION));
+        payload.put("a", TypeCodecs.INT.encode(42, PROTOCOL_VERSION));
+        payload.put("b", TypeCodecs.listOf(TypeCodecs.BIGINT).encode(Arrays.asList(1L, 2L), PROTOCOL_VERSION));
+
+        ValuesRow row = ValuesRow.fromPayload(definitions(), payload, CodecRegistry.DEFAULT, PROTOCOL_VERSION);
+        assertEquals(4, row.size());
+        assertEquals("key1", row.getString("id"));
+        assertEquals(42, row.getInt("a"));
+        assertEquals(Arrays.asList(1L, 2L), row.get("b", GenericType.listOf(Long.class)));
+        assertEquals(42, row.getObject(1));
+        assertNull(row.getObject("c"));
+        assertNull(row.getBytesUnsafe(3));
+
+        // decoding does not consume the payload buffers
+        assertEquals(42, row.getInt("a"));
+        assertEquals(42, TypeCodecs.INT.decode(payload.get("a"), PROTOCOL_VERSION));
+    }
+
+    @Test
+    public final void testUnknownColumn() {
+        ValuesRow row = ValuesRow.fromPayload(definitions(), new HashMap<>(), CodecRegistry.DEFAULT, PROTOCOL_VERSION);
+        assertThrows(IllegalArgumentException.class, () -> row.getObject("d"));
+        assertThrows(IllegalArgumentException.class, () -> new ValuesRow(definitions(), Arrays.asList((ByteBuffer) null), CodecRegistry.DEFAULT, PROTOCOL_VERSION));
+    }
+}
@@ -0,0 +1,652 @@
+/**
+ * Copyright DataStax, Inc 2021.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.pulsar.source;
+
+import com.datastax.oss.cdc.CassandraClient;
+import com.datastax.oss.cdc.CassandraSourceConnectorConfig;
+import com.datastax.oss.cdc.Constants;
+import com.datastax.oss.cdc.MutationCache;
+import com.datastax.oss.cdc.MutationOperation;
+import com.datastax.oss.cdc.MutationValue;
+import com.datastax.oss.driver.api.core.ConsistencyLevel;
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.servererrors.ReadTimeoutException;
+import io.vavr.Tuple2;
+import io.vavr.Tuple3;
+import org.apache.avro.SchemaBuilder;
+import org.apache.pulsar.client.api.Consumer;
+import org.apache.pulsar.client.api.Message;
+import org.apache.pulsar.client.api.Schema;
+import org.apache.pulsar.client.api.schema.GenericRecord;
+import org.apache.pulsar.common.schema.KeyValue;
+import org.apache.pulsar.functions.api.Record;
+import org.apache.pulsar.io.core.SourceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Read pipeline of the source, with the events consumer and the CQL reads replaced by in-memory fakes.
+ */
+public class CassandraSourceTests {
+
+    /**
+     * A CQL read of the fake client, completed by the test.
+     */
+    static class Read {
+        final Object key;
+        final CompletableFuture<Tuple3<Row, ConsistencyLevel, UUID>> result = new CompletableFuture<>();
+
+        Read(Object key) {
+            this.key = key;
+        }
+
+        void complete(String value) {
+            result.complete(new Tuple3<>(row(value), ConsistencyLevel.LOCAL_QUORUM, null));
+        }
+
+        void completeNotFound() {
+            result.complete(new Tuple3<>(null, ConsistencyLevel.LOCAL_QUORUM, null));
+        }
+    }
+
+    static class FakeCassandraClient extends CassandraClient {
+        final BlockingQueue<Read> reads = new LinkedBlockingQueue<>();
+
+        FakeCassandraClient() {
+            super((CqlSession) null);
+        }
+
+        @Override
+        public PreparedStatement prepareSelect(String keyspaceName, String tableName, CqlIdentifier[] projection, CqlIdentifier[] pk, int pkLength) {
+            return null;
+        }
+
+        @Override
+        public CompletionStage<Tuple3<Row, ConsistencyLevel, UUID>> selectRowAsync(List<Object> pkValues, UUID nodeId,
+                                                                                   List<ConsistencyLevel> consistencyLevels,
+                                                                                   PreparedStatement preparedStatement,
+                                                                                   String md5Digest) {
+            Read read = new Read(pkValues.get(0));
+            reads.add(read);
+            return read.result;
+        }
+
+        @Override
+        public Row buildRow(PreparedStatement preparedStatement, Map<String, ByteBuffer> payload) {
+            return row(StandardCharsets.UTF_8.decode(payload.get("a").duplicate()).toString());
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Events consumer redelivering the negatively acknowledged messages.
+     */
+    static class FakeConsumer {
+        final Queue<Message<?>> messages = new LinkedList<>();
+        CompletableFuture<Message<?>> pendingReceive = null;
+        final List<Message<?>> acknowledged = new CopyOnWriteArrayList<>();
+        final List<Message<?>> negativelyAcknowledged = new CopyOnWriteArrayList<>();
+
+        synchronized void send(Message<?> msg) {
+            if (pendingReceive != null) {
+                CompletableFuture<Message<?>> receive = pendingReceive;
+                pendingReceive = null;
+                receive.complete(msg);
+            } else {
+                messages.add(msg);
+            }
+        }
+
+        /**
+         * @return true when the sent messages were submitted and the source waits for the next one.
+         */
+        synchronized boolean isIdle() {
+            return messages.isEmpty() && pendingReceive != null;
+        }
+
+        synchronized CompletableFuture<Message<?>> receiveAsync() {
+            Message<?> msg = messages.poll();
+            if (msg != null)
+                return CompletableFuture.completedFuture(msg);
+            pendingReceive = new CompletableFuture<>();
+            return pendingReceive;
+        }
+
+        @SuppressWarnings("unchecked")
+        Consumer<KeyValue<GenericRecord, MutationValue>> proxy() {
+            return (Consumer<KeyValue<GenericRecord, MutationValue>>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{Consumer.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "receiveAsync":
+                                return receiveAsync();
+                            case "acknowledge":
+                                acknowledged.add((Message<?>) args[0]);
+                                return null;
+                            case "negativeAcknowledge":
+                                negativelyAcknowledged.add((Message<?>) args[0]);
+                                send((Message<?>) args[0]);
+                                return null;
+                            case "toString":
+                                return "FakeConsumer";
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+    }
+
+    static final AtomicInteger digests = new AtomicInteger(0);
+
+    static Row row(String value) {
+        return (Row) Proxy.newProxyInstance(CassandraSourceTests.class.getClassLoader(),
+                new Class<?>[]{Row.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("toString"))
+                        return value;
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    static Message<KeyValue<GenericRecord, MutationValue>> message(String key, MutationValue mutationValue) {
+        return message(key, mutationValue, Collections.emptyMap());
+    }
+
+    @SuppressWarnings("unchecked")
+    static Message<KeyValue<GenericRecord, MutationValue>> message(String key, MutationValue mutationValue, Map<String, String> properties) {
+        GenericRecord keyRecord = (GenericRecord) Proxy.newProxyInstance(CassandraSourceTests.class.getClassLoader(),
+                new Class<?>[]{GenericRecord.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getNativeObject"))
+                        return key;
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        String name = "msg-" + key + "-" + digests.get();
+        return (Message<KeyValue<GenericRecord, MutationValue>>) Proxy.newProxyInstance(CassandraSourceTests.class.getClassLoader(),
+                new Class<?>[]{Message.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getKey":
+                            return key;
+                        case "getKeyBytes":
+                            return key.getBytes(StandardCharsets.UTF_8);
+                        case "getValue":
+                            return new KeyValue<>(keyRecord, mutationValue);
+                        case "getProperty":
+                            return properties.get((String) args[0]);
+                        case "getProducerName":
+                        case "getMessageId":
+                            return null;
+                        case "hasProperty":
+                            return properties.containsKey((String) args[0]);
+                        case "getReaderSchema":
+                            return Optional.empty();
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return name;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    static MutationValue update() {
+        return mutation(MutationOperation.UPDATE, null);
+    }
+
+    static MutationValue mutation(MutationOperation operation, Map<String, ByteBuffer> payload) {
+        byte[] digest = ByteBuffer.allocate(4).putInt(digests.incrementAndGet()).array();
+        return new MutationValue(null, null, null, digest, null, null, null, operation, payload);
+    }
+
+    final FakeCassandraClient cassandraClient = new FakeCassandraClient();
+    final FakeConsumer consumer = new FakeConsumer();
+    final BlockingQueue<Record<GenericRecord>> records = new LinkedBlockingQueue<>();
+    final AtomicReference<Throwable> readError = new AtomicReference<>();
+    CassandraSource source;
+    ExecutorService readExecutor;
+
+    /**
+     * Start a source reading the fake events consumer in the background, as the Pulsar IO runtime does.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    void startSource(Map<String, String> settings) {
+        Map<String, String> props = new HashMap<>();
+        props.put(CassandraSourceConnectorConfig.KEYSPACE_NAME_CONFIG, "ks1");
+        props.put(CassandraSourceConnectorConfig.TABLE_NAME_CONFIG, "table1");
+        props.put(CassandraSourceConnectorConfig.EVENTS_TOPIC_NAME_CONFIG, "events-ks1.table1");
+        props.put(CassandraSourceConnectorConfig.QUERY_BACKOFF_IN_MS_CONFIG, "1");
+        props.putAll(settings);
+
+        source = new CassandraSource();
+        source.config = new CassandraSourceConnectorConfig(props);
+        source.sourceContext = (SourceContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{SourceContext.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("recordMetric"))
+                        return null;
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        source.consumer = consumer.proxy();
+        source.cassandraClient = cassandraClient;
+        source.tableKey = "ks1.table1";
+        source.partitionKeyLength = 1;
+        source.mutationCache = new MutationCache<>(
+                source.config.getCacheMaxDigests(),
+                source.config.getCacheMaxCapacity(),
+                Duration.ofMillis(source.config.getCacheExpireAfterMs()));
+        source.mutationKeyConverter = new Converter<Object, Object, Object, List<Object>>() {
+            @Override
+            public Schema<Object> getSchema() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Object toConnectData(Object o) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public List<Object> fromConnectData(Object value) {
+                return Collections.singletonList(value);
+            }
+        };
+        Converter valueConverter = new Converter<Object, Object, Row, Object>() {
+            @Override
+            public Schema<Object> getSchema() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Object toConnectData(Row row) {
+                return row.toString();
+            }
+
+            @Override
+            public Object fromConnectData(Object value) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        source.valueConverterAndQuery = new ConverterAndQuery("ks1", "table1", valueConverter,
+                new CqlIdentifier[]{CqlIdentifier.fromInternal("a")},
+                new CqlIdentifier[0],
+                new CqlIdentifier[]{CqlIdentifier.fromInternal("id")},
+                new ConcurrentHashMap<>(),
+                new ConcurrentHashMap<>());
+
+        readExecutor = Executors.newSingleThreadExecutor();
+        readExecutor.submit(() -> {
+            try {
+                while (true)
+                    records.add(source.read());
+            } catch (InterruptedException e) {
+                // stopped
+            } catch (Throwable t) {
+                readError.set(t);
+            }
+        });
+    }
+
+    @AfterEach
+    public void stopSource() throws InterruptedException {
+        if (readExecutor != null) {
+            readExecutor.shutdownNow();
+            readExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        if (source != null)
+            source.close();
+        assertNull(readError.get());
+    }
+
+    Read nextRead() throws InterruptedException {
+        Read read = cassandraClient.reads.poll(10, TimeUnit.SECONDS);
+        assertNotNull(read, "Expecting a CQL read");
+        return read;
+    }
+
+    void assertNoRead() throws InterruptedException {
+        assertNull(cassandraClient.reads.poll(200, TimeUnit.MILLISECONDS), "Unexpected CQL read");
+    }
+
+    /**
+     * @return the key and the value of the next emitted record.
+     */
+    @SuppressWarnings("unchecked")
+    List<Object> nextRecord() throws InterruptedException {
+        Record<GenericRecord> record = records.poll(10, TimeUnit.SECONDS);
+        assertNotNull(record, "Expecting a record");
+        KeyValue<byte[], Object> kv = (KeyValue<byte[], Object>) (Object) record.getValue();
+        return Arrays.asList(new String(kv.getKey(), StandardCharsets.UTF_8), kv.getValue());
+    }
+
+    void assertNoRecord() throws InterruptedException {
+        assertNull(records.poll(200, TimeUnit.MILLISECONDS), "Unexpected record");
+    }
+
+    static Map<String, String> settings(String... keyValues) {
+        Map<String, String> settings = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2)
+            settings.put(keyValues[i], keyValues[i + 1]);
+        return settings;
+    }
+
+    @Test
+    public void testWritetime() {
+        Map<String, String> properties = Collections.singletonMap(Constants.WRITETIME, "1000");
+        MutationValue legacyValue = update();
+        assertEquals(Long.valueOf(1000L), CassandraSource.writetime(message("k1", legacyValue, properties), legacyValue));
+        assertNull(CassandraSource.writetime(message("k1", legacyValue), legacyValue));
+
+        // the compact metadata writetime takes precedence over the message property
+        MutationValue compactValue = new MutationValue(null, null, null, new byte[4], 2000L, 1L, 100, MutationOperation.UPDATE, null);
+        assertEquals(Long.valueOf(2000L), CassandraSource.writetime(message("k1", compactValue), compactValue));
+        assertEquals(Long.valueOf(2000L), CassandraSource.writetime(message("k1", compactValue, properties), compactValue));
+    }
+
+    static CqlIdentifier[] identifiers(String... names) {
+        return Arrays.stream(names).map(CqlIdentifier::fromInternal).toArray(CqlIdentifier[]::new);
+    }
+
+    @Test
+    public void testProjectionClause() {
+        ConverterAndQuery converterAndQuery = new ConverterAndQuery("ks1", "table2", null,
+                identifiers("a", "b", "s"),
+                identifiers("s"),
+                identifiers("id", "ck"),
+                new ConcurrentHashMap<>(),
+                new ConcurrentHashMap<>());
+        // a row is read with its mutated columns
+        assertArrayEquals(identifiers("a"), converterAndQuery.getProjectionClause(2, Collections.singletonList("a")));
+        assertArrayEquals(identifiers("a", "s"), converterAndQuery.getProjectionClause(2, Arrays.asList("s", "a")));
+        // all the columns
+        assertArrayEquals(identifiers("a", "b", "s"), converterAndQuery.getProjectionClause(2, null));
+        // primary key only or not replicated columns, the full projection is read
+        assertArrayEquals(identifiers("a", "b", "s"), converterAndQuery.getProjectionClause(2, Collections.emptyList()));
+        assertArrayEquals(identifiers("a", "b", "s"), converterAndQuery.getProjectionClause(2, Collections.singletonList("c")));
+        // a partition is read with its static columns only
+        assertArrayEquals(identifiers("s"), converterAndQuery.getProjectionClause(1, Arrays.asList("s", "a")));
+        assertArrayEquals(identifiers("s"), converterAndQuery.getProjectionClause(1, Collections.singletonList("a")));
+        assertArrayEquals(identifiers("s"), converterAndQuery.getProjectionClause(1, null));
+    }
+
+    @Test
+    public void testProjectionKeyOverflow() {
+        Map<Tuple2<Integer, List<String>>, PreparedStatement> preparedStatements = new HashMap<>();
+        Map<Tuple2<Integer, List<String>>, PreparedStatement> rowsPreparedStatements = new HashMap<>();
+        for (int i = 0; i < CassandraSource.MAX_PREPARED_PROJECTIONS; i++)
+            preparedStatements.put(CassandraSource.projectionKey(preparedStatements, 2, new String[]{"c" + i}), null);
+        assertEquals(CassandraSource.MAX_PREPARED_PROJECTIONS, preparedStatements.size());
+
+        // beyond the limit, the new projections fall back to the full projection, the cached ones are still used
+        assertEquals(new Tuple2<>(2, null), CassandraSource.projectionKey(preparedStatements, 2, new String[]{"a"}));
+        assertEquals(new Tuple2<>(2, Collections.singletonList("c0")), CassandraSource.projectionKey(preparedStatements, 2, new String[]{"c0"}));
+        assertEquals(new Tuple2<>(2, null), CassandraSource.projectionKey(preparedStatements, 2, null));
+
+        // each cache is bounded by its own size
+        assertEquals(new Tuple2<>(2, Collections.singletonList("a")), CassandraSource.projectionKey(rowsPreparedStatements, 2, new String[]{"a"}));
+    }
+
+    @Test
+    public void testPerKeyOrdering() throws Exception {
+        startSource(settings());
+        consumer.send(message("k1", update()));
+        consumer.send(message("k1", update()));
+        consumer.send(message("k2", update()));
+
+        Read k1First = nextRead();
+        Read k2 = nextRead();
+        assertEquals("k1", k1First.key);
+        assertEquals("k2", k2.key);
+        // the second event of k1 is read after the first one completes
+        assertNoRead();
+
+        k1First.complete("v1");
+        assertEquals(Arrays.asList("k1", "v1"), nextRecord());
+        Read k1Second = nextRead();
+        assertEquals("k1", k1Second.key);
+        k1Second.complete("v2");
+        assertEquals(Arrays.asList("k1", "v2"), nextRecord());
+
+        k2.complete("v1");
+        assertEquals(Arrays.asList("k2", "v1"), nextRecord());
+        assertEquals(3, consumer.acknowledged.size());
+        assertTrue(consumer.negativelyAcknowledged.isEmpty());
+    }
+
+    @Test
+    public void testKeySchemaMismatchIsSkipped() throws Exception {
+        startSource(settings());
+        source.mutationKeyDecoder = new CassandraSource.MutationKeyDecoder(
+                SchemaBuilder.record("pk").fields().requiredInt("id").endRecord());
+        Map<String, String> properties = new HashMap<>();
+        properties.put(Constants.TABLE, "ks1.table1");
+        properties.put(Constants.KEY_SCHEMA_FINGERPRINT, "unknown");
+        Message<?> mismatch = message("k1", update(), properties);
+        consumer.send(mismatch);
+        consumer.send(message("k2", update()));
+
+        // the event of another primary key schema is acknowledged without a read, the next events are processed
+        Read read = nextRead();
+        assertEquals("k2", read.key);
+        read.complete("v1");
+        assertEquals(Arrays.asList("k2", "v1"), nextRecord());
+        assertTrue(consumer.acknowledged.contains(mismatch));
+        assertEquals(1L, source.skippedEvents.get());
+        assertTrue(consumer.negativelyAcknowledged.isEmpty());
+    }
+
+    @Test
+    public void testSlowKeyDoesNotBlockOtherKeys() throws Exception {
+        startSource(settings());
+        consumer.send(message("slow", update()));
+        Read slow = nextRead();
+        consumer.send(message("k1", update()));
+        consumer.send(message("k2", update()));
+
+        Read first = nextRead();
+        Read second = nextRead();
+        second.complete("v2");
+        assertEquals(Arrays.asList(second.key, "v2"), nextRecord());
+        first.complete("v1");
+        assertEquals(Arrays.asList(first.key, "v1"), nextRecord());
+        assertEquals(2, consumer.acknowledged.size());
+
+        slow.complete("v0");
+        assertEquals(Arrays.asList("slow", "v0"), nextRecord());
+        assertEquals(3, consumer.acknowledged.size());
+    }
+
+    @Test
+    public void testFailedReadIsRedelivered() throws Exception {
+        startSource(settings());
+        Message<KeyValue<GenericRecord, MutationValue>> msg = message("k1", update());
+        consumer.send(msg);
+        nextRead().result.completeExceptionally(new ReadTimeoutException(null, ConsistencyLevel.LOCAL_QUORUM, 1, 2, false));
+
+        // negatively acknowledged, redelivered and read again
+        Read retry = nextRead();
+        assertEquals(Collections.singletonList(msg), consumer.negativelyAcknowledged);
+        assertTrue(consumer.acknowledged.isEmpty());
+        retry.complete("v1");
+        assertEquals(Arrays.asList("k1", "v1"), nextRecord());
+        assertEquals(Collections.singletonList(msg), consumer.acknowledged);
+        assertNoRecord();
+    }
+
+    void assertRunningQueries(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (source.runningQueries.get() != expected && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(expected, source.runningQueries.get());
+    }
+
+    @Test
+    public void testQueryConcurrencyBound() throws Exception {
+        startSource(settings(CassandraSourceConnectorConfig.QUERY_EXECUTORS_CONFIG, "2"));
+        for (int k = 0; k < 4; k++)
+            consumer.send(message("k" + k, update()));
+
+        Read first = nextRead();
+        Read second = nextRead();
+        assertNoRead();
+        assertRunningQueries(2);
+
+        // a completed read lets the next waiting read start
+        first.complete("v1");
+        assertEquals(Arrays.asList(first.key, "v1"), nextRecord());
+        Read third = nextRead();
+        assertNoRead();
+        assertRunningQueries(2);
+
+        second.complete("v2");
+        third.complete("v3");
+        nextRead().complete("v4");
+        for (int i = 0; i < 3; i++)
+            nextRecord();
+        assertRunningQueries(0);
+        assertEquals(4, consumer.acknowledged.size());
+    }
+
+    @Test
+    public void testFailedReadReleasesQueryPermit() throws Exception {
+        startSource(settings(CassandraSourceConnectorConfig.QUERY_EXECUTORS_CONFIG, "1"));
+        consumer.send(message("k1", update()));
+        consumer.send(message("k2", update()));
+
+        Read failed = nextRead();
+        assertNoRead();
+        failed.result.completeExceptionally(new ReadTimeoutException(null, ConsistencyLevel.LOCAL_QUORUM, 1, 2, false));
+
+        // the permit of the failed read is released for the waiting read and the redelivered event
+        Read next = nextRead();
+        assertNoRead();
+        next.complete("v");
+        Read last = nextRead();
+        assertNotEquals(next.key, last.key);
+        last.complete("v");
+        nextRecord();
+        nextRecord();
+        assertRunningQueries(0);
+        assertEquals(1, consumer.negativelyAcknowledged.size());
+        assertEquals(2, consumer.acknowledged.size());
+    }
+
+    void awaitConsumed() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!consumer.isIdle() && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertTrue(consumer.isIdle());
+    }
+
+    static Map<String, ByteBuffer> payload(String value) {
+        return Collections.singletonMap("a", ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testCoalescedUpdates() throws Exception {
+        final int numUpdates = 10;
+        startSource(settings(
+                CassandraSourceConnectorConfig.QUERY_COALESCE_EVENTS_CONFIG, "true",
+                CassandraSourceConnectorConfig.QUERY_EXECUTORS_CONFIG, "1"));
+        // hold the only query permit while the updates of k1 are received
+        consumer.send(message("k0", update()));
+        Read k0 = nextRead();
+        for (int i = 0; i < numUpdates; i++)
+            consumer.send(message("k1", update()));
+        awaitConsumed();
+
+        k0.complete("v0");
+        assertEquals(Arrays.asList("k0", "v0"), nextRecord());
+        Read k1 = nextRead();
+        assertEquals("k1", k1.key);
+        k1.complete("v1");
+        assertEquals(Arrays.asList("k1", "v1"), nextRecord());
+        assertNoRead();
+        assertNoRecord();
+        assertEquals(numUpdates + 1, consumer.acknowledged.size());
+    }
+
+    @Test
+    public void testDeletesAndPayloadsNotCoalesced() throws Exception {
+        startSource(settings(
+                CassandraSourceConnectorConfig.QUERY_COALESCE_EVENTS_CONFIG, "true",
+                CassandraSourceConnectorConfig.QUERY_EXECUTORS_CONFIG, "1"));
+        consumer.send(message("k0", update()));
+        Read k0 = nextRead();
+        consumer.send(message("k1", update()));
+        consumer.send(message("k1", mutation(MutationOperation.DELETE_ROW, null)));
+        consumer.send(message("k1", update()));
+        consumer.send(message("k1", mutation(MutationOperation.INSERT, payload("p1"))));
+        consumer.send(message("k1", mutation(MutationOperation.INSERT, payload("p2"))));
+        awaitConsumed();
+
+        k0.complete("v0");
+        assertEquals(Arrays.asList("k0", "v0"), nextRecord());
+        nextRead().complete("v1");
+        assertEquals(Arrays.asList("k1", "v1"), nextRecord());
+        // the delete is read on its own
+        nextRead().completeNotFound();
+        assertEquals(Arrays.asList("k1", null), nextRecord());
+        nextRead().complete("v2");
+        assertEquals(Arrays.asList("k1", "v2"), nextRecord());
+        // each payload is published without a read
+        assertEquals(Arrays.asList("k1", "p1"), nextRecord());
+        assertEquals(Arrays.asList("k1", "p2"), nextRecord());
+        assertNoRead();
+        assertEquals(6, consumer.acknowledged.size());
+    }
+}
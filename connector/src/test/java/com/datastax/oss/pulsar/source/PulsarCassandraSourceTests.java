@@ -21,6 +21,7 @@ import com.datastax.oss.driver.api.core.cql.BatchStatement;
 import com.datastax.oss.driver.api.core.cql.BatchStatementBuilder;
 import com.datastax.oss.driver.api.core.cql.BatchType;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
 import com.datastax.oss.driver.api.core.data.CqlDuration;
 import com.datastax.oss.driver.api.core.data.UdtValue;
 import com.datastax.oss.driver.api.core.type.UserDefinedType;
@@ -66,6 +67,7 @@ import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -174,7 +176,14 @@ public class PulsarCassandraSourceTests {
     void deployConnector(String ksName, String tableName,
                          Class<? extends Converter> keyConverter,
                          Class<? extends Converter> valueConverter) throws IOException, InterruptedException {
-        String config = String.format(Locale.ROOT, "{\"%s\":\"%s\", \"%s\":\"%s\", \"%s\":\"%s\", \"%s\":\"%s\", \"%s\": \"%s\", \"%s\":\"%s\" %s %s }",
+        deployConnector(ksName, tableName, keyConverter, valueConverter, Collections.emptyMap());
+    }
+
+    void deployConnector(String ksName, String tableName,
+                         Class<? extends Converter> keyConverter,
+                         Class<? extends Converter> valueConverter,
+                         Map<String, Object> extraConfig) throws IOException, InterruptedException {
+        String config = String.format(Locale.ROOT, "{\"%s\":\"%s\", \"%s\":\"%s\", \"%s\":\"%s\", \"%s\":\"%s\", \"%s\": \"%s\", \"%s\":\"%s\" %s %s %s }",
                 CassandraSourceConnectorConfig.CONTACT_POINTS_OPT, "cassandra-1",
                 CassandraSourceConnectorConfig.DC_OPT, "datacenter1",
                 CassandraSourceConnectorConfig.KEYSPACE_NAME_CONFIG, ksName,
@@ -182,7 +191,10 @@ public class PulsarCassandraSourceTests {
                 CassandraSourceConnectorConfig.EVENTS_TOPIC_NAME_CONFIG, "persistent://public/default/events-" + ksName + "." + tableName,
                 CassandraSourceConnectorConfig.EVENTS_SUBSCRIPTION_NAME_CONFIG, "sub1",
                 keyConverter == null ? "" : ",\"" + CassandraSourceConnectorConfig.KEY_CONVERTER_CLASS_CONFIG + "\":\"" + keyConverter.getName() + "\"",
-                valueConverter == null ? "" : ",\"" + CassandraSourceConnectorConfig.VALUE_CONVERTER_CLASS_CONFIG + "\":\"" + valueConverter.getName() + "\"");
+                valueConverter == null ? "" : ",\"" + CassandraSourceConnectorConfig.VALUE_CONVERTER_CLASS_CONFIG + "\":\"" + valueConverter.getName() + "\"",
+                extraConfig.entrySet().stream()
+                        .map(e -> ",\"" + e.getKey() + "\":\"" + e.getValue() + "\"")
+                        .collect(Collectors.joining()));
         Container.ExecResult result = pulsarContainer.execInContainer(
                 "/pulsar/bin/pulsar-admin",
                 "source", "create",
@@ -811,6 +823,173 @@ public class PulsarCassandraSourceTests {
         }
     }
 
+    /**
+     * A delete followed by a newer write of the same key must not end with a stale tombstone.
+     */
+    @Test
+    public void testDeleteThenWrite() throws InterruptedException, IOException {
+        final String ksName = "ksdelete";
+        try {
+            try (CqlSession cqlSession = cassandraContainer1.getCqlSession()) {
+                cqlSession.execute("CREATE KEYSPACE IF NOT EXISTS " + ksName +
+                        " WITH replication = {'class':'SimpleStrategy','replication_factor':'2'};");
+                cqlSession.execute("CREATE TABLE IF NOT EXISTS " + ksName + ".table1 (id text PRIMARY KEY, a int) WITH cdc=true");
+            }
+            deployConnector(ksName, "table1", NativeAvroConverter.class, NativeAvroConverter.class);
+            try (CqlSession cqlSession = cassandraContainer1.getCqlSession()) {
+                for (int i = 1; i <= 10; i++) {
+                    cqlSession.execute("INSERT INTO " + ksName + ".table1 (id, a) VALUES('1'," + i + ")");
+                    cqlSession.execute("DELETE FROM " + ksName + ".table1 WHERE id = '1'");
+                }
+                cqlSession.execute("INSERT INTO " + ksName + ".table1 (id, a) VALUES('1',11)");
+            }
+
+            try (PulsarClient pulsarClient = PulsarClient.builder().serviceUrl(pulsarContainer.getPulsarBrokerUrl()).build()) {
+                try (Consumer<GenericRecord> consumer = pulsarClient.newConsumer(org.apache.pulsar.client.api.Schema.AUTO_CONSUME())
+                        .topic(String.format(Locale.ROOT, "data-%s.table1", ksName))
+                        .subscriptionName("sub1")
+                        .subscriptionType(SubscriptionType.Key_Shared)
+                        .subscriptionMode(SubscriptionMode.Durable)
+                        .subscriptionInitialPosition(SubscriptionInitialPosition.Earliest)
+                        .subscribe()) {
+                    Message<GenericRecord> msg;
+                    GenericRecord lastValue = null;
+                    int numMessage = 0;
+                    while ((msg = consumer.receive(60, TimeUnit.SECONDS)) != null) {
+                        numMessage++;
+                        KeyValue<GenericRecord, GenericRecord> kv = (KeyValue<GenericRecord, GenericRecord>) msg.getValue().getNativeObject();
+                        assertEquals("1", kv.getKey().getField("id"));
+                        lastValue = kv.getValue();
+                        consumer.acknowledge(msg);
+                    }
+                    Assert.assertTrue("Expecting messages, check the agent log", numMessage > 0);
+                    Assert.assertNotNull("Stale tombstone after the last write", lastValue);
+                    assertEquals(11, lastValue.getField("a"));
+                }
+            }
+        } finally {
+            dumpFunctionLogs("cassandra-source-" + ksName + "-table1");
+            undeployConnector(ksName, "table1");
+        }
+    }
+
+    /**
+     * Concurrent reads of different keys must emit the records of each key in the mutation order.
+     */
+    @Test
+    public void testPerKeyOrdering() throws InterruptedException, IOException {
+        final String ksName = "ksorder";
+        final int numKeys = 5;
+        final int numUpdates = 20;
+        try {
+            try (CqlSession cqlSession = cassandraContainer1.getCqlSession()) {
+                cqlSession.execute("CREATE KEYSPACE IF NOT EXISTS " + ksName +
+                        " WITH replication = {'class':'SimpleStrategy','replication_factor':'2'};");
+                cqlSession.execute("CREATE TABLE IF NOT EXISTS " + ksName + ".table1 (id text PRIMARY KEY, a int) WITH cdc=true");
+            }
+            deployConnector(ksName, "table1", NativeAvroConverter.class, NativeAvroConverter.class,
+                    Collections.singletonMap("query.executors", 4));
+            try (CqlSession cqlSession = cassandraContainer1.getCqlSession()) {
+                for (int i = 1; i <= numUpdates; i++)
+                    for (int k = 0; k < numKeys; k++)
+                        cqlSession.execute("INSERT INTO " + ksName + ".table1 (id, a) VALUES('" + k + "'," + i + ")");
+            }
+
+            try (PulsarClient pulsarClient = PulsarClient.builder().serviceUrl(pulsarContainer.getPulsarBrokerUrl()).build()) {
+                try (Consumer<GenericRecord> consumer = pulsarClient.newConsumer(org.apache.pulsar.client.api.Schema.AUTO_CONSUME())
+                        .topic(String.format(Locale.ROOT, "data-%s.table1", ksName))
+                        .subscriptionName("sub1")
+                        .subscriptionType(SubscriptionType.Key_Shared)
+                        .subscriptionMode(SubscriptionMode.Durable)
+                        .subscriptionInitialPosition(SubscriptionInitialPosition.Earliest)
+                        .subscribe()) {
+                    Message<GenericRecord> msg;
+                    Map<String, Integer> lastValues = new HashMap<>();
+                    while ((msg = consumer.receive(60, TimeUnit.SECONDS)) != null) {
+                        KeyValue<GenericRecord, GenericRecord> kv = (KeyValue<GenericRecord, GenericRecord>) msg.getValue().getNativeObject();
+                        String id = (String) kv.getKey().getField("id");
+                        int a = (Integer) kv.getValue().getField("a");
+                        Integer previous = lastValues.put(id, a);
+                        Assert.assertTrue("Out of order record for key " + id + ": " + a + " after " + previous,
+                                previous == null || previous <= a);
+                        consumer.acknowledge(msg);
+                    }
+                    assertEquals(numKeys, lastValues.size());
+                    for (int k = 0; k < numKeys; k++)
+                        assertEquals(numUpdates, (int) lastValues.get(Integer.toString(k)));
+                }
+            }
+        } finally {
+            dumpFunctionLogs("cassandra-source-" + ksName + "-table1");
+            undeployConnector(ksName, "table1");
+        }
+    }
+
+    /**
+     * Rows read with a multi-row IN query must be the rows read one by one, and a missing row must produce a delete.
+     */
+    @Test
+    public void testGroupPartitionReads() throws InterruptedException, IOException {
+        final String ksName = "ksgroup";
+        final int numRows = 10;
+        try {
+            try (CqlSession cqlSession = cassandraContainer1.getCqlSession()) {
+                cqlSession.execute("CREATE KEYSPACE IF NOT EXISTS " + ksName +
+                        " WITH replication = {'class':'SimpleStrategy','replication_factor':'2'};");
+                cqlSession.execute("CREATE TABLE IF NOT EXISTS " + ksName + ".table1 (id text, ck int, a int, b text, PRIMARY KEY (id, ck)) WITH cdc=true");
+            }
+            deployConnector(ksName, "table1", NativeAvroConverter.class, NativeAvroConverter.class,
+                    Collections.singletonMap("query.groupPartitionReads", true));
+            try (CqlSession cqlSession = cassandraContainer1.getCqlSession()) {
+                for (int i = 0; i < numRows; i++)
+                    cqlSession.execute("INSERT INTO " + ksName + ".table1 (id, ck, a, b) VALUES('1'," + i + "," + (i * 10) + ",'b" + i + "')");
+                // the events of these rows are read after the rows are deleted
+                cqlSession.execute("DELETE FROM " + ksName + ".table1 WHERE id = '1' AND ck = 3");
+                cqlSession.execute("DELETE FROM " + ksName + ".table1 WHERE id = '1' AND ck = 7");
+            }
+
+            Map<Integer, GenericRecord> lastValues = new HashMap<>();
+            try (PulsarClient pulsarClient = PulsarClient.builder().serviceUrl(pulsarContainer.getPulsarBrokerUrl()).build()) {
+                try (Consumer<GenericRecord> consumer = pulsarClient.newConsumer(org.apache.pulsar.client.api.Schema.AUTO_CONSUME())
+                        .topic(String.format(Locale.ROOT, "data-%s.table1", ksName))
+                        .subscriptionName("sub1")
+                        .subscriptionType(SubscriptionType.Key_Shared)
+                        .subscriptionMode(SubscriptionMode.Durable)
+                        .subscriptionInitialPosition(SubscriptionInitialPosition.Earliest)
+                        .subscribe()) {
+                    Message<GenericRecord> msg;
+                    while ((msg = consumer.receive(60, TimeUnit.SECONDS)) != null) {
+                        KeyValue<GenericRecord, GenericRecord> kv = (KeyValue<GenericRecord, GenericRecord>) msg.getValue().getNativeObject();
+                        assertEquals("1", kv.getKey().getField("id"));
+                        lastValues.put((Integer) kv.getKey().getField("ck"), kv.getValue());
+                        consumer.acknowledge(msg);
+                    }
+                }
+            }
+
+            assertEquals(numRows, lastValues.size());
+            try (CqlSession cqlSession = cassandraContainer1.getCqlSession()) {
+                PreparedStatement select = cqlSession.prepare("SELECT a, b FROM " + ksName + ".table1 WHERE id = '1' AND ck = ?");
+                for (int i = 0; i < numRows; i++) {
+                    Row row = cqlSession.execute(select.bind(i)).one();
+                    GenericRecord value = lastValues.get(i);
+                    if (row == null) {
+                        assertNull(value, "Expecting a delete for the missing row ck=" + i);
+                    } else {
+                        Assert.assertNotNull("Missing value of the row ck=" + i, value);
+                        assertEquals(row.getInt("a"), value.getField("a"));
+                        assertEquals(row.getString("b"), value.getField("b"));
+                    }
+                }
+            }
+            assertNull(lastValues.get(3));
+            assertNull(lastValues.get(7));
+        } finally {
+            dumpFunctionLogs("cassandra-source-" + ksName + "-table1");
+            undeployConnector(ksName, "table1");
+        }
+    }
+
     // docker exec -it pulsar cat /pulsar/logs/functions/public/default/cassandra-source-ks4-table3/cassandra-source-ks1-table4-0.log
     public void testStaticColumn(String ksName,
                                  Class<? extends Converter> keyConverter,